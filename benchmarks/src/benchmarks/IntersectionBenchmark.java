@@ -0,0 +1,132 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import geometries.*;
+import geometries.Intersectable.Boundary;
+import primitives.*;
+
+/**
+ * micro benchmarks of the intersection kernels of the single geometries and of
+ * the box test.<br/>
+ * Every invocation fires the same {@value #RAYS} rays (about half of them hit
+ * the geometry), the result is the time of one ray in ns/op. The boundary check
+ * of {@link Intersectable} is turned off, so only the kernel itself is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntersectionBenchmark {
+	/**
+	 * the number of rays in each invocation
+	 */
+	static final int RAYS = 1024;
+
+	/**
+	 * the geometry to intersect
+	 */
+	@Param({ "sphere", "triangle", "polygon", "cylinder" })
+	public String shape;
+
+	private Geometry geometry;
+	private Boundary boundary;
+	private Ray[] rays;
+	/**
+	 * the value of {@link Intersectable#BVH} before the benchmark
+	 */
+	private boolean bvh;
+
+	/**
+	 * creates the geometry and the rays
+	 */
+	@Setup
+	public void setup() {
+		switch (shape) {
+		case "sphere":
+			geometry = new Sphere(Point3D.ZERO, 1);
+			break;
+		case "triangle":
+			geometry = new Triangle(new Point3D(-1, -1, 0), new Point3D(1, -1, 0), new Point3D(0, 1, 0.5));
+			break;
+		case "polygon":
+			geometry = new Polygon(new Point3D(-1, -1, 0), new Point3D(1, -1, 0), new Point3D(1, 1, 0),
+					new Point3D(-1, 1, 0));
+			break;
+		case "cylinder":
+			geometry = new Cylinder(new Ray(new Point3D(0, -1, 0), Vector.Y), 0.7, 2);
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown shape: " + shape);
+		}
+		rays = Workloads.rays(new Random(1), RAYS, 10, 1.5);
+		// the boundary is created with the first intersection
+		bvh = Intersectable.BVH;
+		Intersectable.BVH = true;
+		geometry.findClosestIntersectionMain(rays[0], Double.POSITIVE_INFINITY);
+		boundary = geometry.getBoundary();
+		Intersectable.BVH = false;
+	}
+
+	/**
+	 * restores the boundary check
+	 */
+	@TearDown
+	public void tearDown() {
+		Intersectable.BVH = bvh;
+	}
+
+	/**
+	 * all the intersections of each ray
+	 *
+	 * @param blackhole consumes the results
+	 */
+	@Benchmark
+	@OperationsPerInvocation(RAYS)
+	public void findGeoIntersections(Blackhole blackhole) {
+		for (Ray ray : rays)
+			blackhole.consume(geometry.findGeoIntersectionsMain(ray, Double.POSITIVE_INFINITY));
+	}
+
+	/**
+	 * the closest intersection of each ray
+	 *
+	 * @param blackhole consumes the results
+	 */
+	@Benchmark
+	@OperationsPerInvocation(RAYS)
+	public void findClosestIntersection(Blackhole blackhole) {
+		for (Ray ray : rays)
+			blackhole.consume(geometry.findClosestIntersectionMain(ray, Double.POSITIVE_INFINITY));
+	}
+
+	/**
+	 * the box test of each ray against the boundary of the geometry
+	 *
+	 * @param blackhole consumes the results
+	 */
+	@Benchmark
+	@OperationsPerInvocation(RAYS)
+	public void boundaryIsIntersect(Blackhole blackhole) {
+		for (Ray ray : rays)
+			blackhole.consume(boundary.isIntersect(ray, Double.POSITIVE_INFINITY));
+	}
+}
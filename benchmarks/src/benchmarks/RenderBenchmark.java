@@ -0,0 +1,100 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import elements.Camera;
+import renderer.BasicRayTracer;
+import renderer.ImageWriter;
+import renderer.Render;
+import scene.Scene;
+import unittests.Snow;
+import unittests.TeapotTest;
+import unittests.bounderyTest;
+
+/**
+ * macro benchmarks that render the scenes of the tests at a fixed resolution.
+ * <br/>
+ * All the images have {@value #PIXELS} pixels (240x240 for the square teapot
+ * and 320x180 for the wide scenes), the result is in primary rays per second
+ * (ops/s), the shadow and the secondary rays are part of the cost of each
+ * primary ray. The image is rendered but not written to a file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class RenderBenchmark {
+	/**
+	 * the number of pixels of each image
+	 */
+	static final int PIXELS = 240 * 240;
+
+	/**
+	 * the scene to render
+	 */
+	@Param({ "teapot", "snow", "boundary" })
+	public String scene;
+	/**
+	 * the number of rendering threads (0 for all the cores)
+	 */
+	@Param({ "1" })
+	public int threads;
+
+	private Render render;
+
+	/**
+	 * creates the scene and builds it's hierarchy
+	 */
+	@Setup
+	public void setup() {
+		Scene s;
+		Camera camera;
+		int nX = 320, nY = 180;
+		switch (scene) {
+		case "teapot":
+			s = TeapotTest.teapotScene();
+			camera = TeapotTest.teapotCamera();
+			nX = nY = 240;
+			break;
+		case "snow":
+			s = Snow.snowScene();
+			camera = Snow.snowCamera();
+			break;
+		case "boundary":
+			s = bounderyTest.boundaryScene();
+			camera = bounderyTest.boundaryCamera();
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown scene: " + scene);
+		}
+		render = new Render() //
+				.setImageWriter(new ImageWriter(scene, nX, nY)) //
+				.setCamera(camera) //
+				.setRayTracer(new BasicRayTracer(s)) //
+				.setMultithreading(threads);
+	}
+
+	/**
+	 * renders the whole image
+	 */
+	@Benchmark
+	@OperationsPerInvocation(PIXELS)
+	public void renderImage() {
+		render.renderImage();
+	}
+}
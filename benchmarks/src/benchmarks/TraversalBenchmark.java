@@ -0,0 +1,108 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import geometries.Geometries;
+import primitives.Ray;
+
+/**
+ * benchmarks of the traversal of the hierarchy of a {@link Geometries} of
+ * random triangles, by the three queries of the ray tracer.<br/>
+ * Every invocation fires the same {@value #RAYS} rays, the result is the time
+ * of one ray in ns/op.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TraversalBenchmark {
+	/**
+	 * the number of rays in each invocation
+	 */
+	static final int RAYS = 1024;
+	/**
+	 * the transmittance that is considered as no light (like the ray tracer)
+	 */
+	private static final double MIN_K = 0.001;
+
+	/**
+	 * the number of triangles
+	 */
+	@Param({ "1000", "10000" })
+	public int size;
+	/**
+	 * the builder of the hierarchy: the default splits or the binned SAH
+	 */
+	@Param({ "default", "sah" })
+	public String builder;
+
+	private Geometries geometries;
+	private Ray[] rays;
+
+	/**
+	 * creates the triangles, builds and compiles their hierarchy
+	 */
+	@Setup
+	public void setup() {
+		Random random = new Random(1);
+		// the same density of triangles for every size
+		double half = 5 * Math.cbrt(size);
+		geometries = Workloads.triangles(random, size, half).setSplitBySAH(builder.equals("sah"));
+		geometries.initConstructHeirarchy();
+		geometries.compile();
+		rays = Workloads.rays(random, RAYS, 3 * half, half);
+	}
+
+	/**
+	 * the closest intersection of each ray
+	 *
+	 * @param blackhole consumes the results
+	 */
+	@Benchmark
+	@OperationsPerInvocation(RAYS)
+	public void closestHit(Blackhole blackhole) {
+		for (Ray ray : rays)
+			blackhole.consume(geometries.findClosestIntersectionMain(ray, Double.POSITIVE_INFINITY));
+	}
+
+	/**
+	 * all the intersections of each ray
+	 *
+	 * @param blackhole consumes the results
+	 */
+	@Benchmark
+	@OperationsPerInvocation(RAYS)
+	public void allHits(Blackhole blackhole) {
+		for (Ray ray : rays)
+			blackhole.consume(geometries.findGeoIntersectionsMain(ray, Double.POSITIVE_INFINITY));
+	}
+
+	/**
+	 * the transmittance along each ray, like a shadow ray
+	 *
+	 * @param blackhole consumes the results
+	 */
+	@Benchmark
+	@OperationsPerInvocation(RAYS)
+	public void transmittance(Blackhole blackhole) {
+		for (Ray ray : rays)
+			blackhole.consume(geometries.findTransmittanceMain(ray, Double.POSITIVE_INFINITY, MIN_K));
+	}
+}
@@ -0,0 +1,70 @@
+package benchmarks;
+
+import java.util.Random;
+
+import geometries.Geometries;
+import geometries.Triangle;
+import primitives.Point3D;
+import primitives.Ray;
+import primitives.Vector;
+
+/**
+ * the fixed inputs of the benchmarks, all of them are made by a seeded random
+ * generator so every run measures the same work
+ */
+final class Workloads {
+
+	/**
+	 * Empty private ctor to hide the public one
+	 */
+	private Workloads() {
+	}
+
+	/**
+	 * creates rays that start on a sphere around the origin and aim at random
+	 * points of a cube around the origin, so part of them hit the objects in the
+	 * cube and part of them miss
+	 *
+	 * @param random the random generator
+	 * @param count  the number of rays
+	 * @param radius the radius of the sphere of the origins
+	 * @param size   half the edge of the cube of the targets
+	 * @return the rays
+	 */
+	static Ray[] rays(Random random, int count, double radius, double size) {
+		Ray[] rays = new Ray[count];
+		for (int i = 0; i < count; i++) {
+			Vector v = new Vector(random.nextGaussian(), random.nextGaussian(), random.nextGaussian());
+			Point3D origin = Point3D.ZERO.add(v.normalize().scale(radius));
+			Point3D target = new Point3D(size * (2 * random.nextDouble() - 1), size * (2 * random.nextDouble() - 1),
+					size * (2 * random.nextDouble() - 1));
+			rays[i] = new Ray(origin, target.subtract(origin));
+		}
+		return rays;
+	}
+
+	/**
+	 * creates small triangles at random places and directions in a cube around the
+	 * origin
+	 *
+	 * @param random the random generator
+	 * @param count  the number of triangles
+	 * @param size   half the edge of the cube
+	 * @return the triangles
+	 */
+	static Geometries triangles(Random random, int count, double size) {
+		Geometries geometries = new Geometries();
+		for (int i = 0; i < count; i++) {
+			Point3D p = new Point3D(size * (2 * random.nextDouble() - 1), size * (2 * random.nextDouble() - 1),
+					size * (2 * random.nextDouble() - 1));
+			Vector u = new Vector(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()).normalize();
+			Vector v = new Vector(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()).normalize();
+			if (Math.abs(u.dotProduct(v)) > 0.99) {
+				i--;
+				continue;
+			}
+			geometries.add(new Triangle(p, p.add(u), p.add(v)));
+		}
+		return geometries;
+	}
+}
@@ -6,6 +6,7 @@ import primitives.Color;
  * represent ambient light of a scene
  */
 public class AmbientLight extends Light {
+	private static final long serialVersionUID = 1L;
 
 	/**
 	 * AmbientLight constructor 
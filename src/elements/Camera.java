@@ -3,6 +3,7 @@
  */
 package elements;
 
+import java.io.Serializable;
 import java.util.List;
 
 import primitives.*;
@@ -11,7 +12,8 @@ import renderer.BlackBoard;
 /**
  * the point of view the scene
  */
-public class Camera {
+public class Camera implements Serializable {
+	private static final long serialVersionUID = 1L;
 
 	private Point3D p0;
 
@@ -102,8 +104,8 @@ public class Camera {
 		bb.setHeight(ry).setWidth(rx);
 		Point3D center = calcCenter(nX, nY, j, i);
 		Ray mainRay = new Ray(p0, center.subtract(p0));
-		// calc distance
-		return mainRay.createBeam(bb, center, vUp, vRight);
+		// the index of the pixel scrambles the points of a low-discrepancy board
+		return mainRay.createBeam(bb, center, vUp, vRight, i * nX + j);
 	}
 
 	/**
@@ -248,4 +250,26 @@ public class Camera {
 		return new Ray(p0, pIJ.subtract(p0)); // create and return the ray
 	}
 
+	/**
+	 * generate the ray that start from the camera and go trough a point in the
+	 * view plane, the point is given in pixels from the top-left corner of the
+	 * view plane (so the corners of the pixel i,j are at j,i and j+1,i+1)
+	 * 
+	 * @param nX number of pixels in the right-left axis
+	 * @param nY number of pixels in the up-down axis
+	 * @param x  the distance of the point from the left edge, in pixels
+	 * @param y  the distance of the point from the top edge, in pixels
+	 * @return a ray from the camera that pass trough the point
+	 */
+	public Ray constructRayThroughPoint(int nX, int nY, double x, double y) {
+		double yi = (nY / 2d - y) * height / nY; // the distance from the center of the view plane in the y axis
+		double xj = (x - nX / 2d) * width / nX; // the distance from the center of the view plane in the x axis
+		Point3D point = p0.add(vTo.scale(dis)); // the center of the view plane
+		if (yi != 0) // to prevent a creation of a zero vector
+			point = point.add(vUp.scale(yi));
+		if (xj != 0) // to prevent a creation of a zero vector
+			point = point.add(vRight.scale(xj));
+		return new Ray(p0, point.subtract(p0));
+	}
+
 }
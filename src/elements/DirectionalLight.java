@@ -11,6 +11,7 @@ import primitives.*;
  * represent light source from infinity
  */
 public class DirectionalLight extends Light implements LightSource{
+	private static final long serialVersionUID = 1L;
 
 	private Vector direction;
 
@@ -3,12 +3,15 @@
  */
 package elements;
 
+import java.io.Serializable;
+
 import primitives.Color;
 
 /**
  * an abstract class of Light
  */
-abstract class Light {
+abstract class Light implements Serializable {
+	private static final long serialVersionUID = 1L;
 	/**
 	 * the intensity of the light
 	 */
@@ -17,6 +17,17 @@ public interface LightSource {
 	 * @return the intensity of the light in the point
 	 */
 	public Color getIntensity(Point3D p);
+
+	/**
+	 * adds the intensity of the light at a given point, scaled by 'k', to a sum of
+	 * colors without creating a color for it
+	 * @param p the point to get it's intensity
+	 * @param k the scale factor of the intensity
+	 * @param color the sum to add the intensity to
+	 */
+	public default void addIntensity(Point3D p, double k, Color.Accumulator color) {
+		color.addScaled(getIntensity(p), k);
+	}
 	/**
 	 * get the normalize vector from the light source to a given point
 	 * @param p the requested point
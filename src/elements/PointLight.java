@@ -9,6 +9,7 @@ import renderer.BlackBoard;
  * represent light source with a narrow range of light
  */
 public class PointLight extends Light implements LightSource {
+	private static final long serialVersionUID = 1L;
 
 	protected Point3D position;
 	protected double radius = 0;
@@ -37,6 +38,13 @@ public class PointLight extends Light implements LightSource {
 		return intensity.reduce(denom);
 	}
 
+	@Override
+	public void addIntensity(Point3D p, double k, Color.Accumulator color) {
+		double dSqr = p.distanceSquared(position);
+		double denom = kC + kL * Math.sqrt(dSqr) + kQ * dSqr;
+		color.addScaled(intensity, k / denom);
+	}
+
 	@Override
 	public Vector getL(Point3D p) {
 		return p.subtract(position).normalize();
@@ -12,6 +12,7 @@ import renderer.BlackBoard;
  * represent light source with a wide range of light
  */
 public class SpotLight extends PointLight implements LightSource {
+	private static final long serialVersionUID = 1L;
 
 	private Vector direction;
 	private double kB = 1;
@@ -38,6 +39,16 @@ public class SpotLight extends PointLight implements LightSource {
 		return super.getIntensity(p).scale(dp);
 	}
 
+	@Override
+	public void addIntensity(Point3D p, double k, Color.Accumulator color) {
+		double dp = Util.alignZero(direction.dotProduct(getL(p)));
+		if (dp <= 0)
+			return;
+		if (kB != 1)
+			dp = Math.pow(dp, kB);
+		super.addIntensity(p, k * dp, color);
+	}
+
 	/**
 	 * set the broadness of the light (kB), if kB less then 1 -> wider light, if kB
 	 * more then 1 -> thiner light
@@ -0,0 +1,268 @@
+package geometries;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A directory of compiled hierarchies ({@link FlatBVH}), so a scene that was
+ * built before is loaded instead of built again.<br/>
+ * The hierarchy depends only on the boundaries of the primitives, their order
+ * and the split settings, so the name of the file is the SHA-256 of them. The
+ * file keeps the nodes of the hierarchy and the indices of it's primitives in
+ * the order of the primitives of the scene (depth first), it's header and size
+ * are checked before the rest of it is read. A file that is missing or can't be
+ * read is built and saved again, through a temporary file of it's own so the
+ * programs that share the directory don't write over each other.
+ */
+public class BVHCache {
+	/**
+	 * "RTBV" in the start of the file
+	 */
+	private static final int MAGIC = 0x52544256;
+	/**
+	 * the version of the file and of the builders, a change of the builders must
+	 * change it
+	 */
+	private static final int VERSION = 1;
+	/**
+	 * the size of the header of the file, before the nodes
+	 */
+	private static final int HEADER = 16;
+
+	private final Path directory;
+
+	private Logger logger = Logger.getLogger("BVHCache");
+
+	/**
+	 * constructs the cache of a directory
+	 *
+	 * @param directory the directory of the files (it is created when the first
+	 *                  hierarchy is saved)
+	 */
+	public BVHCache(Path directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * loads the compiled hierarchy of a Geometries from the cache, or builds,
+	 * compiles and saves it
+	 *
+	 * @param geometries the Geometries before it's hierarchy was built
+	 * @return the compiled hierarchy
+	 */
+	public FlatBVH compile(Geometries geometries) {
+		List<Intersectable> primitives = new LinkedList<>();
+		geometries.collectPrimitives(primitives);
+		Intersectable[] prims = primitives.toArray(new Intersectable[0]);
+		Path file = directory.resolve(key(geometries) + ".bvh");
+		try {
+			FlatBVH bvh = load(file, prims);
+			geometries.setCompiled(bvh);
+			return bvh;
+		} catch (NoSuchFileException e) {
+			// the scene was not built before
+		} catch (IOException e) {
+			logger.log(Level.SEVERE, "I/O error", e);
+		}
+		geometries.initConstructHeirarchy();
+		FlatBVH bvh = geometries.compile();
+		try {
+			save(file, bvh, prims);
+		} catch (IOException e) {
+			logger.log(Level.SEVERE, "I/O error", e);
+		}
+		return bvh;
+	}
+
+	/**
+	 * calculates the key of the hierarchy of a Geometries: the hash of the tree
+	 * of the Geometries (with their split settings) and the boundaries of the
+	 * primitives
+	 *
+	 * @param geometries the Geometries
+	 * @return the hash in hexadecimal
+	 */
+	static String key(Geometries geometries) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not supported", e);
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(VERSION);
+		hash(geometries, digest, buffer);
+		buffer.flip();
+		digest.update(buffer);
+		StringBuilder key = new StringBuilder();
+		for (byte b : digest.digest())
+			key.append(String.format("%02x", b));
+		return key.toString();
+	}
+
+	/**
+	 * adds a subtree to the hash
+	 *
+	 * @param geometries the root of the subtree
+	 * @param digest     the hash
+	 * @param buffer     the bytes that were not added to the hash yet
+	 */
+	private static void hash(Geometries geometries, MessageDigest digest, ByteBuffer buffer) {
+		reserve(digest, buffer, 16);
+		buffer.put((byte) 'G').put((byte) (geometries.splitByVolume ? 1 : 0))
+				.put((byte) (geometries.splitByLongesAxis ? 1 : 0))
+				.put((byte) (geometries.splitByLongestAxisOnce ? 1 : 0)).put((byte) (geometries.splitBySAH ? 1 : 0))
+				.put((byte) (geometries.splitByMorton ? 1 : 0)).put((byte) (geometries.restructureTreelets ? 1 : 0))
+				.putInt(geometries.getComponents().size());
+		for (Intersectable c : geometries.getComponents()) {
+			if (c instanceof Geometries) {
+				hash((Geometries) c, digest, buffer);
+				continue;
+			}
+			Intersectable.Boundary b = c.boundary;
+			reserve(digest, buffer, 50);
+			buffer.put((byte) 'P').put((byte) (c.isInfinite() ? 1 : 0)).putDouble(b.minX).putDouble(b.maxX)
+					.putDouble(b.minY).putDouble(b.maxY).putDouble(b.minZ).putDouble(b.maxZ);
+		}
+		reserve(digest, buffer, 1);
+		buffer.put((byte) 'E');
+	}
+
+	/**
+	 * makes room in the buffer, by adding it's bytes to the hash
+	 *
+	 * @param digest the hash
+	 * @param buffer the bytes that were not added to the hash yet
+	 * @param bytes  the number of the bytes that are needed
+	 */
+	private static void reserve(MessageDigest digest, ByteBuffer buffer, int bytes) {
+		if (buffer.remaining() >= bytes)
+			return;
+		buffer.flip();
+		digest.update(buffer);
+		buffer.clear();
+	}
+
+	/**
+	 * reads a compiled hierarchy
+	 *
+	 * @param file       the file of the hierarchy
+	 * @param primitives the primitives of the scene, by their indices in the file
+	 * @return the hierarchy
+	 * @throws IOException if the file can't be read or it is not of these
+	 *                     primitives
+	 */
+	private static FlatBVH load(Path file, Intersectable[] primitives) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			ByteBuffer in = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+			if (size < HEADER)
+				throw new IOException("The hierarchy file has no header");
+			readFully(channel, in);
+			if (in.getInt() != MAGIC)
+				throw new IOException("Not a hierarchy file");
+			if (in.getInt() != VERSION)
+				throw new IOException("Unsupported hierarchy version");
+			int nodes = in.getInt();
+			int count = in.getInt();
+			if (nodes < 1 || count < 0 || count > primitives.length || size > Integer.MAX_VALUE
+					|| size != HEADER + 60L * nodes + 4L * count)
+				throw new IOException("Wrong hierarchy file size");
+			in = ByteBuffer.allocate((int) size - HEADER).order(ByteOrder.LITTLE_ENDIAN);
+			readFully(channel, in);
+
+			double[] bounds = new double[6 * nodes];
+			in.asDoubleBuffer().get(bounds);
+			in.position(in.position() + 48 * nodes);
+			int[] skip = new int[nodes];
+			int[] primStart = new int[nodes];
+			int[] primCount = new int[nodes];
+			int[] indices = new int[count];
+			for (int[] array : new int[][] { skip, primStart, primCount, indices }) {
+				in.asIntBuffer().get(array);
+				in.position(in.position() + 4 * array.length);
+			}
+
+			Intersectable[] prims = new Intersectable[count];
+			for (int k = 0; k < count; k++) {
+				if (indices[k] < 0 || indices[k] >= primitives.length)
+					throw new IOException("Wrong primitive index in the hierarchy file");
+				prims[k] = primitives[indices[k]];
+			}
+			for (int node = 0; node < nodes; node++)
+				if (skip[node] <= node || skip[node] > nodes || primStart[node] < 0 || primCount[node] < 0
+						|| primStart[node] + primCount[node] > count)
+					throw new IOException("Wrong node in the hierarchy file");
+			return new FlatBVH(bounds, skip, primStart, primCount, prims);
+		}
+	}
+
+	/**
+	 * reads from a file until a buffer is full, and prepares the buffer for
+	 * reading
+	 *
+	 * @param channel the file
+	 * @param buffer  the buffer
+	 * @throws IOException if the file ends before the buffer is full
+	 */
+	private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining())
+			if (channel.read(buffer) < 0)
+				throw new IOException("The hierarchy file is too short");
+		buffer.flip();
+	}
+
+	/**
+	 * writes a compiled hierarchy to a temporary file that replaces the file
+	 * atomically
+	 *
+	 * @param file       the file of the hierarchy
+	 * @param bvh        the hierarchy
+	 * @param primitives the primitives of the scene, by their indices in the file
+	 * @throws IOException if the file can't be written
+	 */
+	private void save(Path file, FlatBVH bvh, Intersectable[] primitives) throws IOException {
+		Map<Intersectable, Integer> indices = new IdentityHashMap<>();
+		for (int k = 0; k < primitives.length; k++)
+			indices.put(primitives[k], k);
+		int nodes = bvh.skip.length;
+		int count = bvh.primitives.length;
+		ByteBuffer out = ByteBuffer.allocate(HEADER + 60 * nodes + 4 * count).order(ByteOrder.LITTLE_ENDIAN);
+		out.putInt(MAGIC).putInt(VERSION).putInt(nodes).putInt(count);
+		for (double v : bvh.bounds)
+			out.putDouble(v);
+		for (int[] array : new int[][] { bvh.skip, bvh.primStart, bvh.primCount })
+			for (int v : array)
+				out.putInt(v);
+		for (Intersectable p : bvh.primitives)
+			out.putInt(indices.get(p));
+		out.flip();
+
+		Files.createDirectories(directory);
+		Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+				while (out.hasRemaining())
+					channel.write(out);
+			}
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+}
@@ -0,0 +1,194 @@
+package geometries;
+
+import java.util.Arrays;
+
+/**
+ * Binned Surface Area Heuristic split of primitives that are given as arrays of
+ * boxes and centroids.<br/>
+ * The boxes are kept 6 values for each primitive as (minX, maxX, minY, maxY,
+ * minZ, maxZ) (like the nodes of {@link FlatBVH}) and the centroids 3 values
+ * for each primitive. The primitives are addressed through an order array that
+ * is partitioned in place.
+ */
+final class BinnedSAH {
+	/**
+	 * the number of bins along each axis
+	 */
+	static final int BINS = 16;
+	/**
+	 * the cost of testing a ray against a box relative to testing a primitive
+	 */
+	static final double TRAVERSAL_COST = 1;
+	/**
+	 * the cost of testing a ray against a primitive
+	 */
+	static final double INTERSECTION_COST = 1.5;
+	/**
+	 * the max number of primitives in one leaf (bigger ranges are always split)
+	 */
+	static final int MAX_LEAF = 8;
+
+	/**
+	 * Empty private ctor to hide the public one
+	 */
+	private BinnedSAH() {
+	}
+
+	/**
+	 * calculates the surface area of a box
+	 *
+	 * @param b    the boxes array
+	 * @param base the index of minX of the box
+	 * @return the surface area of the box
+	 */
+	static double area(double[] b, int base) {
+		double x = b[base + 1] - b[base], y = b[base + 3] - b[base + 2], z = b[base + 5] - b[base + 4];
+		if (x < 0 || y < 0 || z < 0)
+			return 0;
+		return 2 * (x * y + y * z + z * x);
+	}
+
+	/**
+	 * sets box 'to' to an empty box
+	 *
+	 * @param to   the boxes array
+	 * @param base the index of minX of the box
+	 */
+	static void empty(double[] to, int base) {
+		for (int a = 0; a < 6; a += 2) {
+			to[base + a] = Double.POSITIVE_INFINITY;
+			to[base + a + 1] = Double.NEGATIVE_INFINITY;
+		}
+	}
+
+	/**
+	 * grows box 'to' to contain box 'from'
+	 *
+	 * @param to       the array of the growing box
+	 * @param toBase   the index of minX of the growing box
+	 * @param from     the array of the added box
+	 * @param fromBase the index of minX of the added box
+	 */
+	static void grow(double[] to, int toBase, double[] from, int fromBase) {
+		for (int a = 0; a < 6; a += 2) {
+			if (from[fromBase + a] < to[toBase + a])
+				to[toBase + a] = from[fromBase + a];
+			if (from[fromBase + a + 1] > to[toBase + a + 1])
+				to[toBase + a + 1] = from[fromBase + a + 1];
+		}
+	}
+
+	/**
+	 * calculates the box of the primitives order[start..end)
+	 *
+	 * @param boxes the boxes of the primitives
+	 * @param order the order of the primitives
+	 * @param start the first index in the order
+	 * @param end   the index after the last one in the order
+	 * @param to    the array to put the box in
+	 * @param base  the index of minX in 'to'
+	 */
+	static void bounds(double[] boxes, int[] order, int start, int end, double[] to, int base) {
+		empty(to, base);
+		for (int i = start; i < end; i++)
+			grow(to, base, boxes, 6 * order[i]);
+	}
+
+	/**
+	 * partitions order[start..end) by the best binned SAH split
+	 *
+	 * @param boxes     the boxes of the primitives
+	 * @param centroids the centroids of the primitives
+	 * @param order     the order of the primitives, partitioned in place
+	 * @param start     the first index in the order
+	 * @param end       the index after the last one in the order
+	 * @return the index of the first primitive of the right side, or -1 if it is
+	 *         cheaper to keep the primitives in one leaf
+	 */
+	static int split(double[] boxes, double[] centroids, int[] order, int start, int end) {
+		int n = end - start;
+		if (n <= 1)
+			return -1;
+		double[] node = new double[6];
+		bounds(boxes, order, start, end, node, 0);
+		double nodeArea = area(node, 0);
+
+		// the bounds of the centroids choose the bins
+		double[] cMin = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY };
+		double[] cMax = { Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+		for (int i = start; i < end; i++)
+			for (int a = 0; a < 3; a++) {
+				double c = centroids[3 * order[i] + a];
+				if (c < cMin[a])
+					cMin[a] = c;
+				if (c > cMax[a])
+					cMax[a] = c;
+			}
+
+		double bestCost = Double.POSITIVE_INFINITY;
+		int bestAxis = -1, bestBin = -1;
+		int[] counts = new int[BINS];
+		double[] binBoxes = new double[6 * BINS];
+		double[] rightAreas = new double[BINS];
+		double[] acc = new double[6];
+		for (int a = 0; a < 3; a++) {
+			double extent = cMax[a] - cMin[a];
+			if (extent <= 0)
+				continue;
+			double k = BINS * (1 - 1e-9) / extent;
+			Arrays.fill(counts, 0);
+			for (int b = 0; b < BINS; b++)
+				empty(binBoxes, 6 * b);
+			for (int i = start; i < end; i++) {
+				int b = (int) ((centroids[3 * order[i] + a] - cMin[a]) * k);
+				counts[b]++;
+				grow(binBoxes, 6 * b, boxes, 6 * order[i]);
+			}
+			// sweep from the right to find the area of each right side
+			empty(acc, 0);
+			for (int b = BINS - 1; b > 0; b--) {
+				grow(acc, 0, binBoxes, 6 * b);
+				rightAreas[b] = area(acc, 0);
+			}
+			// sweep from the left and evaluate each plane between bins
+			empty(acc, 0);
+			int left = 0;
+			for (int b = 0; b < BINS - 1; b++) {
+				grow(acc, 0, binBoxes, 6 * b);
+				left += counts[b];
+				int right = n - left;
+				if (left == 0 || right == 0)
+					continue;
+				double cost = area(acc, 0) * left + rightAreas[b + 1] * right;
+				if (cost < bestCost) {
+					bestCost = cost;
+					bestAxis = a;
+					bestBin = b;
+				}
+			}
+		}
+
+		if (bestAxis == -1) // all the centroids are at the same point
+			return n <= MAX_LEAF ? -1 : start + n / 2;
+		double splitCost = nodeArea > 0 //
+				? TRAVERSAL_COST + INTERSECTION_COST * bestCost / nodeArea
+				: TRAVERSAL_COST + INTERSECTION_COST * n / 2d;
+		if (n <= MAX_LEAF && splitCost >= INTERSECTION_COST * n)
+			return -1;
+
+		// partition the order by the chosen plane
+		double k = BINS * (1 - 1e-9) / (cMax[bestAxis] - cMin[bestAxis]);
+		int i = start, j = end - 1;
+		while (i <= j) {
+			int b = (int) ((centroids[3 * order[i] + bestAxis] - cMin[bestAxis]) * k);
+			if (b <= bestBin)
+				i++;
+			else {
+				int temp = order[i];
+				order[i] = order[j];
+				order[j--] = temp;
+			}
+		}
+		return i;
+	}
+}
@@ -1,6 +1,5 @@
 package geometries;
 
-import java.util.LinkedList;
 import java.util.List;
 
 import primitives.Point3D;
@@ -14,6 +13,7 @@ import primitives.Vector;
  *
  */
 public class Cylinder extends Tube {
+	private static final long serialVersionUID = 1L;
 
 	private double height;
 
@@ -59,60 +59,97 @@ public class Cylinder extends Tube {
 
 	@Override
 	public List<GeoPoint> findGeoIntersections(Ray ray, double maxDist) {
-		Point3D topPoint = this.axis.getPoint(height);
-		Point3D bottomPoint = this.axis.getOrigin();
-		Vector axisVec = this.axis.getDir();
-		List<GeoPoint> validPoints = new LinkedList<GeoPoint>();
+		// the valid distances, in the order they are found
+		double t1 = 0, t2 = 0;
+		int count = 0;
 
 		// check the intersections with the tube
-		List<GeoPoint> tubePoints = super.findGeoIntersections(ray, maxDist);
-		if (tubePoints != null) {
-			for (GeoPoint gp : tubePoints) {
-				double s1 = Util.alignZero(axisVec.dotProduct(gp.point.subtract(topPoint)));
-				double s2 = Util.alignZero(axisVec.dotProduct(gp.point.subtract(bottomPoint)));
-				if (s1 < 0 && s2 > 0) {
-					gp.geometry = this;
-					validPoints.add(gp);
-				}
+		double t = super.findDistance(ray, maxDist, false);
+		if (t != Double.POSITIVE_INFINITY) {
+			// the height of ray's origin and the change of the height along the ray
+			Point3D o = ray.getOrigin();
+			double h0 = va.x * (o.getX() - p0.x) + va.y * (o.getY() - p0.y) + va.z * (o.getZ() - p0.z);
+			double dh = va.dot(ray.getDir());
+			if (isInside(h0 + t * dh)) {
+				t1 = t;
+				count = 1;
 			}
-			if (validPoints.size() == 2) {
-				return validPoints;
+			t = super.findDistance(ray, maxDist, true);
+			if (t != Double.POSITIVE_INFINITY && isInside(h0 + t * dh)) {
+				if (count++ == 0)
+					t1 = t;
+				else
+					t2 = t;
 			}
 		}
 
-		// check the intersections with the caps
-		double sqrRadius = this.radius * this.radius;
-
-		// the upper cap
-		Plane topPlane = new Plane(topPoint, axisVec);
-		List<GeoPoint> planePoint = topPlane.findGeoIntersections(ray, maxDist);
-		if (planePoint != null) {
-			GeoPoint gp = planePoint.get(0);
-			double s = Util.alignZero(gp.point.subtract(topPoint).lengthSquared());
-			if (s < sqrRadius) {
-				gp.geometry = this;
-				validPoints.add(gp);
-				if (validPoints.size() == 2)
-					return validPoints;
+		// check the intersections with the caps: the upper cap and then the lower cap
+		if (count < 2) {
+			t = findCapDistance(ray, maxDist, p0.x + height * va.x, p0.y + height * va.y, p0.z + height * va.z);
+			if (t != Double.POSITIVE_INFINITY) {
+				if (count++ == 0)
+					t1 = t;
+				else
+					t2 = t;
 			}
 		}
-		// the lower cap
-		Plane bottomPlane = new Plane(bottomPoint, axisVec);
-		planePoint = bottomPlane.findGeoIntersections(ray, maxDist);
-		if (planePoint != null) {
-			GeoPoint p = planePoint.get(0);
-			double s = Util.alignZero(p.point.subtract(bottomPoint).lengthSquared());
-			if (s < sqrRadius) {
-				p.geometry = this;
-				validPoints.add(p);
-				if (validPoints.size() == 2)
-					return validPoints;
+		if (count < 2) {
+			t = findCapDistance(ray, maxDist, p0.x, p0.y, p0.z);
+			if (t != Double.POSITIVE_INFINITY) {
+				if (count++ == 0)
+					t1 = t;
+				else
+					t2 = t;
 			}
 		}
-		if (validPoints.size() > 0) {
-			return validPoints;
+		switch (count) {
+		case 1:
+			return List.of(new GeoPoint(this, ray.getPoint(t1)));
+		case 2:
+			return List.of(new GeoPoint(this, ray.getPoint(t1)), new GeoPoint(this, ray.getPoint(t2)));
+		default:
+			return null;
 		}
-		return null;
+	}
+
+	/**
+	 * check if a height along the axis is between the caps of the cylinder
+	 * 
+	 * @param h the height
+	 * @return true if the height is between the caps
+	 */
+	private boolean isInside(double h) {
+		return Util.alignZero(h - height) < 0 && Util.alignZero(h) > 0;
+	}
+
+	/**
+	 * finds the distance along the ray to the intersection point with a cap of the
+	 * cylinder, without allocations
+	 * 
+	 * @param ray     the ray
+	 * @param maxDist the max distance to look for an intersection
+	 * @param cx      the x value of the center of the cap
+	 * @param cy      the y value of the center of the cap
+	 * @param cz      the z value of the center of the cap
+	 * @return the distance to the intersection point, or positive infinity if the
+	 *         ray misses the cap up to 'maxDist'
+	 */
+	private double findCapDistance(Ray ray, double maxDist, double cx, double cy, double cz) {
+		Point3D o = ray.getOrigin();
+		Vector d = ray.getDir();
+		double ux = cx - o.getX(), uy = cy - o.getY(), uz = cz - o.getZ();
+		// if the ray start at the center of the cap
+		if (Util.isZero(ux) && Util.isZero(uy) && Util.isZero(uz))
+			return Double.POSITIVE_INFINITY;
+		double denom = va.dot(d);
+		if (Util.isZero(denom))
+			return Double.POSITIVE_INFINITY;
+		double t = Util.alignZero((va.x * ux + va.y * uy + va.z * uz) / denom);
+		if (t <= 0 || Util.alignZero(t - maxDist) >= 0)
+			return Double.POSITIVE_INFINITY;
+		// the vector from the center of the cap to the intersection point
+		double wx = d.getX() * t - ux, wy = d.getY() * t - uy, wz = d.getZ() * t - uz;
+		return Util.alignZero(wx * wx + wy * wy + wz * wz) < radius * radius ? t : Double.POSITIVE_INFINITY;
 	}
 
 	/**
@@ -0,0 +1,355 @@
+package geometries;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import geometries.Intersectable.Boundary;
+import geometries.Intersectable.GeoPoint;
+import primitives.Ray;
+
+/**
+ * A linearized bounding volume hierarchy that is compiled from a finished
+ * {@link Geometries} tree. It's structure is immutable, only the bounds of the
+ * nodes are updated when the tree is refitted.<br/>
+ * The nodes are kept in depth-first order: the first child of a node is the
+ * node right after it, and skip[i] is the index after the whole subtree of
+ * node i (the next sibling of i). The bounds of node i are in
+ * bounds[6i..6i+5] as (minX, maxX, minY, maxY, minZ, maxZ) and its own
+ * primitives are primitives[primStart[i]..primStart[i]+primCount[i]).
+ * The traversal is an iterative loop over an int stack - no recursion and no
+ * walking through linked lists.
+ */
+public final class FlatBVH implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * the bounds of the nodes, 6 values for each node
+	 */
+	final double[] bounds;
+	/**
+	 * the index after the subtree of each node
+	 */
+	final int[] skip;
+	/**
+	 * the index of the first primitive of each node
+	 */
+	final int[] primStart;
+	/**
+	 * the number of primitives of each node
+	 */
+	final int[] primCount;
+	/**
+	 * the leaf primitives in depth-first order of their nodes
+	 */
+	final Intersectable[] primitives;
+	/**
+	 * the size of the traversal stack that is enough for this hierarchy
+	 */
+	final int stackSize;
+	/**
+	 * the size of the traversal stack of the closest-hit query, that pushes the
+	 * children from the nearest to the farthest one
+	 */
+	final int closestStackSize;
+
+	/**
+	 * compiles the hierarchy of 'root'
+	 *
+	 * @param root the root of a finished {@link Geometries} tree
+	 */
+	FlatBVH(Geometries root) {
+		Builder builder = new Builder();
+		builder.addNode(root);
+		int n = builder.nodes;
+		bounds = Arrays.copyOf(builder.bounds, 6 * n);
+		skip = Arrays.copyOf(builder.skip, n);
+		primStart = Arrays.copyOf(builder.primStart, n);
+		primCount = Arrays.copyOf(builder.primCount, n);
+		primitives = builder.primitives.toArray(new Intersectable[0]);
+		stackSize = stackNeed(0) + 1;
+		closestStackSize = closestStackNeed(0) + 1;
+	}
+
+	/**
+	 * constructs a hierarchy from it's arrays, e.g. that were read by
+	 * {@link BVHCache}
+	 *
+	 * @param bounds     the bounds of the nodes
+	 * @param skip       the index after the subtree of each node
+	 * @param primStart  the index of the first primitive of each node
+	 * @param primCount  the number of primitives of each node
+	 * @param primitives the leaf primitives in depth-first order of their nodes
+	 */
+	FlatBVH(double[] bounds, int[] skip, int[] primStart, int[] primCount, Intersectable[] primitives) {
+		this.bounds = bounds;
+		this.skip = skip;
+		this.primStart = primStart;
+		this.primCount = primCount;
+		this.primitives = primitives;
+		stackSize = stackNeed(0) + 1;
+		closestStackSize = closestStackNeed(0) + 1;
+	}
+
+	/**
+	 * calculates the size of the stack that is needed to traverse the subtree of a
+	 * node after it was popped
+	 *
+	 * @param node the node index
+	 * @return the maximal number of nodes on the stack during the traversal
+	 */
+	private int stackNeed(int node) {
+		// the children are popped in reverse order, so while the i-th child is
+		// traversed there are still i children on the stack
+		int need = 0, i = 0;
+		for (int c = node + 1; c < skip[node]; c = skip[c], i++)
+			need = Math.max(need, Math.max(i + 1, i + stackNeed(c)));
+		return need;
+	}
+
+	/**
+	 * calculates the size of the stack that is needed to traverse the subtree of a
+	 * node after it was popped, when it's children may be popped in any order
+	 *
+	 * @param node the node index
+	 * @return the maximal number of nodes on the stack during the traversal
+	 */
+	private int closestStackNeed(int node) {
+		// any child may be popped first, while all of it's siblings are still on the
+		// stack
+		int children = 0, need = 0;
+		for (int c = node + 1; c < skip[node]; c = skip[c])
+			children++;
+		for (int c = node + 1; c < skip[node]; c = skip[c])
+			need = Math.max(need, children - 1 + closestStackNeed(c));
+		return Math.max(need, children);
+	}
+
+	/**
+	 * copies the refitted boundaries of the tree that this hierarchy was compiled
+	 * from, the structure of the tree must not have changed
+	 *
+	 * @param root the root of the tree
+	 */
+	void refit(Geometries root) {
+		refit(root, 0);
+	}
+
+	/**
+	 * copies the boundaries of a subtree, in the order of {@link Builder}
+	 *
+	 * @param geometries the root of the subtree
+	 * @param node       the node of the root
+	 * @return the node after the subtree
+	 */
+	private int refit(Geometries geometries, int node) {
+		System.arraycopy(geometries.boundary.bounds, 0, bounds, 6 * node, 6);
+		int next = node + 1;
+		for (Intersectable c : geometries.getComponents())
+			if (c instanceof Geometries)
+				next = refit((Geometries) c, next);
+		return next;
+	}
+
+	/**
+	 * get the number of nodes in the hierarchy
+	 *
+	 * @return the number of nodes
+	 */
+	public int getNodesCount() {
+		return skip.length;
+	}
+
+	/**
+	 * get the number of leaf primitives in the hierarchy
+	 *
+	 * @return the number of primitives
+	 */
+	public int getPrimitivesCount() {
+		return primitives.length;
+	}
+
+	/**
+	 * create a list of {@link GeoPoint} of the intersection points up to the
+	 * distance 'maxDist'
+	 *
+	 * @param ray     the ray to find it's intersection points
+	 * @param maxDist the max distance to look for intersections
+	 * @return a list of {@link GeoPoint} of the intersection points
+	 */
+	List<GeoPoint> findGeoIntersections(Ray ray, double maxDist) {
+		List<GeoPoint> intrsctPnts = null;
+		int[] stack = new int[stackSize];
+		int sp = 0;
+		stack[sp++] = 0;
+		while (sp > 0) {
+			int node = stack[--sp];
+			if (!isIntersect(bounds, 6 * node, ray, maxDist))
+				continue;
+			for (int k = primStart[node], end = k + primCount[node]; k < end; k++) {
+				List<GeoPoint> fi = primitives[k].findGeoIntersectionsMain(ray, maxDist);
+				if (fi != null) {
+					if (intrsctPnts == null)
+						intrsctPnts = new LinkedList<GeoPoint>(fi);
+					else
+						intrsctPnts.addAll(fi);
+				}
+			}
+			for (int c = node + 1; c < skip[node]; c = skip[c])
+				stack[sp++] = c;
+		}
+		return intrsctPnts;
+	}
+
+	/**
+	 * find the closest intersection point up to the distance 'maxDist'. The max
+	 * distance shrinks every time a nearer point is found, and the children of a
+	 * node are visited from the nearest box to the farthest one
+	 *
+	 * @param ray     the ray to find it's closest intersection point
+	 * @param maxDist the max distance to look for an intersection
+	 * @return the {@link GeoPoint} of the closest intersection point, or null if
+	 *         there is none
+	 */
+	GeoPoint findClosestIntersection(Ray ray, double maxDist) {
+		if (!isIntersect(bounds, 0, ray, maxDist))
+			return null;
+		GeoPoint closest = null;
+		int[] stack = new int[closestStackSize];
+		double[] entries = new double[closestStackSize];
+		int sp = 0;
+		stack[sp] = 0;
+		entries[sp++] = Double.NEGATIVE_INFINITY;
+		while (sp > 0) {
+			int node = stack[--sp];
+			// the node was pushed before a nearer point was found
+			if (entries[sp] > maxDist)
+				continue;
+			for (int k = primStart[node], end = k + primCount[node]; k < end; k++) {
+				GeoPoint gp = primitives[k].findClosestIntersectionMain(ray, maxDist);
+				if (gp != null) {
+					closest = gp;
+					maxDist = ray.getOrigin().distance(gp.point);
+				}
+			}
+			// push the children that are hit from the farthest to the nearest one, so
+			// the nearest is popped first
+			int first = sp;
+			for (int c = node + 1; c < skip[node]; c = skip[c]) {
+				double entry = entryDistance(bounds, 6 * c, ray, maxDist);
+				if (entry == Double.POSITIVE_INFINITY)
+					continue;
+				int i = sp++;
+				for (; i > first && entries[i - 1] < entry; i--) {
+					stack[i] = stack[i - 1];
+					entries[i] = entries[i - 1];
+				}
+				stack[i] = c;
+				entries[i] = entry;
+			}
+		}
+		return closest;
+	}
+
+	/**
+	 * find how much light passes along the ray up to the distance 'maxDist'. Any
+	 * intersection is enough, so the nodes are visited in the stack order and the
+	 * traversal stops as soon as the transmittance falls below 'minK'
+	 *
+	 * @param ray     the ray to check the transmittance along
+	 * @param maxDist the max distance to look for an intersection
+	 * @param minK    the transmittance that is considered as no light at all
+	 * @return the transmittance along the ray, 0 if it is less than 'minK'
+	 */
+	double findTransmittance(Ray ray, double maxDist, double minK) {
+		double kT = 1;
+		int[] stack = new int[stackSize];
+		int sp = 0;
+		stack[sp++] = 0;
+		while (sp > 0) {
+			int node = stack[--sp];
+			if (!isIntersect(bounds, 6 * node, ray, maxDist))
+				continue;
+			for (int k = primStart[node], end = k + primCount[node]; k < end; k++) {
+				kT *= primitives[k].findTransmittanceMain(ray, maxDist, minK / kT);
+				if (kT < minK)
+					return 0;
+			}
+			for (int c = node + 1; c < skip[node]; c = skip[c])
+				stack[sp++] = c;
+		}
+		return kT;
+	}
+
+	/**
+	 * finds the distance where the ray enters the box at bounds[base..base+5]
+	 *
+	 * @param bounds  the bounds array
+	 * @param base    the index of minX of the box
+	 * @param ray     the ray
+	 * @param maxDist the max distance for checking the intersection
+	 * @return the distance to the entry point, or positive infinity if the ray
+	 *         misses the box up to 'maxDist'
+	 */
+	static double entryDistance(double[] bounds, int base, Ray ray, double maxDist) {
+		return Boundary.entryDistance(bounds, base, ray, maxDist);
+	}
+
+	/**
+	 * check if the ray intersects the box at bounds[base..base+5], the same test
+	 * as {@link Boundary#isIntersect(Ray, double)} on raw values
+	 *
+	 * @param bounds  the bounds array
+	 * @param base    the index of minX of the box
+	 * @param ray     the ray
+	 * @param maxDist the max distance for checking the intersection
+	 * @return true if there is an intersection otherwise false
+	 */
+	static boolean isIntersect(double[] bounds, int base, Ray ray, double maxDist) {
+		return Boundary.isIntersect(bounds, base, ray, maxDist);
+	}
+
+	/**
+	 * collects the nodes of a {@link Geometries} tree in depth-first order
+	 */
+	private static class Builder {
+		double[] bounds = new double[6 * 16];
+		int[] skip = new int[16];
+		int[] primStart = new int[16];
+		int[] primCount = new int[16];
+		List<Intersectable> primitives = new ArrayList<>();
+		int nodes = 0;
+
+		/**
+		 * adds 'geometries' and all its subtree as nodes
+		 *
+		 * @param geometries the root of the subtree
+		 */
+		void addNode(Geometries geometries) {
+			geometries.initBoundary();
+			int node = nodes++;
+			if (node == skip.length) {
+				bounds = Arrays.copyOf(bounds, 12 * node);
+				skip = Arrays.copyOf(skip, 2 * node);
+				primStart = Arrays.copyOf(primStart, 2 * node);
+				primCount = Arrays.copyOf(primCount, 2 * node);
+			}
+			Boundary b = geometries.boundary;
+			int base = 6 * node;
+			System.arraycopy(b.bounds, 0, bounds, base, 6);
+
+			primStart[node] = primitives.size();
+			for (Intersectable c : geometries.getComponents())
+				if (!(c instanceof Geometries))
+					primitives.add(c);
+			primCount[node] = primitives.size() - primStart[node];
+
+			for (Intersectable c : geometries.getComponents())
+				if (c instanceof Geometries)
+					addNode((Geometries) c);
+			skip[node] = nodes;
+		}
+	}
+}
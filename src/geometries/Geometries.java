@@ -1,15 +1,19 @@
 package geometries;
 
 import java.awt.Component;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.Dictionary;
 import java.util.Hashtable;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.PriorityQueue;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntConsumer;
 
 import primitives.Point3D;
 import primitives.Ray;
@@ -18,6 +22,7 @@ import primitives.Ray;
  * list of Intersectable objects as a composite object
  */
 public class Geometries extends Intersectable{
+	private static final long serialVersionUID = 1L;
 	
 	static final int KNN_ITERATION = 4;
 	/**
@@ -33,6 +38,11 @@ public class Geometries extends Intersectable{
 	 * (relevant only if SPLIT_BY_VOLUME = true)
 	 */
 	static final int MAX_DIFRENCE = 5;
+	/**
+	 * the minimal number of primitives in a build that it's independent subtrees
+	 * are built in parallel
+	 */
+	static final int PARALLEL_BUILD = 4096;
 	
 	
 	/**
@@ -47,8 +57,42 @@ public class Geometries extends Intersectable{
 	 * if true then every iteration the components will be sorted by the longest axis and then split N_SPLITS times
 	 */
 	boolean splitByLongestAxisOnce = false;//26.122
+	/**
+	 * if true then the hierarchy is built by the binned Surface Area Heuristic
+	 * (instead of the volume classes and the longest axis splits)
+	 */
+	boolean splitBySAH = false;
+	/**
+	 * if true then the hierarchy is built as a linear BVH by the Morton codes of
+	 * the centroids (a faster build of a worse hierarchy than the SAH)
+	 */
+	boolean splitByMorton = false;
+	/**
+	 * if true then the treelets of a linear BVH are restructured by the SAH
+	 */
+	boolean restructureTreelets = false;
 	
 	private List<Intersectable> components = new LinkedList<Intersectable>();
+	/**
+	 * the linearized hierarchy of this tree (null until {@link #compile()} is called)
+	 */
+	private FlatBVH compiled = null;
+	/**
+	 * is one of the primitives infinite (null until it is checked), building the
+	 * hierarchy doesn't change it, so a node doesn't check all it's subtree each
+	 * time it's boundary is calculated
+	 */
+	private Boolean infinite = null;
+	/**
+	 * the SAH cost of this subtree, relative to it's own boundary, when it was
+	 * built and after the last refit (see {@link #refit()})
+	 */
+	private double builtCost = Double.NaN, cost = Double.NaN;
+	/**
+	 * the ratio of the refitted cost to the built cost that a subtree is rebuilt
+	 * at
+	 */
+	private double rebuildThreshold = 1.5;
 
 	/**
 	 * Default constructor: initialize the class's components list to be an empty list
@@ -78,6 +122,8 @@ public class Geometries extends Intersectable{
 
 	public void add(List<Intersectable> Intersectables) {
 		this.components.addAll(Intersectables);
+		compiled = null;
+		infinite = null;
 	}
 
 	/**
@@ -88,10 +134,76 @@ public class Geometries extends Intersectable{
 	public void add(Intersectable... geometries) {
 		for (Intersectable intersectable : geometries)
 			components.add(intersectable);
+		compiled = null;
+		infinite = null;
+	}
+
+	/**
+	 * get the components of the Geometries
+	 * 
+	 * @return the components list
+	 */
+	List<Intersectable> getComponents() {
+		return components;
+	}
+
+	/**
+	 * compiles the current hierarchy to an immutable {@link FlatBVH}, the
+	 * intersections of this Geometries are found by it from now on (until the
+	 * tree is changed)
+	 * 
+	 * @return the compiled hierarchy
+	 */
+	public FlatBVH compile() {
+		compiled = new FlatBVH(this);
+		return compiled;
+	}
+
+	/**
+	 * builds and compiles the hierarchy, or loads it from a directory of compiled
+	 * hierarchies if this tree (with the same boundaries and split settings) was
+	 * built before, see {@link BVHCache}. A loaded hierarchy can't be refitted by
+	 * {@link #refit()}, since only the compiled hierarchy is loaded. A tree that
+	 * was already built is not the tree of the scene that was saved, so it's
+	 * hierarchy is only compiled without the cache, and a compiled hierarchy is
+	 * returned as is
+	 * 
+	 * @param directory the directory of the compiled hierarchies
+	 * @return the compiled hierarchy
+	 */
+	public FlatBVH buildCached(Path directory) {
+		if (compiled != null)
+			return compiled;
+		if (!Double.isNaN(builtCost))
+			return compile();
+		return new BVHCache(directory).compile(this);
+	}
+
+	/**
+	 * sets a hierarchy that was compiled from this tree before (e.g. loaded by
+	 * {@link BVHCache}), and the boundary of it's root
+	 * 
+	 * @param compiled the compiled hierarchy
+	 */
+	void setCompiled(FlatBVH compiled) {
+		double[] b = compiled.bounds;
+		boundary = new Boundary(b[1], b[0], b[3], b[2], b[5], b[4]);
+		this.compiled = compiled;
+	}
+
+	/**
+	 * check if the hierarchy is compiled
+	 * 
+	 * @return true if the intersections are found by a {@link FlatBVH}
+	 */
+	boolean isCompiled() {
+		return compiled != null;
 	}
 
 	@Override
 	protected List<GeoPoint> findGeoIntersections(Ray ray, double maxDist) {
+		if (compiled != null)
+			return compiled.findGeoIntersections(ray, maxDist);
 		List<GeoPoint> intrsctPnts = null;
 		for (Intersectable component : components) {
 			List<GeoPoint> fi = component.findGeoIntersectionsMain(ray, maxDist);
@@ -106,20 +218,183 @@ public class Geometries extends Intersectable{
 		return intrsctPnts;
 	}
 	
+	@Override
+	protected GeoPoint findClosestGeoIntersection(Ray ray, double maxDist) {
+		if (compiled != null)
+			return compiled.findClosestIntersection(ray, maxDist);
+		GeoPoint closest = null;
+		for (Intersectable component : components) {
+			GeoPoint gp = component.findClosestIntersectionMain(ray, maxDist);
+			if (gp != null) {
+				// the farther components need to be checked only up to this point
+				closest = gp;
+				maxDist = ray.getOrigin().distance(gp.point);
+			}
+		}
+		return closest;
+	}
+
+	@Override
+	protected double findTransmittance(Ray ray, double maxDist, double minK) {
+		if (compiled != null)
+			return compiled.findTransmittance(ray, maxDist, minK);
+		double kT = 1;
+		for (Intersectable component : components) {
+			// the component has to keep only what is left of the allowed loss
+			kT *= component.findTransmittanceMain(ray, maxDist, minK / kT);
+			if (kT < minK)
+				return 0;
+		}
+		return kT;
+	}
+
 	/**
 	 * Arrange the geometries in of in an efficient hierarchy for ray tracing
 	 */
 	public void initConstructHeirarchy() {
+		construct();
+		builtCost = refitBounds(true);
+	}
+
+	/**
+	 * updates the hierarchy after some of it's primitives were moved (e.g. by
+	 * {@link Instance#setTransform(primitives.Transform)}), for the next frame of
+	 * an animation. The boundaries are refitted bottom-up, and only the subtrees
+	 * whose SAH cost grew beyond the rebuild threshold are built again (by the
+	 * split settings of this Geometries). A compiled hierarchy is compiled again
+	 * 
+	 * @return the number of the subtrees that were built again
+	 */
+	public int refit() {
+		if (Double.isNaN(builtCost))
+			throw new IllegalStateException("The hierarchy was not built");
+		refitBounds(false);
+		int rebuilt = rebuildDegraded(this);
+		if (rebuilt > 0)
+			refitBounds(false);
+		if (compiled != null) {
+			if (rebuilt > 0)
+				compile();
+			else
+				compiled.refit(this);
+		}
+		return rebuilt;
+	}
+
+	/**
+	 * recalculates the boundaries and the SAH costs of this subtree bottom-up
+	 * 
+	 * @param built true if the subtree was just built, to keep it's costs as the
+	 *              built costs
+	 * @return the SAH cost of this subtree relative to it's boundary
+	 */
+	private double refitBounds(boolean built) {
+		double[] costs = new double[components.size()];
+		double maxX = Double.NEGATIVE_INFINITY, minX = Double.POSITIVE_INFINITY,
+				maxY = Double.NEGATIVE_INFINITY, minY = Double.POSITIVE_INFINITY,
+				maxZ = Double.NEGATIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+		boolean whole = false;
+		int k = 0;
+		for (Intersectable c : components) {
+			if (c instanceof Geometries)
+				costs[k] = ((Geometries) c).refitBounds(built);
+			else if (c.boundary == null)
+				c.initBoundary();
+			whole |= c.isInfinite();
+			Boundary b = c.boundary;
+			maxX = b.maxX < maxX ? maxX : b.maxX;
+			minX = b.minX > minX ? minX : b.minX;
+			maxY = b.maxY < maxY ? maxY : b.maxY;
+			minY = b.minY > minY ? minY : b.minY;
+			maxZ = b.maxZ < maxZ ? maxZ : b.maxZ;
+			minZ = b.minZ > minZ ? minZ : b.minZ;
+			k++;
+		}
+		boundary = whole ? new Boundary(Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+				Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY)
+				: new Boundary(maxX, minX, maxY, minY, maxZ, minZ);
+		double area = boundary.area();
+		cost = BinnedSAH.TRAVERSAL_COST;
+		k = 0;
+		for (Intersectable c : components) {
+			if (c instanceof Geometries) {
+				double childArea = c.boundary.area();
+				// an infinite box is always visited
+				double ratio = Double.isFinite(area) && area > 0 && Double.isFinite(childArea) ? childArea / area : 1;
+				cost += costs[k] * ratio;
+			} else
+				cost += BinnedSAH.INTERSECTION_COST;
+			k++;
+		}
+		if (built)
+			builtCost = cost;
+		return cost;
+	}
+
+	/**
+	 * builds again the subtrees that their refitted SAH cost grew beyond the
+	 * threshold of the root, from the top down
+	 * 
+	 * @param root the Geometries that is refitted, with the split settings
+	 * @return the number of the subtrees that were built again
+	 */
+	private int rebuildDegraded(Geometries root) {
+		double area = boundary.area();
+		if (Double.isFinite(area) && area > 0 && cost > root.rebuildThreshold * builtCost) {
+			List<Intersectable> primitives = new LinkedList<>();
+			collectPrimitives(primitives);
+			components = primitives;
+			splitByVolume = root.splitByVolume;
+			splitByLongesAxis = root.splitByLongesAxis;
+			splitByLongestAxisOnce = root.splitByLongestAxisOnce;
+			splitBySAH = root.splitBySAH;
+			splitByMorton = root.splitByMorton;
+			restructureTreelets = root.restructureTreelets;
+			boundary = null;
+			construct();
+			refitBounds(true);
+			return 1;
+		}
+		int rebuilt = 0;
+		for (Intersectable c : components)
+			if (c instanceof Geometries)
+				rebuilt += ((Geometries) c).rebuildDegraded(root);
+		return rebuilt;
+	}
+
+	/**
+	 * adds the primitives of this subtree to a list
+	 * 
+	 * @param primitives the list to add to
+	 */
+	void collectPrimitives(List<Intersectable> primitives) {
+		for (Intersectable c : components)
+			if (c instanceof Geometries)
+				((Geometries) c).collectPrimitives(primitives);
+			else
+				primitives.add(c);
+	}
+
+	/**
+	 * builds the hierarchy of this Geometries and of the Geometries in it
+	 */
+	private void construct() {
+		compiled = null;
 		initBoundary();
+		List<Geometries> nested = new ArrayList<>();
+		int size = 0;
 		for(Intersectable i : components) {
-			if(i instanceof Geometries)
-				((Geometries) i).initConstructHeirarchy();
+			if(i instanceof Geometries) {
+				nested.add((Geometries) i);
+				size += ((Geometries) i).components.size();
+			}
 		}
+		forEach(nested.size(), size, k -> nested.get(k).construct());
 		if (components.size() <= N_SPLITS) {
 			return;
 		}
 		
-		if(splitByVolume) {
+		if(splitByVolume && !splitBySAH && !splitByMorton) {
 			splitByVolume();
 			return;
 		}
@@ -134,8 +409,138 @@ public class Geometries extends Intersectable{
 		}
 
 		this.components = new LinkedList<Intersectable>(List.of(infinit, finite));
-		finite.constructHeirarchy();
+		if (splitBySAH)
+			finite.constructSAH();
+		else if (splitByMorton)
+			finite.constructLinear(restructureTreelets);
+		else
+			finite.constructHeirarchy();
+	}
+	
+	/**
+	 * Arrange the (finite) geometries in a binary hierarchy that is built by the
+	 * binned Surface Area Heuristic
+	 */
+	private void constructSAH() {
+		int n = components.size();
+		if (n <= 1)
+			return;
+		Intersectable[] comps = components.toArray(new Intersectable[n]);
+		double[] boxes = new double[6 * n];
+		double[] centroids = new double[3 * n];
+		int[] order = new int[n];
+		for (int i = 0; i < n; i++) {
+			Boundary b = comps[i].boundary;
+			boxes[6 * i] = b.minX;
+			boxes[6 * i + 1] = b.maxX;
+			boxes[6 * i + 2] = b.minY;
+			boxes[6 * i + 3] = b.maxY;
+			boxes[6 * i + 4] = b.minZ;
+			boxes[6 * i + 5] = b.maxZ;
+			centroids[3 * i] = b.center.getX();
+			centroids[3 * i + 1] = b.center.getY();
+			centroids[3 * i + 2] = b.center.getZ();
+			order[i] = i;
+		}
+		Intersectable root = buildSAH(comps, boxes, centroids, order, 0, n);
+		if (root instanceof Geometries)
+			components = ((Geometries) root).components;
+	}
+	
+	/**
+	 * Arrange the (finite) geometries in a binary hierarchy that is built as a
+	 * linear BVH (see {@link LinearBVH})
+	 * @param restructure true to restructure the treelets of the hierarchy
+	 */
+	private void constructLinear(boolean restructure) {
+		int n = components.size();
+		if (n <= 1)
+			return;
+		Intersectable root = LinearBVH.build(components.toArray(new Intersectable[n]), restructure);
+		if (root instanceof Geometries)
+			components = ((Geometries) root).components;
+	}
+	
+	/**
+	 * builds the SAH subtree of the components comps[order[start..end)]
+	 * @param comps the components
+	 * @param boxes the boxes of the components
+	 * @param centroids the centroids of the components
+	 * @param order the order of the components
+	 * @param start the first index in the order
+	 * @param end the index after the last one in the order
+	 * @return the root of the subtree
+	 */
+	private Intersectable buildSAH(Intersectable[] comps, double[] boxes, double[] centroids, int[] order,
+			int start, int end) {
+		if (end - start == 1)
+			return comps[order[start]];
+		int mid = BinnedSAH.split(boxes, centroids, order, start, end);
+		List<Intersectable> children = new LinkedList<>();
+		if (mid == -1) {
+			for (int i = start; i < end; i++)
+				children.add(comps[order[i]]);
+		} else if (end - start >= PARALLEL_BUILD) {
+			//the halves are independent ranges of 'order', the first one is built by another thread
+			ForkJoinTask<Intersectable> first = ForkJoinTask
+					.adapt(() -> buildSAH(comps, boxes, centroids, order, start, mid)).fork();
+			Intersectable second = buildSAH(comps, boxes, centroids, order, mid, end);
+			children.add(first.join());
+			children.add(second);
+		} else {
+			children.add(buildSAH(comps, boxes, centroids, order, start, mid));
+			children.add(buildSAH(comps, boxes, centroids, order, mid, end));
+		}
+		return new Geometries(children);
+	}
+	
+	/**
+	 * calculates the expected cost of finding the intersections of a random ray
+	 * with the current hierarchy according to the Surface Area Heuristic. a box
+	 * test costs {@link BinnedSAH#TRAVERSAL_COST} and a primitive test costs
+	 * {@link BinnedSAH#INTERSECTION_COST}. Infinite boxes are always visited
+	 * @return the expected cost of the hierarchy
+	 */
+	public double getSAHCost() {
+		initBoundary();
+		double[] finite = new double[6];
+		BinnedSAH.empty(finite, 0);
+		finiteBounds(finite);
+		return sahCost(BinnedSAH.area(finite, 0));
+	}
+	
+	/**
+	 * grows 'acc' to contain all the finite primitives of this tree
+	 * @param acc the box to grow
+	 */
+	private void finiteBounds(double[] acc) {
+		for (Intersectable c : components) {
+			if (c instanceof Geometries)
+				((Geometries) c).finiteBounds(acc);
+			else if (!c.isInfinite()) {
+				Boundary b = c.boundary;
+				BinnedSAH.grow(acc, 0, new double[] { b.minX, b.maxX, b.minY, b.maxY, b.minZ, b.maxZ }, 0);
+			}
 		}
+	}
+	
+	/**
+	 * calculates the SAH cost of this subtree
+	 * @param rootArea the area that the probabilities of visiting a box are relative to
+	 * @return the expected cost of this subtree
+	 */
+	private double sahCost(double rootArea) {
+		double area = boundary.area();
+		double ratio = Double.isInfinite(area) || Double.isNaN(area) || rootArea <= 0 ? 1 : area / rootArea;
+		double cost = BinnedSAH.TRAVERSAL_COST * ratio;
+		for (Intersectable c : components) {
+			if (c instanceof Geometries)
+				cost += ((Geometries) c).sahCost(rootArea);
+			else
+				cost += BinnedSAH.INTERSECTION_COST * ratio;
+		}
+		return cost;
+	}
 	
 	/**
 	 * use the knn algorithm to split 'comps' to k groups
@@ -212,36 +617,36 @@ public class Geometries extends Intersectable{
 	
 	
 	/**
-	 * Arrange the geometries in an efficient hierarchy for ray tracing
+	 * Arrange the geometries in an efficient hierarchy for ray tracing. The
+	 * components are sorted once by their centroids along the longest axis, so
+	 * every group of the splits is a range of the sorted array (a range of a
+	 * sorted array is sorted)
 	 */
 	private void constructHeirarchy() {
-		if (components.size() <= MAX_BRANCH) {
+		int n = components.size();
+		if (n <= MAX_BRANCH) {
 			return;
 		}
-		if(splitByLongestAxisOnce) {
-			//sort the components list according to the longest axis
-			if(boundary.lenX() > boundary.lenY()) {
-				if(boundary.lenX() > boundary.lenZ()) //x is the longest dimension
-					components.sort(Comparator.comparingDouble(a -> a.boundary.center.getX()));
-				else//z is the longest dimension
-					components.sort(Comparator.comparingDouble(a -> a.boundary.center.getZ()));
-			}
-			else {
-				if(boundary.lenY() > boundary.lenZ()) //y is the longest dimension
-					components.sort(Comparator.comparingDouble(a -> a.boundary.center.getY()));
-				else//z is the longest dimension
-					components.sort(Comparator.comparingDouble(a -> a.boundary.center.getZ()));
-			}
-		}
+		Intersectable[] comps = components.toArray(new Intersectable[n]);
+		if(splitByLongestAxisOnce)
+			sortByAxis(comps, longestAxis(boundary));
+		//the groups are split by the longest axis of all the components
+		if(splitByLongesAxis)
+			sortByAxis(comps, longestAxis(calcBoundary(components)));
 		
-		List<List<Intersectable>> groups = new LinkedList<>();
-		groups.add(new LinkedList<>(components));
+		//the groups as ranges [from, to) of the sorted components
+		List<int[]> groups = new ArrayList<>();
+		groups.add(new int[] {0, n});
 		boolean flag = true;
 		for (int i = 0; i < N_SPLITS && flag; i++) {
-			List<List<Intersectable>> newGroups = new LinkedList<>();
-			for (List<Intersectable> group : groups) {
-				if(group.size() > MAX_BRANCH) {
-					newGroups.addAll(split(group, 2));
+			List<int[]> newGroups = new ArrayList<>();
+			for (int[] group : groups) {
+				int size = group[1] - group[0];
+				if(size > MAX_BRANCH) {
+					//two halves, and the remainder of an odd size
+					int interval = size / 2;
+					for (int from = group[0]; from < group[1]; from += interval)
+						newGroups.add(new int[] {from, Math.min(from + interval, group[1])});
 				}
 				else {
 					newGroups.add(group);
@@ -251,47 +656,65 @@ public class Geometries extends Intersectable{
 			groups = newGroups;
 		}
 		
-		components = new LinkedList<Intersectable>();
-		groups.forEach(g -> {
-			Geometries geo = new Geometries(g); 
-			geo.initBoundary();
-			components.add(geo);
-			});
+		List<int[]> ranges = groups;
+		Geometries[] nodes = new Geometries[ranges.size()];
+		forEach(nodes.length, n, k -> nodes[k] = new Geometries(
+				new LinkedList<Intersectable>(Arrays.asList(comps).subList(ranges.get(k)[0], ranges.get(k)[1]))));
+		components = new LinkedList<Intersectable>(Arrays.asList(nodes));
 	}
 
 	/**
-	 * splits a list of Intersectable to k smaller list according to the longest axis
-	 * @param comps the list of Intersectable to split
-	 * @param k the number of groups to split to
-	 * @return a list of the groups that created from the split
-	 */
-	private List<List<Intersectable>> split(List<Intersectable> comps, int k){
-		if(splitByLongesAxis) {
-			Boundary b = calcBoundary(comps);
-			//sort the components list according to the longest axis
-			if(b.lenX() > b.lenY()) {
-				if(b.lenX() > b.lenZ()) //x is the longest dimension
-					comps.sort(Comparator.comparingDouble(a -> a.boundary.center.getX()));
-				else//z is the longest dimension
-					comps.sort(Comparator.comparingDouble(a -> a.boundary.center.getZ()));
-			}
-			else {
-				if(b.lenY() > b.lenZ()) //y is the longest dimension
-					comps.sort(Comparator.comparingDouble(a -> a.boundary.center.getY()));
-				else//z is the longest dimension
-					comps.sort(Comparator.comparingDouble(a -> a.boundary.center.getZ()));
-			}
+	 * finds the longest axis of a boundary
+	 * @param b the boundary
+	 * @return 0, 1 or 2 for the x, y or z axis
+	 */
+	private static int longestAxis(Boundary b) {
+		if(b.lenX() > b.lenY())
+			return b.lenX() > b.lenZ() ? 0 : 2;
+		return b.lenY() > b.lenZ() ? 1 : 2;
+	}
+
+	/**
+	 * sorts the components by the centroids of their boundaries along an axis,
+	 * equal centroids keep their order
+	 * @param comps the components
+	 * @param axis 0, 1 or 2 for the x, y or z axis
+	 */
+	private static void sortByAxis(Intersectable[] comps, int axis) {
+		int n = comps.length;
+		long[] keys = new long[n];
+		int[] order = new int[n];
+		for (int i = 0; i < n; i++) {
+			Point3D c = comps[i].boundary.center;
+			keys[i] = RadixSort.sortable(axis == 0 ? c.getX() : axis == 1 ? c.getY() : c.getZ());
+			order[i] = i;
 		}
-				
-		List<List<Intersectable>> groups = new LinkedList<>();
+		RadixSort.sort(keys, order, 64);
+		Intersectable[] sorted = new Intersectable[n];
+		for (int i = 0; i < n; i++)
+			sorted[i] = comps[order[i]];
+		System.arraycopy(sorted, 0, comps, 0, n);
+	}
 
-		int interval = comps.size()/k;
-		for(int i = 0, j = interval; i < comps.size(); i = j, j = i + interval) {
-			if(j > comps.size())
-				j = comps.size();
-			groups.add(new LinkedList(comps.subList(i, j)));
+	/**
+	 * runs an action for each of the independent parts of a build, in parallel in
+	 * the common {@link ForkJoinPool} when the build is big enough
+	 * @param n the number of the parts
+	 * @param size the number of the primitives in all the parts
+	 * @param action the action of a part by it's index
+	 */
+	private static void forEach(int n, int size, IntConsumer action) {
+		if (n == 1 || size < PARALLEL_BUILD) {
+			for (int k = 0; k < n; k++)
+				action.accept(k);
+			return;
 		}
-		return groups;
+		List<ForkJoinTask<?>> tasks = new ArrayList<>(n);
+		for (int k = 0; k < n; k++) {
+			int part = k;
+			tasks.add(ForkJoinTask.adapt(() -> action.accept(part)));
+		}
+		ForkJoinTask.invokeAll(tasks);
 	}
 	
 	private Boundary calcBoundary(List<Intersectable> comps) {
@@ -334,12 +757,13 @@ public class Geometries extends Intersectable{
 			if(flag)
 				groups.put(c.boundary.volume, new LinkedList<>(List.of(c)));
 		}
-		components = new LinkedList<Intersectable>();
-		for(List<Intersectable> group : groups.values()) {
-			Geometries geo = new Geometries(group);
-			geo.constructHeirarchy();
-			components.add(geo);
-		}
+		int size = components.size();
+		List<Geometries> nodes = new ArrayList<>();
+		for(List<Intersectable> group : groups.values())
+			nodes.add(new Geometries(group));
+		//the groups are independent subtrees
+		forEach(nodes.size(), size, k -> nodes.get(k).constructHeirarchy());
+		components = new LinkedList<Intersectable>(nodes);
 	}
 	
 	/**
@@ -358,11 +782,17 @@ public class Geometries extends Intersectable{
 	@Override
 	public boolean isInfinite() {
 		//return components.stream().anyMatch(x -> x.isInfinite());
+		if (infinite != null)
+			return infinite;
+		boolean result = false;
 		for (Intersectable i : components) {
-			if(i.isInfinite())
-				return true;
+			if(i.isInfinite()) {
+				result = true;
+				break;
+			}
 		}
-		return false;
+		infinite = result;
+		return result;
 	}
 	
 	@Override
@@ -418,4 +848,51 @@ public class Geometries extends Intersectable{
 		this.splitByVolume = splitByVolume;
 		return this;
 	}
+	
+	/**
+	 * if true then the hierarchy is built by the binned Surface Area Heuristic,
+	 * the other split settings are ignored
+	 * @param splitBySAH the splitBySAH to set
+	 * @return it self
+	 */
+	public Geometries setSplitBySAH(boolean splitBySAH) {
+		this.splitBySAH = splitBySAH;
+		return this;
+	}
+
+	/**
+	 * if true then the hierarchy is built as a linear BVH by the Morton codes of
+	 * the centroids, it is much faster to build than the SAH and slower to
+	 * traverse (the volume settings are ignored, the SAH setting goes first)
+	 * @param splitByMorton the splitByMorton to set
+	 * @return it self
+	 */
+	public Geometries setSplitByMorton(boolean splitByMorton) {
+		this.splitByMorton = splitByMorton;
+		return this;
+	}
+	
+	/**
+	 * if true then the treelets of a linear BVH are restructured by the SAH
+	 * after it is built, a slower build of a better hierarchy
+	 * @param restructureTreelets the restructureTreelets to set
+	 * @return it self
+	 */
+	public Geometries setRestructureTreelets(boolean restructureTreelets) {
+		this.restructureTreelets = restructureTreelets;
+		return this;
+	}
+	
+	/**
+	 * set the ratio of the refitted SAH cost of a subtree to it's built cost that
+	 * the subtree is built again at, by {@link #refit()}
+	 * @param rebuildThreshold the ratio (at least 1)
+	 * @return it self
+	 */
+	public Geometries setRebuildThreshold(double rebuildThreshold) {
+		if (rebuildThreshold < 1)
+			throw new IllegalArgumentException("Rebuild threshold must be at least 1");
+		this.rebuildThreshold = rebuildThreshold;
+		return this;
+	}
 }
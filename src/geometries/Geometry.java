@@ -6,6 +6,7 @@ import primitives.*;
  * the abstract class provide the getNormal function for any geometries, used for reflection proposes.
  */
 public abstract class Geometry extends Intersectable {
+	private static final long serialVersionUID = 1L;
 
 	private Color emission = Color.BLACK;
 	private Material material = new Material();
@@ -51,4 +52,12 @@ public abstract class Geometry extends Intersectable {
 		this.material = material;
 		return this;
 	}
+
+	@Override
+	protected double findTransmittance(Ray ray, double maxDist, double minK) {
+		// a single intersection with an opaque geometry blocks all the light
+		if (getMaterial().kT < minK)
+			return findClosestGeoIntersection(ray, maxDist) == null ? 1 : 0;
+		return super.findTransmittance(ray, maxDist, minK);
+	}
 }
@@ -0,0 +1,210 @@
+package geometries;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import primitives.Point3D;
+import primitives.Ray;
+import primitives.Transform;
+import primitives.Vector;
+
+/**
+ * An instance of an object (a single geometry, a mesh or a whole
+ * {@link Geometries} tree) placed in the scene by a transform. Many instances
+ * share the same object and it's hierarchy, so a repeated model is kept in the
+ * memory only once.<br/>
+ * The rays are moved into the space of the object by the inverse transform and
+ * the hierarchy of the object (the bottom level) is traversed there. The
+ * instances themselves are primitives of the hierarchy of the scene (the top
+ * level), by their transformed boundaries.
+ */
+public class Instance extends Intersectable {
+	private static final long serialVersionUID = 1L;
+
+	private final Intersectable object;
+	private Transform transform;
+	/**
+	 * from the space of the scene to the space of the object
+	 */
+	private Transform inverse;
+	/**
+	 * is the object infinite, it is kept because a {@link Geometries} checks all
+	 * it's components
+	 */
+	private boolean infinite;
+
+	/**
+	 * an intersection point with an instance: the point is in the space of the
+	 * scene, and the normal is calculated at the point in the space of the object
+	 * and transformed back
+	 */
+	private static class InstancePoint extends GeoPoint {
+		private final Point3D objectPoint;
+		private final Transform transform;
+
+		/**
+		 * constructs the intersection point of an instance
+		 *
+		 * @param gp        the intersection point in the space of the object
+		 * @param point     the intersection point in the space of the scene
+		 * @param transform the transform of the instance
+		 */
+		InstancePoint(GeoPoint gp, Point3D point, Transform transform) {
+			super(gp.geometry, point);
+			if (gp instanceof InstancePoint) {
+				// a point of a nested instance, the transforms are combined
+				objectPoint = ((InstancePoint) gp).objectPoint;
+				this.transform = ((InstancePoint) gp).transform.then(transform);
+			} else {
+				objectPoint = gp.point;
+				this.transform = transform;
+			}
+		}
+
+		@Override
+		public Vector getNormal() {
+			return transform.applyToNormal(geometry.getNormal(objectPoint));
+		}
+	}
+
+	/**
+	 * constructs an instance of an object
+	 *
+	 * @param object    the object (it may be shared by other instances), with all
+	 *                  it's components
+	 * @param transform the transform from the space of the object to the space of
+	 *                  the scene
+	 */
+	public Instance(Intersectable object, Transform transform) {
+		this.object = object;
+		this.transform = transform;
+		inverse = transform.inverse();
+		initBoundary();
+	}
+
+	/**
+	 * get the object of the instance
+	 *
+	 * @return the object
+	 */
+	public Intersectable getObject() {
+		return object;
+	}
+
+	/**
+	 * get the transform of the instance
+	 *
+	 * @return the transform
+	 */
+	public Transform getTransform() {
+		return transform;
+	}
+
+	/**
+	 * moves the instance, e.g. for the next frame of an animation. The hierarchy
+	 * that contains the instance must be updated by {@link Geometries#refit()}
+	 * before the next intersections are found
+	 *
+	 * @param transform the new transform from the space of the object to the space
+	 *                  of the scene
+	 * @return it self
+	 */
+	public Instance setTransform(Transform transform) {
+		inverse = transform.inverse();
+		this.transform = transform;
+		initBoundary();
+		return this;
+	}
+
+	/**
+	 * moves a ray into the space of the object
+	 *
+	 * @param ray the ray in the space of the scene
+	 * @param dir the direction of the ray in the space of the object (not
+	 *            normalized)
+	 * @return the ray in the space of the object
+	 */
+	private Ray toObject(Ray ray, Vector dir) {
+		return new Ray(inverse.apply(ray.getOrigin()), dir);
+	}
+
+	/**
+	 * moves an intersection point back to the space of the scene
+	 *
+	 * @param gp the intersection point in the space of the object
+	 * @return the intersection point in the space of the scene
+	 */
+	private GeoPoint toScene(GeoPoint gp) {
+		return new InstancePoint(gp, transform.apply(gp.point), transform);
+	}
+
+	@Override
+	protected List<GeoPoint> findGeoIntersections(Ray ray, double maxDist) {
+		Vector dir = inverse.apply(ray.getDir());
+		// the distances in the space of the object are scaled by the length of the direction
+		List<GeoPoint> intersections = object.findGeoIntersectionsMain(toObject(ray, dir), maxDist * dir.length());
+		if (intersections == null)
+			return null;
+		List<GeoPoint> result = new LinkedList<GeoPoint>();
+		for (GeoPoint gp : intersections)
+			result.add(toScene(gp));
+		return result;
+	}
+
+	@Override
+	protected GeoPoint findClosestGeoIntersection(Ray ray, double maxDist) {
+		Vector dir = inverse.apply(ray.getDir());
+		GeoPoint gp = object.findClosestIntersectionMain(toObject(ray, dir), maxDist * dir.length());
+		return gp == null ? null : toScene(gp);
+	}
+
+	@Override
+	protected double findTransmittance(Ray ray, double maxDist, double minK) {
+		Vector dir = inverse.apply(ray.getDir());
+		return object.findTransmittanceMain(toObject(ray, dir), maxDist * dir.length(), minK);
+	}
+
+	@Override
+	public boolean isInfinite() {
+		return infinite;
+	}
+
+	/**
+	 * Initialize the boundary of the instance: the box around the transformed
+	 * boundary of the object. The hierarchy of a shared {@link Geometries} is
+	 * built and compiled once, by the first of it's instances
+	 */
+	@Override
+	protected void initBoundary() {
+		synchronized (object) {
+			if (BVH && object instanceof Geometries && !((Geometries) object).isCompiled()) {
+				((Geometries) object).initConstructHeirarchy();
+				((Geometries) object).compile();
+			} else
+				object.initBoundary();
+		}
+		double[] b = object.getBoundary().bounds;
+		infinite = object.isInfinite();
+		boolean whole = infinite;
+		for (double v : b)
+			whole |= Double.isInfinite(v);
+		if (whole) {
+			// like an empty Geometries
+			boundary = new Boundary(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+					Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+			return;
+		}
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+		for (int k = 0; k < 8; k++) {
+			Point3D p = transform.apply(new Point3D(b[k & 1], b[2 + (k >> 1 & 1)], b[4 + (k >> 2)]));
+			minX = Math.min(minX, p.getX());
+			maxX = Math.max(maxX, p.getX());
+			minY = Math.min(minY, p.getY());
+			maxY = Math.max(maxY, p.getY());
+			minZ = Math.min(minZ, p.getZ());
+			maxZ = Math.max(maxZ, p.getZ());
+		}
+		boundary = new Boundary(maxX, minX, maxY, minY, maxZ, minZ);
+	}
+}
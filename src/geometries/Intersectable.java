@@ -3,6 +3,7 @@
  */
 package geometries;
 
+import java.io.Serializable;
 import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -18,7 +19,8 @@ import primitives.Vector;
 /**
  * the interface provide the function findIntersections for any object in space, used to find intersections between objects and rays  
  */
-public abstract class Intersectable {
+public abstract class Intersectable implements Serializable {
+	private static final long serialVersionUID = 1L;
 	public static boolean BVH = true;
 	
 	protected Boundary boundary;
@@ -77,13 +79,21 @@ public abstract class Intersectable {
 	/**
 	 * a region in space
 	 */
-	public static class Boundary {
+	public static class Boundary implements Serializable {
+		private static final long serialVersionUID = 1L;
 
 		public final double maxX, minX;
 		public final double maxY, minY;
 		public final double maxZ, minZ;
 		public final Point3D center;
 		public final double volume;
+		/**
+		 * the values of the boundary for the slab test as (minX, maxX, minY, maxY,
+		 * minZ, maxZ), ordered so the minimum of each axis is first. The slab test
+		 * never depended on the order, so an empty boundary (the infinite values of a
+		 * Geometries before it's components were added) is the whole space
+		 */
+		final double[] bounds;
 		
 		/**
 		 * full constructor for {@link Boundary}
@@ -97,6 +107,8 @@ public abstract class Intersectable {
 			this.minZ = minZ;
 			center = new Point3D((maxX + minX) * 0.5, (maxY + minY) * 0.5, (maxZ + minZ) * 0.5);
 			volume = (maxX - minX)*(maxY - minY)*(maxZ - minZ);
+			bounds = new double[] {Math.min(minX, maxX), Math.max(minX, maxX), Math.min(minY, maxY),
+					Math.max(minY, maxY), Math.min(minZ, maxZ), Math.max(minZ, maxZ)};
 		}
 		/**
 		 * check if the ray is intersects the boundary of intersectable
@@ -105,43 +117,59 @@ public abstract class Intersectable {
 		 * @return true if there is an intersection otherwise fales
 		 */
 		public boolean isIntersect(Ray r, double maxDist) {
-			double dx = r.getDir().getX();
-			double dy = r.getDir().getY();
-			double dz = r.getDir().getZ();
-			double x = r.getOrigin().getX();
-			double y = r.getOrigin().getY();
-			double z = r.getOrigin().getZ();
+			return isIntersect(bounds, 0, r, maxDist);
+		}
+
+		/**
+		 * check if the ray is intersects the box at bounds[base..base+5]
+		 * @param bounds the boxes array, 6 values for each box as (minX, maxX, minY, maxY, minZ, maxZ)
+		 * @param base the index of minX of the box
+		 * @param r the ray 
+		 * @param maxDist the max distance for checking the intersection
+		 * @return true if there is an intersection otherwise fales
+		 */
+		static boolean isIntersect(double[] bounds, int base, Ray r, double maxDist) {
+			return entryDistance(bounds, base, r, maxDist) != Double.POSITIVE_INFINITY;
+		}
+
+		/**
+		 * finds the distance along the ray where it enters the box at
+		 * bounds[base..base+5]. The inverse direction of the ray is used instead of
+		 * dividing, and the near side of each slab is chosen by the sign bit of the
+		 * direction instead of swapping
+		 * @param bounds the boxes array, 6 values for each box as (minX, maxX, minY, maxY, minZ, maxZ)
+		 * @param base the index of minX of the box
+		 * @param r the ray 
+		 * @param maxDist the max distance for checking the intersection
+		 * @return the distance to the entry point (negative if the ray starts inside the box),
+		 * or positive infinity if there is no intersection up to 'maxDist'
+		 */
+		static double entryDistance(double[] bounds, int base, Ray r, double maxDist) {
+			Point3D o = r.getOrigin();
+			double x = o.getX(), y = o.getY(), z = o.getZ();
+			double ix = r.getInvX(), iy = r.getInvY(), iz = r.getInvZ();
+			int sx = r.getSignX(), sy = r.getSignY(), sz = r.getSignZ();
+
+			//the interval that the ray is inside each slab, a NaN (the ray starts on the
+			//side of a slab that it is parallel to) is skipped by the comparisons
+			double tS = Double.NEGATIVE_INFINITY, tE = Double.POSITIVE_INFINITY, t;
+			t = (bounds[base + sx] - x) * ix;
+			tS = t > tS ? t : tS;
+			t = (bounds[base + 1 - sx] - x) * ix;
+			tE = t < tE ? t : tE;
+			t = (bounds[base + 2 + sy] - y) * iy;
+			tS = t > tS ? t : tS;
+			t = (bounds[base + 3 - sy] - y) * iy;
+			tE = t < tE ? t : tE;
+			t = (bounds[base + 4 + sz] - z) * iz;
+			tS = t > tS ? t : tS;
+			t = (bounds[base + 5 - sz] - z) * iz;
+			tE = t < tE ? t : tE;
 
-			//find the interval that the ray is between minX and maxX
-			double t1x = dx != 0? (minX - x) / dx: Double.POSITIVE_INFINITY * (minX - x);
-			double t2x = dx != 0? (maxX - x) / dx: Double.POSITIVE_INFINITY * (maxX - x);
-			//if t1x > t2x swap t1x and t2x
-			if (t1x > t2x) {double temp = t1x; t1x = t2x; t2x = temp;}
-			
-			//find the interval that the ray is between minY and maxY
-			double t1y = dy != 0? (minY - y) / dy: Double.POSITIVE_INFINITY * (minY - y);
-			double t2y = dy != 0? (maxY - y) / dy: Double.POSITIVE_INFINITY * (maxY - y);
-			//if t1y > t2y swap t1y and t2y
-			if (t1y > t2y) {double temp = t1y; t1y = t2y; t2y = temp;}
-			
-			//find the interval that the ray is between minZ and maxZ
-			double t1z = dz != 0? (minZ - z) / dz: Double.POSITIVE_INFINITY * (minZ - z);
-			double t2z = dz != 0? (maxZ - z) / dz: Double.POSITIVE_INFINITY * (maxZ - z);
-			//if t1z > t2z swap t1z and t2z
-			if (t1z > t2z) {double temp = t1z; t1z = t2z; t2z = temp;}
-			
-			//find the intersection between all the intervals
-			//max(t1x, t1y, t1z);
-			double tS = t1x > t1y? t1x > t1z? t1x : t1z : t1y > t1z? t1y: t1z; 
-			//double tS = t1x > t1y? t1y > t1z? t1y : t1z : t1x > t1z? t1x: t1z; 
-			//double tS = List.of(t1x,t1y,t1z).stream().max(Comparator.comparing(Double::doubleValue)).get();
-			//min(t2x, t2y, t2z)
-			double tE = t2x < t2y? t2x < t2z? t2x : t2z : t2y < t2z? t2y: t2z; 
-			//double tE = List.of(t2x,t2y,t2z).stream().min(Comparator.comparing(Double::doubleValue)).get();
 			//tE < 0 means that the ray start after the boundary
 			if(Util.alignZero(tE) <= 0 || tS > maxDist) 
-				return false;
-			return  Util.alignZero(tE - tS) >= 0;
+				return Double.POSITIVE_INFINITY;
+			return  Util.alignZero(tE - tS) >= 0 ? tS : Double.POSITIVE_INFINITY;
 		}
 
 		/**
@@ -165,6 +193,14 @@ public abstract class Intersectable {
 		public double lenZ() {
 			return maxZ - minZ;
 		}
+		/**
+		 * calculates the surface area of the boundary
+		 * @return the surface area of the boundary (infinity for an infinite boundary)
+		 */
+		public double area() {
+			double x = lenX(), y = lenY(), z = lenZ();
+			return 2 * (x * y + y * z + z * x);
+		}
 	}
 	
 	/**
@@ -180,9 +216,10 @@ public abstract class Intersectable {
 	
 	public final List<GeoPoint> findGeoIntersectionsMain(Ray ray, double maxDist){
 		if(BVH) {
-			synchronized (this) {
-				if(boundary == null) {
-					initBoundary();
+			if(boundary == null) {
+				synchronized (this) {
+					if(boundary == null)
+						initBoundary();
 				}
 			}
 			if(!boundary.isIntersect(ray, maxDist)) {
@@ -193,6 +230,86 @@ public abstract class Intersectable {
 		return findGeoIntersections(ray, maxDist);
 	}
 	
+	/**
+	 * find the closest intersection point up to the distance 'maxDist', the boundary
+	 * of the Intersectable is checked first (when the BVH is on)
+	 * @param ray the ray to find it's closest intersection point
+	 * @param maxDist the max distance to look for an intersection
+	 * @return the {@link GeoPoint} of the closest intersection point, or null if there is none
+	 */
+	public final GeoPoint findClosestIntersectionMain(Ray ray, double maxDist){
+		if(BVH) {
+			if(boundary == null) {
+				synchronized (this) {
+					if(boundary == null)
+						initBoundary();
+				}
+			}
+			if(!boundary.isIntersect(ray, maxDist)) {
+					return null;
+			}
+		}
+		return findClosestGeoIntersection(ray, maxDist);
+	}
+	
+	/**
+	 * find the closest intersection point up to the distance 'maxDist'. By default
+	 * it chooses from the list of all the intersections, the geometries that can do
+	 * it without the list override it
+	 * @param ray the ray to find it's closest intersection point
+	 * @param maxDist the max distance to look for an intersection
+	 * @return the {@link GeoPoint} of the closest intersection point, or null if there is none
+	 */
+	protected GeoPoint findClosestGeoIntersection(Ray ray, double maxDist) {
+		return ray.findClosestGeoPoint(findGeoIntersections(ray, maxDist));
+	}
+
+	/**
+	 * find how much light passes along the ray up to the distance 'maxDist' (the
+	 * product of the kT of all the intersections), the boundary of the
+	 * Intersectable is checked first (when the BVH is on). The search stops as
+	 * soon as the result falls below 'minK'
+	 * @param ray the ray to check the transmittance along
+	 * @param maxDist the max distance to look for an intersection
+	 * @param minK the transmittance that is considered as no light at all
+	 * @return the transmittance along the ray, 0 if it is less than 'minK'
+	 */
+	public final double findTransmittanceMain(Ray ray, double maxDist, double minK){
+		if(BVH) {
+			if(boundary == null) {
+				synchronized (this) {
+					if(boundary == null)
+						initBoundary();
+				}
+			}
+			if(!boundary.isIntersect(ray, maxDist)) {
+					return 1;
+			}
+		}
+		return findTransmittance(ray, maxDist, minK);
+	}
+
+	/**
+	 * find how much light passes along the ray up to the distance 'maxDist'. By
+	 * default it multiplies the kT of all the intersections, the geometries that
+	 * can stop earlier override it
+	 * @param ray the ray to check the transmittance along
+	 * @param maxDist the max distance to look for an intersection
+	 * @param minK the transmittance that is considered as no light at all
+	 * @return the transmittance along the ray, 0 if it is less than 'minK'
+	 */
+	protected double findTransmittance(Ray ray, double maxDist, double minK) {
+		List<GeoPoint> intersections = findGeoIntersections(ray, maxDist);
+		double kT = 1;
+		if (intersections != null)
+			for (GeoPoint gp : intersections) {
+				kT *= gp.geometry.getMaterial().kT;
+				if (kT < minK)
+					return 0;
+			}
+		return kT;
+	}
+
 	/**
 	 * create a list of {@link GeoPoint} of the intersection points up to the distance 'maxDist'
 	 * @param ray the ray to find it's intersection points
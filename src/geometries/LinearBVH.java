@@ -0,0 +1,409 @@
+package geometries;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Linear BVH builder: the primitives are sorted by the Morton codes of their
+ * centroids (a curve that keeps close points close in the order), and the
+ * binary radix tree of the sorted codes is the hierarchy. Each node of the tree
+ * is found from the codes independently of the others, so the whole build is
+ * linear and parallel. It is much faster than the SAH build and the tree is
+ * worse, the treelet restructuring (optional) improves it by finding the
+ * optimal topology of small treelets by the SAH.<br/>
+ * The nodes of the binary tree are indices: the internal nodes are
+ * 0..n-2 (0 is the root) and the leaf of the i-th sorted primitive is n-1+i.
+ * The boxes are kept 6 values for each node, like {@link BinnedSAH}.
+ */
+final class LinearBVH {
+	/**
+	 * the number of the leaves of a treelet that is restructured
+	 */
+	private static final int TREELET = 5;
+	/**
+	 * the max number of primitives in one leaf of the {@link Geometries} tree
+	 */
+	private static final int MAX_LEAF = 4;
+	/**
+	 * the subtrees under the nodes of the top levels are processed in parallel
+	 */
+	private static final int FORK_DEPTH = 6;
+
+	private final Intersectable[] comps;
+	private final int n;
+	/**
+	 * the indices of the primitives in the order of their codes
+	 */
+	private final int[] order;
+	/**
+	 * the sorted Morton codes
+	 */
+	private final long[] codes;
+	private final int[] left;
+	private final int[] right;
+	private final double[] boxes;
+	/**
+	 * the SAH cost of the subtree of each node, multiplied by the area of the node
+	 */
+	private final double[] costs;
+	/**
+	 * the number of primitives in the subtree of each node
+	 */
+	private final int[] counts;
+
+	/**
+	 * builds the linear BVH of primitives
+	 *
+	 * @param comps the (finite) primitives, at least 2
+	 */
+	private LinearBVH(Intersectable[] comps) {
+		this.comps = comps;
+		n = comps.length;
+		order = new int[n];
+		codes = new long[n];
+		left = new int[n - 1];
+		right = new int[n - 1];
+		boxes = new double[6 * (2 * n - 1)];
+		costs = new double[2 * n - 1];
+		counts = new int[2 * n - 1];
+	}
+
+	/**
+	 * builds the hierarchy of primitives as a linear BVH
+	 *
+	 * @param comps       the (finite) primitives, at least 2
+	 * @param restructure true to restructure the treelets of the tree by the SAH
+	 * @return the root of the hierarchy
+	 */
+	static Intersectable build(Intersectable[] comps, boolean restructure) {
+		LinearBVH bvh = new LinearBVH(comps);
+		bvh.sortByCodes();
+		bvh.emitNodes();
+		bvh.fitBoxes(0, 0);
+		if (restructure)
+			bvh.restructure(0, 0);
+		return bvh.toGeometries(0);
+	}
+
+	/**
+	 * spreads the lower 21 bits of a number to every third bit
+	 *
+	 * @param x the number
+	 * @return the spread bits
+	 */
+	private static long spread(long x) {
+		x &= 0x1fffffL;
+		x = (x | x << 32) & 0x1f00000000ffffL;
+		x = (x | x << 16) & 0x1f0000ff0000ffL;
+		x = (x | x << 8) & 0x100f00f00f00f00fL;
+		x = (x | x << 4) & 0x10c30c30c30c30c3L;
+		x = (x | x << 2) & 0x1249249249249249L;
+		return x;
+	}
+
+	/**
+	 * calculates the Morton code of a point in the unit cube
+	 *
+	 * @param x    the x of the point in [0, 1]
+	 * @param y    the y of the point in [0, 1]
+	 * @param z    the z of the point in [0, 1]
+	 * @param bits the number of the bits of each axis (10 for a 30 bit code, 21
+	 *             for a 63 bit code)
+	 * @return the code
+	 */
+	static long morton(double x, double y, double z, int bits) {
+		long max = (1L << bits) - 1;
+		return spread(quantize(x, max)) << 2 | spread(quantize(y, max)) << 1 | spread(quantize(z, max));
+	}
+
+	/**
+	 * quantizes a coordinate in [0, 1]
+	 *
+	 * @param v   the coordinate
+	 * @param max the max quantized value
+	 * @return the quantized value
+	 */
+	private static long quantize(double v, long max) {
+		return Math.min(max, Math.max(0, (long) (v * (max + 1))));
+	}
+
+	/**
+	 * calculates the Morton codes of the centroids in the box of all the
+	 * centroids and sorts the primitives by them. A code has 30 bits, or 63 bits
+	 * for more than 65536 primitives (that would share too many codes)
+	 */
+	private void sortByCodes() {
+		double[] bounds = new double[6];
+		BinnedSAH.empty(bounds, 0);
+		for (Intersectable c : comps) {
+			double[] p = { c.boundary.center.getX(), c.boundary.center.getY(), c.boundary.center.getZ() };
+			for (int a = 0; a < 3; a++) {
+				bounds[2 * a] = Math.min(bounds[2 * a], p[a]);
+				bounds[2 * a + 1] = Math.max(bounds[2 * a + 1], p[a]);
+			}
+		}
+		double[] scale = new double[3];
+		for (int a = 0; a < 3; a++) {
+			double extent = bounds[2 * a + 1] - bounds[2 * a];
+			scale[a] = extent > 0 ? 1 / extent : 0;
+		}
+		int bits = n > 1 << 16 ? 21 : 10;
+		parallel(n).forEach(i -> {
+			Intersectable c = comps[i];
+			codes[i] = morton((c.boundary.center.getX() - bounds[0]) * scale[0],
+					(c.boundary.center.getY() - bounds[2]) * scale[1], (c.boundary.center.getZ() - bounds[4]) * scale[2],
+					bits);
+			order[i] = i;
+		});
+		RadixSort.sort(codes, order, 3 * bits);
+	}
+
+	/**
+	 * the length of the common prefix of the codes of two leaves, the index
+	 * breaks the ties of equal codes
+	 *
+	 * @param i the first leaf
+	 * @param j the second leaf
+	 * @return the length of the common prefix, or -1 if j is not a leaf
+	 */
+	private int delta(int i, int j) {
+		if (j < 0 || j >= n)
+			return -1;
+		if (codes[i] == codes[j])
+			return 64 + Integer.numberOfLeadingZeros(i ^ j);
+		return Long.numberOfLeadingZeros(codes[i] ^ codes[j]);
+	}
+
+	/**
+	 * finds the children of all the internal nodes of the radix tree, each one by
+	 * it's own (see Karras, "Maximizing Parallelism in the Construction of BVHs,
+	 * Octrees, and k-d Trees", 2012)
+	 */
+	private void emitNodes() {
+		parallel(n - 1).forEach(i -> {
+			// the direction of the range of the node, and the prefix with the leaf outside of it
+			int d = delta(i, i + 1) > delta(i, i - 1) ? 1 : -1;
+			int min = delta(i, i - d);
+			int max = 2;
+			while (delta(i, i + max * d) > min)
+				max *= 2;
+			int l = 0;
+			for (int t = max / 2; t >= 1; t /= 2)
+				if (delta(i, i + (l + t) * d) > min)
+					l += t;
+			int j = i + l * d;
+			// the split is where the prefix of the range ends
+			int prefix = delta(i, j);
+			int s = 0;
+			for (int t = l; t > 1;) {
+				t = (t + 1) / 2;
+				if (delta(i, i + (s + t) * d) > prefix)
+					s += t;
+			}
+			int split = i + s * d + Math.min(d, 0);
+			left[i] = Math.min(i, j) == split ? n - 1 + split : split;
+			right[i] = Math.max(i, j) == split + 1 ? n + split : split + 1;
+		});
+	}
+
+	/**
+	 * calculates the boxes, the costs and the counts of a subtree
+	 *
+	 * @param node  the root of the subtree
+	 * @param depth the depth of the root
+	 */
+	private void fitBoxes(int node, int depth) {
+		if (node >= n - 1) {
+			Intersectable.Boundary b = comps[order[node - n + 1]].boundary;
+			System.arraycopy(new double[] { b.minX, b.maxX, b.minY, b.maxY, b.minZ, b.maxZ }, 0, boxes, 6 * node, 6);
+			costs[node] = BinnedSAH.INTERSECTION_COST * BinnedSAH.area(boxes, 6 * node);
+			counts[node] = 1;
+			return;
+		}
+		forkChildren(node, depth, child -> fitBoxes(child, depth + 1));
+		fitNode(node);
+	}
+
+	/**
+	 * runs an action on the two children of a node, the first one by another
+	 * thread in the top levels of a big tree (the subtrees are independent)
+	 *
+	 * @param node   the internal node
+	 * @param depth  the depth of the node
+	 * @param action the action on a child
+	 */
+	private void forkChildren(int node, int depth, IntConsumer action) {
+		if (depth < FORK_DEPTH && n >= Geometries.PARALLEL_BUILD) {
+			ForkJoinTask<?> first = ForkJoinTask.adapt(() -> action.accept(left[node])).fork();
+			action.accept(right[node]);
+			first.join();
+		} else {
+			action.accept(left[node]);
+			action.accept(right[node]);
+		}
+	}
+
+	/**
+	 * calculates the box, the cost and the count of an internal node from it's
+	 * children
+	 *
+	 * @param node the internal node
+	 */
+	private void fitNode(int node) {
+		BinnedSAH.empty(boxes, 6 * node);
+		BinnedSAH.grow(boxes, 6 * node, boxes, 6 * left[node]);
+		BinnedSAH.grow(boxes, 6 * node, boxes, 6 * right[node]);
+		costs[node] = BinnedSAH.TRAVERSAL_COST * BinnedSAH.area(boxes, 6 * node) + costs[left[node]]
+				+ costs[right[node]];
+		counts[node] = counts[left[node]] + counts[right[node]];
+	}
+
+	/**
+	 * restructures the treelets of a subtree bottom-up: the largest nodes under
+	 * each node are it's treelet, and they are connected again by the topology
+	 * that has the lowest SAH cost (see Karras and Aila, "Fast Parallel
+	 * Construction of High-Quality Bounding Volume Hierarchies", 2013)
+	 *
+	 * @param node  the root of the subtree
+	 * @param depth the depth of the root
+	 */
+	private void restructure(int node, int depth) {
+		if (node >= n - 1)
+			return;
+		forkChildren(node, depth, child -> restructure(child, depth + 1));
+
+		// the treelet is grown by opening it's largest internal leaf
+		int[] leaves = new int[TREELET];
+		int[] internals = new int[TREELET - 1];
+		int m = 2, k = 1;
+		leaves[0] = left[node];
+		leaves[1] = right[node];
+		internals[0] = node;
+		while (m < TREELET) {
+			int largest = -1;
+			double area = -1;
+			for (int i = 0; i < m; i++)
+				if (leaves[i] < n - 1 && BinnedSAH.area(boxes, 6 * leaves[i]) > area) {
+					largest = i;
+					area = BinnedSAH.area(boxes, 6 * leaves[i]);
+				}
+			if (largest == -1)
+				break;
+			int opened = leaves[largest];
+			internals[k++] = opened;
+			leaves[largest] = left[opened];
+			leaves[m++] = right[opened];
+		}
+		if (m < 3)
+			return;
+
+		// the optimal cost of each subset of the leaves, by dynamic programming
+		int full = (1 << m) - 1;
+		double[] box = new double[6 * (full + 1)];
+		double[] best = new double[full + 1];
+		int[] split = new int[full + 1];
+		for (int set = 1; set <= full; set++) {
+			BinnedSAH.empty(box, 6 * set);
+			for (int i = 0; i < m; i++)
+				if ((set & 1 << i) != 0)
+					BinnedSAH.grow(box, 6 * set, boxes, 6 * leaves[i]);
+			if (Integer.bitCount(set) == 1) {
+				best[set] = costs[leaves[Integer.numberOfTrailingZeros(set)]];
+				continue;
+			}
+			// each partition once: the part with the lowest leaf
+			int low = set & -set;
+			best[set] = Double.POSITIVE_INFINITY;
+			for (int part = (set - 1) & set; part > 0; part = (part - 1) & set)
+				if ((part & low) != 0 && best[part] + best[set ^ part] < best[set]) {
+					best[set] = best[part] + best[set ^ part];
+					split[set] = part;
+				}
+			best[set] += BinnedSAH.TRAVERSAL_COST * BinnedSAH.area(box, 6 * set);
+		}
+		if (best[full] >= costs[node] * (1 - 1e-9))
+			return;
+		int[] next = { 1 };
+		connect(full, node, leaves, internals, split, next);
+	}
+
+	/**
+	 * connects a subset of the leaves of a treelet by it's optimal topology
+	 *
+	 * @param set       the subset of the leaves
+	 * @param node      the internal node of the subset
+	 * @param leaves    the leaves of the treelet
+	 * @param internals the internal nodes of the treelet
+	 * @param split     the optimal partition of each subset
+	 * @param next      the next free internal node
+	 */
+	private void connect(int set, int node, int[] leaves, int[] internals, int[] split, int[] next) {
+		int[] parts = { split[set], set ^ split[set] };
+		int[] children = new int[2];
+		for (int c = 0; c < 2; c++)
+			if (Integer.bitCount(parts[c]) == 1)
+				children[c] = leaves[Integer.numberOfTrailingZeros(parts[c])];
+			else {
+				children[c] = internals[next[0]++];
+				connect(parts[c], children[c], leaves, internals, split, next);
+			}
+		left[node] = children[0];
+		right[node] = children[1];
+		fitNode(node);
+	}
+
+	/**
+	 * converts a subtree to a {@link Geometries} tree, a small subtree is a
+	 * single node with all it's primitives
+	 *
+	 * @param node the root of the subtree
+	 * @return the root of the tree
+	 */
+	private Intersectable toGeometries(int node) {
+		if (node >= n - 1)
+			return comps[order[node - n + 1]];
+		List<Intersectable> children = new LinkedList<>();
+		if (counts[node] <= MAX_LEAF)
+			collect(node, children);
+		else if (counts[node] >= Geometries.PARALLEL_BUILD) {
+			// the first subtree is converted by another thread
+			ForkJoinTask<Intersectable> first = ForkJoinTask.adapt(() -> toGeometries(left[node])).fork();
+			Intersectable second = toGeometries(right[node]);
+			children.add(first.join());
+			children.add(second);
+		} else {
+			children.add(toGeometries(left[node]));
+			children.add(toGeometries(right[node]));
+		}
+		return new Geometries(children);
+	}
+
+	/**
+	 * adds the primitives of a subtree to a list
+	 *
+	 * @param node       the root of the subtree
+	 * @param primitives the list
+	 */
+	private void collect(int node, List<Intersectable> primitives) {
+		if (node >= n - 1)
+			primitives.add(comps[order[node - n + 1]]);
+		else {
+			collect(left[node], primitives);
+			collect(right[node], primitives);
+		}
+	}
+
+	/**
+	 * a stream of indices, parallel when there are many of them
+	 *
+	 * @param count the number of the indices
+	 * @return the stream
+	 */
+	private static IntStream parallel(int count) {
+		IntStream indices = IntStream.range(0, count);
+		return count >= Geometries.PARALLEL_BUILD ? indices.parallel() : indices;
+	}
+}
@@ -10,9 +10,14 @@ import static primitives.Util.*;
  * represents a plane in a space
  */
 public class Plane extends Geometry {
+	private static final long serialVersionUID = 1L;
 
 	private Point3D pivot;
 	private Vector normal;
+	/**
+	 * the values of the pivot and the normal for the intersection calculations
+	 */
+	private Vec3 p, n;
 
 	/**
 	 * Plane constructor by point and vector
@@ -23,6 +28,8 @@ public class Plane extends Geometry {
 	public Plane(Point3D pivot, Vector normal) {
 		this.pivot = pivot;
 		this.normal = normal.normalize();
+		p = new Vec3(pivot);
+		n = new Vec3(this.normal);
 		initBoundary();
 	}
 
@@ -38,6 +45,8 @@ public class Plane extends Geometry {
 		Vector v2 = p3.subtract(p2);
 		this.normal = v1.crossProduct(v2).normalized();
 		this.pivot = p1;
+		p = new Vec3(pivot);
+		n = new Vec3(this.normal);
 	}
 	
 	@Override
@@ -70,23 +79,40 @@ public class Plane extends Geometry {
 
 	@Override
 	public List<GeoPoint> findGeoIntersections(Ray ray, double maxDist) {
-		Vector u;
-		try {
-			u = this.pivot.subtract(ray.getOrigin());
-		} catch (IllegalArgumentException e) {
-			// if the ray start at the represented point of the plane
-			return null;
-		}
+		GeoPoint intersection = findClosestGeoIntersection(ray, maxDist);
+		return intersection == null ? null : List.of(intersection);
+	}
+
+	@Override
+	protected GeoPoint findClosestGeoIntersection(Ray ray, double maxDist) {
+		double t = findDistance(ray, maxDist);
+		return t == Double.POSITIVE_INFINITY ? null : new GeoPoint(this, ray.getPoint(t));
+	}
+
+	/**
+	 * finds the distance along the ray to the intersection point with the plane
+	 * 
+	 * @param ray     the ray
+	 * @param maxDist the max distance to look for an intersection
+	 * @return the distance to the intersection point, or positive infinity if
+	 *         there is no intersection up to 'maxDist'
+	 */
+	double findDistance(Ray ray, double maxDist) {
+		Point3D o = ray.getOrigin();
+		double ux = p.x - o.getX(), uy = p.y - o.getY(), uz = p.z - o.getZ();
+		// if the ray start at the represented point of the plane
+		if (isZero(ux) && isZero(uy) && isZero(uz))
+			return Double.POSITIVE_INFINITY;
 
 		// numerator
-		double num = this.getNormal().dotProduct(u);
+		double num = n.x * ux + n.y * uy + n.z * uz;
 		// denominator
-		double denom = this.getNormal().dotProduct(ray.getDir());
+		double denom = n.dot(ray.getDir());
 		if (isZero(denom))
-			return null;
+			return Double.POSITIVE_INFINITY;
 
 		double scalar = alignZero(num / denom);
-		return scalar <= 0 || alignZero(scalar - maxDist) >= 0 ? null : List.of(new GeoPoint(this, ray.getPoint(scalar)));
+		return scalar <= 0 || alignZero(scalar - maxDist) >= 0 ? Double.POSITIVE_INFINITY : scalar;
 	}
 
 	/**
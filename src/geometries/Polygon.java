@@ -2,7 +2,6 @@ package geometries;
 
 import static primitives.Util.isZero;
 
-import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 
@@ -15,6 +14,7 @@ import primitives.*;
  * @author Dan
  */
 public class Polygon extends Geometry {
+	private static final long serialVersionUID = 1L;
 	/**
 	 * List of polygon's vertices
 	 */
@@ -23,6 +23,11 @@ public class Polygon extends Geometry {
 	 * Associated plane in which the polygon lays
 	 */
 	protected Plane plane;
+	/**
+	 * the values of the vertices for the intersection calculations, 3 values for
+	 * each vertex
+	 */
+	protected double[] points;
 
 	/**
 	 * Polygon constructor based on vertices list. The list must be ordered by edge
@@ -49,6 +54,12 @@ public class Polygon extends Geometry {
 		if (vertices.length < 3)
 			throw new IllegalArgumentException("A polygon can't have less than 3 vertices");
 		this.vertices = List.of(vertices);
+		points = new double[3 * vertices.length];
+		for (int i = 0; i < vertices.length; i++) {
+			points[3 * i] = vertices[i].getX();
+			points[3 * i + 1] = vertices[i].getY();
+			points[3 * i + 2] = vertices[i].getZ();
+		}
 		// Generate the plane according to the first three vertices and associate the
 		// polygon with this plane.
 		// The plane holds the invariant normal (orthogonal unit) vector to the polygon
@@ -112,37 +123,44 @@ public class Polygon extends Geometry {
 
 	@Override
 	public List<GeoPoint> findGeoIntersections(Ray ray, double maxDist) {
-		List<GeoPoint> interPoint = this.plane.findGeoIntersections(ray, maxDist);
-		if (interPoint == null) {
+		GeoPoint intersection = findClosestGeoIntersection(ray, maxDist);
+		return intersection == null ? null : List.of(intersection);
+	}
+
+	@Override
+	protected GeoPoint findClosestGeoIntersection(Ray ray, double maxDist) {
+		double t = this.plane.findDistance(ray, maxDist);
+		if (t == Double.POSITIVE_INFINITY) {
 			return null;
 		}
 		int size = vertices.size();
-		
-		//array of all the vectors from the ray point to the vertices
-		Vector[] rayToVertices = new Vector[size];
-		int i = 0;
-		for (Point3D p : vertices) {
-			rayToVertices[i++] = p.subtract(ray.getOrigin());
-		}
-		//array of all the normal vectors that come form crossProduct between each adjacent vectors(rayToVertices)
-		Vector[] normalsFromVertices = new Vector[size];
-		for (int j = 0; j < size - 1; j++) {
-			normalsFromVertices[j] = rayToVertices[j].crossProduct(rayToVertices[j + 1]).normalize();
-		}
-		normalsFromVertices[size - 1] = rayToVertices[size - 1].crossProduct(rayToVertices[0]).normalize();
-		
-		//the values of all the normals * ray
-		List<Double> normals = new ArrayList<Double>();
-		for (Vector s : normalsFromVertices) {
-			normals.add(Util.alignZero(ray.getDir().dotProduct(s)));
-		}
-		
-		//if all the scalars have the same sign and non of theme is zero => the point is inside the polygon
-		if (normals.stream().allMatch(d -> d > 0) || normals.stream().allMatch(d -> d < 0)) {
-			interPoint.get(0).geometry = this;
-			return interPoint;
+		Point3D origin = ray.getOrigin();
+		Vector dir = ray.getDir();
+		double ox = origin.getX(), oy = origin.getY(), oz = origin.getZ();
+		double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+
+		//the vector from the ray point to the current vertex
+		double ax = points[0] - ox, ay = points[1] - oy, az = points[2] - oz;
+		boolean positive = false;
+		for (int j = 0; j < size; j++) {
+			//the vector from the ray point to the next vertex
+			int k = 3 * ((j + 1) % size);
+			double bx = points[k] - ox, by = points[k + 1] - oy, bz = points[k + 2] - oz;
+			//the normal that come form crossProduct between the adjacent vectors * ray
+			double nx = ay * bz - az * by, ny = az * bx - ax * bz, nz = ax * by - ay * bx;
+			double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+			if (Util.isZero(length))
+				return null;
+			double s = Util.alignZero((dx * nx + dy * ny + dz * nz) / length);
+			//if all the scalars have the same sign and non of theme is zero => the point is inside the polygon
+			if (s == 0 || (j > 0 && positive != s > 0))
+				return null;
+			positive = s > 0;
+			ax = bx;
+			ay = by;
+			az = bz;
 		}
-		return null;
+		return new GeoPoint(this, ray.getPoint(t));
 	}
 
 	/**
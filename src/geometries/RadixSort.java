@@ -0,0 +1,104 @@
+package geometries;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * A stable LSD radix sort of long keys (a byte in each pass), that moves an int
+ * value (e.g. the index of a primitive) with each key. The keys are sorted as
+ * unsigned numbers, see {@link #sortable(double)} for sorting doubles.<br/>
+ * The keys are divided to chunks, the histograms of the chunks and the scatter
+ * of each chunk to it's place are done in parallel (in the common fork join
+ * pool) when there are many keys.
+ */
+final class RadixSort {
+	/**
+	 * the number of the bits of a digit
+	 */
+	private static final int BITS = 8;
+	private static final int RADIX = 1 << BITS;
+	/**
+	 * the minimal number of keys in a chunk that is sorted in parallel
+	 */
+	private static final int MIN_CHUNK = 1 << 14;
+
+	/**
+	 * Empty private ctor to hide the public one
+	 */
+	private RadixSort() {
+	}
+
+	/**
+	 * converts a double to a long that has the same order as unsigned numbers
+	 * (like {@link Double#compare(double, double)})
+	 *
+	 * @param d the double
+	 * @return the key of the double
+	 */
+	static long sortable(double d) {
+		long bits = Double.doubleToLongBits(d);
+		// the sign bit of a positive number is set and all the bits of a negative one are flipped
+		return bits ^ (bits >> 63 | Long.MIN_VALUE);
+	}
+
+	/**
+	 * sorts the keys and moves their values with them, equal keys keep their
+	 * order
+	 *
+	 * @param keys   the keys
+	 * @param values the values of the keys
+	 * @param bits   the number of the lower bits of the keys that are sorted by
+	 *               (the higher bits must be 0)
+	 */
+	static void sort(long[] keys, int[] values, int bits) {
+		int n = keys.length;
+		int chunks = (int) Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() * 4L, n / MIN_CHUNK));
+		int chunk = (n + chunks - 1) / chunks;
+		long[] keysFrom = keys, keysTo = new long[n];
+		int[] valuesFrom = values, valuesTo = new int[n];
+		int[][] offsets = new int[chunks][RADIX];
+
+		for (int shift = 0; shift < bits; shift += BITS) {
+			int s = shift;
+			long[] kFrom = keysFrom, kTo = keysTo;
+			int[] vFrom = valuesFrom, vTo = valuesTo;
+			IntStream.range(0, chunks).parallel().forEach(c -> {
+				int[] count = offsets[c];
+				Arrays.fill(count, 0);
+				for (int i = c * chunk, end = Math.min(n, i + chunk); i < end; i++)
+					count[(int) (kFrom[i] >>> s) & RADIX - 1]++;
+			});
+			// the place of each digit of each chunk, after the same digit of the previous chunks
+			int place = 0;
+			boolean sorted = false;
+			for (int d = 0; d < RADIX; d++) {
+				int first = place;
+				for (int c = 0; c < chunks; c++) {
+					int count = offsets[c][d];
+					offsets[c][d] = place;
+					place += count;
+				}
+				// all the keys have the same digit, the pass changes nothing
+				sorted |= place - first == n;
+			}
+			if (sorted)
+				continue;
+			IntStream.range(0, chunks).parallel().forEach(c -> {
+				int[] offset = offsets[c];
+				for (int i = c * chunk, end = Math.min(n, i + chunk); i < end; i++) {
+					int to = offset[(int) (kFrom[i] >>> s) & RADIX - 1]++;
+					kTo[to] = kFrom[i];
+					vTo[to] = vFrom[i];
+				}
+			});
+			keysTo = kFrom;
+			keysFrom = kTo;
+			valuesTo = vFrom;
+			valuesFrom = vTo;
+		}
+		if (keysFrom != keys) {
+			System.arraycopy(keysFrom, 0, keys, 0, n);
+			System.arraycopy(valuesFrom, 0, values, 0, n);
+		}
+	}
+}
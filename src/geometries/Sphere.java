@@ -9,10 +9,15 @@ import static primitives.Util.*;
  * represents sphere by point and radius
  */
 public class Sphere extends Geometry {
+	private static final long serialVersionUID = 1L;
 
 	private Point3D center;
 	private double radius;
 	private double radiusSquared;
+	/**
+	 * the values of the center for the intersection calculations
+	 */
+	private Vec3 c;
 
 	/**
 	 * Sphere constructor by point and radius
@@ -24,6 +29,7 @@ public class Sphere extends Geometry {
 		this.radius = radius;
 		this.radiusSquared = radius * radius;
 		this.center = center;
+		c = new Vec3(center);
 		initBoundary();
 	}
 
@@ -53,20 +59,21 @@ public class Sphere extends Geometry {
 
 	@Override
 	public List<GeoPoint> findGeoIntersections(Ray ray, double maxDist) {
+		Point3D o = ray.getOrigin();
+		Vector d = ray.getDir();
+		// vector from the origin point of the ray to the center, in locals
+		double ux = c.x - o.getX(), uy = c.y - o.getY(), uz = c.z - o.getZ();
 		// if the origin point of the ray is in the center
-		if (ray.getOrigin().equals(center)) {
+		if (isZero(ux) && isZero(uy) && isZero(uz)) {
 			return List.of(new GeoPoint(this, ray.getPoint(radius)));
 		}
 
-		// vector from the origin point of the ray to the center
-		Vector u = center.subtract(ray.getOrigin());
-
 		// the length from the origin point of the ray to the middle point between the
 		// intersection of the line of the ray
-		double tm = u.dotProduct(ray.getDir());
+		double tm = ux * d.getX() + uy * d.getY() + uz * d.getZ();
 
 		// the length Squared between the center and the line of the ray
-		double dSqr = u.lengthSquared() - tm * tm;
+		double dSqr = ux * ux + uy * uy + uz * uz - tm * tm;
 		// the half length between the intersection of the line of the ray
 		double thSqr = radiusSquared - dSqr;
 
@@ -92,16 +99,41 @@ public class Sphere extends Geometry {
 			return null;
 		}
 
-		Point3D p2 = ray.getPoint(t2);
-
 		if (t1 <= 0) {
-			return t2 < maxDist ? List.of(new GeoPoint(this, p2)) : null;
+			return t2 < maxDist ? List.of(new GeoPoint(this, ray.getPoint(t2))) : null;
 		}
 
 		if (t2 >= maxDist) {
 			return List.of(new GeoPoint(this, ray.getPoint(t1)));
 		}
-		return List.of(new GeoPoint(this, ray.getPoint(t1)), new GeoPoint(this, p2));
+		return List.of(new GeoPoint(this, ray.getPoint(t1)), new GeoPoint(this, ray.getPoint(t2)));
+	}
+
+	@Override
+	protected GeoPoint findClosestGeoIntersection(Ray ray, double maxDist) {
+		Point3D o = ray.getOrigin();
+		Vector d = ray.getDir();
+		// the vector from the origin point of the ray to the center, in locals
+		double ux = c.x - o.getX(), uy = c.y - o.getY(), uz = c.z - o.getZ();
+		// if the origin point of the ray is in the center
+		if (isZero(ux) && isZero(uy) && isZero(uz)) {
+			return radius < maxDist ? new GeoPoint(this, ray.getPoint(radius)) : null;
+		}
+
+		double tm = ux * d.getX() + uy * d.getY() + uz * d.getZ();
+		double thSqr = radiusSquared - (ux * ux + uy * uy + uz * uz - tm * tm);
+		if (alignZero(thSqr) <= 0)
+			return null;
+
+		double th = Math.sqrt(thSqr);
+		double t1 = alignZero(tm - th);
+		if (t1 >= maxDist)
+			return null;
+		if (t1 > 0)
+			return new GeoPoint(this, ray.getPoint(t1));
+		// the origin of the ray is inside the sphere - the closest point is the far one
+		double t2 = alignZero(tm + th);
+		return t2 > 0 && t2 < maxDist ? new GeoPoint(this, ray.getPoint(t2)) : null;
 	}
 	/**
 	 * Initialize the boundary of the sphere
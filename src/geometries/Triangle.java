@@ -9,6 +9,7 @@ import static primitives.Util.*;
  * represents a triangle by 3 points. inherits from polygon class.
  */
 public final class Triangle extends Polygon {
+	private static final long serialVersionUID = 1L;
 
 	/**
 	 * Triangle constructor by 3 points
@@ -29,29 +30,57 @@ public final class Triangle extends Polygon {
 	
 	@Override
 	public List<GeoPoint> findGeoIntersections(Ray ray, double maxDist) {
-		List<GeoPoint> intersections = this.plane.findGeoIntersections(ray, maxDist);
-		if (intersections == null)
+		GeoPoint intersection = findClosestGeoIntersection(ray, maxDist);
+		return intersection == null ? null : List.of(intersection);
+	}
+
+	@Override
+	protected GeoPoint findClosestGeoIntersection(Ray ray, double maxDist) {
+		double t = this.plane.findDistance(ray, maxDist);
+		if (t == Double.POSITIVE_INFINITY)
 			return null;
 
 		Point3D origin = ray.getOrigin();
-		Vector v1 = this.vertices.get(0).subtract(origin);
-		Vector v2 = this.vertices.get(1).subtract(origin);
-		Vector v3 = this.vertices.get(2).subtract(origin);
+		double ox = origin.getX(), oy = origin.getY(), oz = origin.getZ();
+		// the vectors from the origin to the vertices
+		double x1 = points[0] - ox, y1 = points[1] - oy, z1 = points[2] - oz;
+		double x2 = points[3] - ox, y2 = points[4] - oy, z2 = points[5] - oz;
+		double x3 = points[6] - ox, y3 = points[7] - oy, z3 = points[8] - oz;
 
 		Vector dir = ray.getDir();
-		double s1 = dir.dotProduct(v1.crossProduct(v2));
+		double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+		double s1 = triple(dx, dy, dz, x1, y1, z1, x2, y2, z2);
 		if (isZero(s1))
 			return null;
 
-		double s2 = dir.dotProduct(v2.crossProduct(v3));
+		double s2 = triple(dx, dy, dz, x2, y2, z2, x3, y3, z3);
 		if (alignZero(s1 * s2) <= 0)
 			return null;
 
-		double s3 = Util.alignZero(dir.dotProduct(v3.crossProduct(v1)));
+		double s3 = triple(dx, dy, dz, x3, y3, z3, x1, y1, z1);
 		if (alignZero(s1 * s3) <= 0)
 			return null;
-		intersections.get(0).geometry = this;
-		return intersections;
+		return new GeoPoint(this, ray.getPoint(t));
+	}
+
+	/**
+	 * calculates the triple product d * (u X v), like
+	 * {@link Vec3#triple(Vec3, Vec3)} without the vectors
+	 * 
+	 * @param dx the x of d
+	 * @param dy the y of d
+	 * @param dz the z of d
+	 * @param ux the x of u
+	 * @param uy the y of u
+	 * @param uz the z of u
+	 * @param vx the x of v
+	 * @param vy the y of v
+	 * @param vz the z of v
+	 * @return the triple product
+	 */
+	private static double triple(double dx, double dy, double dz, double ux, double uy, double uz, double vx,
+			double vy, double vz) {
+		return dx * (uy * vz - uz * vy) + dy * (uz * vx - ux * vz) + dz * (ux * vy - uy * vx);
 	}
 
 }
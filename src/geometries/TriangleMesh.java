@@ -0,0 +1,570 @@
+package geometries;
+
+import static primitives.Util.*;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import primitives.*;
+
+/**
+ * represents a mesh of triangles that share their vertices.<br/>
+ * The vertices are kept in one array (3 values for each vertex) and the faces
+ * in one index buffer (3 vertex indices for each face), so a face costs 3 ints
+ * instead of a whole {@link Triangle} with it's plane, list of points and
+ * boundary. All the faces share the emission and the material of the mesh.<br/>
+ * The faces are arranged in an internal bounding volume hierarchy that is built
+ * by the binned Surface Area Heuristic, the nodes are kept in depth-first order
+ * (the left child of an inner node is the node right after it) and the faces of
+ * each leaf are consecutive in the index buffer.
+ */
+public class TriangleMesh extends Geometry {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * the values of the vertices, 3 values for each vertex
+	 */
+	private final double[] vertices;
+	/**
+	 * the vertex indices of the faces, 3 indices for each face, in the order of the
+	 * leaves of the hierarchy
+	 */
+	private final int[] faces;
+	/**
+	 * the bounds of the nodes, 6 values for each node as (minX, maxX, minY, maxY,
+	 * minZ, maxZ)
+	 */
+	private double[] nodeBounds;
+	/**
+	 * the first face of a leaf, or the index of the right child of an inner node
+	 */
+	private int[] nodeStart;
+	/**
+	 * the number of faces of a leaf (0 for an inner node)
+	 */
+	private int[] nodeCount;
+	/**
+	 * the number of nodes in the hierarchy
+	 */
+	private int nodes = 0;
+	/**
+	 * the size of the traversal stack that is enough for this hierarchy
+	 */
+	private int stackSize;
+
+	/**
+	 * TriangleMesh constructor by a vertex buffer and an index buffer
+	 *
+	 * @param vertices the values of the vertices, 3 values (x, y, z) for each
+	 *                 vertex, the array is kept by the mesh
+	 * @param indices  the vertex indices of the faces, 3 indices for each face
+	 * @throws IllegalArgumentException if the arrays are not of whole vertices and
+	 *                                  faces, or an index is not of a vertex
+	 */
+	public TriangleMesh(double[] vertices, int[] indices) {
+		if (vertices.length % 3 != 0)
+			throw new IllegalArgumentException("The vertex buffer must have 3 values for each vertex");
+		if (indices.length % 3 != 0)
+			throw new IllegalArgumentException("The index buffer must have 3 indices for each face");
+		int count = vertices.length / 3;
+		for (int i : indices)
+			if (i < 0 || i >= count)
+				throw new IllegalArgumentException("The index " + i + " is not of a vertex of the mesh");
+		this.vertices = vertices;
+		this.faces = indices.clone();
+		buildHierarchy();
+		initBoundary();
+	}
+
+	/**
+	 * TriangleMesh constructor by an array of points and an index buffer
+	 *
+	 * @param points  the vertices of the mesh
+	 * @param indices the indices of the points of the faces, 3 indices for each
+	 *                face
+	 * @throws IllegalArgumentException if the index buffer is not of whole faces,
+	 *                                  or an index is not of a point
+	 */
+	public TriangleMesh(Point3D[] points, int... indices) {
+		this(toArray(points), indices);
+	}
+
+	/**
+	 * copies the values of the points to one array
+	 *
+	 * @param points the points
+	 * @return the values of the points, 3 values for each point
+	 */
+	private static double[] toArray(Point3D[] points) {
+		double[] values = new double[3 * points.length];
+		for (int i = 0; i < points.length; i++)
+			if (points[i] != null) {
+				values[3 * i] = points[i].getX();
+				values[3 * i + 1] = points[i].getY();
+				values[3 * i + 2] = points[i].getZ();
+			}
+		return values;
+	}
+
+	/**
+	 * get the number of faces in the mesh
+	 *
+	 * @return the number of faces
+	 */
+	public int getFacesCount() {
+		return faces.length / 3;
+	}
+
+	/**
+	 * get the number of vertices in the mesh
+	 *
+	 * @return the number of vertices
+	 */
+	public int getVerticesCount() {
+		return vertices.length / 3;
+	}
+
+	/**
+	 * get the number of nodes in the hierarchy of the faces
+	 *
+	 * @return the number of nodes
+	 */
+	public int getNodesCount() {
+		return nodes;
+	}
+
+	/**
+	 * get a face of the mesh
+	 *
+	 * @param index the index of the face (in the order of the hierarchy)
+	 * @return the face
+	 */
+	public Face getFace(int index) {
+		return new Face(index);
+	}
+
+	// ______________ the hierarchy of the faces ______________
+
+	/**
+	 * builds the hierarchy of the faces and reorders the index buffer by it's leaves
+	 */
+	private void buildHierarchy() {
+		int n = faces.length / 3;
+		if (n == 0) {
+			nodeBounds = new double[0];
+			nodeStart = nodeCount = new int[0];
+			return;
+		}
+		double[] boxes = new double[6 * n];
+		double[] centroids = new double[3 * n];
+		int[] order = new int[n];
+		for (int f = 0; f < n; f++) {
+			order[f] = f;
+			BinnedSAH.empty(boxes, 6 * f);
+			for (int k = 0; k < 3; k++) {
+				int v = 3 * faces[3 * f + k];
+				for (int a = 0; a < 3; a++) {
+					boxes[6 * f + 2 * a] = Math.min(boxes[6 * f + 2 * a], vertices[v + a]);
+					boxes[6 * f + 2 * a + 1] = Math.max(boxes[6 * f + 2 * a + 1], vertices[v + a]);
+					centroids[3 * f + a] += vertices[v + a] / 3;
+				}
+			}
+		}
+		int capacity = Math.max(1, 2 * n / BinnedSAH.MAX_LEAF + 1);
+		nodeBounds = new double[6 * capacity];
+		nodeStart = new int[capacity];
+		nodeCount = new int[capacity];
+		stackSize = buildNode(boxes, centroids, order, 0, n) + 1;
+		nodeBounds = Arrays.copyOf(nodeBounds, 6 * nodes);
+		nodeStart = Arrays.copyOf(nodeStart, nodes);
+		nodeCount = Arrays.copyOf(nodeCount, nodes);
+
+		int[] sorted = new int[faces.length];
+		for (int i = 0; i < n; i++)
+			System.arraycopy(faces, 3 * order[i], sorted, 3 * i, 3);
+		System.arraycopy(sorted, 0, faces, 0, faces.length);
+	}
+
+	/**
+	 * adds the node of the faces order[start..end) and all it's subtree
+	 *
+	 * @param boxes     the boxes of the faces
+	 * @param centroids the centroids of the faces
+	 * @param order     the order of the faces, partitioned in place
+	 * @param start     the first index in the order
+	 * @param end       the index after the last one in the order
+	 * @return the depth of the subtree
+	 */
+	private int buildNode(double[] boxes, double[] centroids, int[] order, int start, int end) {
+		int node = nodes++;
+		if (node == nodeStart.length) {
+			nodeBounds = Arrays.copyOf(nodeBounds, 12 * node);
+			nodeStart = Arrays.copyOf(nodeStart, 2 * node);
+			nodeCount = Arrays.copyOf(nodeCount, 2 * node);
+		}
+		BinnedSAH.bounds(boxes, order, start, end, nodeBounds, 6 * node);
+		int mid = BinnedSAH.split(boxes, centroids, order, start, end);
+		if (mid == -1) {
+			nodeStart[node] = start;
+			nodeCount[node] = end - start;
+			return 0;
+		}
+		int left = buildNode(boxes, centroids, order, start, mid);
+		nodeStart[node] = nodes;
+		int right = buildNode(boxes, centroids, order, mid, end);
+		return 1 + Math.max(left, right);
+	}
+
+	// ______________ intersections ______________
+
+	/**
+	 * finds the distance along the ray to the intersection point with a face, by
+	 * the Moller-Trumbore algorithm on the raw values of the vertices
+	 *
+	 * @param f       the index of the face
+	 * @param o       the origin of the ray
+	 * @param d       the direction of the ray
+	 * @param maxDist the max distance to look for an intersection
+	 * @return the distance to the intersection point, or positive infinity if there
+	 *         is no intersection up to 'maxDist'
+	 */
+	private double findDistance(int f, Point3D o, Vector d, double maxDist) {
+		int a = 3 * faces[3 * f], b = 3 * faces[3 * f + 1], c = 3 * faces[3 * f + 2];
+		double ax = vertices[a], ay = vertices[a + 1], az = vertices[a + 2];
+		// the edges from the first vertex
+		double e1x = vertices[b] - ax, e1y = vertices[b + 1] - ay, e1z = vertices[b + 2] - az;
+		double e2x = vertices[c] - ax, e2y = vertices[c + 1] - ay, e2z = vertices[c + 2] - az;
+		double dx = d.getX(), dy = d.getY(), dz = d.getZ();
+
+		// p = d X e2
+		double px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+		double det = e1x * px + e1y * py + e1z * pz;
+		// the ray is parallel to the face
+		if (isZero(det))
+			return Double.POSITIVE_INFINITY;
+		double inv = 1 / det;
+
+		double sx = o.getX() - ax, sy = o.getY() - ay, sz = o.getZ() - az;
+		double u = (sx * px + sy * py + sz * pz) * inv;
+		if (alignZero(u) <= 0 || alignZero(u - 1) >= 0)
+			return Double.POSITIVE_INFINITY;
+
+		// q = s X e1
+		double qx = sy * e1z - sz * e1y, qy = sz * e1x - sx * e1z, qz = sx * e1y - sy * e1x;
+		double v = (dx * qx + dy * qy + dz * qz) * inv;
+		if (alignZero(v) <= 0 || alignZero(u + v - 1) >= 0)
+			return Double.POSITIVE_INFINITY;
+
+		double t = alignZero((e2x * qx + e2y * qy + e2z * qz) * inv);
+		return t <= 0 || alignZero(t - maxDist) >= 0 ? Double.POSITIVE_INFINITY : t;
+	}
+
+	@Override
+	protected List<GeoPoint> findGeoIntersections(Ray ray, double maxDist) {
+		if (nodes == 0)
+			return null;
+		List<GeoPoint> intersections = null;
+		Point3D o = ray.getOrigin();
+		Vector d = ray.getDir();
+		int[] stack = new int[stackSize];
+		int sp = 0;
+		stack[sp++] = 0;
+		while (sp > 0) {
+			int node = stack[--sp];
+			if (!Boundary.isIntersect(nodeBounds, 6 * node, ray, maxDist))
+				continue;
+			if (nodeCount[node] == 0) {
+				stack[sp++] = nodeStart[node];
+				stack[sp++] = node + 1;
+				continue;
+			}
+			for (int f = nodeStart[node], end = f + nodeCount[node]; f < end; f++) {
+				double t = findDistance(f, o, d, maxDist);
+				if (t != Double.POSITIVE_INFINITY) {
+					if (intersections == null)
+						intersections = new LinkedList<>();
+					intersections.add(new GeoPoint(new Face(f), ray.getPoint(t)));
+				}
+			}
+		}
+		return intersections;
+	}
+
+	@Override
+	protected GeoPoint findClosestGeoIntersection(Ray ray, double maxDist) {
+		if (nodes == 0)
+			return null;
+		Point3D o = ray.getOrigin();
+		Vector d = ray.getDir();
+		int closest = -1;
+		int[] stack = new int[stackSize];
+		double[] entries = new double[stackSize];
+		int sp = 0;
+		stack[sp] = 0;
+		entries[sp++] = Double.NEGATIVE_INFINITY;
+		while (sp > 0) {
+			int node = stack[--sp];
+			// the node was pushed before a nearer face was found
+			if (entries[sp] > maxDist)
+				continue;
+			if (nodeCount[node] == 0) {
+				// push the children that are hit, the nearest one last
+				int left = node + 1, right = nodeStart[node];
+				double l = Boundary.entryDistance(nodeBounds, 6 * left, ray, maxDist);
+				double r = Boundary.entryDistance(nodeBounds, 6 * right, ray, maxDist);
+				if (l > r) {
+					int temp = left;
+					left = right;
+					right = temp;
+					double tempEntry = l;
+					l = r;
+					r = tempEntry;
+				}
+				if (r != Double.POSITIVE_INFINITY) {
+					stack[sp] = right;
+					entries[sp++] = r;
+				}
+				if (l != Double.POSITIVE_INFINITY) {
+					stack[sp] = left;
+					entries[sp++] = l;
+				}
+				continue;
+			}
+			for (int f = nodeStart[node], end = f + nodeCount[node]; f < end; f++) {
+				double t = findDistance(f, o, d, maxDist);
+				if (t != Double.POSITIVE_INFINITY) {
+					closest = f;
+					maxDist = t;
+				}
+			}
+		}
+		return closest == -1 ? null : new GeoPoint(new Face(closest), ray.getPoint(maxDist));
+	}
+
+	// ______________ geometry ______________
+
+	/**
+	 * calculates the normal of a face like the normal of the {@link Triangle} of
+	 * it's vertices
+	 *
+	 * @param f the index of the face
+	 * @return the normal of the face
+	 */
+	private Vector faceNormal(int f) {
+		int a = 3 * faces[3 * f], b = 3 * faces[3 * f + 1], c = 3 * faces[3 * f + 2];
+		double[] e = new double[9];
+		Vec3.subtract(vertices, a, vertices, b, e, 0);
+		Vec3.subtract(vertices, c, vertices, b, e, 3);
+		Vec3.cross(e, 0, e, 3, e, 6);
+		return new Vec3(e[6], e[7], e[8]).normalize().toVector();
+	}
+
+	/**
+	 * {@inheritDoc}<br/>
+	 * The normal of a mesh depends on the face. The intersections of the mesh refer
+	 * to their {@link Face} that has it's normal, so this is needed only for points
+	 * that were found elsewhere: the face is found by the hierarchy, only the
+	 * leaves whose boxes contain the point are checked
+	 *
+	 * @throws IllegalArgumentException if the point is not on the mesh
+	 */
+	@Override
+	public Vector getNormal(Point3D point) {
+		double[] p = { point.getX(), point.getY(), point.getZ() };
+		int[] stack = new int[Math.max(1, stackSize)];
+		int sp = 0;
+		if (nodes > 0)
+			stack[sp++] = 0;
+		while (sp > 0) {
+			int node = stack[--sp];
+			if (!contains(node, p))
+				continue;
+			if (nodeCount[node] == 0) {
+				stack[sp++] = nodeStart[node];
+				stack[sp++] = node + 1;
+				continue;
+			}
+			for (int f = nodeStart[node], end = f + nodeCount[node]; f < end; f++) {
+				Vector n = faceNormal(f);
+				// the face that the point is on it's plane and inside it
+				int a = 3 * faces[3 * f];
+				Vec3 u = new Vec3(point).subtract(new Vec3(vertices[a], vertices[a + 1], vertices[a + 2]));
+				if (!isZero(u.dot(n)))
+					continue;
+				Ray ray = new Ray(point.add(n), n.scale(-1));
+				if (findDistance(f, ray.getOrigin(), ray.getDir(), 2) != Double.POSITIVE_INFINITY)
+					return n;
+			}
+		}
+		throw new IllegalArgumentException("The point is not on the mesh");
+	}
+
+	/**
+	 * check if the box of a node contains a point, up to the accuracy of the
+	 * calculations
+	 *
+	 * @param node the node index
+	 * @param p    the values of the point
+	 * @return true if the point is in the box
+	 */
+	private boolean contains(int node, double[] p) {
+		for (int a = 0; a < 3; a++)
+			if (alignZero(p[a] - nodeBounds[6 * node + 2 * a]) < 0
+					|| alignZero(nodeBounds[6 * node + 2 * a + 1] - p[a]) < 0)
+				return false;
+		return true;
+	}
+
+	@Override
+	protected void initBoundary() {
+		if (nodes == 0) {
+			// like an empty Geometries
+			boundary = new Boundary(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+					Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+			return;
+		}
+		boundary = new Boundary(nodeBounds[1], nodeBounds[0], nodeBounds[3], nodeBounds[2], nodeBounds[5],
+				nodeBounds[4]);
+	}
+
+	@Override
+	public boolean isInfinite() {
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return "mesh: " + getVerticesCount() + " vertices, " + getFacesCount() + " faces";
+	}
+
+	/**
+	 * a single face of the mesh, it is created for each intersection point instead
+	 * of keeping a {@link Triangle} for each face. The face has the emission and the
+	 * material of the mesh, setting them on a face sets them on the mesh
+	 */
+	public final class Face extends Geometry {
+		private static final long serialVersionUID = 1L;
+		/**
+		 * the index of the face in the mesh
+		 */
+		private final int index;
+
+		/**
+		 * Face constructor
+		 *
+		 * @param index the index of the face in the mesh
+		 */
+		private Face(int index) {
+			this.index = index;
+		}
+
+		/**
+		 * get the mesh of the face
+		 *
+		 * @return the mesh
+		 */
+		public TriangleMesh getMesh() {
+			return TriangleMesh.this;
+		}
+
+		/**
+		 * get the index of the face in the mesh
+		 *
+		 * @return the index of the face
+		 */
+		public int getIndex() {
+			return index;
+		}
+
+		@Override
+		public Vector getNormal(Point3D point) {
+			return faceNormal(index);
+		}
+
+		@Override
+		public Color getEmission() {
+			return TriangleMesh.this.getEmission();
+		}
+
+		@Override
+		public Material getMaterial() {
+			return TriangleMesh.this.getMaterial();
+		}
+
+		/**
+		 * sets the emission of the mesh, it is shared by all the faces
+		 *
+		 * @param emission the emission of the mesh
+		 * @return it self
+		 */
+		@Override
+		public Face setEmission(Color emission) {
+			TriangleMesh.this.setEmission(emission);
+			return this;
+		}
+
+		/**
+		 * sets the material of the mesh, it is shared by all the faces
+		 *
+		 * @param material the material of the mesh
+		 * @return it self
+		 */
+		@Override
+		public Face setMaterial(Material material) {
+			TriangleMesh.this.setMaterial(material);
+			return this;
+		}
+
+		@Override
+		protected List<GeoPoint> findGeoIntersections(Ray ray, double maxDist) {
+			GeoPoint intersection = findClosestGeoIntersection(ray, maxDist);
+			return intersection == null ? null : List.of(intersection);
+		}
+
+		@Override
+		protected GeoPoint findClosestGeoIntersection(Ray ray, double maxDist) {
+			double t = findDistance(index, ray.getOrigin(), ray.getDir(), maxDist);
+			return t == Double.POSITIVE_INFINITY ? null : new GeoPoint(this, ray.getPoint(t));
+		}
+
+		@Override
+		protected void initBoundary() {
+			double[] box = new double[6];
+			BinnedSAH.empty(box, 0);
+			for (int k = 0; k < 3; k++) {
+				int v = 3 * faces[3 * index + k];
+				for (int a = 0; a < 3; a++) {
+					box[2 * a] = Math.min(box[2 * a], vertices[v + a]);
+					box[2 * a + 1] = Math.max(box[2 * a + 1], vertices[v + a]);
+				}
+			}
+			boundary = new Boundary(box[1], box[0], box[3], box[2], box[5], box[4]);
+		}
+
+		@Override
+		public boolean isInfinite() {
+			return false;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Face))
+				return false;
+			Face other = (Face) obj;
+			return index == other.index && getMesh() == other.getMesh();
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * System.identityHashCode(TriangleMesh.this) + index;
+		}
+
+		@Override
+		public String toString() {
+			return "face " + index + " of " + TriangleMesh.this;
+		}
+	}
+}
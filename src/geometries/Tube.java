@@ -10,6 +10,7 @@ import java.util.List;
  * represents an infinite tube in a 3d space
  */
 public class Tube extends Geometry {
+	private static final long serialVersionUID = 1L;
 
 	/**
 	 * a ray that contained in the axis line of the Tube
@@ -19,6 +20,11 @@ public class Tube extends Geometry {
 	 * the radius of the Tube
 	 */
 	protected double radius;
+	/**
+	 * the values of the origin and the direction of the axis for the intersection
+	 * calculations
+	 */
+	protected Vec3 p0, va;
 
 	/**
 	 * Tube constructor by ray and radius
@@ -29,6 +35,8 @@ public class Tube extends Geometry {
 	public Tube(Ray axis, double radius) {
 		this.axis = axis;
 		this.radius = radius;
+		p0 = new Vec3(axis.getOrigin());
+		va = new Vec3(axis.getDir());
 		initBoundary();
 	}
 
@@ -69,85 +77,79 @@ public class Tube extends Geometry {
 
 	@Override
 	public List<GeoPoint> findGeoIntersections(Ray ray, double maxDist) {
-		try {
-			// if the ray is parallel to the tube
-			if (ray.getDir().equals(axis.getDir()) || ray.getDir().equals(axis.getDir().scale(-1))) {
-				return null;
-			}
-			double scalar1 = axis.getDir().dotProduct(ray.getDir());
-			Vector v1;
-			if (Util.isZero(scalar1)) {
-				v1 = ray.getDir();
-			} else {
-				v1 = ray.getDir().subtract(axis.getDir().scale(scalar1));
-			}
-			Vector dP;
-			// if the ray start at the O point
-			if (ray.getOrigin().equals(axis.getOrigin())) {
-				double A = v1.length();
-				double t = radius / A;
-				return t <= maxDist ? List.of(new GeoPoint(this, ray.getPoint(t))) : null;
-			}
-			// if the ray start at the axis of the tube
-			else {
-				dP = ray.getOrigin().subtract(axis.getOrigin());
-				Vector nDp = dP.normalized();
-				if (nDp.equals(axis.getDir()) || nDp.equals(axis.getDir().scale(-1))) {
-					double A = v1.length();
-					double t = radius / A;
-					return t <= maxDist ? List.of(new GeoPoint(this, ray.getPoint(t))) : null;
-				}
-			}
-
-			double scalar2 = dP.dotProduct(axis.getDir());
-			Vector v2;
-
-			// if the vector from ray's origin to the origin of the tube's ray is vertical
-			// to the tube
-			if (Util.isZero(scalar2)) {
-				v2 = dP;
-			} else {
-				v2 = dP.subtract(axis.getDir().scale(dP.dotProduct(axis.getDir())));
-			}
-
-			// values of the Quadratic equation of t (At^ + Bt + C) - t is the location of
-			// the intersections point on the ray
-			double a = v1.lengthSquared();
-			double b = v1.dotProduct(v2) * 2;
-			double c = v2.lengthSquared() - radius * radius;
-
-			// if the discriminant <= 0 - no intersections points (one solution considered
-			// as no intersections - the ray is tangents)
-			double dis = b * b - 4 * a * c;
-			if (dis <= 0) {
-				return null;
-			}
-
-			double dissqrt = Math.sqrt(dis);
-			double t1 = Util.alignZero((-b - dissqrt) / (2 * a));
-			double t2 = Util.alignZero((-b + dissqrt) / (2 * a));
-
-			if (t2 <= 0) {
-				return null;
-			}
-
-			if (t1 > maxDist) {
-				return null;
-			}
-
-			Point3D p2 = ray.getPoint(t2);
-
-			if (t1 <= 0) {
-				return t2 > 0 ? List.of(new GeoPoint(this, p2)) : null;
-			}
-
-			if (t2 >= maxDist) {
-				return t1 < maxDist ? List.of(new GeoPoint(this, ray.getPoint(t1))) : null;
-			}
-			return List.of(new GeoPoint(this, ray.getPoint(t1)), new GeoPoint(this, p2));
-		} catch (Exception e) {
+		double t1 = findDistance(ray, maxDist, false);
+		if (t1 == Double.POSITIVE_INFINITY)
 			return null;
+		double t2 = findDistance(ray, maxDist, true);
+		if (t2 == Double.POSITIVE_INFINITY)
+			return List.of(new GeoPoint(this, ray.getPoint(t1)));
+		return List.of(new GeoPoint(this, ray.getPoint(t1)), new GeoPoint(this, ray.getPoint(t2)));
+	}
+
+	/**
+	 * finds the distance along the ray to an intersection point with the tube,
+	 * without allocations
+	 * 
+	 * @param ray     the ray
+	 * @param maxDist the max distance to look for intersections
+	 * @param far     false for the nearest intersection point, true for the
+	 *                farthest one when there are two
+	 * @return the distance to the intersection point, or positive infinity if
+	 *         there is no such point up to 'maxDist'
+	 */
+	protected double findDistance(Ray ray, double maxDist, boolean far) {
+		Point3D o = ray.getOrigin();
+		Vector d = ray.getDir();
+		// the part of the ray direction that is orthogonal to the tube
+		double s = -(va.x * d.getX() + va.y * d.getY() + va.z * d.getZ());
+		double v1x = d.getX() + s * va.x, v1y = d.getY() + s * va.y, v1z = d.getZ() + s * va.z;
+		// if the ray is parallel to the tube
+		if (isZero(v1x) && isZero(v1y) && isZero(v1z)) {
+			return Double.POSITIVE_INFINITY;
+		}
+		double a = v1x * v1x + v1y * v1y + v1z * v1z;
+
+		// the part of the vector from the axis origin to ray's origin that is orthogonal to
+		// the tube
+		double v2x = o.getX() - p0.x, v2y = o.getY() - p0.y, v2z = o.getZ() - p0.z;
+		s = -(va.x * v2x + va.y * v2y + va.z * v2z);
+		v2x += s * va.x;
+		v2y += s * va.y;
+		v2z += s * va.z;
+		// if the ray start at the axis of the tube
+		if (isZero(v2x) && isZero(v2y) && isZero(v2z)) {
+			double t = radius / Math.sqrt(a);
+			return !far && t <= maxDist ? t : Double.POSITIVE_INFINITY;
+		}
+
+		// values of the Quadratic equation of t (At^ + Bt + C) - t is the location of
+		// the intersections point on the ray
+		double b = (v1x * v2x + v1y * v2y + v1z * v2z) * 2;
+		double c = v2x * v2x + v2y * v2y + v2z * v2z - radius * radius;
+
+		// if the discriminant <= 0 - no intersections points (one solution considered
+		// as no intersections - the ray is tangents)
+		double dis = b * b - 4 * a * c;
+		if (dis <= 0) {
+			return Double.POSITIVE_INFINITY;
+		}
+
+		double dissqrt = Math.sqrt(dis);
+		double t1 = Util.alignZero((-b - dissqrt) / (2 * a));
+		double t2 = Util.alignZero((-b + dissqrt) / (2 * a));
+
+		if (t2 <= 0 || t1 > maxDist) {
+			return Double.POSITIVE_INFINITY;
+		}
+
+		if (t1 <= 0) {
+			return !far && t2 < maxDist ? t2 : Double.POSITIVE_INFINITY;
+		}
+
+		if (t2 >= maxDist) {
+			return !far && t1 < maxDist ? t1 : Double.POSITIVE_INFINITY;
 		}
+		return far ? t2 : t1;
 	}
 
 	/**
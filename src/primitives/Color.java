@@ -1,5 +1,7 @@
 package primitives;
 
+import java.io.Serializable;
+import java.nio.FloatBuffer;
 import java.util.List;
 
 /**
@@ -10,7 +12,8 @@ import java.util.List;
  * 
  * @author Dan Zilberstein
  */
-public class Color {
+public class Color implements Serializable {
+	private static final long serialVersionUID = 1L;
 	/**
 	 * The internal fields tx`o maintain RGB components as double numbers from 0 to
 	 * whatever...
@@ -153,6 +156,55 @@ public class Color {
 		return new java.awt.Color(ir > 255 ? 255 : ir, ig > 255 ? 255 : ig, ib > 255 ? 255 : ib);
 	}
 
+	/**
+	 * writes the components of the color to an array of floats, like a pixel of a
+	 * frame buffer (without the limit of 255)
+	 *
+	 * @param buffer the array
+	 * @param offset the index of the red component, green and blue are after it
+	 */
+	public void writeTo(float[] buffer, int offset) {
+		buffer[offset] = (float) r;
+		buffer[offset + 1] = (float) g;
+		buffer[offset + 2] = (float) b;
+	}
+
+	/**
+	 * adds the components of the color to an array of floats, like a pixel of a
+	 * frame buffer that accumulates samples
+	 *
+	 * @param buffer the array
+	 * @param offset the index of the red component, green and blue are after it
+	 */
+	public void addTo(float[] buffer, int offset) {
+		buffer[offset] += (float) r;
+		buffer[offset + 1] += (float) g;
+		buffer[offset + 2] += (float) b;
+	}
+
+	/**
+	 * writes the components of the color to a buffer of floats (e.g. a memory
+	 * mapped frame buffer), without changing it's position
+	 *
+	 * @param buffer the buffer
+	 * @param index  the index of the red component, green and blue are after it
+	 */
+	public void writeTo(FloatBuffer buffer, int index) {
+		buffer.put(index, (float) r).put(index + 1, (float) g).put(index + 2, (float) b);
+	}
+
+	/**
+	 * adds the components of the color to a buffer of floats, without changing
+	 * it's position
+	 *
+	 * @param buffer the buffer
+	 * @param index  the index of the red component, green and blue are after it
+	 */
+	public void addTo(FloatBuffer buffer, int index) {
+		buffer.put(index, buffer.get(index) + (float) r).put(index + 1, buffer.get(index + 1) + (float) g)
+				.put(index + 2, buffer.get(index + 2) + (float) b);
+	}
+
 	/**
 	 * Operation of adding this and one or more other colors (by component)
 	 *
@@ -211,4 +263,179 @@ public class Color {
 		return (r + g + b) / colors.size();
 	}
 
+
+	/**
+	 * a mutable sum of colors for the inner loops of the rendering: the adding and
+	 * the scaling are done in place without creating a new {@link Color} and
+	 * without checking the components, the sum is turned into a color only once at
+	 * the end. The sum doesn't check for negative components, it is up to the
+	 * caller to add only non-negative colors with non-negative factors
+	 */
+	public static final class Accumulator {
+		private double r = 0.0;
+		private double g = 0.0;
+		private double b = 0.0;
+
+		/**
+		 * resets the sum to black
+		 * 
+		 * @return the accumulator itself for chaining calls
+		 */
+		public Accumulator reset() {
+			r = 0.0;
+			g = 0.0;
+			b = 0.0;
+			return this;
+		}
+
+		/**
+		 * sets the sum to the values[index..index+2] as (r, g, b)
+		 * 
+		 * @param values the array of the values
+		 * @param index  the index of r in the array
+		 * @return the accumulator itself for chaining calls
+		 */
+		public Accumulator load(double[] values, int index) {
+			r = values[index];
+			g = values[index + 1];
+			b = values[index + 2];
+			return this;
+		}
+
+		/**
+		 * puts the sum at values[index..index+2] as (r, g, b)
+		 * 
+		 * @param values the array of the values
+		 * @param index  the index of r in the array
+		 */
+		public void store(double[] values, int index) {
+			values[index] = r;
+			values[index + 1] = g;
+			values[index + 2] = b;
+		}
+
+		/**
+		 * adds a color to the sum
+		 * 
+		 * @param color the color to add
+		 * @return the accumulator itself for chaining calls
+		 */
+		public Accumulator add(Color color) {
+			r += color.r;
+			g += color.g;
+			b += color.b;
+			return this;
+		}
+
+		/**
+		 * adds a color that is scaled by 'k' to the sum (fused multiply-add)
+		 * 
+		 * @param color the color to add
+		 * @param k     the scale factor of the color
+		 * @return the accumulator itself for chaining calls
+		 */
+		public Accumulator addScaled(Color color, double k) {
+			r += color.r * k;
+			g += color.g * k;
+			b += color.b * k;
+			return this;
+		}
+
+		/**
+		 * adds another sum to this sum, each component is cut at 255 first (like in
+		 * the average of {@link Color#Color(List)})
+		 * 
+		 * @param other the sum to add
+		 * @return the accumulator itself for chaining calls
+		 */
+		public Accumulator addClamped(Accumulator other) {
+			r += other.r < 255 ? other.r : 255;
+			g += other.g < 255 ? other.g : 255;
+			b += other.b < 255 ? other.b : 255;
+			return this;
+		}
+
+		/**
+		 * scales the sum by a scalar
+		 * 
+		 * @param k scale factor
+		 * @return the accumulator itself for chaining calls
+		 */
+		public Accumulator scale(double k) {
+			r *= k;
+			g *= k;
+			b *= k;
+			return this;
+		}
+
+		/**
+		 * scales the sum by (1 / reduction factor), like the average of a number of
+		 * samples
+		 * 
+		 * @param k reduction factor
+		 * @return the accumulator itself for chaining calls
+		 */
+		public Accumulator reduce(double k) {
+			r /= k;
+			g /= k;
+			b /= k;
+			return this;
+		}
+
+		/**
+		 * calculates the distance between a sample that is cut at 255 and this sum
+		 * (the sum of the differences of the components), the part of a sample in
+		 * {@link Color#getVariance(List)}
+		 * 
+		 * @param sample the sample
+		 * @return the distance
+		 */
+		public double clampedDistance(Accumulator sample) {
+			return Math.abs((sample.r < 255 ? sample.r : 255) - r) + Math.abs((sample.g < 255 ? sample.g : 255) - g)
+					+ Math.abs((sample.b < 255 ? sample.b : 255) - b);
+		}
+
+		/**
+		 * adds this sum as a sample (cut at 255) to running statistics of a pixel by
+		 * Welford's method. The statistics are 6 values: the mean and the sum of the
+		 * squared distances from the mean, of r, g and b
+		 * 
+		 * @param n     the number of samples in the statistics with this one
+		 * @param stats the array of the statistics
+		 * @param index the index of the first value of the statistics in the array
+		 */
+		public void addToStatistics(int n, double[] stats, int index) {
+			welford(r < 255 ? r : 255, n, stats, index);
+			welford(g < 255 ? g : 255, n, stats, index + 2);
+			welford(b < 255 ? b : 255, n, stats, index + 4);
+		}
+
+		/**
+		 * adds a value to the running mean and sum of squared distances of one
+		 * component
+		 * 
+		 * @param x     the value
+		 * @param n     the number of values with this one
+		 * @param stats the array of the statistics
+		 * @param index the index of the mean, the sum of squares is after it
+		 */
+		private static void welford(double x, int n, double[] stats, int index) {
+			double delta = x - stats[index];
+			stats[index] += delta / n;
+			stats[index + 1] += delta * (x - stats[index]);
+		}
+
+		/**
+		 * creates a color of the sum
+		 * 
+		 * @return new Color object of the sum
+		 */
+		public Color toColor() {
+			Color color = new Color();
+			color.r = r;
+			color.g = g;
+			color.b = b;
+			return color;
+		}
+	}
 }
@@ -2,6 +2,8 @@ package primitives;
 
 import static primitives.Util.*;
 
+import java.io.Serializable;
+
 /**
  * Class Coordinate is the basic class representing a coordinate for Cartesian
  * coordinate system. The class is based on Util controlling the accuracy.
@@ -9,7 +11,9 @@ import static primitives.Util.*;
  * @author Dan Zilberstein
  * @version 5780B updated according to new requirements
  */
-public final class Coordinate {
+public final class Coordinate implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     /**
      * Coordinate value, intentionally "package-friendly" due to performance
      * constraints
@@ -1,9 +1,12 @@
 package primitives;
 
+import java.io.Serializable;
+
 /**
  * the material of the surface of an object
  */
-public class Material {
+public class Material implements Serializable {
+	private static final long serialVersionUID = 1L;
 	/**
 	 * diffuse factor
 	 */
@@ -1,9 +1,12 @@
 package primitives;
 
+import java.io.Serializable;
+
 /**
  * represents a point in a 3D space
  */
-public final class Point3D {
+public final class Point3D implements Serializable {
+	private static final long serialVersionUID = 1L;
 
 	// static fields
 	/**
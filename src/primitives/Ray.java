@@ -3,6 +3,7 @@
  */
 package primitives;
 
+import java.io.Serializable;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -14,10 +15,20 @@ import renderer.BlackBoard;
  * 
  * represents a ray by point and vector
  */
-public class Ray {
+public class Ray implements Serializable {
+	private static final long serialVersionUID = 1L;
 
 	private Point3D origin;
 	private Vector dir;
+	/**
+	 * the inverse of the direction values (infinity for a zero value), for the
+	 * slab test of the boundaries
+	 */
+	private double invX, invY, invZ;
+	/**
+	 * the sign bits of the direction values (1 for a negative value)
+	 */
+	private int signX, signY, signZ;
 
 	/**
 	 * ray constructor by point and vector
@@ -28,6 +39,7 @@ public class Ray {
 	public Ray(Point3D p0, Vector dir) {
 		this.origin = p0;
 		this.dir = dir.normalized();
+		initInverse();
 	}
 
 	/**
@@ -45,6 +57,20 @@ public class Ray {
 	public Ray(Point3D p0, Vector v, Vector n) {
 		this.dir = v;
 		this.origin = p0.add(n.scale(v.dotProduct(n) > 0 ? DELTA : -DELTA));
+		initInverse();
+	}
+
+	/**
+	 * calculates the inverse and the sign bits of the direction once, so the slab
+	 * tests never divide
+	 */
+	private void initInverse() {
+		invX = 1 / dir.getX();
+		invY = 1 / dir.getY();
+		invZ = 1 / dir.getZ();
+		signX = invX < 0 ? 1 : 0;
+		signY = invY < 0 ? 1 : 0;
+		signZ = invZ < 0 ? 1 : 0;
 	}
 
 	/**
@@ -65,6 +91,60 @@ public class Ray {
 		return dir;
 	}
 
+	/**
+	 * get the inverse of the x value of the direction
+	 * 
+	 * @return 1 / x of the direction (infinity if it is zero)
+	 */
+	public double getInvX() {
+		return invX;
+	}
+
+	/**
+	 * get the inverse of the y value of the direction
+	 * 
+	 * @return 1 / y of the direction (infinity if it is zero)
+	 */
+	public double getInvY() {
+		return invY;
+	}
+
+	/**
+	 * get the inverse of the z value of the direction
+	 * 
+	 * @return 1 / z of the direction (infinity if it is zero)
+	 */
+	public double getInvZ() {
+		return invZ;
+	}
+
+	/**
+	 * get the sign bit of the x value of the direction
+	 * 
+	 * @return 1 if the ray goes toward the negative x, otherwise 0
+	 */
+	public int getSignX() {
+		return signX;
+	}
+
+	/**
+	 * get the sign bit of the y value of the direction
+	 * 
+	 * @return 1 if the ray goes toward the negative y, otherwise 0
+	 */
+	public int getSignY() {
+		return signY;
+	}
+
+	/**
+	 * get the sign bit of the z value of the direction
+	 * 
+	 * @return 1 if the ray goes toward the negative z, otherwise 0
+	 */
+	public int getSignZ() {
+		return signZ;
+	}
+
 	/**
 	 * find a point on the ray by a given scalar(origin + scalar*dir)
 	 * 
@@ -188,8 +268,24 @@ public class Ray {
 	 *         with 'center' at it center
 	 */
 	public List<Ray> createBeam(BlackBoard bb, Point3D center, Vector vUp, Vector vRight) {
+		return createBeam(bb, center, vUp, vRight, 0);
+	}
+
+	/**
+	 * create a beam of rays like {@link #createBeam(BlackBoard, Point3D, Vector, Vector)},
+	 * the points of a low-discrepancy black board are scrambled by the given key
+	 * 
+	 * @param bb       the black board
+	 * @param center   the point to put at the center of the black board
+	 * @param vUp      the up direction of the black board
+	 * @param vRight   the right direction of the black board
+	 * @param scramble the key of the scrambling of the points
+	 * @return a beam of rays that start at the origin point of this ray and goes
+	 *         through each point on the black board
+	 */
+	public List<Ray> createBeam(BlackBoard bb, Point3D center, Vector vUp, Vector vRight, int scramble) {
 		List<Ray> beam = new LinkedList<>();
-		for (Point3D p : bb.generate3dPoints(vUp, vRight, center))
+		for (Point3D p : bb.generate3dPoints(vUp, vRight, center, scramble))
 			beam.add(new Ray(origin, p.subtract(origin)));
 		return beam;
 
@@ -0,0 +1,196 @@
+package primitives;
+
+import static primitives.Util.*;
+
+import java.io.Serializable;
+
+/**
+ * An immutable affine transform of the 3D space (a 3X3 linear part and a
+ * translation). The inverse is calculated once when the transform is created,
+ * so a transform must be invertible.<br/>
+ * The transforms are combined in the order they are applied, e.g.
+ * {@code Transform.scaling(2).then(Transform.rotation(Vector.Y, 90)).then(Transform.translation(v))}
+ * scales, then rotates and then moves.
+ */
+public final class Transform implements Serializable {
+	private static final long serialVersionUID = 1L;
+	/**
+	 * the transform that changes nothing
+	 */
+	public static final Transform IDENTITY = new Transform(new double[] { 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0 });
+
+	/**
+	 * the rows of the matrix, 4 values in each row: the linear part and the
+	 * translation
+	 */
+	private final double[] m;
+	/**
+	 * the matrix of the inverse transform
+	 */
+	private final double[] inv;
+
+	/**
+	 * constructs a transform by it's matrix and calculates the inverse
+	 *
+	 * @param m the 3 rows of the matrix, 4 values in each row
+	 * @throws IllegalArgumentException if the transform is not invertible
+	 */
+	private Transform(double[] m) {
+		this.m = m;
+		double c00 = m[5] * m[10] - m[6] * m[9];
+		double c01 = m[6] * m[8] - m[4] * m[10];
+		double c02 = m[4] * m[9] - m[5] * m[8];
+		double det = m[0] * c00 + m[1] * c01 + m[2] * c02;
+		if (isZero(det))
+			throw new IllegalArgumentException("The transform is not invertible");
+		double d = 1 / det;
+		inv = new double[12];
+		// the inverse of the linear part is the transposed matrix of the cofactors
+		inv[0] = c00 * d;
+		inv[1] = (m[2] * m[9] - m[1] * m[10]) * d;
+		inv[2] = (m[1] * m[6] - m[2] * m[5]) * d;
+		inv[4] = c01 * d;
+		inv[5] = (m[0] * m[10] - m[2] * m[8]) * d;
+		inv[6] = (m[2] * m[4] - m[0] * m[6]) * d;
+		inv[8] = c02 * d;
+		inv[9] = (m[1] * m[8] - m[0] * m[9]) * d;
+		inv[10] = (m[0] * m[5] - m[1] * m[4]) * d;
+		for (int r = 0; r < 12; r += 4)
+			inv[r + 3] = -(inv[r] * m[3] + inv[r + 1] * m[7] + inv[r + 2] * m[11]);
+	}
+
+	/**
+	 * constructs a transform and it's known inverse
+	 *
+	 * @param m   the matrix of the transform
+	 * @param inv the matrix of the inverse
+	 */
+	private Transform(double[] m, double[] inv) {
+		this.m = m;
+		this.inv = inv;
+	}
+
+	/**
+	 * creates a transform that moves the space
+	 *
+	 * @param v the movement
+	 * @return the transform
+	 */
+	public static Transform translation(Vector v) {
+		return new Transform(new double[] { 1, 0, 0, v.getX(), 0, 1, 0, v.getY(), 0, 0, 1, v.getZ() });
+	}
+
+	/**
+	 * creates a transform that scales the space by a factor
+	 *
+	 * @param s the factor
+	 * @return the transform
+	 */
+	public static Transform scaling(double s) {
+		return scaling(s, s, s);
+	}
+
+	/**
+	 * creates a transform that scales each axis by it's factor
+	 *
+	 * @param sx the factor of the x axis
+	 * @param sy the factor of the y axis
+	 * @param sz the factor of the z axis
+	 * @return the transform
+	 * @throws IllegalArgumentException if a factor is 0
+	 */
+	public static Transform scaling(double sx, double sy, double sz) {
+		return new Transform(new double[] { sx, 0, 0, 0, 0, sy, 0, 0, 0, 0, sz, 0 });
+	}
+
+	/**
+	 * creates a transform that rotates the space around an axis through the
+	 * origin (counterclockwise when the axis points to the viewer)
+	 *
+	 * @param axis    the direction of the axis
+	 * @param degrees the angle of the rotation in degrees
+	 * @return the transform
+	 */
+	public static Transform rotation(Vector axis, double degrees) {
+		Vector u = axis.normalized();
+		double x = u.getX(), y = u.getY(), z = u.getZ();
+		double angle = Math.toRadians(degrees);
+		double c = Math.cos(angle), s = Math.sin(angle), t = 1 - c;
+		return new Transform(new double[] { //
+				t * x * x + c, t * x * y - s * z, t * x * z + s * y, 0, //
+				t * x * y + s * z, t * y * y + c, t * y * z - s * x, 0, //
+				t * x * z - s * y, t * y * z + s * x, t * z * z + c, 0 });
+	}
+
+	/**
+	 * combines this transform with the next one
+	 *
+	 * @param next the transform that is applied after this one
+	 * @return the transform that applies this transform and then the next one
+	 */
+	public Transform then(Transform next) {
+		return new Transform(multiply(next.m, m), multiply(inv, next.inv));
+	}
+
+	/**
+	 * get the inverse transform
+	 *
+	 * @return the inverse
+	 */
+	public Transform inverse() {
+		return new Transform(inv, m);
+	}
+
+	/**
+	 * multiplies two affine matrices
+	 *
+	 * @param a the left matrix
+	 * @param b the right matrix
+	 * @return the matrix of b and then a
+	 */
+	private static double[] multiply(double[] a, double[] b) {
+		double[] r = new double[12];
+		for (int i = 0; i < 12; i += 4)
+			for (int j = 0; j < 4; j++)
+				r[i + j] = a[i] * b[j] + a[i + 1] * b[4 + j] + a[i + 2] * b[8 + j] + (j == 3 ? a[i + 3] : 0);
+		return r;
+	}
+
+	/**
+	 * transforms a point
+	 *
+	 * @param p the point
+	 * @return the transformed point
+	 */
+	public Point3D apply(Point3D p) {
+		double x = p.getX(), y = p.getY(), z = p.getZ();
+		return new Point3D(m[0] * x + m[1] * y + m[2] * z + m[3], m[4] * x + m[5] * y + m[6] * z + m[7],
+				m[8] * x + m[9] * y + m[10] * z + m[11]);
+	}
+
+	/**
+	 * transforms a direction (without the translation), the length of the vector
+	 * changes by the scaling
+	 *
+	 * @param v the vector
+	 * @return the transformed vector
+	 */
+	public Vector apply(Vector v) {
+		double x = v.getX(), y = v.getY(), z = v.getZ();
+		return new Vector(m[0] * x + m[1] * y + m[2] * z, m[4] * x + m[5] * y + m[6] * z,
+				m[8] * x + m[9] * y + m[10] * z);
+	}
+
+	/**
+	 * transforms a normal of a surface, by the transposed inverse, so it stays
+	 * orthogonal to the transformed surface
+	 *
+	 * @param n the normal
+	 * @return the transformed normal, normalized
+	 */
+	public Vector applyToNormal(Vector n) {
+		double x = n.getX(), y = n.getY(), z = n.getZ();
+		return new Vector(inv[0] * x + inv[4] * y + inv[8] * z, inv[1] * x + inv[5] * y + inv[9] * z,
+				inv[2] * x + inv[6] * y + inv[10] * z).normalize();
+	}
+}
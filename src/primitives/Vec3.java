@@ -0,0 +1,337 @@
+package primitives;
+
+import java.io.Serializable;
+
+/**
+ * A mutable 3D vector of raw double values for the hot paths of the
+ * intersection calculations.<br/>
+ * Unlike {@link Point3D} and {@link Vector} the values are not aligned to zero,
+ * the zero vector is allowed, and the operations change this object instead of
+ * allocating a new one. The static helpers do the same on vectors that are kept
+ * as 3 consecutive values in a double array.
+ */
+public final class Vec3 implements Serializable {
+	private static final long serialVersionUID = 1L;
+	/**
+	 * the x value
+	 */
+	public double x;
+	/**
+	 * the y value
+	 */
+	public double y;
+	/**
+	 * the z value
+	 */
+	public double z;
+
+	/**
+	 * constructs the zero vector
+	 */
+	public Vec3() {
+	}
+
+	/**
+	 * Vec3 constructor by double values
+	 *
+	 * @param x the x value
+	 * @param y the y value
+	 * @param z the z value
+	 */
+	public Vec3(double x, double y, double z) {
+		this.x = x;
+		this.y = y;
+		this.z = z;
+	}
+
+	/**
+	 * Vec3 constructor by the values of a point
+	 *
+	 * @param p the point
+	 */
+	public Vec3(Point3D p) {
+		this(p.x.coord, p.y.coord, p.z.coord);
+	}
+
+	/**
+	 * Vec3 constructor by the values of a vector
+	 *
+	 * @param v the vector
+	 */
+	public Vec3(Vector v) {
+		this(v.head);
+	}
+
+	/**
+	 * Vec3 copy constructor
+	 *
+	 * @param v the vector to copy
+	 */
+	public Vec3(Vec3 v) {
+		this(v.x, v.y, v.z);
+	}
+
+	/**
+	 * sets the values of this vector
+	 *
+	 * @param x the x value
+	 * @param y the y value
+	 * @param z the z value
+	 * @return it self
+	 */
+	public Vec3 set(double x, double y, double z) {
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		return this;
+	}
+
+	/**
+	 * sets the values of this vector to the values of 'v'
+	 *
+	 * @param v the vector to copy
+	 * @return it self
+	 */
+	public Vec3 set(Vec3 v) {
+		return set(v.x, v.y, v.z);
+	}
+
+	/**
+	 * adds 'v' to this vector
+	 *
+	 * @param v the vector to add
+	 * @return it self
+	 */
+	public Vec3 add(Vec3 v) {
+		x += v.x;
+		y += v.y;
+		z += v.z;
+		return this;
+	}
+
+	/**
+	 * adds 's' * 'v' to this vector
+	 *
+	 * @param s the scalar to multiply 'v' by
+	 * @param v the vector to add
+	 * @return it self
+	 */
+	public Vec3 addScaled(double s, Vec3 v) {
+		x += s * v.x;
+		y += s * v.y;
+		z += s * v.z;
+		return this;
+	}
+
+	/**
+	 * subtracts 'v' from this vector
+	 *
+	 * @param v the vector to subtract
+	 * @return it self
+	 */
+	public Vec3 subtract(Vec3 v) {
+		x -= v.x;
+		y -= v.y;
+		z -= v.z;
+		return this;
+	}
+
+	/**
+	 * subtracts the point 'p' from this vector
+	 *
+	 * @param p the point to subtract
+	 * @return it self
+	 */
+	public Vec3 subtract(Point3D p) {
+		x -= p.x.coord;
+		y -= p.y.coord;
+		z -= p.z.coord;
+		return this;
+	}
+
+	/**
+	 * multiplies this vector by a scalar
+	 *
+	 * @param s the scalar
+	 * @return it self
+	 */
+	public Vec3 scale(double s) {
+		x *= s;
+		y *= s;
+		z *= s;
+		return this;
+	}
+
+	/**
+	 * sets this vector to the cross product this X 'v'
+	 *
+	 * @param v the vector at the right side of the cross
+	 * @return it self
+	 */
+	public Vec3 cross(Vec3 v) {
+		return set(y * v.z - z * v.y, z * v.x - x * v.z, x * v.y - y * v.x);
+	}
+
+	/**
+	 * calculates the dot product of this vector and 'v'
+	 *
+	 * @param v the other vector
+	 * @return the dot product
+	 */
+	public double dot(Vec3 v) {
+		return x * v.x + y * v.y + z * v.z;
+	}
+
+	/**
+	 * calculates the dot product of this vector and the vector 'v'
+	 *
+	 * @param v the other vector
+	 * @return the dot product
+	 */
+	public double dot(Vector v) {
+		return x * v.head.x.coord + y * v.head.y.coord + z * v.head.z.coord;
+	}
+
+	/**
+	 * calculates the triple product this * ('u' X 'v') without changing any of the
+	 * vectors
+	 *
+	 * @param u the left vector of the cross product
+	 * @param v the right vector of the cross product
+	 * @return the triple product
+	 */
+	public double triple(Vec3 u, Vec3 v) {
+		return x * (u.y * v.z - u.z * v.y) + y * (u.z * v.x - u.x * v.z) + z * (u.x * v.y - u.y * v.x);
+	}
+
+	/**
+	 * calculates the squared length of this vector
+	 *
+	 * @return the squared length
+	 */
+	public double lengthSquared() {
+		return x * x + y * y + z * z;
+	}
+
+	/**
+	 * calculates the length of this vector
+	 *
+	 * @return the length
+	 */
+	public double length() {
+		return Math.sqrt(lengthSquared());
+	}
+
+	/**
+	 * normalize this vector
+	 *
+	 * @return it self
+	 */
+	public Vec3 normalize() {
+		return scale(1 / length());
+	}
+
+	/**
+	 * check if this vector is [almost] the zero vector, the same way
+	 * {@link Point3D#equals(Object)} compares to {@link Point3D#ZERO}
+	 *
+	 * @return true if all the values are almost zero
+	 */
+	public boolean isZero() {
+		return Util.isZero(x) && Util.isZero(y) && Util.isZero(z);
+	}
+
+	/**
+	 * creates an immutable point of the values of this vector
+	 *
+	 * @return a new point
+	 */
+	public Point3D toPoint3D() {
+		return new Point3D(x, y, z);
+	}
+
+	/**
+	 * creates an immutable vector of the values of this vector
+	 *
+	 * @return a new vector
+	 * @throws IllegalArgumentException if this is the zero vector
+	 */
+	public Vector toVector() {
+		return new Vector(x, y, z);
+	}
+
+	@Override
+	public String toString() {
+		return "[" + x + ", " + y + ", " + z + "]";
+	}
+
+	// ______________ vectors in double arrays ______________
+
+	/**
+	 * calculates the dot product of the vectors a[i..i+2] and b[j..j+2]
+	 *
+	 * @param a the array of the 1st vector
+	 * @param i the index of the 1st vector
+	 * @param b the array of the 2nd vector
+	 * @param j the index of the 2nd vector
+	 * @return the dot product
+	 */
+	public static double dot(double[] a, int i, double[] b, int j) {
+		return a[i] * b[j] + a[i + 1] * b[j + 1] + a[i + 2] * b[j + 2];
+	}
+
+	/**
+	 * puts a[i..i+2] - b[j..j+2] at to[k..k+2]
+	 *
+	 * @param a  the array of the 1st vector
+	 * @param i  the index of the 1st vector
+	 * @param b  the array of the 2nd vector
+	 * @param j  the index of the 2nd vector
+	 * @param to the array of the result
+	 * @param k  the index of the result
+	 */
+	public static void subtract(double[] a, int i, double[] b, int j, double[] to, int k) {
+		to[k] = a[i] - b[j];
+		to[k + 1] = a[i + 1] - b[j + 1];
+		to[k + 2] = a[i + 2] - b[j + 2];
+	}
+
+	/**
+	 * puts a[i..i+2] X b[j..j+2] at to[k..k+2], 'to' must not overlap the other
+	 * vectors
+	 *
+	 * @param a  the array of the 1st vector
+	 * @param i  the index of the 1st vector
+	 * @param b  the array of the 2nd vector
+	 * @param j  the index of the 2nd vector
+	 * @param to the array of the result
+	 * @param k  the index of the result
+	 */
+	public static void cross(double[] a, int i, double[] b, int j, double[] to, int k) {
+		to[k] = a[i + 1] * b[j + 2] - a[i + 2] * b[j + 1];
+		to[k + 1] = a[i + 2] * b[j] - a[i] * b[j + 2];
+		to[k + 2] = a[i] * b[j + 1] - a[i + 1] * b[j];
+	}
+
+	/**
+	 * calculates the length of the vector a[i..i+2]
+	 *
+	 * @param a the array of the vector
+	 * @param i the index of the vector
+	 * @return the length
+	 */
+	public static double length(double[] a, int i) {
+		return Math.sqrt(dot(a, i, a, i));
+	}
+
+	/**
+	 * check if the vector a[i..i+2] is [almost] the zero vector
+	 *
+	 * @param a the array of the vector
+	 * @param i the index of the vector
+	 * @return true if all the values are almost zero
+	 */
+	public static boolean isZero(double[] a, int i) {
+		return Util.isZero(a[i]) && Util.isZero(a[i + 1]) && Util.isZero(a[i + 2]);
+	}
+}
@@ -1,10 +1,13 @@
 package primitives;
 
+import java.io.Serializable;
+
 /**
  * represents a vector in 3d space by 3d point
  *
  */
-public final class Vector {
+public final class Vector implements Serializable {
+	private static final long serialVersionUID = 1L;
 	// ___________private fields__________________
 	/**
 	 * the head of the vector
@@ -1,6 +1,5 @@
 package renderer;
 
-import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
 
 import elements.LightSource;
@@ -14,6 +13,7 @@ import scene.Scene;
  * traces ray to find it's pixel color
  */
 public class BasicRayTracer extends RayTracerBase {
+	private static final long serialVersionUID = 1L;
 
 	/**
 	 * the initial value of the
@@ -39,30 +39,39 @@ public class BasicRayTracer extends RayTracerBase {
 
 	@Override
 	public Color traceRay(Ray ray) {
+		Color.Accumulator color = new Color.Accumulator();
+		traceRay(ray, color);
+		return color.toColor();
+	}
+
+	@Override
+	public void traceRay(Ray ray, Color.Accumulator color) {
 		if (scene.geometries == null) {
-			return scene.background;
+			color.add(scene.background);
+			return;
 		}
 		GeoPoint closestPoint = findClosestIntersection(ray);
 		if (closestPoint == null)
-			return scene.background;
-
-		return calcColor(closestPoint, ray);
+			color.add(scene.background);
+		else
+			calcColor(closestPoint, ray, color);
 	}
 
 	/**
-	 * calculates the color for a given point
+	 * calculates the color for a given point and adds it to the sum
 	 * 
 	 * @param intersection the point to find the color for
 	 * @param ray          the ray from the camera
-	 * @return the color of this point
+	 * @param color        the sum to add the color of this point to
 	 */
-	private Color calcColor(GeoPoint intersection, Ray ray) {
-		return calcColor(intersection, ray.getDir(), MAX_CALC_COLOR_LEVEL, INITIAL_K)
-				.add(scene.ambientLight.getIntensity());
+	private void calcColor(GeoPoint intersection, Ray ray, Color.Accumulator color) {
+		calcColor(intersection, ray.getDir(), MAX_CALC_COLOR_LEVEL, INITIAL_K, 1, color);
+		color.add(scene.ambientLight.getIntensity());
 	}
 
 	/**
-	 * calculates the final color for a given point with all the factors
+	 * calculates the final color for a given point with all the factors, and adds
+	 * it to the sum scaled by 'weight'
 	 * 
 	 * @param intersection the point to find the color for
 	 * @param v            the original ray direction
@@ -70,35 +79,39 @@ public class BasicRayTracer extends RayTracerBase {
 	 *                     produce refracted/reflection ray)
 	 * @param k            the minimum value of the color that we add by calculating
 	 *                     the transparency/reflection effect
-	 * @return the final color of this point
+	 * @param weight       the scale of the color of this point in the sum (the
+	 *                     product of the reflection/transparency factors on the way
+	 *                     to it)
+	 * @param color        the sum to add the color of this point to
 	 */
-	private Color calcColor(GeoPoint intersection, Vector v, int level, double k) {
-		Color color = intersection.geometry.getEmission();
-		color = color.add(calcLocalEffects(intersection, v, k));
-		return 1 == level ? color : color.add(calcGlobalEffects(intersection, v, level, k));
+	private void calcColor(GeoPoint intersection, Vector v, int level, double k, double weight,
+			Color.Accumulator color) {
+		color.addScaled(intersection.geometry.getEmission(), weight);
+		calcLocalEffects(intersection, v, k, weight, color);
+		if (1 != level)
+			calcGlobalEffects(intersection, v, level, k, weight, color);
 	}
 
 	/**
 	 * calculating the color of the intersection point considering all the light
-	 * source of the scene
+	 * source of the scene, and adds it to the sum scaled by 'weight'
 	 * 
 	 * @param intersection the intersection point
 	 * @param v            the ray of the intersection
 	 * @param k            the minimum value of the color that we add by calculating
 	 *                     the transparency effect
-	 * @return the final color of the intersection point considering all the light
-	 *         source of the scene
+	 * @param weight       the scale of the color of this point in the sum
+	 * @param color        the sum to add the color of the lights to
 	 */
-	private Color calcLocalEffects(GeoPoint intersection, Vector v, double k) {
+	private void calcLocalEffects(GeoPoint intersection, Vector v, double k, double weight, Color.Accumulator color) {
 		Vector n = intersection.getNormal();
 //		if (intersection.geometry.getMaterial().isSnow)
 //			n = snowEffect(n);
 		double nv = alignZero(n.dotProduct(v));
 		if (nv == 0)
-			return Color.BLACK;
+			return;
 		int nShininess = intersection.geometry.getMaterial().nShinines;
 		double kd = intersection.geometry.getMaterial().kD, ks = intersection.geometry.getMaterial().kS;
-		Color color = Color.BLACK;
 
 		for (LightSource lightSource : scene.lights) {
 			Point3D interP = intersection.point;
@@ -107,17 +120,15 @@ public class BasicRayTracer extends RayTracerBase {
 //			if (nl * nv > 0) {
 			double kTvalue = transparency(lightSource, intersection, l, n, nv);
 			if (kTvalue * k > MIN_CALC_COLOR_K) {
-				Color lightIntensity = lightSource.getIntensity(interP).scale(kTvalue);
-				color = color.add(calcDiffusive(kd, l, n, lightIntensity),
-						calcSpecular(ks, l, n, v, nShininess, lightIntensity));
+				double factor = calcDiffusive(kd, l, n) + calcSpecular(ks, l, n, v, nShininess);
+				lightSource.addIntensity(interP, weight * kTvalue * factor, color);
 			}
 //			}
 		}
-		return color;
 	}
 
 	/**
-	 * calculate the specular component of the final color
+	 * calculate the specular factor of the light intensity
 	 * 
 	 * @param ks             specular
 	 * @param l              the normalized vector from the light source to the
@@ -126,34 +137,31 @@ public class BasicRayTracer extends RayTracerBase {
 	 * @param v              the normalized vector from the camera to the
 	 *                       intersection point
 	 * @param nShininess     the shininess level of the geometry
-	 * @param lightIntensity the intensity of the light
-	 * @return the specular component of the final color
+	 * @return the specular factor of the light intensity
 	 */
-	private Color calcSpecular(double ks, Vector l, Vector n, Vector v, int nShininess, Color lightIntensity) {
+	private double calcSpecular(double ks, Vector l, Vector n, Vector v, int nShininess) {
 		double nl = alignZero(n.dotProduct(l));
 		Vector r = nl == 0 ? l.subtract(n) : l.subtract(n.scale(2 * n.dotProduct(l)));
 		double vr = alignZero(v.dotProduct(r));
 		if (vr >= 0)
-			return Color.BLACK;
-		double scale = ks * Math.pow(-vr, nShininess);
-		return lightIntensity.scale(scale);
+			return 0;
+		return ks * Math.pow(-vr, nShininess);
 	}
 
 	/**
-	 * calculate the diffuse component of the final color
+	 * calculate the diffuse factor of the light intensity
 	 * 
 	 * @param kd             diffuse
 	 * @param l              the normalized vector from the light source to the
 	 *                       intersection point
 	 * @param n              the normal to the geometry at the intersection point
-	 * @param lightIntensity the intensity of the light
-	 * @return the diffuse component of the final color
+	 * @return the diffuse factor of the light intensity
 	 */
-	private Color calcDiffusive(double kd, Vector l, Vector n, Color lightIntensity) {
+	private double calcDiffusive(double kd, Vector l, Vector n) {
 		double scale = l.dotProduct(n) * kd;
 		if (scale < 0)
 			scale = -scale;
-		return lightIntensity.scale(scale);
+		return scale;
 	}
 
 	/**
@@ -180,21 +188,12 @@ public class BasicRayTracer extends RayTracerBase {
 	 * @return the level of transparency
 	 */
 	protected double transparency(LightSource ls, GeoPoint intersection, Vector l, Vector n, double nv) {
+		// the light is on the other side of the surface
+		if (l.dotProduct(n) * nv <= 0)
+			return 0;
 		Ray ray = new Ray(intersection.point, l.scale(-1), n);
-		// search for intersections with the ray
-		List<GeoPoint> intersections = scene.geometries.findGeoIntersectionsMain(ray,
-				ls.getDistance(intersection.point));
-		// return 1 if there wasn't any intersections with (gp to light)'s ray that
-		// aren't clear
-		double kTvalue = l.dotProduct(n) * nv > 0 ? 1 : 0; // : intersection.geometry.getMaterial().kT;
-		if (intersections != null && kTvalue >= MIN_CALC_COLOR_K) {
-			for (GeoPoint geoPoint : intersections) {
-				kTvalue *= geoPoint.geometry.getMaterial().kT;
-				if (kTvalue < MIN_CALC_COLOR_K)
-					return 0;
-			}
-		}
-		return kTvalue;
+		// any opaque intersection between the point and the light is enough to stop
+		return scene.geometries.findTransmittanceMain(ray, ls.getDistance(intersection.point), MIN_CALC_COLOR_K);
 	}
 
 	/**
@@ -206,12 +205,12 @@ public class BasicRayTracer extends RayTracerBase {
 	 *         start of the ray (if there is no intersections then return null)
 	 */
 	private GeoPoint findClosestIntersection(Ray ray) {
-		return ray.findClosestGeoPoint(scene.geometries.findGeoIntersectionsMain(ray, Double.POSITIVE_INFINITY));
+		return scene.geometries.findClosestIntersectionMain(ray, Double.POSITIVE_INFINITY);
 	}
 
 	/**
 	 * calculating the color of the intersection point that effected by factors like
-	 * refraction and reflection
+	 * refraction and reflection, and adds it to the sum scaled by 'weight'
 	 * 
 	 * @param intersection the point to find the color for
 	 * @param v            the original ray direction
@@ -219,10 +218,11 @@ public class BasicRayTracer extends RayTracerBase {
 	 *                     produce refracted/reflection ray)
 	 * @param k            the minimum value of the color that we add by calculating
 	 *                     the transparency/reflection effect
-	 * @return conclusion color of the transparency/reflection effect
+	 * @param weight       the scale of the color of this point in the sum
+	 * @param color        the sum to add the transparency/reflection effect to
 	 */
-	private Color calcGlobalEffects(GeoPoint intersection, Vector v, int level, double k) {
-		Color color = Color.BLACK;
+	private void calcGlobalEffects(GeoPoint intersection, Vector v, int level, double k, double weight,
+			Color.Accumulator color) {
 		Vector n = intersection.getNormal();
 		// calculates reflection
 		double kr = intersection.geometry.getMaterial().kR, kkr = k * kr;
@@ -230,10 +230,9 @@ public class BasicRayTracer extends RayTracerBase {
 			Ray reflectedRay = getReflectRay(v, n, intersection);
 			GeoPoint reflectedPoint = findClosestIntersection(reflectedRay);
 			if (reflectedPoint != null)
-				color = color.add(calcColor(reflectedPoint, reflectedRay.getDir(), level - 1, kkr).scale(kr));
-			else {
-				color = color.add(scene.background).scale(kr);
-			}
+				calcColor(reflectedPoint, reflectedRay.getDir(), level - 1, kkr, weight * kr, color);
+			else
+				color.addScaled(scene.background, weight * kr);
 		}
 		// calculates transparency
 		double kt = intersection.geometry.getMaterial().kT, kkt = k * kt;
@@ -241,12 +240,10 @@ public class BasicRayTracer extends RayTracerBase {
 			Ray transpRay = getTransparencyRay(v, n, intersection);
 			GeoPoint transpPoint = findClosestIntersection(transpRay);
 			if (transpPoint != null)
-				color = color.add(calcColor(transpPoint, transpRay.getDir(), level - 1, kkt).scale(kt));
-			else {
-				color = color.add(scene.background).scale(kr);
-			}
+				calcColor(transpPoint, transpRay.getDir(), level - 1, kkt, weight * kt, color);
+			else
+				color.addScaled(scene.background, weight * kt);
 		}
-		return color;
 	}
 
 	/**
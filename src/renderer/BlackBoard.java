@@ -3,6 +3,7 @@
  */
 package renderer;
 
+import java.io.Serializable;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
@@ -13,9 +14,11 @@ import primitives.*;
 /**
  * Arrange dots in a certain pattern in a 2D board
  */
-public class BlackBoard {
+public class BlackBoard implements Serializable {
+	private static final long serialVersionUID = 1L;
 
-	static class Point2D {
+	static class Point2D implements Serializable {
+		private static final long serialVersionUID = 1L;
 		private double x;
 		private double y;
 
@@ -153,6 +156,208 @@ public class BlackBoard {
 		//return new BlackBoard(points);
 	}
 
+	/**
+	 * the ways to scramble the points of a low-discrepancy board for each pixel
+	 */
+	private enum Scrambling {
+		/**
+		 * a random toroidal shift of the whole pattern (Cranley-Patterson rotation)
+		 */
+		SHIFT,
+		/**
+		 * a random nested permutation of the bits of the coordinates (Owen
+		 * scrambling), keeps the stratification of the pattern
+		 */
+		OWEN
+	}
+
+	/**
+	 * 1/g and 1/g^2 in 32 bits fixed point, where g is the plastic number (the
+	 * steps of the R2 sequence)
+	 */
+	private static final int R2_X = (int) (long) (0x1p32 / 1.32471795724474602596);
+	private static final int R2_Y = (int) (long) (0x1p32 / (1.32471795724474602596 * 1.32471795724474602596));
+	/**
+	 * 0.5 in 32 bits fixed point
+	 */
+	private static final int HALF = 1 << 31;
+
+	/**
+	 * generate a BlackBoard with the first points of the Halton sequence (bases 2
+	 * and 3) in a square boundary
+	 * 
+	 * @param count the number of points
+	 * @param size  half the dimantions of the square
+	 * @return a BlackBoard with Halton points in a square boundary
+	 */
+	public static BlackBoard squareHalton(int count, double size) {
+		int[] samples = newSamples(count);
+		for (int i = 0; i < count; i++) {
+			samples[2 * i] = Integer.reverse(i);
+			samples[2 * i + 1] = toFixed(radicalInverse3(i));
+		}
+		return new BlackBoard(samples, Scrambling.SHIFT, size);
+	}
+
+	/**
+	 * generate a BlackBoard with the first points of the two dimensional Sobol
+	 * sequence in a square boundary
+	 * 
+	 * @param count the number of points
+	 * @param size  half the dimantions of the square
+	 * @return a BlackBoard with Sobol points in a square boundary
+	 */
+	public static BlackBoard squareSobol(int count, double size) {
+		return new BlackBoard(sobol(count), Scrambling.SHIFT, size);
+	}
+
+	/**
+	 * generate a BlackBoard with the first points of the R2 sequence (the
+	 * generalized golden ratio) in a square boundary
+	 * 
+	 * @param count the number of points
+	 * @param size  half the dimantions of the square
+	 * @return a BlackBoard with R2 points in a square boundary
+	 */
+	public static BlackBoard squareR2(int count, double size) {
+		int[] samples = newSamples(count);
+		for (int i = 0; i < count; i++) {
+			samples[2 * i] = HALF + i * R2_X;
+			samples[2 * i + 1] = HALF + i * R2_Y;
+		}
+		return new BlackBoard(samples, Scrambling.SHIFT, size);
+	}
+
+	/**
+	 * generate a BlackBoard with the first points of the two dimensional Sobol
+	 * sequence in a square boundary, that are Owen scrambled for every pixel
+	 * instead of shifted, so every power of 2 points stay stratified
+	 * 
+	 * @param count the number of points
+	 * @param size  half the dimantions of the square
+	 * @return a BlackBoard with Owen scrambled Sobol points in a square boundary
+	 */
+	public static BlackBoard squareOwen(int count, double size) {
+		return new BlackBoard(sobol(count), Scrambling.OWEN, size);
+	}
+
+	/**
+	 * allocates the coordinates of a low-discrepancy board
+	 * 
+	 * @param count the number of points
+	 * @return the array of the x and y of each point
+	 */
+	private static int[] newSamples(int count) {
+		if (count <= 0)
+			throw new IllegalArgumentException("The number of points must be positive");
+		return new int[2 * count];
+	}
+
+	/**
+	 * the first points of the two dimensional Sobol sequence, the first dimension
+	 * is the van der Corput sequence and the second is by the direction numbers of
+	 * the polynomial x+1
+	 * 
+	 * @param count the number of points
+	 * @return the array of the x and y of each point
+	 */
+	private static int[] sobol(int count) {
+		int[] samples = newSamples(count);
+		for (int i = 0; i < count; i++) {
+			samples[2 * i] = Integer.reverse(i);
+			samples[2 * i + 1] = sobolY(i);
+		}
+		return samples;
+	}
+
+	/**
+	 * the second dimension of the Sobol sequence, by the direction numbers of the
+	 * polynomial x+1
+	 * 
+	 * @param i the index of the point
+	 * @return the y of the point in fixed point
+	 */
+	private static int sobolY(int i) {
+		int y = 0;
+		for (int v = HALF; i != 0; i >>>= 1, v ^= v >>> 1)
+			if ((i & 1) != 0)
+				y ^= v;
+		return y;
+	}
+
+	/**
+	 * a single point of the Owen scrambled Sobol sequence, like the points of
+	 * {@link #squareOwen(int, double)} when they are scrambled by the same key.
+	 * Every prefix of the points of a key is well spread, so the samples can be
+	 * added one after the other
+	 * 
+	 * @param index    the index of the point
+	 * @param scramble the key of the scrambling
+	 * @param point    the array to put the x and y of the point in, in [0,1)
+	 */
+	static void sampleOwen(int index, int scramble, double[] point) {
+		int seedX = hash(scramble ^ 0x9e3779b9);
+		point[0] = Integer.toUnsignedLong(owen(Integer.reverse(index), seedX)) * 0x1p-32;
+		point[1] = Integer.toUnsignedLong(owen(sobolY(index), hash(seedX))) * 0x1p-32;
+	}
+
+	/**
+	 * the radical inverse of a number in base 3
+	 * 
+	 * @param i the number
+	 * @return the digits of i in base 3 mirrored around the point, in [0,1)
+	 */
+	private static double radicalInverse3(int i) {
+		double result = 0;
+		double digit = 1d / 3;
+		for (; i > 0; i /= 3, digit /= 3)
+			result += (i % 3) * digit;
+		return result;
+	}
+
+	/**
+	 * converts a number in [0,1) to 32 bits fixed point
+	 * 
+	 * @param t the number
+	 * @return the bits of the fraction of t
+	 */
+	private static int toFixed(double t) {
+		return (int) (long) (t * 0x1p32);
+	}
+
+	/**
+	 * a hash of 32 bits with a good avalanche (lowbias32 of C. Wellons)
+	 * 
+	 * @param x the value
+	 * @return the hash of the value
+	 */
+	private static int hash(int x) {
+		x ^= x >>> 16;
+		x *= 0x7feb352d;
+		x ^= x >>> 15;
+		x *= 0x846ca68b;
+		return x ^ (x >>> 16);
+	}
+
+	/**
+	 * nested uniform scrambling of a coordinate in fixed point, by the hash
+	 * permutation of Laine and Karras on the reversed bits (each bit is flipped by
+	 * the seed and the bits above it only)
+	 * 
+	 * @param x    the coordinate
+	 * @param seed the seed of the permutation
+	 * @return the scrambled coordinate
+	 */
+	private static int owen(int x, int seed) {
+		x = Integer.reverse(x);
+		x += seed;
+		x ^= x * 0x6c50b47c;
+		x ^= x * 0xb82f1e52;
+		x ^= x * 0xc7afe638;
+		x ^= x * 0x8d22f6e6;
+		return Integer.reverse(x);
+	}
+
 	private List<Point2D> points = new LinkedList<Point2D>();
 	private double width = 1;
 	private double height = 1;
@@ -160,12 +365,22 @@ public class BlackBoard {
 	 * when generating a 3d points from the black board the scaleWidth will make all
 	 * the points in the right width place according to the current width
 	 */
-	private double scaleWidth = 1;
+	private double scaleWidth = 0.5;
 	/**
 	 * when generating a 3d points from the black board the scaleHeight will make
 	 * all the points in the right Height place according to the current height
 	 */
-	private double scaleHeight = 1;
+	private double scaleHeight = 0.5;
+	/**
+	 * the x and y of each point in 32 bits fixed point in [0,1) for a
+	 * low-discrepancy board, null for a board of the points list
+	 */
+	private int[] samples = null;
+	private Scrambling scrambling;
+	/**
+	 * half the dimantions of the square of a low-discrepancy board
+	 */
+	private double size;
 
 	/**
 	 * construct a BlackBoard with a given points
@@ -186,13 +401,26 @@ public class BlackBoard {
 		this.points = points;
 	}
 
+	/**
+	 * construct a low-discrepancy BlackBoard
+	 * 
+	 * @param samples    the x and y of each point in fixed point
+	 * @param scrambling the scrambling of the points for each pixel
+	 * @param size       half the dimantions of the square
+	 */
+	private BlackBoard(int[] samples, Scrambling scrambling, double size) {
+		this.samples = samples;
+		this.scrambling = scrambling;
+		this.size = size;
+	}
+
 	/**
 	 * get the number of points in the board
 	 * 
 	 * @return
 	 */
 	public int getN() {
-		return points.size();
+		return samples == null ? points.size() : samples.length / 2;
 	}
 
 	/**
@@ -210,18 +438,75 @@ public class BlackBoard {
 	 *         position and orientation of the board in space
 	 */
 	public List<Point3D> generate3dPoints(Vector up, Vector right, Point3D center) {
+		return generate3dPoints(up, right, center, 0);
+	}
+
+	/**
+	 * transform the 2d points of the BlackBord to a 3d points in space relative to
+	 * the position and orientation of the board in space, the points of a
+	 * low-discrepancy board are scrambled by the given key so near pixels don't
+	 * repeat the same pattern (the other boards ignore it)
+	 * 
+	 * @param up       the up direction of the board (has to be normalized) (has to
+	 *                 be vertical to right)
+	 * @param right    the right direction of the board (has to be normalized) (has
+	 *                 to be vertical to up)
+	 * @param center   the point in the center of the board
+	 * @param scramble the key of the scrambling (e.g. the index of the pixel)
+	 * @return a List<Point3D> of the 3d points
+	 */
+	public List<Point3D> generate3dPoints(Vector up, Vector right, Point3D center, int scramble) {
 		LinkedList<Point3D> points3d = new LinkedList<Point3D>();
-		for (Point2D point2d : points) {
-			Point3D point3d = center;
-			if (!isZero(point2d.x))
-				point3d = point3d.add(right.scale(point2d.x * scaleWidth));
-			if (!isZero(point2d.y))
-				point3d = point3d.add(up.scale(point2d.y * scaleHeight));
-			points3d.add(point3d);
+		if (samples == null) {
+			for (Point2D point2d : points)
+				points3d.add(toSpace(up, right, center, point2d.x, point2d.y));
+			return points3d;
+		}
+		int seedX = hash(scramble ^ 0x9e3779b9);
+		int seedY = hash(seedX);
+		for (int i = 0; i < samples.length; i += 2) {
+			int x = samples[i], y = samples[i + 1];
+			if (scrambling == Scrambling.OWEN) {
+				x = owen(x, seedX);
+				y = owen(y, seedY);
+			} else {
+				x += seedX;
+				y += seedY;
+			}
+			points3d.add(toSpace(up, right, center, fromFixed(x), fromFixed(y)));
 		}
 		return points3d;
 	}
 
+	/**
+	 * converts a coordinate in fixed point to the square of the board
+	 * 
+	 * @param t the coordinate in fixed point in [0,1)
+	 * @return the coordinate in [-size,size)
+	 */
+	private double fromFixed(int t) {
+		return size * (Integer.toUnsignedLong(t) * 0x1p-31 - 1);
+	}
+
+	/**
+	 * the 3d point of a point of the board
+	 * 
+	 * @param up     the up direction of the board
+	 * @param right  the right direction of the board
+	 * @param center the point in the center of the board
+	 * @param x      the x of the point on the board
+	 * @param y      the y of the point on the board
+	 * @return the point in space
+	 */
+	private Point3D toSpace(Vector up, Vector right, Point3D center, double x, double y) {
+		Point3D point3d = center;
+		if (!isZero(x))
+			point3d = point3d.add(right.scale(x * scaleWidth));
+		if (!isZero(y))
+			point3d = point3d.add(up.scale(y * scaleHeight));
+		return point3d;
+	}
+
 	/**
 	 * changes the width of the board
 	 * 
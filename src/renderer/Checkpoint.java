@@ -0,0 +1,274 @@
+package renderer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import primitives.Color;
+
+/**
+ * A checkpoint of a long rendering in a file: the bitmap of the finished tiles
+ * and the pixels of these tiles. It is saved periodically while the tiles are
+ * rendered (see {@link Render#setCheckpoint(Path, Duration)}), and a rendering
+ * that was stopped is resumed from it by {@link Render#resumeImage()}, that
+ * renders only the unfinished tiles.<br/>
+ * The checkpoint is written to a temporary file that replaces the old one
+ * atomically, so a crash while it is saved leaves the previous checkpoint, and
+ * only one checkpoint is saved at a time. When
+ * the frame buffer is a {@link MappedFrameBuffer} the pixels are already in
+ * it's file, so it is only forced to the disk before the bitmap is saved.
+ */
+public class Checkpoint {
+	/**
+	 * "RTCP" in the start of the file
+	 */
+	private static final int MAGIC = 0x52544350;
+	private static final int VERSION = 1;
+
+	private final Path file;
+	private final long interval;
+	private FrameBuffer frameBuffer;
+	private int tileSize;
+	private int tilesX;
+	/**
+	 * the finished tiles by their index in the grid of tiles
+	 */
+	private BitSet done;
+	/**
+	 * the time of the next save, of {@link System#nanoTime()}
+	 */
+	private volatile long nextSave;
+	/**
+	 * held while a checkpoint is saved, so two saves don't overlap
+	 */
+	private final ReentrantLock saving = new ReentrantLock();
+
+	private Logger logger = Logger.getLogger("Checkpoint");
+
+	/**
+	 * constructs the checkpoint of a rendering
+	 *
+	 * @param file     the file of the checkpoint
+	 * @param interval the time between two saves
+	 */
+	public Checkpoint(Path file, Duration interval) {
+		if (interval.isNegative() || interval.isZero())
+			throw new IllegalArgumentException("Checkpoint interval must be positive");
+		this.file = file;
+		this.interval = interval.toNanos();
+	}
+
+	/**
+	 * get the file of the checkpoint
+	 *
+	 * @return the file
+	 */
+	public Path getFile() {
+		return file;
+	}
+
+	/**
+	 * starts the checkpoints of a rendering, from scratch or from the saved
+	 * checkpoint (if there is no saved checkpoint the rendering starts from
+	 * scratch)
+	 *
+	 * @param frameBuffer the frame buffer of the image
+	 * @param tileSize    the size of the tiles of the rendering
+	 * @param resume      true to restore the finished tiles of the saved
+	 *                    checkpoint
+	 */
+	void start(FrameBuffer frameBuffer, int tileSize, boolean resume) {
+		this.frameBuffer = frameBuffer;
+		this.tileSize = tileSize;
+		tilesX = (frameBuffer.getNx() + tileSize - 1) / tileSize;
+		done = new BitSet();
+		nextSave = System.nanoTime() + interval;
+		if (!resume)
+			return;
+		try {
+			load();
+		} catch (NoSuchFileException e) {
+			// the rendering was stopped before the first checkpoint
+		} catch (IOException e) {
+			logger.log(Level.SEVERE, "I/O error", e);
+		}
+	}
+
+	/**
+	 * is a tile finished in the checkpoint
+	 *
+	 * @param index the index of the tile in the grid of tiles
+	 * @return true if the tile is finished
+	 */
+	synchronized boolean isDone(int index) {
+		return done.get(index);
+	}
+
+	/**
+	 * marks a tile as finished, and saves the checkpoint when it's time (unless
+	 * another thread is saving it now)
+	 *
+	 * @param tile the finished tile
+	 */
+	void tileDone(TileScheduler.Tile tile) {
+		synchronized (this) {
+			done.set(tile.index);
+		}
+		if (System.nanoTime() - nextSave >= 0 && saving.tryLock())
+			try {
+				save();
+			} catch (IOException e) {
+				logger.log(Level.SEVERE, "I/O error", e);
+			} finally {
+				nextSave = System.nanoTime() + interval;
+				saving.unlock();
+			}
+	}
+
+	/**
+	 * saves the checkpoint at the end of the rendering, with all the tiles, after
+	 * the checkpoint that is being saved now (if any)
+	 */
+	void finish() {
+		saving.lock();
+		try {
+			save();
+		} catch (IOException e) {
+			logger.log(Level.SEVERE, "I/O error", e);
+		} finally {
+			saving.unlock();
+		}
+	}
+
+	/**
+	 * saves the finished tiles to the file of the checkpoint, atomically through a
+	 * temporary file of it's own. The caller holds {@link #saving}
+	 *
+	 * @throws IOException if the checkpoint can't be written
+	 */
+	private void save() throws IOException {
+		BitSet tiles;
+		synchronized (this) {
+			// the pixels of these tiles are written before they were marked
+			tiles = (BitSet) done.clone();
+		}
+		boolean mapped = frameBuffer instanceof MappedFrameBuffer;
+		if (mapped)
+			((MappedFrameBuffer) frameBuffer).force();
+
+		Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+		try {
+			try (FileOutputStream stream = new FileOutputStream(temp.toFile())) {
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(frameBuffer.getNx());
+				out.writeInt(frameBuffer.getNy());
+				out.writeInt(tileSize);
+				out.writeBoolean(!mapped);
+				long[] words = tiles.toLongArray();
+				out.writeInt(words.length);
+				for (long word : words)
+					out.writeLong(word);
+				if (!mapped) {
+					float[] rgb = new float[3];
+					for (int t = tiles.nextSetBit(0); t >= 0; t = tiles.nextSetBit(t + 1))
+						for (int y = y0(t); y < y1(t); y++)
+							for (int x = x0(t); x < x1(t); x++) {
+								frameBuffer.getPixel(x, y, rgb);
+								out.writeFloat(rgb[0]);
+								out.writeFloat(rgb[1]);
+								out.writeFloat(rgb[2]);
+							}
+				}
+				out.flush();
+				stream.getChannel().force(true);
+			}
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * reads the finished tiles of the saved checkpoint and restores their pixels
+	 *
+	 * @throws IOException if the checkpoint can't be read
+	 */
+	private void load() throws IOException {
+		try (InputStream stream = Files.newInputStream(file)) {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16));
+			if (in.readInt() != MAGIC)
+				throw new IOException("Not a checkpoint file");
+			if (in.readInt() != VERSION)
+				throw new IOException("Unsupported checkpoint version");
+			if (in.readInt() != frameBuffer.getNx() || in.readInt() != frameBuffer.getNy()
+					|| in.readInt() != tileSize)
+				throw new IllegalArgumentException("The checkpoint is of another image or tile size");
+			boolean pixels = in.readBoolean();
+			long[] words = new long[in.readInt()];
+			for (int k = 0; k < words.length; k++)
+				words[k] = in.readLong();
+			BitSet tiles = BitSet.valueOf(words);
+			if (pixels)
+				for (int t = tiles.nextSetBit(0); t >= 0; t = tiles.nextSetBit(t + 1))
+					for (int y = y0(t); y < y1(t); y++)
+						for (int x = x0(t); x < x1(t); x++)
+							frameBuffer.setPixel(x, y, new Color(in.readFloat(), in.readFloat(), in.readFloat()));
+			done = tiles;
+		}
+	}
+
+	/**
+	 * the first column of a tile
+	 *
+	 * @param index the index of the tile
+	 * @return the column
+	 */
+	private int x0(int index) {
+		return index % tilesX * tileSize;
+	}
+
+	/**
+	 * the column after the last column of a tile
+	 *
+	 * @param index the index of the tile
+	 * @return the column
+	 */
+	private int x1(int index) {
+		return Math.min(x0(index) + tileSize, frameBuffer.getNx());
+	}
+
+	/**
+	 * the first row of a tile
+	 *
+	 * @param index the index of the tile
+	 * @return the row
+	 */
+	private int y0(int index) {
+		return index / tilesX * tileSize;
+	}
+
+	/**
+	 * the row after the last row of a tile
+	 *
+	 * @param index the index of the tile
+	 * @return the row
+	 */
+	private int y1(int index) {
+		return Math.min(y0(index) + tileSize, frameBuffer.getNy());
+	}
+}
@@ -0,0 +1,53 @@
+package renderer;
+
+import primitives.Color;
+
+/**
+ * A frame buffer in a single array of floats on the heap, the red, green and
+ * blue of each pixel are next to each other, row after row
+ */
+public class FloatFrameBuffer implements FrameBuffer {
+	private final int nX;
+	private final int nY;
+	private final float[] rgb;
+
+	/**
+	 * constructs a black frame buffer
+	 *
+	 * @param nX the number of columns
+	 * @param nY the number of rows
+	 */
+	public FloatFrameBuffer(int nX, int nY) {
+		if (nX <= 0 || nY <= 0)
+			throw new IllegalArgumentException("Frame buffer size must be positive");
+		this.nX = nX;
+		this.nY = nY;
+		rgb = new float[3 * nX * nY];
+	}
+
+	@Override
+	public int getNx() {
+		return nX;
+	}
+
+	@Override
+	public int getNy() {
+		return nY;
+	}
+
+	@Override
+	public void setPixel(int x, int y, Color color) {
+		color.writeTo(rgb, 3 * (y * nX + x));
+	}
+
+	@Override
+	public void addPixel(int x, int y, Color color) {
+		color.addTo(rgb, 3 * (y * nX + x));
+	}
+
+	@Override
+	public float[] getPixel(int x, int y, float[] rgb) {
+		System.arraycopy(this.rgb, 3 * (y * nX + x), rgb, 0, 3);
+		return rgb;
+	}
+}
@@ -0,0 +1,52 @@
+package renderer;
+
+import primitives.Color;
+
+/**
+ * The radiance of the pixels of an image in floats, without the limit of 255
+ * and before the tone mapping. Every pixel is written by a single thread at a
+ * time, so the frame buffers don't need locks
+ */
+public interface FrameBuffer {
+	/**
+	 * get the number of columns
+	 *
+	 * @return the width of the image in pixels
+	 */
+	int getNx();
+
+	/**
+	 * get the number of rows
+	 *
+	 * @return the height of the image in pixels
+	 */
+	int getNy();
+
+	/**
+	 * sets the color of a pixel
+	 *
+	 * @param x     the column of the pixel
+	 * @param y     the row of the pixel
+	 * @param color the color
+	 */
+	void setPixel(int x, int y, Color color);
+
+	/**
+	 * adds a color to a pixel, to accumulate the passes of a progressive rendering
+	 *
+	 * @param x     the column of the pixel
+	 * @param y     the row of the pixel
+	 * @param color the color to add
+	 */
+	void addPixel(int x, int y, Color color);
+
+	/**
+	 * reads the color of a pixel
+	 *
+	 * @param x   the column of the pixel
+	 * @param y   the row of the pixel
+	 * @param rgb the array to put the red, green and blue in
+	 * @return the array
+	 */
+	float[] getPixel(int x, int y, float[] rgb);
+}
@@ -2,29 +2,94 @@ package renderer;
 
 import primitives.Color;
 import java.awt.image.BufferedImage;
-import java.io.File;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import javax.imageio.*;
-
 /**
  * Image writer class combines accumulation of pixel color matrix and finally
  * producing a non-optimized jpeg image from this matrix. The class although is
  * responsible of holding image related parameters of View Plane - pixel matrix
- * size and resolution
+ * size and resolution.<br/>
+ * The colors are kept in a float {@link FrameBuffer} without the limit of 255,
+ * the tone mapping and the quantization to 8 bits are done only when the image
+ * is written, and the raw radiance can be written to PFM and OpenEXR files.<br/>
+ * The PNG file is compressed in parallel by {@link PngEncoder}, and it may be
+ * streamed: the rows are compressed and written while the rest of the image is
+ * rendered (see {@link #setStreaming(boolean)})
  * 
  * @author Dan
  */
 public class ImageWriter {
+	/**
+	 * the mapping of the radiance of a pixel (where 255 is white) to the 8 bits of
+	 * the image
+	 */
+	public enum ToneMapping {
+		/**
+		 * cuts every component at 255
+		 */
+		CLAMP {
+			@Override
+			double map(double v) {
+				return v;
+			}
+		},
+		/**
+		 * x/(1+x) of Reinhard, keeps the details of the bright parts
+		 */
+		REINHARD {
+			@Override
+			double map(double v) {
+				double x = v / 255;
+				return 255 * x / (1 + x);
+			}
+		},
+		/**
+		 * the filmic curve of ACES (by the fit of Narkowicz)
+		 */
+		ACES {
+			@Override
+			double map(double v) {
+				double x = v / 255;
+				return 255 * x * (2.51 * x + 0.03) / (x * (2.43 * x + 0.59) + 0.14);
+			}
+		};
+
+		/**
+		 * maps a component of a pixel
+		 * 
+		 * @param v the component, 255 is white
+		 * @return the mapped component, 255 and above are white
+		 */
+		abstract double map(double v);
+	}
+
 	private int nX;
 	private int nY;
 
 	private static final String FOLDER_PATH = System.getProperty("user.dir") + "/images";
 
-	private BufferedImage image;
+	private final FrameBuffer frameBuffer;
 	private String imageName;
+	private ToneMapping toneMapping = ToneMapping.CLAMP;
+	private double exposure = 1;
+	/**
+	 * write the rows of the image while it is rendered
+	 */
+	private boolean streaming = false;
+	/**
+	 * the encoder of the image that is streamed now, null if there is no stream
+	 */
+	private PngEncoder stream = null;
+	private OutputStream streamFile = null;
 	
 	private Logger logger = Logger.getLogger("ImageWriter");
 
@@ -36,11 +101,21 @@ public class ImageWriter {
 	 * @param nY        amount of pixels by height
 	 */
 	public ImageWriter(String imageName, int nX, int nY) {
-		this.imageName = imageName;
-		this.nX = nX;
-		this.nY = nY;
+		this(imageName, new FloatFrameBuffer(nX, nY));
+	}
 
-		image = new BufferedImage(nX, nY, BufferedImage.TYPE_INT_RGB);
+	/**
+	 * Image Writer constructor accepting image name and the frame buffer of the
+	 * pixels
+	 * 
+	 * @param imageName   the name of the image file
+	 * @param frameBuffer the frame buffer that keeps the pixels
+	 */
+	public ImageWriter(String imageName, FrameBuffer frameBuffer) {
+		this.imageName = imageName;
+		this.frameBuffer = frameBuffer;
+		nX = frameBuffer.getNx();
+		nY = frameBuffer.getNy();
 	}
 
 	// ***************** Getters/Setters ********************** //
@@ -62,21 +137,274 @@ public class ImageWriter {
 		return nX;
 	}
 
+	/**
+	 * get the frame buffer of the radiance of the pixels
+	 * 
+	 * @return the frame buffer
+	 */
+	public FrameBuffer getFrameBuffer() {
+		return frameBuffer;
+	}
+
+	/**
+	 * set the tone mapping of the image
+	 * 
+	 * @param toneMapping the tone mapping
+	 * @return it self
+	 */
+	public ImageWriter setToneMapping(ToneMapping toneMapping) {
+		this.toneMapping = toneMapping;
+		return this;
+	}
+
+	/**
+	 * set the factor of the radiance before the tone mapping (e.g. 1/n for a frame
+	 * buffer that accumulated n passes)
+	 * 
+	 * @param exposure the factor
+	 * @return it self
+	 */
+	public ImageWriter setExposure(double exposure) {
+		if (exposure <= 0)
+			throw new IllegalArgumentException("Exposure must be positive");
+		this.exposure = exposure;
+		return this;
+	}
+
+	/**
+	 * set the streaming of the image: the render opens the file before the
+	 * rendering and reports the finished rows from the top, that are compressed
+	 * and written while the rest of the image is rendered, and
+	 * {@link #writeToImage()} only finishes the file. The tone mapping and the
+	 * pixels of the rows must not change after they are reported
+	 * 
+	 * @param streaming true to stream the image
+	 * @return it self
+	 */
+	public ImageWriter setStreaming(boolean streaming) {
+		this.streaming = streaming;
+		return this;
+	}
+
+	/**
+	 * is the image streamed while it is rendered
+	 * 
+	 * @return true if the image is streamed
+	 */
+	public boolean isStreaming() {
+		return streaming;
+	}
+
 	// ***************** Operations ******************** //
 
 	/**
-	 * Function writeToImage produces unoptimized png file of the image according to
-	 * pixel color matrix in the directory of the project
+	 * Function writeToImage produces png file of the image according to pixel
+	 * color matrix in the directory of the project. When the image is streamed,
+	 * the rows that are left are written and the file is closed
 	 */
 	public void writeToImage() {
 		try {
-			File file = new File(FOLDER_PATH + '/' + imageName + ".png");
-			ImageIO.write(image, "png", file);
+			if (stream == null)
+				openStream();
+			try {
+				stream.finish();
+			} finally {
+				stream = null;
+				streamFile.close();
+			}
 		} catch (IOException e) {
 			logger.log(Level.SEVERE, "I/O error", e);
 		}
 	}
 
+	/**
+	 * opens the png file and writes it's header, the rows are written after they
+	 * are reported by {@link #rowsReady(int)}. A stream that was not finished is
+	 * aborted first
+	 */
+	public void startStream() {
+		try {
+			openStream();
+		} catch (IOException e) {
+			logger.log(Level.SEVERE, "I/O error", e);
+		}
+	}
+
+	/**
+	 * opens the png file and the encoder of the image
+	 * 
+	 * @throws IOException if the file can't be opened
+	 */
+	private void openStream() throws IOException {
+		abortStream();
+		OutputStream file = new FileOutputStream(FOLDER_PATH + '/' + imageName + ".png");
+		try {
+			stream = new PngEncoder(file, nX, nY, this::quantizeRow, Runtime.getRuntime().availableProcessors());
+		} catch (IOException e) {
+			file.close();
+			throw e;
+		}
+		streamFile = file;
+	}
+
+	/**
+	 * stops the png file that is streamed now without finishing it (e.g. when
+	 * the rendering failed), the encoder is stopped and the file is closed. It
+	 * does nothing when there is no open file
+	 */
+	void abortStream() {
+		PngEncoder encoder = stream;
+		if (encoder == null)
+			return;
+		stream = null;
+		encoder.abort();
+		try {
+			streamFile.close();
+		} catch (IOException e) {
+			logger.log(Level.SEVERE, "I/O error", e);
+		}
+	}
+
+	/**
+	 * reports that the rows above a row are finished, so they can be written to
+	 * the open png file (it does nothing when there is no open file)
+	 * 
+	 * @param rows the number of the finished rows from the top
+	 */
+	public void rowsReady(int rows) {
+		PngEncoder encoder = stream;
+		if (encoder != null)
+			encoder.rowsReady(rows);
+	}
+
+	/**
+	 * tone maps and quantizes the frame buffer to an image of 8 bits
+	 * 
+	 * @return the image
+	 */
+	public BufferedImage toImage() {
+		BufferedImage image = new BufferedImage(nX, nY, BufferedImage.TYPE_INT_RGB);
+		int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		byte[] row = new byte[3 * nX];
+		for (int y = 0; y < nY; y++) {
+			quantizeRow(y, row);
+			for (int x = 0; x < nX; x++)
+				pixels[y * nX + x] = (row[3 * x] & 0xFF) << 16 | (row[3 * x + 1] & 0xFF) << 8 | row[3 * x + 2] & 0xFF;
+		}
+		return image;
+	}
+
+	/**
+	 * tone maps and quantizes a row of the frame buffer to 8 bits
+	 * 
+	 * @param y   the row
+	 * @param rgb the array of the red, green and blue bytes of the pixels
+	 */
+	private void quantizeRow(int y, byte[] rgb) {
+		float[] pixel = new float[3];
+		for (int x = 0; x < nX; x++) {
+			frameBuffer.getPixel(x, y, pixel);
+			rgb[3 * x] = (byte) quantize(pixel[0]);
+			rgb[3 * x + 1] = (byte) quantize(pixel[1]);
+			rgb[3 * x + 2] = (byte) quantize(pixel[2]);
+		}
+	}
+
+	/**
+	 * tone maps a component of a pixel to 8 bits
+	 * 
+	 * @param v the component
+	 * @return the component in [0,255]
+	 */
+	private int quantize(float v) {
+		int i = (int) toneMapping.map(v * exposure);
+		return i > 255 ? 255 : i < 0 ? 0 : i;
+	}
+
+	/**
+	 * writes the raw radiance of the pixels (divided by 255, so white is 1) to a
+	 * PFM (portable float map) file in the directory of the images
+	 */
+	public void writeToPfm() {
+		try (OutputStream out = new BufferedOutputStream(
+				new FileOutputStream(FOLDER_PATH + '/' + imageName + ".pfm"))) {
+			out.write(("PF\n" + nX + " " + nY + "\n-1.0\n").getBytes(StandardCharsets.US_ASCII));
+			ByteBuffer row = ByteBuffer.allocate(12 * nX).order(ByteOrder.LITTLE_ENDIAN);
+			float[] rgb = new float[3];
+			// the rows of a PFM file are from the bottom up
+			for (int y = nY - 1; y >= 0; y--) {
+				row.clear();
+				for (int x = 0; x < nX; x++) {
+					frameBuffer.getPixel(x, y, rgb);
+					row.putFloat(rgb[0] / 255).putFloat(rgb[1] / 255).putFloat(rgb[2] / 255);
+				}
+				out.write(row.array());
+			}
+		} catch (IOException e) {
+			logger.log(Level.SEVERE, "I/O error", e);
+		}
+	}
+
+	/**
+	 * writes the raw radiance of the pixels (divided by 255, so white is 1) to an
+	 * uncompressed OpenEXR file of 32 bits floats in the directory of the images
+	 */
+	public void writeToExr() {
+		ByteBuffer header = ByteBuffer.allocate(512).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(20000630).putInt(2); // the magic number and a single part scan line image
+		attribute(header, "channels", "chlist", 3 * 18 + 1);
+		for (String channel : new String[] { "B", "G", "R" }) // sorted by name
+			header.put(channel.getBytes(StandardCharsets.US_ASCII)).put((byte) 0) //
+					.putInt(2).putInt(0).putInt(1).putInt(1); // float, not linear, no sub sampling
+		header.put((byte) 0);
+		attribute(header, "compression", "compression", 1).put((byte) 0);
+		attribute(header, "dataWindow", "box2i", 16).putInt(0).putInt(0).putInt(nX - 1).putInt(nY - 1);
+		attribute(header, "displayWindow", "box2i", 16).putInt(0).putInt(0).putInt(nX - 1).putInt(nY - 1);
+		attribute(header, "lineOrder", "lineOrder", 1).put((byte) 0);
+		attribute(header, "pixelAspectRatio", "float", 4).putFloat(1);
+		attribute(header, "screenWindowCenter", "v2f", 8).putFloat(0).putFloat(0);
+		attribute(header, "screenWindowWidth", "float", 4).putFloat(1);
+		header.put((byte) 0);
+
+		int lineSize = 8 + 12 * nX; // the y and the size of the data before the data
+		ByteBuffer line = ByteBuffer.allocate(Math.max(lineSize, 8 * nY)).order(ByteOrder.LITTLE_ENDIAN);
+		try (OutputStream out = new BufferedOutputStream(
+				new FileOutputStream(FOLDER_PATH + '/' + imageName + ".exr"))) {
+			out.write(header.array(), 0, header.position());
+			// the table of the offsets of the lines
+			long offset = header.position() + 8L * nY;
+			for (int y = 0; y < nY; y++, offset += lineSize)
+				line.putLong(offset);
+			out.write(line.array(), 0, line.position());
+			float[] rgb = new float[3];
+			for (int y = 0; y < nY; y++) {
+				line.clear();
+				line.putInt(y).putInt(12 * nX);
+				for (int c = 2; c >= 0; c--) // blue, green and red
+					for (int x = 0; x < nX; x++)
+						line.putFloat(frameBuffer.getPixel(x, y, rgb)[c] / 255);
+				out.write(line.array(), 0, lineSize);
+			}
+		} catch (IOException e) {
+			logger.log(Level.SEVERE, "I/O error", e);
+		}
+	}
+
+	/**
+	 * puts the name, the type and the size of an attribute of an OpenEXR header
+	 * 
+	 * @param header the header
+	 * @param name   the name of the attribute
+	 * @param type   the type of the attribute
+	 * @param size   the size of the value of the attribute
+	 * @return the header, to put the value of the attribute in
+	 */
+	private static ByteBuffer attribute(ByteBuffer header, String name, String type, int size) {
+		header.put(name.getBytes(StandardCharsets.US_ASCII)).put((byte) 0);
+		header.put(type.getBytes(StandardCharsets.US_ASCII)).put((byte) 0);
+		return header.putInt(size);
+	}
+
 	/**
 	 * The function writePixel writes a color of a specific pixel into pixel color
 	 * matrix
@@ -86,7 +414,7 @@ public class ImageWriter {
 	 * @param color  final color of the pixel
 	 */
 	public void writePixel(int xIndex, int yIndex, Color color) {
-		image.setRGB(xIndex, yIndex, color.getColor().getRGB());
+		frameBuffer.setPixel(xIndex, yIndex, color);
 	}
 
 }
@@ -0,0 +1,251 @@
+package renderer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import primitives.Color;
+
+/**
+ * A frame buffer in a memory mapped file, for images that are larger than the
+ * heap. The operating system keeps in memory only the pages that are used now
+ * and writes the rest to the file, and the file keeps the rendered pixels after
+ * a crash of the program.<br/>
+ * The pixels are kept in square tiles (the red, green and blue of each pixel
+ * are next to each other, row after row inside a tile), so a tile of the render
+ * is a few contiguous pages of the file. Use the tile size of the render for the
+ * best locality. The file is mapped in chunks of whole tiles of up to 1GB,
+ * because a single mapping is limited to 2GB.<br/>
+ * A finished image is converted by an {@link ImageWriter} of the frame buffer
+ * (see {@link #open(Path)}), that reads it row after row.
+ */
+public class MappedFrameBuffer implements FrameBuffer, AutoCloseable {
+	/**
+	 * the default size of the side of a tile
+	 */
+	public static final int TILE = 32;
+	/**
+	 * "RTFB" in the start of the file
+	 */
+	private static final int MAGIC = 0x52544642;
+	private static final int VERSION = 1;
+	/**
+	 * the size of the header of the file, before the tiles
+	 */
+	private static final int HEADER = 32;
+	/**
+	 * the maximal size of a mapped chunk of the file
+	 */
+	private static final long CHUNK_BYTES = 1L << 30;
+
+	private final FileChannel channel;
+	private final int nX;
+	private final int nY;
+	private final int tile;
+	private final int tilesX;
+	/**
+	 * the number of floats in a tile
+	 */
+	private final int tileFloats;
+	private final int tilesInChunk;
+	/**
+	 * the mapped chunks of the file
+	 */
+	private final MappedByteBuffer[] chunks;
+	/**
+	 * the floats of the chunks (in little endian order)
+	 */
+	private final FloatBuffer[] floats;
+
+	/**
+	 * maps the tiles of a file
+	 *
+	 * @param channel the open file
+	 * @param nX      the number of columns
+	 * @param nY      the number of rows
+	 * @param tile    the size of the side of a tile
+	 * @throws IOException if the file can't be mapped
+	 */
+	private MappedFrameBuffer(FileChannel channel, int nX, int nY, int tile) throws IOException {
+		this.channel = channel;
+		this.nX = nX;
+		this.nY = nY;
+		this.tile = tile;
+		tilesX = (nX + tile - 1) / tile;
+		long tiles = (long) tilesX * ((nY + tile - 1) / tile);
+		tileFloats = 3 * tile * tile;
+		long tileBytes = 4L * tileFloats;
+		tilesInChunk = (int) Math.min(tiles, CHUNK_BYTES / tileBytes);
+		int n = (int) ((tiles + tilesInChunk - 1) / tilesInChunk);
+		chunks = new MappedByteBuffer[n];
+		floats = new FloatBuffer[n];
+		for (int k = 0; k < n; k++) {
+			long first = (long) k * tilesInChunk;
+			long size = Math.min(tilesInChunk, tiles - first) * tileBytes;
+			// a read-write mapping beyond the end of the file extends it with zeros
+			chunks[k] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER + first * tileBytes, size);
+			floats[k] = chunks[k].order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+		}
+	}
+
+	/**
+	 * creates a black frame buffer in a new file (an old file is truncated), with
+	 * tiles of the default size
+	 *
+	 * @param file the file
+	 * @param nX   the number of columns
+	 * @param nY   the number of rows
+	 * @return the frame buffer
+	 * @throws IOException if the file can't be created
+	 */
+	public static MappedFrameBuffer create(Path file, int nX, int nY) throws IOException {
+		return create(file, nX, nY, TILE);
+	}
+
+	/**
+	 * creates a black frame buffer in a new file (an old file is truncated)
+	 *
+	 * @param file the file
+	 * @param nX   the number of columns
+	 * @param nY   the number of rows
+	 * @param tile the size of the side of a tile
+	 * @return the frame buffer
+	 * @throws IOException if the file can't be created
+	 */
+	public static MappedFrameBuffer create(Path file, int nX, int nY, int tile) throws IOException {
+		if (nX <= 0 || nY <= 0)
+			throw new IllegalArgumentException("Frame buffer size must be positive");
+		if (tile <= 0 || tile > 4096)
+			throw new IllegalArgumentException("Tile size must be between 1 and 4096");
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).putInt(nX).putInt(nY).putInt(tile).clear();
+			channel.write(header, 0);
+			return new MappedFrameBuffer(channel, nX, nY, tile);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * opens the frame buffer of an existing file, e.g. to convert a finished
+	 * render to an image or to continue a render after a crash
+	 *
+	 * @param file the file
+	 * @return the frame buffer with the pixels of the file
+	 * @throws IOException if the file can't be read or it is not a frame buffer
+	 */
+	public static MappedFrameBuffer open(Path file) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+			while (header.hasRemaining())
+				if (channel.read(header, header.position()) < 0)
+					throw new IOException("The frame buffer file has no header");
+			header.flip();
+			if (header.getInt() != MAGIC)
+				throw new IOException("Not a frame buffer file");
+			if (header.getInt() != VERSION)
+				throw new IOException("Unsupported frame buffer version");
+			int nX = header.getInt();
+			int nY = header.getInt();
+			int tile = header.getInt();
+			if (nX <= 0 || nY <= 0 || tile <= 0 || tile > 4096)
+				throw new IOException("Wrong frame buffer header");
+			return new MappedFrameBuffer(channel, nX, nY, tile);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	@Override
+	public int getNx() {
+		return nX;
+	}
+
+	@Override
+	public int getNy() {
+		return nY;
+	}
+
+	/**
+	 * get the size of the side of a tile
+	 *
+	 * @return the size of the tiles
+	 */
+	public int getTile() {
+		return tile;
+	}
+
+	/**
+	 * the chunk of a pixel
+	 *
+	 * @param x the column of the pixel
+	 * @param y the row of the pixel
+	 * @return the floats of the chunk
+	 */
+	private FloatBuffer chunk(int x, int y) {
+		return floats[((y / tile) * tilesX + x / tile) / tilesInChunk];
+	}
+
+	/**
+	 * the index of the red of a pixel in it's chunk
+	 *
+	 * @param x the column of the pixel
+	 * @param y the row of the pixel
+	 * @return the index of the float
+	 */
+	private int index(int x, int y) {
+		return ((y / tile) * tilesX + x / tile) % tilesInChunk * tileFloats + 3 * (y % tile * tile + x % tile);
+	}
+
+	@Override
+	public void setPixel(int x, int y, Color color) {
+		color.writeTo(chunk(x, y), index(x, y));
+	}
+
+	@Override
+	public void addPixel(int x, int y, Color color) {
+		color.addTo(chunk(x, y), index(x, y));
+	}
+
+	@Override
+	public float[] getPixel(int x, int y, float[] rgb) {
+		FloatBuffer chunk = chunk(x, y);
+		int index = index(x, y);
+		rgb[0] = chunk.get(index);
+		rgb[1] = chunk.get(index + 1);
+		rgb[2] = chunk.get(index + 2);
+		return rgb;
+	}
+
+	/**
+	 * writes the changed pages of the frame buffer to the file
+	 */
+	public void force() {
+		for (MappedByteBuffer chunk : chunks)
+			chunk.force();
+	}
+
+	/**
+	 * writes the changed pages to the file and closes it. The mapped memory is
+	 * released by the garbage collector, so the frame buffer must not be used
+	 * after it is closed
+	 *
+	 * @throws IOException if the file can't be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		force();
+		channel.close();
+	}
+}
@@ -0,0 +1,375 @@
+package renderer;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A PNG encoder of 8 bits RGB that compresses strips of rows in parallel and
+ * writes them to the stream as soon as they are compressed, so an image can be
+ * written while it is rendered, without an image object of the whole picture.
+ * <br/>
+ * Every strip is an independent part of the deflate stream (it is flushed to a
+ * byte boundary and doesn't refer to the previous strips), and is written in
+ * it's own IDAT chunk, the checksum of the whole stream is combined from the
+ * checksums of the strips.<br/>
+ * The rows are read from the source only after they are announced by
+ * {@link #rowsReady(int)}, in strips of about 256KB. The stream is not closed
+ * by the encoder. The threads of the encoder are daemons, and they end at
+ * {@link #finish()} or {@link #abort()}.
+ */
+public class PngEncoder {
+	/**
+	 * gives the colors of the rows of the image
+	 */
+	public interface RowSource {
+		/**
+		 * puts the red, green and blue bytes of the pixels of a row in an array
+		 *
+		 * @param y   the row
+		 * @param rgb the array of 3 bytes for each pixel
+		 */
+		void row(int y, byte[] rgb);
+	}
+
+	private static final byte[] SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+	/**
+	 * the approximate size of the raw data of a strip
+	 */
+	private static final int STRIP_BYTES = 1 << 18;
+	/**
+	 * the modulus of the Adler-32 checksum
+	 */
+	private static final long ADLER_BASE = 65521;
+	/**
+	 * the filter type of the rows (Paeth)
+	 */
+	private static final byte PAETH = 4;
+
+	private final OutputStream out;
+	private final int nX;
+	private final int nY;
+	private final RowSource source;
+	/**
+	 * the number of rows in a strip
+	 */
+	private final int stripRows;
+	private final ExecutorService compressors;
+	/**
+	 * writes the compressed strips to the stream by their order
+	 */
+	private final ExecutorService writer = Executors.newSingleThreadExecutor(daemons("PNG writer"));
+	/**
+	 * the rows that were given to the compressors
+	 */
+	private int submittedRows = 0;
+	/**
+	 * the checksum of the written strips
+	 */
+	private long adler = 1;
+	/**
+	 * the last written strip, to wait for at the end
+	 */
+	private Future<?> lastWrite = null;
+	private volatile IOException failure = null;
+
+	/**
+	 * compressed strip of rows
+	 */
+	private static class Strip {
+		final byte[] data;
+		final long adler;
+		final long length;
+
+		/**
+		 * Strip constructor
+		 *
+		 * @param data   the compressed data
+		 * @param adler  the checksum of the raw data
+		 * @param length the length of the raw data
+		 */
+		Strip(byte[] data, long adler, long length) {
+			this.data = data;
+			this.adler = adler;
+			this.length = length;
+		}
+	}
+
+	/**
+	 * starts a PNG image on a stream, and writes it's header
+	 *
+	 * @param out     the stream
+	 * @param nX      the number of columns
+	 * @param nY      the number of rows
+	 * @param source  the source of the colors of the rows
+	 * @param threads the number of compressing threads
+	 * @throws IOException if the header can't be written
+	 */
+	public PngEncoder(OutputStream out, int nX, int nY, RowSource source, int threads) throws IOException {
+		if (nX <= 0 || nY <= 0)
+			throw new IllegalArgumentException("Image size must be positive");
+		if (threads <= 0)
+			throw new IllegalArgumentException("Number of threads must be positive");
+		this.out = new BufferedOutputStream(out, 1 << 16);
+		this.nX = nX;
+		this.nY = nY;
+		this.source = source;
+		stripRows = Math.max(1, STRIP_BYTES / (3 * nX + 1));
+		compressors = Executors.newFixedThreadPool(threads, daemons("PNG compressor"));
+
+		this.out.write(SIGNATURE);
+		byte[] header = new byte[13];
+		putInt(header, 0, nX);
+		putInt(header, 4, nY);
+		header[8] = 8; // bits in a sample
+		header[9] = 2; // true color, no alpha
+		// compression, filter and interlace methods are 0
+		chunk("IHDR", header, header.length);
+	}
+
+	/**
+	 * announces that the rows above a row are finished, the full strips of them
+	 * are compressed in the background
+	 *
+	 * @param rows the number of finished rows from the top
+	 */
+	public synchronized void rowsReady(int rows) {
+		rows = Math.min(rows, nY);
+		while (submittedRows + stripRows <= rows || rows == nY && submittedRows < nY)
+			submit(submittedRows, Math.min(submittedRows + stripRows, nY));
+	}
+
+	/**
+	 * compresses and writes all the rows that are left, and ends the image
+	 *
+	 * @throws IOException if the image can't be written
+	 */
+	public void finish() throws IOException {
+		rowsReady(nY);
+		try {
+			if (lastWrite != null)
+				lastWrite.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while writing the image", e);
+		} catch (ExecutionException e) {
+			throw new IOException("Writing of the image failed", e.getCause());
+		} finally {
+			compressors.shutdown();
+			writer.shutdown();
+		}
+		if (failure != null)
+			throw failure;
+		chunk("IEND", new byte[0], 0);
+		out.flush();
+	}
+
+	/**
+	 * stops the encoding without ending the image (e.g. when the rendering
+	 * failed), the strips that were not written are dropped
+	 */
+	public void abort() {
+		compressors.shutdownNow();
+		writer.shutdownNow();
+	}
+
+	/**
+	 * creates the threads of the encoder as daemons, so an encoder that was not
+	 * finished doesn't keep the program alive
+	 *
+	 * @param name the name of the threads
+	 * @return the factory of the threads
+	 */
+	private static ThreadFactory daemons(String name) {
+		return task -> {
+			Thread thread = new Thread(task, name);
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * compresses a strip in the background, and writes it after the previous
+	 * strips
+	 *
+	 * @param y0 the first row of the strip
+	 * @param y1 the row after the last row of the strip
+	 */
+	private void submit(int y0, int y1) {
+		Future<Strip> strip = compressors.submit(() -> compress(y0, y1));
+		lastWrite = writer.submit(() -> {
+			if (failure != null) // the image is already broken
+				return;
+			try {
+				write(strip.get(), y0 == 0, y1 == nY);
+			} catch (IOException e) {
+				failure = e;
+			} catch (ExecutionException e) {
+				failure = new IOException("Compression of the image failed", e.getCause());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				failure = new IOException("Interrupted while writing the image", e);
+			}
+		});
+		submittedRows = y1;
+	}
+
+	/**
+	 * filters and compresses the rows of a strip
+	 *
+	 * @param y0 the first row of the strip
+	 * @param y1 the row after the last row of the strip
+	 * @return the compressed strip
+	 */
+	private Strip compress(int y0, int y1) {
+		int rowBytes = 3 * nX;
+		byte[] raw = new byte[(rowBytes + 1) * (y1 - y0)];
+		byte[] previous = new byte[rowBytes];
+		byte[] current = new byte[rowBytes];
+		if (y0 > 0)
+			source.row(y0 - 1, previous);
+		for (int y = y0; y < y1; y++) {
+			source.row(y, current);
+			paeth(previous, current, raw, (rowBytes + 1) * (y - y0));
+			byte[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		deflater.setInput(raw);
+		boolean last = y1 == nY;
+		if (last)
+			deflater.finish();
+		ByteArrayOutputStream data = new ByteArrayOutputStream(raw.length / 4);
+		byte[] buffer = new byte[1 << 16];
+		int n;
+		do {
+			// all the strips but the last end at a byte boundary, and the last one ends
+			// the deflate stream
+			n = deflater.deflate(buffer, 0, buffer.length, last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+			data.write(buffer, 0, n);
+		} while (last ? !deflater.finished() : n == buffer.length);
+		deflater.end();
+
+		Adler32 checksum = new Adler32();
+		checksum.update(raw);
+		return new Strip(data.toByteArray(), checksum.getValue(), raw.length);
+	}
+
+	/**
+	 * filters a row by the Paeth predictor of each byte
+	 *
+	 * @param previous the row above
+	 * @param current  the row
+	 * @param raw      the array of the filtered rows
+	 * @param offset   the index of the filter type of the row in the array
+	 */
+	private static void paeth(byte[] previous, byte[] current, byte[] raw, int offset) {
+		raw[offset++] = PAETH;
+		for (int i = 0; i < current.length; i++) {
+			int a = i < 3 ? 0 : current[i - 3] & 0xFF; // left
+			int b = previous[i] & 0xFF; // up
+			int c = i < 3 ? 0 : previous[i - 3] & 0xFF; // up-left
+			int p = a + b - c;
+			int pa = Math.abs(p - a), pb = Math.abs(p - b), pc = Math.abs(p - c);
+			int predictor = pa <= pb && pa <= pc ? a : pb <= pc ? b : c;
+			raw[offset + i] = (byte) (current[i] - predictor);
+		}
+	}
+
+	/**
+	 * writes a compressed strip in an IDAT chunk
+	 *
+	 * @param strip the strip
+	 * @param first is it the first strip (that starts the zlib stream)
+	 * @param last  is it the last strip (that ends the zlib stream)
+	 * @throws IOException if the strip can't be written
+	 */
+	private void write(Strip strip, boolean first, boolean last) throws IOException {
+		adler = first ? strip.adler : combine(adler, strip.adler, strip.length);
+		byte[] data = new byte[strip.data.length + (first ? 2 : 0) + (last ? 4 : 0)];
+		int offset = 0;
+		if (first) {
+			data[0] = 0x78; // deflate with a window of 32KB
+			data[1] = (byte) 0x9C; // the default level, and the check bits
+			offset = 2;
+		}
+		System.arraycopy(strip.data, 0, data, offset, strip.data.length);
+		if (last)
+			putInt(data, data.length - 4, (int) adler);
+		chunk("IDAT", data, data.length);
+	}
+
+	/**
+	 * combines the Adler-32 checksums of two parts of data (like adler32_combine
+	 * of zlib)
+	 *
+	 * @param adler1 the checksum of the first part
+	 * @param adler2 the checksum of the second part
+	 * @param length the length of the second part
+	 * @return the checksum of both parts
+	 */
+	static long combine(long adler1, long adler2, long length) {
+		long rem = length % ADLER_BASE;
+		long sum1 = adler1 & 0xFFFF;
+		long sum2 = rem * sum1 % ADLER_BASE;
+		sum1 += (adler2 & 0xFFFF) + ADLER_BASE - 1;
+		sum2 += (adler1 >>> 16 & 0xFFFF) + (adler2 >>> 16 & 0xFFFF) + ADLER_BASE - rem;
+		if (sum1 >= ADLER_BASE)
+			sum1 -= ADLER_BASE;
+		if (sum1 >= ADLER_BASE)
+			sum1 -= ADLER_BASE;
+		if (sum2 >= ADLER_BASE << 1)
+			sum2 -= ADLER_BASE << 1;
+		if (sum2 >= ADLER_BASE)
+			sum2 -= ADLER_BASE;
+		return sum1 | sum2 << 16;
+	}
+
+	/**
+	 * writes a chunk of the PNG file
+	 *
+	 * @param type   the type of the chunk
+	 * @param data   the data of the chunk
+	 * @param length the length of the data
+	 * @throws IOException if the chunk can't be written
+	 */
+	private void chunk(String type, byte[] data, int length) throws IOException {
+		byte[] header = new byte[8];
+		putInt(header, 0, length);
+		System.arraycopy(type.getBytes(StandardCharsets.US_ASCII), 0, header, 4, 4);
+		CRC32 crc = new CRC32();
+		crc.update(header, 4, 4);
+		crc.update(data, 0, length);
+		byte[] trailer = new byte[4];
+		putInt(trailer, 0, (int) crc.getValue());
+		out.write(header);
+		out.write(data, 0, length);
+		out.write(trailer);
+	}
+
+	/**
+	 * puts an int in big endian order
+	 *
+	 * @param buffer the array
+	 * @param offset the index of the first byte
+	 * @param value  the int
+	 */
+	private static void putInt(byte[] buffer, int offset, int value) {
+		buffer[offset] = (byte) (value >>> 24);
+		buffer[offset + 1] = (byte) (value >>> 16);
+		buffer[offset + 2] = (byte) (value >>> 8);
+		buffer[offset + 3] = (byte) value;
+	}
+}
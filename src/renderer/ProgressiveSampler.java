@@ -0,0 +1,267 @@
+package renderer;
+
+import java.util.Arrays;
+
+import elements.Camera;
+import primitives.Color;
+
+/**
+ * Progressive sampling of the whole image in rounds. The first round takes one
+ * sample in every block of {@value #BLOCK}X{@value #BLOCK} pixels for a quick
+ * preview, and the second one sample in each of the rest of the pixels (that
+ * were not sampled by the preview). Then each pixel
+ * keeps the running mean and variance of it's samples (by Welford's method),
+ * and takes more samples until the confidence interval of the mean is narrower
+ * than the tolerance (with tolerance 0 - until it has the maximal number of
+ * samples).<br/>
+ * The frame may have a budget of primary rays (but every pixel takes at least
+ * one sample). When a round can't give more samples to all the pixels that
+ * didn't converge, they are given to the pixels with the widest confidence
+ * interval first, so the flat and dark regions stop early and the rays go to
+ * the edges and the soft shadows.<br/>
+ * The samples of a pixel are the points of the Owen scrambled Sobol sequence of
+ * the pixel, so every prefix of them is well spread in the pixel.<br/>
+ * The sampling can be cancelled or stopped at a deadline, and the current image
+ * can be written at any time.
+ */
+class ProgressiveSampler {
+	/**
+	 * the size of the blocks of the preview round
+	 */
+	static final int BLOCK = 4;
+	/**
+	 * the number of samples of each pixel in the first round, for the first
+	 * estimation of the variance
+	 */
+	static final int MIN_SAMPLES = 4;
+	/**
+	 * the number of samples that a pixel takes in every next round
+	 */
+	static final int BATCH = 4;
+	/**
+	 * the factor of the standard error in the confidence interval (95%)
+	 */
+	private static final double CONFIDENCE = 1.96;
+
+	private final Camera camera;
+	private final RayTracerBase rayTracer;
+	private final int nX;
+	private final int nY;
+	/**
+	 * the maximal half width of the confidence interval of a converged pixel
+	 */
+	private final double tolerance;
+	private final int maxSamples;
+	/**
+	 * the primary rays that are left in the budget of the frame
+	 */
+	private long budget;
+	/**
+	 * the number of samples of each pixel
+	 */
+	private final int[] counts;
+	/**
+	 * the number of samples that each pixel takes in the current round
+	 */
+	private final int[] takes;
+	/**
+	 * the running statistics of each pixel, 6 values for each pixel (see
+	 * {@link Color.Accumulator#addToStatistics(int, double[], int)})
+	 */
+	private final double[] stats;
+	/**
+	 * the number of the finished rounds
+	 */
+	private volatile int rounds = 0;
+	/**
+	 * the time (of {@link System#nanoTime()}) to stop the sampling at
+	 */
+	private volatile long deadline = Long.MAX_VALUE;
+	private volatile boolean cancelled = false;
+
+	/**
+	 * constructs a sampler of the image
+	 *
+	 * @param camera     the camera that makes the rays
+	 * @param rayTracer  the tracer of the rays
+	 * @param nX         the number of columns in the image
+	 * @param nY         the number of rows in the image
+	 * @param tolerance  the maximal half width of the confidence interval of the
+	 *                   color of a pixel
+	 * @param maxSamples the maximal number of samples of a pixel
+	 * @param budget     the maximal number of primary rays in the frame
+	 */
+	ProgressiveSampler(Camera camera, RayTracerBase rayTracer, int nX, int nY, double tolerance, int maxSamples,
+			long budget) {
+		this.camera = camera;
+		this.rayTracer = rayTracer;
+		this.nX = nX;
+		this.nY = nY;
+		this.tolerance = tolerance;
+		this.maxSamples = maxSamples;
+		this.budget = budget;
+		counts = new int[nX * nY];
+		takes = new int[nX * nY];
+		stats = new double[6 * nX * nY];
+	}
+
+	/**
+	 * chooses the samples of the next round
+	 *
+	 * @return false when all the pixels converged, the budget is over or the
+	 *         sampling is stopped
+	 */
+	boolean nextRound() {
+		if (isStopped())
+			return false;
+		Arrays.fill(takes, 0);
+		if (rounds < 2) {
+			// the preview in blocks and then the rest of the pixels, even beyond the budget
+			int step = rounds == 0 ? BLOCK : 1;
+			for (int i = 0; i < nY; i += step)
+				for (int j = 0; j < nX; j += step)
+					if (counts[i * nX + j] == 0) {
+						takes[i * nX + j] = 1;
+						budget = Math.max(0, budget - 1);
+					}
+			return true;
+		}
+		// the pixels that didn't converge, by the half width of their interval (in the
+		// high bits) and their index
+		long[] order = new long[counts.length];
+		int active = 0;
+		long wanted = 0;
+		for (int p = 0; p < counts.length; p++) {
+			if (counts[p] >= maxSamples)
+				continue;
+			double error = error(p);
+			if (error >= tolerance) {
+				order[active++] = (long) Float.floatToIntBits((float) error) << 32 | p;
+				wanted += wanted(p);
+			}
+		}
+		if (active == 0 || budget == 0)
+			return false;
+		// the widest intervals are first when the budget is not enough for all
+		if (wanted > budget)
+			Arrays.sort(order, 0, active);
+		for (int k = active - 1; k >= 0 && budget > 0; --k) {
+			int p = (int) order[k];
+			int take = (int) Math.min(wanted(p), budget);
+			takes[p] = take;
+			budget -= take;
+		}
+		return true;
+	}
+
+	/**
+	 * the number of samples that a pixel wants in the next round
+	 *
+	 * @param p the index of the pixel
+	 * @return the number of samples
+	 */
+	private int wanted(int p) {
+		return Math.min(counts[p] < MIN_SAMPLES ? MIN_SAMPLES - counts[p] : BATCH, maxSamples - counts[p]);
+	}
+
+	/**
+	 * the half width of the confidence interval of the color of a pixel, the
+	 * maximum of the three components
+	 *
+	 * @param p the index of the pixel
+	 * @return the half width of the interval
+	 */
+	private double error(int p) {
+		int n = counts[p];
+		if (n < 2)
+			return Double.POSITIVE_INFINITY;
+		double m2 = Math.max(stats[6 * p + 1], Math.max(stats[6 * p + 3], stats[6 * p + 5]));
+		return CONFIDENCE * Math.sqrt(m2 / (n - 1) / n);
+	}
+
+	/**
+	 * takes the samples of the current round in the pixels of a rectangle [x0, x1)
+	 * X [y0, y1)
+	 *
+	 * @param x0 the first column
+	 * @param y0 the first row
+	 * @param x1 the column after the last column
+	 * @param y1 the row after the last row
+	 */
+	void sample(int x0, int y0, int x1, int y1) {
+		Color.Accumulator sample = new Color.Accumulator();
+		double[] point = new double[2];
+		for (int i = y0; i < y1; ++i)
+			for (int j = x0; j < x1; ++j) {
+				int p = i * nX + j;
+				if (takes[p] > 0 && isStopped())
+					return;
+				for (int k = takes[p]; k > 0; --k) {
+					BlackBoard.sampleOwen(counts[p], p, point);
+					rayTracer.traceRay(camera.constructRayThroughPoint(nX, nY, j + point[0], i + point[1]),
+							sample.reset());
+					sample.addToStatistics(++counts[p], stats, 6 * p);
+				}
+			}
+	}
+
+	/**
+	 * marks the end of the sampling of the current round
+	 */
+	void endRound() {
+		if (!isStopped())
+			++rounds;
+	}
+
+	/**
+	 * get the number of the finished rounds
+	 *
+	 * @return the number of rounds
+	 */
+	int getRounds() {
+		return rounds;
+	}
+
+	/**
+	 * stops the sampling, the pixels that are sampled now are finished
+	 */
+	void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * sets the time to stop the sampling at
+	 *
+	 * @param deadline the time, of {@link System#nanoTime()}
+	 */
+	void setDeadline(long deadline) {
+		this.deadline = deadline;
+	}
+
+	/**
+	 * is the sampling cancelled or after it's deadline
+	 *
+	 * @return true if the sampling has to stop
+	 */
+	boolean isStopped() {
+		return cancelled || System.nanoTime() - deadline >= 0;
+	}
+
+	/**
+	 * writes the means of the pixels to the image, the pixels that have no samples
+	 * yet take the color of their block in the preview. It may be called while
+	 * the pixels are sampled
+	 *
+	 * @param imageWriter the image
+	 */
+	void write(ImageWriter imageWriter) {
+		for (int i = 0; i < nY; ++i)
+			for (int j = 0; j < nX; ++j) {
+				int p = i * nX + j;
+				if (counts[p] == 0)
+					p = (i - i % BLOCK) * nX + j - j % BLOCK;
+				p *= 6;
+				imageWriter.writePixel(j, i, new Color(stats[p], stats[p + 2], stats[p + 4]));
+			}
+	}
+}
@@ -0,0 +1,254 @@
+package renderer;
+
+import java.util.Arrays;
+
+import elements.Camera;
+import primitives.Color;
+
+/**
+ * Adaptive super sampling of the pixels of a region of the image (a tile or
+ * the whole image) by a recursive quad tree. The corners and the center of a
+ * pixel are traced first, and a square is divided to 4 quadrants only when
+ * their colors disagree, until the finest level of 2^depth X 2^depth squares in
+ * a pixel.<br/>
+ * All the corners are points of one lattice over the region. The points on the
+ * top and the bottom edges of the current row of pixels are kept for the whole
+ * row, and the inner points only for the current pixel (with it's left edge
+ * that it shares with the previous pixel), so a corner that is shared by
+ * neighbour squares or neighbour pixels is traced once (only the points on the
+ * edges between two regions are traced by both of them) and the memory is of
+ * two rows of points and one pixel, not of all the rows of points in a row of
+ * pixels. The pixels of the region must be sampled row after row, from left to
+ * right.
+ */
+class QuadTreeSampler {
+	private final Camera camera;
+	private final RayTracerBase rayTracer;
+	private final int nX;
+	private final int nY;
+	/**
+	 * the first column of the region
+	 */
+	private final int x0;
+	/**
+	 * the number of lattice cells in the side of a pixel (2^depth)
+	 */
+	private final int res;
+	/**
+	 * the number of lattice points in a row of the region
+	 */
+	private final int width;
+	/**
+	 * the maximal average distance of the samples of a square from their average
+	 * that is considered as agreement
+	 */
+	private final double maxVariance;
+	/**
+	 * the colors of the lattice points on the top edge and on the bottom edge of
+	 * the current row of pixels, 3 values (r, g, b) for each point
+	 */
+	private double[] top, bottom;
+	/**
+	 * the row of pixels that each point of the edges is the top edge of, a point
+	 * is traced if it's the current row (for the top edge) or the next row (for
+	 * the bottom edge)
+	 */
+	private int[] topRow, bottomRow;
+	/**
+	 * the colors of the inner lattice points of the current pixel, (res+1) X
+	 * (res+1) points with the left and the right edges
+	 */
+	private final double[] block;
+	/**
+	 * the pixel that each inner point was traced for, a point is traced if it's
+	 * the current pixel
+	 */
+	private final int[] blockPixel;
+	/**
+	 * the number of the current pixel since the sampler was constructed
+	 */
+	private int pixel = 0;
+	/**
+	 * the column of the current pixel in the region, -1 before the first pixel of
+	 * a row
+	 */
+	private int column = -1;
+	/**
+	 * the colors of the corners and the center of the current square
+	 */
+	private final Color.Accumulator c00 = new Color.Accumulator(), c10 = new Color.Accumulator(),
+			c01 = new Color.Accumulator(), c11 = new Color.Accumulator(), center = new Color.Accumulator();
+	/**
+	 * the average of the corners and the center of the current square
+	 */
+	private final Color.Accumulator mean = new Color.Accumulator();
+	/**
+	 * the row of the pixels in the band, -1 before the first pixel
+	 */
+	private int row = -1;
+
+	/**
+	 * constructs a sampler of the columns [x0, x1) of the image
+	 *
+	 * @param camera      the camera that makes the rays
+	 * @param rayTracer   the tracer of the rays
+	 * @param nX          the number of columns in the image
+	 * @param nY          the number of rows in the image
+	 * @param x0          the first column of the region
+	 * @param x1          the column after the last column of the region
+	 * @param depth       the maximal number of divisions of a pixel
+	 * @param maxVariance the maximal average distance of the samples of a square
+	 *                    from their average, that stops the division
+	 */
+	QuadTreeSampler(Camera camera, RayTracerBase rayTracer, int nX, int nY, int x0, int x1, int depth,
+			double maxVariance) {
+		this.camera = camera;
+		this.rayTracer = rayTracer;
+		this.nX = nX;
+		this.nY = nY;
+		this.x0 = x0;
+		this.res = 1 << depth;
+		this.width = (x1 - x0) * res + 1;
+		this.maxVariance = maxVariance;
+		top = new double[3 * width];
+		bottom = new double[3 * width];
+		topRow = new int[width];
+		bottomRow = new int[width];
+		Arrays.fill(topRow, Integer.MIN_VALUE);
+		Arrays.fill(bottomRow, Integer.MIN_VALUE);
+		block = new double[3 * (res + 1) * (res + 1)];
+		blockPixel = new int[(res + 1) * (res + 1)];
+		Arrays.fill(blockPixel, -1);
+	}
+
+	/**
+	 * calculates the color of a pixel, each sample is cut at 255 like in
+	 * {@link Color#Color(java.util.List)}
+	 *
+	 * @param j     the column of the pixel
+	 * @param i     the row of the pixel
+	 * @param pixel the sum to put the color of the pixel in
+	 * @return the sum with the color of the pixel
+	 */
+	Color.Accumulator samplePixel(int j, int i, Color.Accumulator pixel) {
+		moveToRow(i);
+		moveToPixel(j - x0);
+		pixel.reset();
+		sampleSquare((j - x0) * res, 0, res, 1, pixel);
+		return pixel;
+	}
+
+	/**
+	 * moves the band to a row of pixels, the bottom edge of the previous row is
+	 * the top edge of the next one
+	 *
+	 * @param i the row of the pixels
+	 */
+	private void moveToRow(int i) {
+		if (i == row)
+			return;
+		if (i == row + 1) {
+			double[] edge = top;
+			top = bottom;
+			bottom = edge;
+			int[] rows = topRow;
+			topRow = bottomRow;
+			bottomRow = rows;
+		} else
+			// a row that is not after the previous one shares nothing with it
+			Arrays.fill(topRow, Integer.MIN_VALUE);
+		row = i;
+		column = -1;
+	}
+
+	/**
+	 * moves the inner points to a pixel of the current row, the right edge of the
+	 * previous pixel is the left edge of the next one
+	 *
+	 * @param column the column of the pixel in the region
+	 */
+	private void moveToPixel(int column) {
+		int previous = pixel++;
+		if (this.column >= 0 && column == this.column + 1)
+			for (int y = 1; y < res; y++) {
+				int from = y * (res + 1) + res, to = y * (res + 1);
+				if (blockPixel[from] == previous) {
+					System.arraycopy(block, 3 * from, block, 3 * to, 3);
+					blockPixel[to] = pixel;
+				}
+			}
+		this.column = column;
+	}
+
+	/**
+	 * the color of a lattice point, it is traced at the first time
+	 *
+	 * @param x     the column of the point in the band
+	 * @param y     the row of the point in the band
+	 * @param color the sum to put the color of the point in
+	 * @return the sum with the color of the point
+	 */
+	private Color.Accumulator corner(int x, int y, Color.Accumulator color) {
+		double[] values;
+		int k;
+		if (y == 0 || y == res) {
+			int[] rows = y == 0 ? topRow : bottomRow;
+			int edgeRow = row + (y == 0 ? 0 : 1);
+			values = y == 0 ? top : bottom;
+			if (rows[x] == edgeRow)
+				return color.load(values, 3 * x);
+			rows[x] = edgeRow;
+			k = x;
+		} else {
+			values = block;
+			k = y * (res + 1) + x - column * res;
+			if (blockPixel[k] == pixel)
+				return color.load(values, 3 * k);
+			blockPixel[k] = pixel;
+		}
+		rayTracer.traceRay(camera.constructRayThroughPoint(nX, nY, x0 + x / (double) res, row + y / (double) res),
+				color.reset());
+		color.store(values, 3 * k);
+		return color;
+	}
+
+	/**
+	 * adds the color of a square to the color of the pixel, the square is divided
+	 * when the colors of it's corners and center disagree
+	 *
+	 * @param x      the column of the top-left corner in the band
+	 * @param y      the row of the top-left corner in the band
+	 * @param size   the size of the square in lattice cells
+	 * @param weight the part of the square in the pixel
+	 * @param pixel  the sum of the color of the pixel
+	 */
+	private void sampleSquare(int x, int y, int size, double weight, Color.Accumulator pixel) {
+		// the corners are not needed after the square is divided, so the squares
+		// share them
+		corner(x, y, c00);
+		corner(x + size, y, c10);
+		corner(x, y + size, c01);
+		corner(x + size, y + size, c11);
+		mean.reset().addClamped(c00).addClamped(c10).addClamped(c01).addClamped(c11);
+		if (size == 1) {
+			pixel.addClamped(mean.scale(weight / 4));
+			return;
+		}
+		// the center (like in the sample board of 5 points) is a corner of the
+		// quadrants, so it is not wasted when the square is divided
+		int half = size / 2;
+		corner(x + half, y + half, center);
+		mean.addClamped(center).reduce(5);
+		if ((mean.clampedDistance(c00) + mean.clampedDistance(c10) + mean.clampedDistance(c01)
+				+ mean.clampedDistance(c11) + mean.clampedDistance(center)) / 5 < maxVariance) {
+			// the mean is already cut at 255, so it is added as is
+			pixel.addClamped(mean.scale(weight));
+			return;
+		}
+		weight /= 4;
+		sampleSquare(x, y, half, weight, pixel);
+		sampleSquare(x + half, y, half, weight, pixel);
+		sampleSquare(x, y + half, half, weight, pixel);
+		sampleSquare(x + half, y + half, half, weight, pixel);
+	}
+}
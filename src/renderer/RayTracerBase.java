@@ -1,11 +1,14 @@
 package renderer;
 
+import java.io.Serializable;
+
 import primitives.*;
 import scene.*;
 /**
  *  Responsible to trace the ray in the scene, and find it's intersections points and their colors
  */
-public abstract class RayTracerBase {
+public abstract class RayTracerBase implements Serializable {
+	private static final long serialVersionUID = 1L;
 	/**
 	 * the scene to trace the ray in
 	 */
@@ -17,7 +20,13 @@ public abstract class RayTracerBase {
 	 */
 	public RayTracerBase(Scene scene) {
 		this.scene = scene;
+		if (geometries.Intersectable.BVH && scene.bvhCache != null) {
+			scene.geometries.buildCached(scene.bvhCache);
+			return;
+		}
 		scene.geometries.initConstructHeirarchy();
+		if (geometries.Intersectable.BVH)
+			scene.geometries.compile();
 	}
 	/**
 	 * find the closet intersection point and it's color
@@ -25,6 +34,27 @@ public abstract class RayTracerBase {
 	 * @return the color of the closet intersection point
 	 */
 	public abstract Color traceRay(Ray ray);
+	/**
+	 * find the closet intersection point and add it's color to a sum of colors,
+	 * the tracers that can add the color without creating it override it
+	 * @param ray the ray to trace
+	 * @param color the sum to add the color of the ray to
+	 */
+	public void traceRay(Ray ray, Color.Accumulator color) {
+		color.add(traceRay(ray));
+	}
+	/**
+	 * updates the hierarchy of the scene for the next frame of an animation,
+	 * after it's geometries were moved (see {@link geometries.Geometries#refit()}),
+	 * instead of building it again. It can't be used with a scene whose hierarchy
+	 * was loaded from a cache (see {@link Scene#setBVHCache(java.nio.file.Path)})
+	 * @return it self
+	 * @throws IllegalStateException if the hierarchy of the scene was not built
+	 */
+	public RayTracerBase updateScene() {
+		scene.geometries.refit();
+		return this;
+	}
 	/**
 	 * setter for the BVH feature
 	 * @return it self
@@ -10,6 +10,7 @@ import primitives.Vector;
 import scene.Scene;
 
 public class RayTracerSS extends BasicRayTracer {
+	private static final long serialVersionUID = 1L;
 	private int kSS = 0;
 
 	public RayTracerSS(Scene scene) {
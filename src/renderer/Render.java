@@ -1,6 +1,8 @@
 package renderer;
 
-import java.util.LinkedList;
+import java.io.Serializable;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
 import java.util.MissingResourceException;
 import java.util.concurrent.ThreadLocalRandom;
@@ -10,29 +12,95 @@ import primitives.Color;
 import primitives.Ray;
 
 /**
- * Rendering the image from the scene
+ * Rendering the image from the scene. The render is serializable with it's
+ * scene and settings (without the image writer and the checkpoint), so it can
+ * be sent to the workers of a {@link RenderCoordinator}
  */
-public class Render {
-	private ImageWriter imageWriter;
+public class Render implements Serializable {
+	private static final long serialVersionUID = 1L;
+	/**
+	 * the pattern of the sample rays in a pixel
+	 */
+	public enum Sampling {
+		/**
+		 * jittered random points, from {@link BlackBoard#squareRandom(int, double)}
+		 */
+		RANDOM,
+		/**
+		 * the Halton sequence, shifted for each pixel
+		 */
+		HALTON,
+		/**
+		 * the Sobol sequence, shifted for each pixel
+		 */
+		SOBOL,
+		/**
+		 * the R2 sequence, shifted for each pixel
+		 */
+		R2,
+		/**
+		 * the Sobol sequence, Owen scrambled for each pixel
+		 */
+		OWEN
+	}
+
+	private transient ImageWriter imageWriter;
 	private Camera camera;
 	private RayTracerBase rayTracer;
 	private int kA = 1;
 	private BlackBoard[] rbbs;
 	private int rbbsSize = 100;
+	private Sampling sampling = Sampling.RANDOM;
+	private int adaptiveDepth = 0; // the depth of the quad tree of the adaptive sampling, 0 when it's off
+	private boolean progressive = false; // is the progressive sampling on
+	private double tolerance = 0; // the tolerance of the progressive sampling
+	private int maxSamples = 64;
+	private long rayBudget = Long.MAX_VALUE;
+	private transient Checkpoint checkpoint = null;
 	private final BlackBoard sampleBoard = BlackBoard.sempleSquare(1);
 
 	private int threadsCount = 0;
 	private static final int SPARE_THREADS = 2; // Spare threads if trying to use all the cores
 	private static final double MAX_VARIANCE = 2;
 	private boolean print = false; // printing progress percentage
+	private int tileSize = 16;
+	private TileScheduler.Order tileOrder = TileScheduler.Order.MORTON;
 
 	/**
 	 * Render constructor, initialize an array of random black boards
 	 */
 	public Render() {
-		rbbs = new BlackBoard[rbbsSize];
-		for (int i = 0; i < rbbsSize; i++)
-			rbbs[i] = BlackBoard.squareRandom(kA, 1);
+		initBoards();
+	}
+
+	/**
+	 * generates the black boards of the sample rays: an array of random boards, or
+	 * a single low-discrepancy board with kA*kA points that is scrambled for each
+	 * pixel
+	 */
+	private void initBoards() {
+		if (sampling == Sampling.RANDOM || kA == 1) {
+			rbbs = new BlackBoard[rbbsSize];
+			for (int i = 0; i < rbbsSize; i++)
+				rbbs[i] = BlackBoard.squareRandom(kA, 1);
+			return;
+		}
+		int count = kA * kA;
+		BlackBoard bb;
+		switch (sampling) {
+		case HALTON:
+			bb = BlackBoard.squareHalton(count, 1);
+			break;
+		case SOBOL:
+			bb = BlackBoard.squareSobol(count, 1);
+			break;
+		case R2:
+			bb = BlackBoard.squareR2(count, 1);
+			break;
+		default:
+			bb = BlackBoard.squareOwen(count, 1);
+		}
+		rbbs = new BlackBoard[] { bb };
 	}
 
 	/**
@@ -65,124 +133,27 @@ public class Render {
 	}
 
 	/**
-	 * Pixel is an internal helper class whose objects are associated with a Render
-	 * object that they are generated in scope of. It is used for multithreading in
-	 * the Renderer and for follow up its progress.<br/>
-	 * There is a main follow up object and several secondary objects - one in each
-	 * thread.
+	 * set the size of the tiles that the threads take at once
 	 * 
-	 * @author Dan
-	 *
-	 */
-	private class Pixel {
-		private long maxRows = 0;
-		private long maxCols = 0;
-		private long pixels = 0;
-		public volatile int row = 0;
-		public volatile int col = -1;
-		private long counter = 0;
-		private int percents = 0;
-		private long nextCounter = 0;
-
-		/**
-		 * The constructor for initializing the main follow up Pixel object
-		 * 
-		 * @param maxRows the amount of pixel rows
-		 * @param maxCols the amount of pixel columns
-		 */
-		public Pixel(int maxRows, int maxCols) {
-			this.maxRows = maxRows;
-			this.maxCols = maxCols;
-			this.pixels = (long) maxRows * maxCols;
-			this.nextCounter = this.pixels / 100;
-			if (Render.this.print)
-				System.out.printf("\r %02d%%", this.percents);
-		}
-
-		/**
-		 * Default constructor for secondary Pixel objects
-		 */
-		public Pixel() {
-		}
-
-		/**
-		 * Internal function for thread-safe manipulating of main follow up Pixel object
-		 * - this function is critical section for all the threads, and main Pixel
-		 * object data is the shared data of this critical section.<br/>
-		 * The function provides next pixel number each call.
-		 * 
-		 * @param target target secondary Pixel object to copy the row/column of the
-		 *               next pixel
-		 * @return the progress percentage for follow up: if it is 0 - nothing to print,
-		 *         if it is -1 - the task is finished, any other value - the progress
-		 *         percentage (only when it changes)
-		 */
-		private synchronized int nextP(Pixel target) {
-			++col;
-			++this.counter;
-			if (col < this.maxCols) {
-				target.row = this.row;
-				target.col = this.col;
-				if (Render.this.print && this.counter == this.nextCounter) {
-					++this.percents;
-					this.nextCounter = this.pixels * (this.percents + 1) / 100;
-					return this.percents;
-				}
-				return 0;
-			}
-			++row;
-			if (row < this.maxRows) {
-				col = 0;
-				target.row = this.row;
-				target.col = this.col;
-				if (Render.this.print && this.counter == this.nextCounter) {
-					++this.percents;
-					this.nextCounter = this.pixels * (this.percents + 1) / 100;
-					return this.percents;
-				}
-				return 0;
-			}
-			return -1;
-		}
-
-		/**
-		 * Public function for getting next pixel number into secondary Pixel object.
-		 * The function prints also progress percentage in the console window.
-		 * 
-		 * @param target target secondary Pixel object to copy the row/column of the
-		 *               next pixel
-		 * @return true if the work still in progress, -1 if it's done
-		 */
-		public boolean nextPixel(Pixel target) {
-			int percent = nextP(target);
-			if (Render.this.print && percent > 0)
-				synchronized (this) {
-					notifyAll();
-				}
-			if (percent >= 0)
-				return true;
-			if (Render.this.print)
-				synchronized (this) {
-					notifyAll();
-				}
-			return false;
-		}
+	 * @param tileSize the width and height of a tile in pixels
+	 * @return the Render object itself
+	 */
+	public Render setTileSize(int tileSize) {
+		if (tileSize <= 0)
+			throw new IllegalArgumentException("Tile size must be positive");
+		this.tileSize = tileSize;
+		return this;
+	}
 
-		/**
-		 * Debug print of progress percentage - must be run from the main thread
-		 */
-		public void print() {
-			if (Render.this.print)
-				while (this.percents < 100)
-					try {
-						synchronized (this) {
-							wait();
-						}
-						System.out.printf("\r %02d%%", this.percents);
-						System.out.flush();
-					} catch (Exception e) {
-					}
-		}
+	/**
+	 * set the order that the tiles are handed to the threads
+	 * 
+	 * @param tileOrder the order of the tiles
+	 * @return the Render object itself
+	 */
+	public Render setTileOrder(TileScheduler.Order tileOrder) {
+		this.tileOrder = tileOrder;
+		return this;
 	}
 
 	/**
@@ -226,11 +197,95 @@ public class Render {
 	 * @return instance of this scene
 	 */
 	public Render setKA(int kA) {
-		if (this.kA != kA) { //if the kA has changed, regenerates the array of random black boards.
-			for (int i = 0; i < rbbsSize; i++)
-				rbbs[i] = BlackBoard.squareRandom(kA, 1);
+		if (this.kA != kA) { //if the kA has changed, regenerates the black boards.
+			this.kA = kA;
+			initBoards();
 		}
-		this.kA = kA;
+		return this;
+	}
+
+	/**
+	 * set the pattern of the sample rays in each pixel, the low-discrepancy
+	 * patterns reach the same noise with less rays than the random one
+	 * 
+	 * @param sampling the pattern of the samples
+	 * @return instance of this scene
+	 */
+	public Render setSampling(Sampling sampling) {
+		if (this.sampling != sampling) {
+			this.sampling = sampling;
+			initBoards();
+		}
+		return this;
+	}
+
+	/**
+	 * set the adaptive super sampling by a quad tree: the corners and the center of
+	 * each pixel are traced and a square is divided to 4 only when they disagree,
+	 * up to 'depth' times. The corners are shared with the neighbour squares and pixels,
+	 * so no ray is traced twice. When it is on the antialising factor is ignored
+	 * 
+	 * @param depth the maximal number of divisions of a pixel, 0 turns it off
+	 * @return instance of this scene
+	 */
+	public Render setAdaptiveDepth(int depth) {
+		if (depth < 0 || depth > 10)
+			throw new IllegalArgumentException("Adaptive depth must be between 0 and 10");
+		adaptiveDepth = depth;
+		return this;
+	}
+
+	/**
+	 * set the progressive sampling: each pixel keeps the running mean and variance
+	 * of it's samples and takes more samples until the 95% confidence interval of
+	 * it's color is narrower than the tolerance, or until it has the maximal
+	 * number of samples. When it is on the antialising factor and the adaptive
+	 * depth are ignored
+	 * 
+	 * @param tolerance  the maximal half width of the confidence interval (in the
+	 *                   0-255 scale of the color), with 0 every pixel takes the
+	 *                   maximal number of samples
+	 * @param maxSamples the maximal number of samples of a pixel
+	 * @return instance of this scene
+	 */
+	public Render setProgressive(double tolerance, int maxSamples) {
+		if (tolerance < 0)
+			throw new IllegalArgumentException("Tolerance must not be negative");
+		if (maxSamples <= 0)
+			throw new IllegalArgumentException("Maximal number of samples must be positive");
+		progressive = true;
+		this.tolerance = tolerance;
+		this.maxSamples = maxSamples;
+		return this;
+	}
+
+	/**
+	 * set the budget of primary rays of the progressive sampling in a frame, when
+	 * it is not enough for all the pixels the rays go to the pixels with the
+	 * widest confidence interval first (every pixel takes at least one sample)
+	 * 
+	 * @param rays the maximal number of primary rays in a frame
+	 * @return instance of this scene
+	 */
+	public Render setRayBudget(long rays) {
+		if (rays <= 0)
+			throw new IllegalArgumentException("Ray budget must be positive");
+		rayBudget = rays;
+		return this;
+	}
+
+	/**
+	 * set periodic checkpoints of the rendering of the tiles: the finished tiles
+	 * and their pixels are saved to a file, so a rendering that was stopped can be
+	 * continued by {@link #resumeImage()}. The last checkpoint is left in the file
+	 * at the end. The progressive sampling has no checkpoints
+	 * 
+	 * @param file     the file of the checkpoints
+	 * @param interval the time between two checkpoints
+	 * @return instance of this scene
+	 */
+	public Render setCheckpoint(Path file, Duration interval) {
+		checkpoint = new Checkpoint(file, interval);
 		return this;
 	}
 
@@ -242,89 +297,234 @@ public class Render {
 	 */
 	public Render setRbbsSize(int size) {
 		rbbsSize = size;
-		rbbs = new BlackBoard[rbbsSize];
-		for (int i = 0; i < rbbsSize; i++)
-			rbbs[i] = BlackBoard.squareRandom(kA, 1);
+		initBoards();
 		return this;
 	}
 
 	/**
 	 * This function renders image's pixel color map from the scene included with
-	 * the Renderer object - with multi-threading
+	 * the Renderer object - with multi-threading. The threads take whole tiles from
+	 * a work-stealing pool, so there is no shared lock inside a tile
+	 * 
+	 * @return true if the image was rendered, false if the rendering was
+	 *         interrupted
+	 */
+	private boolean renderImageThreaded() {
+		final int nX = imageWriter.getNx();
+		final int nY = imageWriter.getNy();
+		TileScheduler scheduler = newScheduler();
+		if (imageWriter.isStreaming())
+			scheduler.setRowsListener(imageWriter::rowsReady);
+		return scheduler.run(threadsCount, tile -> renderTile(nX, nY, tile), print);
+	}
+
+	/**
+	 * renders the tiles that are not finished in the checkpoint (one thread at
+	 * least), and saves the checkpoint periodically and at the end. A rendering
+	 * that was interrupted keeps it's last periodic checkpoint
+	 * 
+	 * @param resume true to restore the finished tiles of the saved checkpoint
+	 * @return true if the image was rendered, false if the rendering was
+	 *         interrupted
 	 */
-	private void renderImageThreaded() {
+	private boolean renderImageCheckpoints(boolean resume) {
 		final int nX = imageWriter.getNx();
 		final int nY = imageWriter.getNy();
-		final Pixel thePixel = new Pixel(nY, nX);
-
-		// Generate threads
-		Thread[] threads = new Thread[threadsCount];
-		for (int i = threadsCount - 1; i >= 0; --i) {
-			threads[i] = new Thread(() -> {
-				Pixel pixel = new Pixel();
-				while (thePixel.nextPixel(pixel)) {
-					renderImage(nX, nY, pixel.col, pixel.row);
-				}
-			});
+		checkpoint.start(imageWriter.getFrameBuffer(), tileSize, resume);
+		TileScheduler scheduler = newScheduler().skipTiles(checkpoint::isDone)
+				.setTileListener(checkpoint::tileDone);
+		if (imageWriter.isStreaming())
+			scheduler.setRowsListener(imageWriter::rowsReady);
+		if (!scheduler.run(Math.max(1, threadsCount), tile -> renderTile(nX, nY, tile), print))
+			return false;
+		checkpoint.finish();
+		return true;
+	}
+
+	/**
+	 * renders the image in one thread, in strips of rows of the size of a tile
+	 * that are reported to the image writer when it streams the image
+	 */
+	private void renderImageStrips() {
+		final int nX = imageWriter.getNx();
+		final int nY = imageWriter.getNy();
+		if (!imageWriter.isStreaming()) {
+			renderRegion(nX, nY, 0, 0, nX, nY);
+			return;
 		}
-		// Start threads
-		for (Thread thread : threads)
-			thread.start();
-
-		// Print percents on the console
-		thePixel.print();
-
-		// Ensure all threads have finished
-		for (Thread thread : threads)
-			try {
-				thread.join();
-			} catch (Exception e) {
-			}
+		for (int y = 0; y < nY; y += tileSize) {
+			int y1 = Math.min(nY, y + tileSize);
+			renderRegion(nX, nY, 0, y, nX, y1);
+			imageWriter.rowsReady(y1);
+		}
+	}
+
+	/**
+	 * renders the image by the progressive sampling, every round of samples is
+	 * taken by all the threads, until the sampler is finished or stopped (or the
+	 * thread is interrupted)
+	 * 
+	 * @param nX      the number of columns in the image
+	 * @param nY      the number of rows in the image
+	 * @param sampler the sampler of the image
+	 */
+	private void renderProgressive(int nX, int nY, ProgressiveSampler sampler) {
+		while (!Thread.currentThread().isInterrupted() && sampler.nextRound()) {
+			if (threadsCount == 0)
+				sampler.sample(0, 0, nX, nY);
+			else if (!newScheduler().run(threadsCount, tile -> sampler.sample(tile.x0, tile.y0, tile.x1, tile.y1),
+					print))
+				return;
+			sampler.endRound();
+		}
+	}
+
+	/**
+	 * creates the scheduler of the tiles of the image by the settings of the
+	 * render
+	 * 
+	 * @return the scheduler
+	 */
+	TileScheduler newScheduler() {
+		return new TileScheduler(imageWriter.getNx(), imageWriter.getNy(), tileSize, tileOrder);
+	}
 
-		if (print)
-			System.out.print("\r100%");
+	/**
+	 * get the image writer of the render
+	 * 
+	 * @return the image writer
+	 */
+	ImageWriter getImageWriter() {
+		return imageWriter;
 	}
 
 	/**
-	 * Rendering the image by imageWriter according to the rayTracer and camera
+	 * creates the progressive sampler of the image by the settings of the render
 	 * 
-	 * @param rays the number of rays per pixel
+	 * @return the sampler
 	 */
-	private void renderImage(int nX, int nY, int j, int i) {
-		int randInt = ThreadLocalRandom.current().nextInt(0, rbbsSize);
+	private ProgressiveSampler newSampler() {
+		return new ProgressiveSampler(camera, rayTracer, imageWriter.getNx(), imageWriter.getNy(), tolerance,
+				maxSamples, rayBudget);
+	}
+
+	/**
+	 * renders all the pixels of a tile
+	 * 
+	 * @param nX   the number of columns in the image
+	 * @param nY   the number of rows in the image
+	 * @param tile the tile to render
+	 */
+	void renderTile(int nX, int nY, TileScheduler.Tile tile) {
+		renderRegion(nX, nY, tile.x0, tile.y0, tile.x1, tile.y1);
+	}
+
+	/**
+	 * renders all the pixels of a rectangle [x0, x1) X [y0, y1) row after row
+	 * 
+	 * @param nX the number of columns in the image
+	 * @param nY the number of rows in the image
+	 * @param x0 the first column
+	 * @param y0 the first row
+	 * @param x1 the column after the last column
+	 * @param y1 the row after the last row
+	 */
+	private void renderRegion(int nX, int nY, int x0, int y0, int x1, int y1) {
+		PixelSums sums = new PixelSums();
+		QuadTreeSampler sampler = adaptiveDepth == 0 ? null
+				: new QuadTreeSampler(camera, rayTracer, nX, nY, x0, x1, adaptiveDepth, MAX_VARIANCE);
+		for (int i = y0; i < y1; ++i)
+			for (int j = x0; j < x1; ++j)
+				if (sampler == null)
+					renderImage(nX, nY, j, i, sums);
+				else
+					imageWriter.writePixel(j, i, sampler.samplePixel(j, i, sums.pixel).toColor());
+	}
+
+	/**
+	 * the color sums that are reused for all the pixels of a thread, so the
+	 * samples are added without creating colors
+	 */
+	private static class PixelSums {
+		/**
+		 * the average of the pixel
+		 */
+		final Color.Accumulator pixel = new Color.Accumulator();
+		/**
+		 * the color of the current sample
+		 */
+		final Color.Accumulator sample = new Color.Accumulator();
+		/**
+		 * the colors of the first samples, to find their variance
+		 */
+		Color.Accumulator[] probes = new Color.Accumulator[0];
+
+		/**
+		 * makes sure that there are at least 'n' probe sums
+		 * 
+		 * @param n the number of probes
+		 */
+		void ensureProbes(int n) {
+			if (probes.length >= n)
+				return;
+			probes = new Color.Accumulator[n];
+			for (int k = 0; k < n; k++)
+				probes[k] = new Color.Accumulator();
+		}
+	}
+
+	/**
+	 * Rendering the image by imageWriter according to the rayTracer and camera.
+	 * The samples are added to the reused sums of the thread (each sample is cut at
+	 * 255 like in {@link Color#Color(List)}), only the final color of the pixel is
+	 * created
+	 * 
+	 * @param nX   the number of columns in the image
+	 * @param nY   the number of rows in the image
+	 * @param j    the column of the pixel
+	 * @param i    the row of the pixel
+	 * @param sums the sums of the thread
+	 */
+	private void renderImage(int nX, int nY, int j, int i, PixelSums sums) {
+		int randInt = ThreadLocalRandom.current().nextInt(0, rbbs.length);
+		Color.Accumulator pixel = sums.pixel.reset();
 		if (kA > 4) {
 			// get sample of 5 colors
 			List<Ray> sampleRays = camera.constructBeamThroughPixel(sampleBoard, nX, nY, j, i);
-			List<Color> sampleColors = new LinkedList<>();
+			int n = sampleRays.size();
+			sums.ensureProbes(n);
+			int k = 0;
 			for (Ray ray : sampleRays) {
-				sampleColors.add(rayTracer.traceRay(ray));
+				Color.Accumulator probe = sums.probes[k++].reset();
+				rayTracer.traceRay(ray, probe);
+				pixel.addClamped(probe);
+			}
+			pixel.reduce(n);
+
+			double variance = 0;
+			for (k = 0; k < n; k++)
+				variance += pixel.clampedDistance(sums.probes[k]);
+			if (variance / n < MAX_VARIANCE) {
+				imageWriter.writePixel(j, i, pixel.toColor());
+				return;
 			}
-			Color sampleAvg = new Color(sampleColors);
-
-			if (sampleAvg.getVariance(sampleColors) < MAX_VARIANCE) {
-				imageWriter.writePixel(j, i, sampleAvg);
-			} else {
-				List<Ray> rays = camera.constructBeamThroughPixel(rbbs[randInt], nX, nY, j, i);
-				List<Color> colors = new LinkedList<>();
-				for (Ray ray : rays) {
-					colors.add(rayTracer.traceRay(ray));
-				}
-				colors.add(sampleAvg);
-				Color AvgColor = new Color(colors);
-				imageWriter.writePixel(j, i, AvgColor);
+			// the average of the probes is one more sample
+			List<Ray> rays = camera.constructBeamThroughPixel(rbbs[randInt], nX, nY, j, i);
+			for (Ray ray : rays) {
+				rayTracer.traceRay(ray, sums.sample.reset());
+				pixel.addClamped(sums.sample);
 			}
+			imageWriter.writePixel(j, i, pixel.reduce(rays.size() + 1).toColor());
 		} else {
 			List<Ray> rays = camera.constructBeamThroughPixel(rbbs[randInt], nX, nY, j, i);
-			List<Color> colors = new LinkedList<>();
 			for (Ray ray : rays) {
-				colors.add(rayTracer.traceRay(ray));
+				rayTracer.traceRay(ray, sums.sample.reset());
+				pixel.addClamped(sums.sample);
 			}
-			Color AvgColor = new Color(colors);
-			imageWriter.writePixel(j, i, AvgColor);
+			imageWriter.writePixel(j, i, pixel.reduce(rays.size()).toColor());
 		}
 	}
 
-
 	/**
 	 * prints a grid on the image. the spaces between the lines is the size of the
 	 * "interval"
@@ -349,7 +549,10 @@ public class Render {
 		}
 	}
 
-	public void renderImage() {
+	/**
+	 * checks that the render has all it's parts
+	 */
+	void checkResources() {
 		var render = "Render";
 		if (imageWriter == null)
 			throw new MissingResourceException("imageWriter is null ", render, "imageWriter");
@@ -357,15 +560,78 @@ public class Render {
 			throw new MissingResourceException("rayTracer is null ", render, "rayTracer");
 		if (camera == null)
 			throw new MissingResourceException("camera is null ", render, "camera");
+	}
+
+	public void renderImage() {
+		renderImage(false);
+	}
+
+	/**
+	 * continues a rendering that was stopped from it's last checkpoint (see
+	 * {@link #setCheckpoint(Path, Duration)}), only the unfinished tiles are
+	 * rendered. The image writer must be new or have the pixels of the stopped
+	 * rendering (like a {@link MappedFrameBuffer} that was opened again). If there
+	 * is no checkpoint file the whole image is rendered
+	 */
+	public void resumeImage() {
+		if (checkpoint == null)
+			throw new MissingResourceException("checkpoint is null ", "Render", "checkpoint");
+		renderImage(true);
+	}
 
+	/**
+	 * renders the image
+	 * 
+	 * @param resume true to continue from the last checkpoint
+	 */
+	private void renderImage(boolean resume) {
+		checkResources();
 		final int nX = imageWriter.getNx();
 		final int nY = imageWriter.getNy();
-		if (threadsCount == 0)
-			for (int i = 0; i < nY; ++i)
-				for (int j = 0; j < nX; ++j)
-					renderImage(nX, nY,j, i);
-		else
-			renderImageThreaded();
+		if (progressive) {
+			// every round changes all the pixels, so the image is written at the end
+			ProgressiveSampler sampler = newSampler();
+			renderProgressive(nX, nY, sampler);
+			sampler.write(imageWriter);
+			return;
+		}
+		if (imageWriter.isStreaming())
+			imageWriter.startStream();
+		boolean rendered = false;
+		try {
+			if (checkpoint != null)
+				rendered = renderImageCheckpoints(resume);
+			else if (threadsCount == 0) {
+				renderImageStrips();
+				rendered = true;
+			} else
+				rendered = renderImageThreaded();
+		} finally {
+			// a failed or interrupted rendering is never written, so it's stream is
+			// closed here
+			if (!rendered)
+				imageWriter.abortStream();
+		}
+	}
+
+	/**
+	 * starts a progressive rendering in the background and returns at once. The
+	 * first pass is a preview of one sample in every block of 4X4 pixels, the
+	 * second takes one sample in each of the rest of the pixels and the next passes
+	 * refine the pixels
+	 * by the settings of {@link #setProgressive(double, int)} (when it is not set,
+	 * every pixel is refined to the maximal number of samples) and
+	 * {@link #setRayBudget(long)}. The image writer of the render gets the image at
+	 * the end
+	 * 
+	 * @return the handle of the rendering, to cancel it, to set it's deadline or
+	 *         to take a snapshot of the current image
+	 */
+	public RenderJob start() {
+		checkResources();
+		ProgressiveSampler sampler = newSampler();
+		return new RenderJob(sampler, imageWriter,
+				() -> renderProgressive(imageWriter.getNx(), imageWriter.getNy(), sampler));
 	}
 
 	/**
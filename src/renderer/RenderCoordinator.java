@@ -0,0 +1,251 @@
+package renderer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import primitives.Color;
+
+/**
+ * Renders the tiles of an image by {@link RenderWorker}s in other processes
+ * (on the same host or on other hosts) that connect to it by TCP.<br/>
+ * The render (the scene, the camera and the settings) is serialized once and
+ * sent to every worker that connects. The coordinator hands the tiles to the
+ * workers (a few tiles to each thread of a worker, so it never waits for the
+ * next tile), and writes the pixels that they send back to the image writer
+ * of the render. A worker that is lost (it's connection is closed or it
+ * doesn't send a tile in the timeout) is dropped, and it's tiles are handed to
+ * the other workers. Workers may join at any time until the image is
+ * finished.<br/>
+ * The progressive sampling is not distributed.
+ */
+public class RenderCoordinator {
+	/**
+	 * "RTWK" in the start of the messages of the handshake
+	 */
+	static final int MAGIC = 0x5254574B;
+	/**
+	 * the index of the tile that tells the worker to stop
+	 */
+	static final int STOP = -1;
+	/**
+	 * the number of tiles that a thread of a worker gets at once
+	 */
+	private static final int TILES_PER_THREAD = 2;
+
+	private final Render render;
+	private final ServerSocket server;
+	private final BlockingQueue<TileScheduler.Tile> queue = new LinkedBlockingQueue<>();
+	private CountDownLatch remaining;
+	private int timeout = (int) Duration.ofMinutes(5).toMillis();
+	private boolean print = false;
+	/**
+	 * the serialized render
+	 */
+	private byte[] scene;
+	private int tileSize;
+
+	private Logger logger = Logger.getLogger("RenderCoordinator");
+
+	/**
+	 * constructs the coordinator of a render and listens to the workers
+	 *
+	 * @param render the render of the image
+	 * @param port   the port to listen on, 0 for any free port
+	 * @throws IOException if the port can't be opened
+	 */
+	public RenderCoordinator(Render render, int port) throws IOException {
+		this.render = render;
+		server = new ServerSocket(port);
+	}
+
+	/**
+	 * get the port that the workers connect to
+	 *
+	 * @return the port
+	 */
+	public int getPort() {
+		return server.getLocalPort();
+	}
+
+	/**
+	 * set the time that a worker may take to render a tile, after it the worker
+	 * is considered lost
+	 *
+	 * @param timeout the time of a tile
+	 * @return it self
+	 */
+	public RenderCoordinator setTileTimeout(Duration timeout) {
+		if (timeout.isNegative() || timeout.isZero())
+			throw new IllegalArgumentException("Tile timeout must be positive");
+		this.timeout = (int) Math.min(Integer.MAX_VALUE, timeout.toMillis());
+		return this;
+	}
+
+	/**
+	 * Set debug printing on
+	 *
+	 * @return it self
+	 */
+	public RenderCoordinator setDebugPrint() {
+		print = true;
+		return this;
+	}
+
+	/**
+	 * renders the image by the workers that connect, and waits until all the tiles
+	 * are finished. The coordinator stops listening at the end
+	 *
+	 * @throws IOException if the render can't be serialized
+	 */
+	public void renderImage() throws IOException {
+		render.checkResources();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(render);
+		}
+		scene = bytes.toByteArray();
+		TileScheduler scheduler = render.newScheduler();
+		TileScheduler.Tile[] tiles = scheduler.getTiles();
+		tileSize = scheduler.getTileSize();
+		remaining = new CountDownLatch(tiles.length);
+		queue.addAll(Arrays.asList(tiles));
+
+		Thread acceptor = new Thread(this::accept, "Render coordinator " + getPort());
+		acceptor.setDaemon(true);
+		acceptor.start();
+		try {
+			int percents = -1;
+			while (!remaining.await(100, TimeUnit.MILLISECONDS))
+				if (print) {
+					int p = (int) ((tiles.length - remaining.getCount()) * 100 / tiles.length);
+					if (p != percents) {
+						percents = p;
+						System.out.printf("\r %02d%%", percents);
+						System.out.flush();
+					}
+				}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			server.close();
+		}
+		if (print)
+			System.out.print("\r100%");
+	}
+
+	/**
+	 * accepts the workers until the server is closed, each worker is served by
+	 * it's own thread
+	 */
+	private void accept() {
+		try {
+			while (true) {
+				Socket socket = server.accept();
+				Thread thread = new Thread(() -> serve(socket), "Render worker " + socket.getRemoteSocketAddress());
+				thread.setDaemon(true);
+				thread.start();
+			}
+		} catch (SocketException e) {
+			// the server is closed at the end of the rendering
+		} catch (IOException e) {
+			logger.log(Level.SEVERE, "I/O error", e);
+		}
+	}
+
+	/**
+	 * hands the tiles to a worker and writes the pixels it sends back, until all
+	 * the tiles are finished. When the worker is lost it's tiles return to the
+	 * queue
+	 *
+	 * @param socket the connection of the worker
+	 */
+	private void serve(Socket socket) {
+		Map<Integer, TileScheduler.Tile> sent = new HashMap<>();
+		try (socket) {
+			socket.setTcpNoDelay(true);
+			socket.setSoTimeout(timeout);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			if (in.readInt() != MAGIC)
+				throw new IOException("Not a render worker");
+			int wanted = TILES_PER_THREAD * Math.max(1, in.readInt());
+			ImageWriter imageWriter = render.getImageWriter();
+			out.writeInt(MAGIC);
+			out.writeInt(imageWriter.getNx());
+			out.writeInt(imageWriter.getNy());
+			out.writeInt(tileSize);
+			out.writeInt(scene.length);
+			out.write(scene);
+			out.flush();
+
+			while (true) {
+				TileScheduler.Tile tile;
+				while (sent.size() < wanted && (tile = queue.poll()) != null)
+					send(out, tile, sent);
+				out.flush();
+				if (sent.isEmpty()) {
+					// the other workers may still lose their tiles
+					if (remaining.getCount() == 0)
+						break;
+					tile = queue.poll(100, TimeUnit.MILLISECONDS);
+					if (tile != null)
+						send(out, tile, sent);
+					continue;
+				}
+				int index = in.readInt();
+				tile = sent.get(index);
+				if (tile == null)
+					throw new IOException("A tile that was not sent: " + index);
+				for (int y = tile.y0; y < tile.y1; y++)
+					for (int x = tile.x0; x < tile.x1; x++)
+						imageWriter.writePixel(x, y, new Color(in.readFloat(), in.readFloat(), in.readFloat()));
+				sent.remove(index);
+				remaining.countDown();
+			}
+			out.writeInt(STOP);
+			out.flush();
+		} catch (IOException e) {
+			logger.log(Level.WARNING, "Lost the render worker " + socket.getRemoteSocketAddress(), e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			queue.addAll(sent.values());
+		}
+	}
+
+	/**
+	 * sends a tile to a worker
+	 *
+	 * @param out  the stream to the worker
+	 * @param tile the tile
+	 * @param sent the tiles that the worker has, by their index
+	 * @throws IOException if the tile can't be sent
+	 */
+	private static void send(DataOutputStream out, TileScheduler.Tile tile, Map<Integer, TileScheduler.Tile> sent)
+			throws IOException {
+		sent.put(tile.index, tile);
+		out.writeInt(tile.index);
+		out.writeInt(tile.x0);
+		out.writeInt(tile.y0);
+		out.writeInt(tile.x1);
+		out.writeInt(tile.y1);
+	}
+}
@@ -0,0 +1,123 @@
+package renderer;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * A handle of a progressive rendering that runs in the background (see
+ * {@link Render#start()}). The image is usable after the first pass (a preview
+ * of blocks of pixels) and becomes finer with every pass, so the rendering can
+ * be cancelled or limited by a deadline and the current image can be taken at
+ * any time.
+ */
+public class RenderJob {
+	private final ProgressiveSampler sampler;
+	private final ImageWriter imageWriter;
+	private final Thread thread;
+	/**
+	 * the failure of the rendering, null if it didn't fail
+	 */
+	private volatile Throwable failure = null;
+
+	/**
+	 * starts the rendering in a new thread
+	 *
+	 * @param sampler     the sampler of the image
+	 * @param imageWriter the image to write the result to at the end
+	 * @param passes      the passes of the rendering
+	 */
+	RenderJob(ProgressiveSampler sampler, ImageWriter imageWriter, Runnable passes) {
+		this.sampler = sampler;
+		this.imageWriter = imageWriter;
+		thread = new Thread(() -> {
+			try {
+				passes.run();
+				sampler.write(imageWriter);
+			} catch (Throwable e) {
+				// an error of the rendering thread is reported by await() too
+				failure = e;
+			}
+		}, "Render " + imageWriter.getNx() + "x" + imageWriter.getNy());
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * stops the rendering, the image keeps the finished samples
+	 *
+	 * @return it self
+	 */
+	public RenderJob cancel() {
+		sampler.cancel();
+		return this;
+	}
+
+	/**
+	 * sets a wall-clock time to stop the rendering at
+	 *
+	 * @param deadline the time to stop at
+	 * @return it self
+	 */
+	public RenderJob setDeadline(Instant deadline) {
+		Duration left = Duration.between(Instant.now(), deadline);
+		long nanos;
+		try {
+			nanos = Math.max(0, left.toNanos());
+		} catch (ArithmeticException e) {
+			// beyond the range of nanoseconds (about 292 years)
+			nanos = left.isNegative() ? 0 : Long.MAX_VALUE;
+		}
+		sampler.setDeadline(System.nanoTime() + nanos);
+		return this;
+	}
+
+	/**
+	 * is the rendering finished (or stopped)
+	 *
+	 * @return true if the rendering is finished
+	 */
+	public boolean isDone() {
+		return !thread.isAlive();
+	}
+
+	/**
+	 * get the number of the finished passes, the first pass is the preview
+	 *
+	 * @return the number of passes
+	 */
+	public int getPasses() {
+		return sampler.getRounds();
+	}
+
+	/**
+	 * takes the current image, while the rendering goes on
+	 *
+	 * @param imageName the name of the image file of the snapshot
+	 * @return a new image with the current colors of the pixels
+	 */
+	public ImageWriter snapshot(String imageName) {
+		ImageWriter snapshot = new ImageWriter(imageName, imageWriter.getNx(), imageWriter.getNy());
+		sampler.write(snapshot);
+		return snapshot;
+	}
+
+	/**
+	 * waits until the rendering is finished (or stopped)
+	 *
+	 * @return the image writer of the render, with the final image
+	 * @throws IllegalStateException if the rendering failed, or the waiting thread
+	 *                               was interrupted before the rendering was
+	 *                               finished (it keeps it's interrupt flag)
+	 */
+	public ImageWriter await() {
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted before the rendering was finished", e);
+		}
+		if (failure != null)
+			throw new IllegalStateException("Rendering failed", failure);
+		return imageWriter;
+	}
+}
@@ -0,0 +1,238 @@
+package renderer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import primitives.Color;
+
+/**
+ * A worker process of a distributed rendering: it connects to a
+ * {@link RenderCoordinator}, receives the render, renders the tiles that it
+ * gets by it's threads and sends their pixels back, until the coordinator tells
+ * it to stop. Run it by:<br/>
+ * {@code java renderer.RenderWorker <host> <port> [threads]}<br/>
+ * The classes of the scene must be in the class path of the worker.
+ */
+public class RenderWorker {
+	private final String host;
+	private final int port;
+	private final int threads;
+	/**
+	 * the failure of the rendering of a tile, null if there is none
+	 */
+	private volatile RuntimeException failure = null;
+
+	/**
+	 * the pixels of the tiles that are rendered now, the render writes them by
+	 * their place in the whole image
+	 */
+	private static class TilesBuffer implements FrameBuffer {
+		private final int nX;
+		private final int nY;
+		private final Map<Integer, float[]> tiles = new ConcurrentHashMap<>();
+		private final int tileSize;
+		private final int tilesX;
+
+		/**
+		 * constructs the buffer of the tiles of an image
+		 *
+		 * @param nX       the number of columns of the image
+		 * @param nY       the number of rows of the image
+		 * @param tileSize the size of the tiles
+		 */
+		TilesBuffer(int nX, int nY, int tileSize) {
+			this.nX = nX;
+			this.nY = nY;
+			this.tileSize = tileSize;
+			tilesX = (nX + tileSize - 1) / tileSize;
+		}
+
+		/**
+		 * adds a tile to the buffer
+		 *
+		 * @param tile the tile
+		 */
+		void open(TileScheduler.Tile tile) {
+			tiles.put(tile.index, new float[3 * tile.size()]);
+		}
+
+		/**
+		 * removes a tile from the buffer
+		 *
+		 * @param tile the tile
+		 * @return the pixels of the tile, row after row
+		 */
+		float[] close(TileScheduler.Tile tile) {
+			return tiles.remove(tile.index);
+		}
+
+		/**
+		 * the pixels of the tile of a pixel
+		 *
+		 * @param x the column of the pixel
+		 * @param y the row of the pixel
+		 * @return the array of the tile
+		 */
+		private float[] tile(int x, int y) {
+			return tiles.get(y / tileSize * tilesX + x / tileSize);
+		}
+
+		/**
+		 * the index of the red of a pixel in the array of it's tile
+		 *
+		 * @param x the column of the pixel
+		 * @param y the row of the pixel
+		 * @return the index
+		 */
+		private int index(int x, int y) {
+			int x0 = x - x % tileSize;
+			return 3 * (y % tileSize * Math.min(tileSize, nX - x0) + x - x0);
+		}
+
+		@Override
+		public int getNx() {
+			return nX;
+		}
+
+		@Override
+		public int getNy() {
+			return nY;
+		}
+
+		@Override
+		public void setPixel(int x, int y, Color color) {
+			color.writeTo(tile(x, y), index(x, y));
+		}
+
+		@Override
+		public void addPixel(int x, int y, Color color) {
+			color.addTo(tile(x, y), index(x, y));
+		}
+
+		@Override
+		public float[] getPixel(int x, int y, float[] rgb) {
+			System.arraycopy(tile(x, y), index(x, y), rgb, 0, 3);
+			return rgb;
+		}
+	}
+
+	/**
+	 * constructs a worker
+	 *
+	 * @param host    the host of the coordinator
+	 * @param port    the port of the coordinator
+	 * @param threads the number of the threads that render the tiles
+	 */
+	public RenderWorker(String host, int port, int threads) {
+		if (threads <= 0)
+			throw new IllegalArgumentException("Number of threads must be positive");
+		this.host = host;
+		this.port = port;
+		this.threads = threads;
+	}
+
+	/**
+	 * connects to the coordinator and renders the tiles it sends, until it tells
+	 * the worker to stop
+	 *
+	 * @throws IOException if the connection fails or the render can't be read
+	 */
+	public void run() throws IOException {
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try (Socket socket = new Socket(host, port)) {
+			socket.setTcpNoDelay(true);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+			out.writeInt(RenderCoordinator.MAGIC);
+			out.writeInt(threads);
+			out.flush();
+			if (in.readInt() != RenderCoordinator.MAGIC)
+				throw new IOException("Not a render coordinator");
+			int nX = in.readInt();
+			int nY = in.readInt();
+			int tileSize = in.readInt();
+			byte[] scene = new byte[in.readInt()];
+			in.readFully(scene);
+			Render render;
+			try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(scene))) {
+				render = (Render) objects.readObject();
+			} catch (ClassNotFoundException e) {
+				throw new IOException("A class of the scene is not in the class path", e);
+			}
+			TilesBuffer buffer = new TilesBuffer(nX, nY, tileSize);
+			render.setImageWriter(new ImageWriter("worker", buffer));
+
+			// a failed tile closes the connection at once, not only at the end of the try
+			Socket connection = socket;
+			int index;
+			while ((index = in.readInt()) != RenderCoordinator.STOP) {
+				TileScheduler.Tile tile = new TileScheduler.Tile(index, in.readInt(), in.readInt(), in.readInt(),
+						in.readInt());
+				pool.execute(() -> {
+					try {
+						buffer.open(tile);
+						render.renderTile(nX, nY, tile);
+						send(out, tile, buffer.close(tile));
+					} catch (IOException | RuntimeException e) {
+						if (e instanceof RuntimeException)
+							failure = (RuntimeException) e;
+						// the coordinator gives the tiles of a closed connection to the other workers
+						try {
+							connection.close();
+						} catch (IOException closeFailure) {
+							// it is closed anyway
+						}
+					}
+				});
+			}
+		} catch (IOException e) {
+			if (failure == null)
+				throw e;
+		} finally {
+			pool.shutdownNow();
+		}
+		if (failure != null)
+			throw new IllegalStateException("Rendering of a tile failed", failure);
+	}
+
+	/**
+	 * sends the pixels of a tile to the coordinator
+	 *
+	 * @param out    the stream to the coordinator
+	 * @param tile   the tile
+	 * @param pixels the red, green and blue of the pixels of the tile
+	 * @throws IOException if the tile can't be sent
+	 */
+	private static void send(DataOutputStream out, TileScheduler.Tile tile, float[] pixels) throws IOException {
+		synchronized (out) {
+			out.writeInt(tile.index);
+			for (float v : pixels)
+				out.writeFloat(v);
+			out.flush();
+		}
+	}
+
+	/**
+	 * runs a worker
+	 *
+	 * @param args the host and the port of the coordinator, and optionally the
+	 *             number of threads (all the processors by default)
+	 * @throws IOException if the connection fails
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2)
+			throw new IllegalArgumentException("Usage: RenderWorker <host> <port> [threads]");
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		new RenderWorker(args[0], Integer.parseInt(args[1]), threads).run();
+	}
+}
@@ -0,0 +1,399 @@
+package renderer;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Splits the view plane to rectangular tiles and renders them on a
+ * {@link ForkJoinPool}. Each worker takes a whole tile, so there is no shared
+ * lock inside a tile, and idle workers steal the remaining tiles from the busy
+ * ones. The progress is followed by a lock-free counter of finished pixels.
+ */
+public class TileScheduler {
+
+	/**
+	 * the order that the tiles are handed to the workers
+	 */
+	public enum Order {
+		/**
+		 * row after row from the top-left corner
+		 */
+		ROWS,
+		/**
+		 * along the Z-order (Morton) curve, keeps neighbour tiles in the same worker
+		 */
+		MORTON,
+		/**
+		 * from the center of the image outwards
+		 */
+		SPIRAL
+	}
+
+	/**
+	 * a rectangle of pixels [x0, x1) X [y0, y1) on the view plane
+	 */
+	public static class Tile {
+		/**
+		 * the index of the tile in the row major grid of tiles
+		 */
+		public final int index;
+		/**
+		 * the first column of the tile
+		 */
+		public final int x0;
+		/**
+		 * the first row of the tile
+		 */
+		public final int y0;
+		/**
+		 * the column after the last column of the tile
+		 */
+		public final int x1;
+		/**
+		 * the row after the last row of the tile
+		 */
+		public final int y1;
+
+		/**
+		 * Tile constructor
+		 *
+		 * @param index the index of the tile in the grid of tiles
+		 * @param x0    the first column
+		 * @param y0    the first row
+		 * @param x1    the column after the last column
+		 * @param y1    the row after the last row
+		 */
+		public Tile(int index, int x0, int y0, int x1, int y1) {
+			this.index = index;
+			this.x0 = x0;
+			this.y0 = y0;
+			this.x1 = x1;
+			this.y1 = y1;
+		}
+
+		/**
+		 * the number of pixels in the tile
+		 *
+		 * @return the number of pixels in the tile
+		 */
+		public int size() {
+			return (x1 - x0) * (y1 - y0);
+		}
+	}
+
+	private final int nX;
+	private final int nY;
+	private final int tileSize;
+	private final int tilesX;
+	private final int tilesY;
+	private final Tile[] tiles;
+	/**
+	 * the number of pixels that were already rendered
+	 */
+	private final AtomicLong donePixels = new AtomicLong();
+	/**
+	 * the number of finished tiles in each row of tiles
+	 */
+	private final AtomicIntegerArray doneTiles;
+	/**
+	 * the number of the rows of tiles from the top that are finished
+	 */
+	private int doneRows = 0;
+	/**
+	 * gets the number of the finished rows of pixels from the top, null if there
+	 * is no listener
+	 */
+	private IntConsumer rowsListener = null;
+	/**
+	 * gets every tile that is finished, null if there is no listener
+	 */
+	private Consumer<Tile> tileListener = null;
+	/**
+	 * the tiles that are already finished (by their order), null if there are none
+	 */
+	private boolean[] skipped = null;
+	/**
+	 * is the rendering interrupted, the workers don't start new tiles
+	 */
+	private volatile boolean cancelled = false;
+
+	/**
+	 * constructs the tiles of a nX X nY view plane
+	 *
+	 * @param nX       the number of columns
+	 * @param nY       the number of rows
+	 * @param tileSize the width and height of a tile in pixels
+	 * @param order    the order of handing the tiles to the workers
+	 */
+	public TileScheduler(int nX, int nY, int tileSize, Order order) {
+		if (tileSize <= 0)
+			throw new IllegalArgumentException("Tile size must be positive");
+		this.nX = nX;
+		this.nY = nY;
+		this.tileSize = tileSize;
+		tilesX = (nX + tileSize - 1) / tileSize;
+		tilesY = (nY + tileSize - 1) / tileSize;
+		tiles = new Tile[tilesX * tilesY];
+		doneTiles = new AtomicIntegerArray(tilesY);
+		for (int ty = 0; ty < tilesY; ty++)
+			for (int tx = 0; tx < tilesX; tx++) {
+				int x0 = tx * tileSize, y0 = ty * tileSize;
+				tiles[ty * tilesX + tx] = new Tile(ty * tilesX + tx, x0, y0, Math.min(x0 + tileSize, nX),
+						Math.min(y0 + tileSize, nY));
+			}
+		sort(order);
+	}
+
+	/**
+	 * arrange the tiles according to the given order
+	 *
+	 * @param order the order of the tiles
+	 */
+	private void sort(Order order) {
+		switch (order) {
+		case MORTON:
+			Arrays.sort(tiles, Comparator.comparingLong(t -> morton(t.index % tilesX, t.index / tilesX)));
+			break;
+		case SPIRAL:
+			double cX = (tilesX - 1) / 2d, cY = (tilesY - 1) / 2d;
+			Arrays.sort(tiles, Comparator.<Tile>comparingDouble(t -> {
+				double dx = t.index % tilesX - cX, dy = t.index / tilesX - cY;
+				// the ring of the tile around the center
+				return Math.max(Math.abs(dx), Math.abs(dy));
+			}).thenComparingDouble(t -> Math.atan2(t.index / tilesX - cY, t.index % tilesX - cX)));
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * interleaves the bits of x and y to the Z-order curve code
+	 *
+	 * @param x the column of the tile
+	 * @param y the row of the tile
+	 * @return the Morton code of (x, y)
+	 */
+	static long morton(int x, int y) {
+		long code = 0;
+		for (int i = 0; i < 31; i++) {
+			code |= ((long) (x >> i) & 1) << (2 * i);
+			code |= ((long) (y >> i) & 1) << (2 * i + 1);
+		}
+		return code;
+	}
+
+	/**
+	 * set a listener that gets the number of the finished rows of pixels from the
+	 * top, every time that it grows (e.g. to write the image while it is rendered)
+	 *
+	 * @param listener the listener of the finished rows
+	 * @return it self
+	 */
+	public TileScheduler setRowsListener(IntConsumer listener) {
+		rowsListener = listener;
+		return this;
+	}
+
+	/**
+	 * set a listener that gets every tile after it is finished (e.g. to save a
+	 * checkpoint of the rendering), it is called by the worker of the tile
+	 *
+	 * @param listener the listener of the finished tiles
+	 * @return it self
+	 */
+	public TileScheduler setTileListener(Consumer<Tile> listener) {
+		tileListener = listener;
+		return this;
+	}
+
+	/**
+	 * skips the tiles that are already finished, e.g. when a rendering is resumed
+	 * from a checkpoint. They are counted in the progress, but not given to the
+	 * tile listener
+	 *
+	 * @param finished tells by the index of a tile if it is finished
+	 * @return it self
+	 */
+	public TileScheduler skipTiles(IntPredicate finished) {
+		skipped = new boolean[tiles.length];
+		for (int k = 0; k < tiles.length; k++)
+			if (finished.test(tiles[k].index)) {
+				skipped[k] = true;
+				donePixels.addAndGet(tiles[k].size());
+				doneTiles.incrementAndGet(tiles[k].y0 / tileSize);
+			}
+		return this;
+	}
+
+	/**
+	 * marks a tile as finished, and tells the listener when the rows above it are
+	 * finished
+	 *
+	 * @param tile the finished tile
+	 */
+	private void tileDone(Tile tile) {
+		donePixels.addAndGet(tile.size());
+		if (tileListener != null)
+			tileListener.accept(tile);
+		if (rowsListener != null && doneTiles.incrementAndGet(tile.y0 / tileSize) == tilesX)
+			advanceRows();
+	}
+
+	/**
+	 * tells the listener the finished rows from the top, under a lock so it gets
+	 * them in a growing order
+	 */
+	private synchronized void advanceRows() {
+		int rows = doneRows;
+		while (rows < tilesY && doneTiles.get(rows) == tilesX)
+			++rows;
+		if (rows == doneRows)
+			return;
+		doneRows = rows;
+		rowsListener.accept(Math.min(nY, rows * tileSize));
+	}
+
+	/**
+	 * get the tiles in the order they are handed to the workers
+	 *
+	 * @return the ordered tiles
+	 */
+	public Tile[] getTiles() {
+		return tiles;
+	}
+
+	/**
+	 * get the width and height of a tile
+	 *
+	 * @return the tile size in pixels
+	 */
+	public int getTileSize() {
+		return tileSize;
+	}
+
+	/**
+	 * get the number of pixels that were already rendered
+	 *
+	 * @return the number of rendered pixels
+	 */
+	public long getDonePixels() {
+		return donePixels.get();
+	}
+
+	/**
+	 * renders all the tiles with 'threads' workers and waits until they are
+	 * finished. If the calling thread is interrupted, the tiles that were not
+	 * started are cancelled, the tiles that are rendered now are waited for (so
+	 * no worker touches the image or calls the listeners after it returns) and it
+	 * returns false with it's interrupt flag set
+	 *
+	 * @param threads the number of workers
+	 * @param work    the rendering of a single tile
+	 * @param print   if true then the progress percentage is printed to the console
+	 * @return true if all the tiles were rendered, false if the rendering was
+	 *         interrupted
+	 */
+	public boolean run(int threads, Consumer<Tile> work, boolean print) {
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			ForkJoinTask<Void> task = pool.submit(new TilesTask(work, 0, tiles.length));
+			long pixels = (long) nX * nY;
+			int percents = -1;
+			while (!task.isDone()) {
+				if (print && pixels > 0) {
+					int p = (int) (donePixels.get() * 100 / pixels);
+					if (p != percents) {
+						percents = p;
+						System.out.printf("\r %02d%%", percents);
+						System.out.flush();
+					}
+				}
+				try {
+					task.get(100, TimeUnit.MILLISECONDS);
+				} catch (TimeoutException e) {
+					// the tiles are not finished yet - print the progress again
+				}
+			}
+			task.join();
+		} catch (InterruptedException e) {
+			// the tiles that were not started are cancelled and the rendering is not finished
+			cancelled = true;
+			pool.shutdownNow();
+			awaitWorkers(pool);
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Rendering of a tile failed", e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+		if (print)
+			System.out.print("\r100%");
+		return true;
+	}
+
+	/**
+	 * waits until the workers of a pool that was shut down finish their current
+	 * tiles, even if the waiting thread is interrupted again
+	 *
+	 * @param pool the pool
+	 */
+	private static void awaitWorkers(ForkJoinPool pool) {
+		while (true)
+			try {
+				if (pool.awaitTermination(1, TimeUnit.SECONDS))
+					return;
+			} catch (InterruptedException e) {
+				// the thread is already interrupted - the workers are waited for anyway
+			}
+	}
+
+	/**
+	 * renders the range [from, to) of the ordered tiles, splits itself to halves
+	 * until a single tile is left so idle workers can steal the other half
+	 */
+	private class TilesTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Consumer<Tile> work;
+		private final int from;
+		private final int to;
+
+		/**
+		 * TilesTask constructor
+		 *
+		 * @param work the rendering of a single tile
+		 * @param from the first tile in the range
+		 * @param to   the tile after the last tile in the range
+		 */
+		TilesTask(Consumer<Tile> work, int from, int to) {
+			this.work = work;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= 1) {
+				if (to > from && !cancelled && (skipped == null || !skipped[from])) {
+					work.accept(tiles[from]);
+					tileDone(tiles[from]);
+				}
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new TilesTask(work, from, mid), new TilesTask(work, mid, to));
+		}
+	}
+}
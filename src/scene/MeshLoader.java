@@ -0,0 +1,722 @@
+package scene;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import geometries.TriangleMesh;
+
+/**
+ * loads a {@link TriangleMesh} from a Wavefront OBJ file or a binary PLY file.
+ * <br/>
+ * The file is streamed through a direct buffer of a {@link FileChannel} and the
+ * values are parsed straight from the bytes into the vertex and index arrays of
+ * the mesh, no {@link primitives.Point3D} and no String is created for a vertex.
+ * Polygons with more than 3 vertices are split into a fan of triangles. Only the
+ * positions of the vertices are loaded, the normals and the texture coordinates
+ * are skipped.
+ */
+public final class MeshLoader {
+
+	/**
+	 * the size of the buffer of the file
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * there are only static methods
+	 */
+	private MeshLoader() {
+	}
+
+	/**
+	 * loads a mesh by the extension of the file (.obj or .ply)
+	 *
+	 * @param path the path of the file
+	 * @return the mesh of the file
+	 * @throws IOException              if the file can't be read or it is not a
+	 *                                  valid mesh file
+	 * @throws IllegalArgumentException if the extension is not of a known format
+	 */
+	public static TriangleMesh load(Path path) throws IOException {
+		String name = path.getFileName().toString().toLowerCase();
+		if (name.endsWith(".obj"))
+			return loadObj(path);
+		if (name.endsWith(".ply"))
+			return loadPly(path);
+		throw new IllegalArgumentException("Unknown mesh format: " + name);
+	}
+
+	// ______________ OBJ ______________
+
+	/**
+	 * loads a mesh from a Wavefront OBJ file, only the 'v' and 'f' lines are used
+	 *
+	 * @param path the path of the file
+	 * @return the mesh of the file
+	 * @throws IOException if the file can't be read or it is not a valid OBJ file
+	 */
+	public static TriangleMesh loadObj(Path path) throws IOException {
+		try (Input in = new Input(path, ByteOrder.nativeOrder())) {
+			DoubleArray vertices = new DoubleArray();
+			IntArray indices = new IntArray();
+			IntArray polygon = new IntArray();
+			int line = 1;
+			for (int c = in.read(); c != -1; c = in.read(), line++) {
+				while (c == ' ' || c == '\t')
+					c = in.read();
+				int next = in.peek();
+				if (c == 'v' && (next == ' ' || next == '\t')) {
+					for (int k = 0; k < 3; k++)
+						vertices.add(in.readDouble(line));
+				} else if (c == 'f' && (next == ' ' || next == '\t')) {
+					polygon.size = 0;
+					int count = vertices.size / 3;
+					for (next = in.skipSpaces(); next != -1 && next != '\n' && next != '\r'
+							&& next != '#'; next = in.skipSpaces()) {
+						int index = in.readInt(line);
+						// the texture and the normal indices (v/vt/vn) are skipped
+						while ((next = in.peek()) != -1 && next > ' ')
+							in.read();
+						if (index == 0)
+							throw new IOException("Line " + line + ": a vertex index can't be 0");
+						// a negative index is relative to the last vertex
+						polygon.add(index > 0 ? index - 1 : count + index);
+					}
+					if (polygon.size < 3)
+						throw new IOException("Line " + line + ": a face must have at least 3 vertices");
+					fan(polygon, indices);
+				}
+				// the rest of the line (and the lines of any other kind) are skipped
+				if (c != '\n')
+					in.skipLine();
+			}
+			return new TriangleMesh(vertices.trim(), indices.trim());
+		}
+	}
+
+	/**
+	 * splits a polygon into a fan of triangles around it's first vertex
+	 *
+	 * @param polygon the vertex indices of the polygon
+	 * @param indices the index buffer to add the triangles to
+	 */
+	private static void fan(IntArray polygon, IntArray indices) {
+		for (int k = 1; k < polygon.size - 1; k++) {
+			indices.add(polygon.values[0]);
+			indices.add(polygon.values[k]);
+			indices.add(polygon.values[k + 1]);
+		}
+	}
+
+	// ______________ PLY ______________
+
+	/**
+	 * the types of the properties of a PLY file
+	 */
+	private enum Type {
+		CHAR(1), UCHAR(1), SHORT(2), USHORT(2), INT(4), UINT(4), FLOAT(4), DOUBLE(8);
+
+		/**
+		 * the size in bytes
+		 */
+		final int size;
+
+		/**
+		 * Type constructor
+		 *
+		 * @param size the size in bytes
+		 */
+		Type(int size) {
+			this.size = size;
+		}
+
+		/**
+		 * finds a type by it's name in the header (both the old names and the sized
+		 * ones like int32)
+		 *
+		 * @param name the name of the type
+		 * @return the type
+		 * @throws IOException if the type is unknown
+		 */
+		static Type of(String name) throws IOException {
+			switch (name) {
+			case "char":
+			case "int8":
+				return CHAR;
+			case "uchar":
+			case "uint8":
+				return UCHAR;
+			case "short":
+			case "int16":
+				return SHORT;
+			case "ushort":
+			case "uint16":
+				return USHORT;
+			case "int":
+			case "int32":
+				return INT;
+			case "uint":
+			case "uint32":
+				return UINT;
+			case "float":
+			case "float32":
+				return FLOAT;
+			case "double":
+			case "float64":
+				return DOUBLE;
+			default:
+				throw new IOException("Unknown PLY type: " + name);
+			}
+		}
+	}
+
+	/**
+	 * a property of an element in a PLY file
+	 */
+	private static class Property {
+		/**
+		 * the name of the property
+		 */
+		final String name;
+		/**
+		 * the type of the values
+		 */
+		final Type type;
+		/**
+		 * the type of the length of a list, null if it isn't a list
+		 */
+		final Type countType;
+
+		/**
+		 * Property constructor
+		 *
+		 * @param name      the name of the property
+		 * @param type      the type of the values
+		 * @param countType the type of the length of a list, null if it isn't a list
+		 */
+		Property(String name, Type type, Type countType) {
+			this.name = name;
+			this.type = type;
+			this.countType = countType;
+		}
+	}
+
+	/**
+	 * an element of a PLY file
+	 */
+	private static class Element {
+		/**
+		 * the name of the element
+		 */
+		final String name;
+		/**
+		 * the number of the element's items in the file
+		 */
+		final long count;
+		/**
+		 * the properties of each item
+		 */
+		final List<Property> properties = new ArrayList<>();
+
+		/**
+		 * Element constructor
+		 *
+		 * @param name  the name of the element
+		 * @param count the number of the items in the file
+		 */
+		Element(String name, long count) {
+			this.name = name;
+			this.count = count;
+		}
+
+		/**
+		 * calculates the size of an item
+		 *
+		 * @return the size of an item in bytes, or -1 if it has a list
+		 */
+		int size() {
+			int size = 0;
+			for (Property p : properties) {
+				if (p.countType != null)
+					return -1;
+				size += p.type.size;
+			}
+			return size;
+		}
+	}
+
+	/**
+	 * loads a mesh from a binary (little or big endian) PLY file, the 'x', 'y' and
+	 * 'z' properties of the 'vertex' element and the 'vertex_indices' list of the
+	 * 'face' element are used
+	 *
+	 * @param path the path of the file
+	 * @return the mesh of the file
+	 * @throws IOException if the file can't be read or it is not a valid binary PLY
+	 *                     file
+	 */
+	public static TriangleMesh loadPly(Path path) throws IOException {
+		try (Input in = new Input(path, ByteOrder.LITTLE_ENDIAN)) {
+			if (!"ply".equals(in.readLine()))
+				throw new IOException("Not a PLY file");
+			List<Element> elements = new ArrayList<>();
+			for (String line = in.readLine();; line = in.readLine()) {
+				if (line == null)
+					throw new IOException("The PLY header has no end");
+				String[] words = line.trim().split("\\s+");
+				if (words[0].equals("end_header"))
+					break;
+				switch (words[0]) {
+				case "format":
+					if (words[1].equals("binary_big_endian"))
+						in.buffer.order(ByteOrder.BIG_ENDIAN);
+					else if (!words[1].equals("binary_little_endian"))
+						throw new IOException("Unsupported PLY format: " + words[1] + ", only binary is supported");
+					break;
+				case "element":
+					elements.add(new Element(words[1], Long.parseLong(words[2])));
+					break;
+				case "property":
+					if (elements.isEmpty())
+						throw new IOException("A PLY property before any element");
+					Property p = words[1].equals("list")
+							? new Property(words[4], Type.of(words[3]), Type.of(words[2]))
+							: new Property(words[2], Type.of(words[1]), null);
+					elements.get(elements.size() - 1).properties.add(p);
+					break;
+				default:
+					// comments and obj_info
+				}
+			}
+
+			double[] vertices = null;
+			IntArray indices = new IntArray();
+			for (Element e : elements) {
+				if (e.name.equals("vertex"))
+					vertices = readVertices(in, e);
+				else if (e.name.equals("face"))
+					readFaces(in, e, indices);
+				else if (e.size() >= 0)
+					in.skip(e.count * e.size());
+				else
+					for (long i = 0; i < e.count; i++)
+						for (Property p : e.properties)
+							skipProperty(in, p);
+			}
+			if (vertices == null)
+				throw new IOException("The PLY file has no vertices");
+			return new TriangleMesh(vertices, indices.trim());
+		}
+	}
+
+	/**
+	 * reads the positions of the 'vertex' element
+	 *
+	 * @param in the input
+	 * @param e  the 'vertex' element
+	 * @return the values of the vertices, 3 values for each vertex
+	 * @throws IOException if the file ends or the element has no x, y and z
+	 */
+	private static double[] readVertices(Input in, Element e) throws IOException {
+		if (3 * e.count > Integer.MAX_VALUE)
+			throw new IOException("Too many vertices: " + e.count);
+		// the value index (0, 1 or 2) of each property, or -1
+		int[] axis = new int[e.properties.size()];
+		Arrays.fill(axis, -1);
+		int found = 0;
+		for (int k = 0; k < axis.length; k++) {
+			int a = "xyz".indexOf(e.properties.get(k).name);
+			if (a >= 0 && e.properties.get(k).name.length() == 1 && e.properties.get(k).countType == null) {
+				axis[k] = a;
+				found++;
+			}
+		}
+		if (found != 3)
+			throw new IOException("The PLY vertices must have x, y and z");
+		double[] vertices = new double[(int) (3 * e.count)];
+		for (int v = 0; v < vertices.length; v += 3)
+			for (int k = 0; k < axis.length; k++) {
+				Property p = e.properties.get(k);
+				if (axis[k] >= 0)
+					vertices[v + axis[k]] = in.readValue(p.type);
+				else
+					skipProperty(in, p);
+			}
+		return vertices;
+	}
+
+	/**
+	 * reads the vertex indices of the 'face' element, each face is split into a fan
+	 * of triangles
+	 *
+	 * @param in      the input
+	 * @param e       the 'face' element
+	 * @param indices the index buffer to add the triangles to
+	 * @throws IOException if the file ends or the element has no list of vertex
+	 *                     indices
+	 */
+	private static void readFaces(Input in, Element e, IntArray indices) throws IOException {
+		Property list = null;
+		for (Property p : e.properties)
+			if (p.countType != null && (p.name.equals("vertex_indices") || p.name.equals("vertex_index")))
+				list = p;
+		if (list == null)
+			throw new IOException("The PLY faces must have a list of vertex indices");
+		IntArray polygon = new IntArray();
+		for (long i = 0; i < e.count; i++)
+			for (Property p : e.properties) {
+				if (p != list) {
+					skipProperty(in, p);
+					continue;
+				}
+				int n = (int) in.readValue(p.countType);
+				if (n < 3)
+					throw new IOException("A face must have at least 3 vertices");
+				polygon.size = 0;
+				for (int k = 0; k < n; k++)
+					polygon.add((int) in.readValue(p.type));
+				fan(polygon, indices);
+			}
+	}
+
+	/**
+	 * skips the value (or the list) of a property of an item
+	 *
+	 * @param in the input
+	 * @param p  the property
+	 * @throws IOException if the file ends
+	 */
+	private static void skipProperty(Input in, Property p) throws IOException {
+		long n = p.countType == null ? 1 : (long) in.readValue(p.countType);
+		in.skip(n * p.type.size);
+	}
+
+	// ______________ helpers ______________
+
+	/**
+	 * a growing array of doubles
+	 */
+	private static class DoubleArray {
+		double[] values = new double[1 << 10];
+		int size = 0;
+
+		/**
+		 * adds a value
+		 *
+		 * @param value the value
+		 */
+		void add(double value) {
+			if (size == values.length)
+				values = Arrays.copyOf(values, 2 * size);
+			values[size++] = value;
+		}
+
+		/**
+		 * @return the values without the unused space
+		 */
+		double[] trim() {
+			return Arrays.copyOf(values, size);
+		}
+	}
+
+	/**
+	 * a growing array of ints
+	 */
+	private static class IntArray {
+		int[] values = new int[1 << 10];
+		int size = 0;
+
+		/**
+		 * adds a value
+		 *
+		 * @param value the value
+		 */
+		void add(int value) {
+			if (size == values.length)
+				values = Arrays.copyOf(values, 2 * size);
+			values[size++] = value;
+		}
+
+		/**
+		 * @return the values without the unused space
+		 */
+		int[] trim() {
+			return Arrays.copyOf(values, size);
+		}
+	}
+
+	/**
+	 * reads a file through a direct buffer of it's channel, as text (byte by byte)
+	 * or as binary values
+	 */
+	private static class Input implements Closeable {
+		/**
+		 * the powers of 10 that are exact doubles
+		 */
+		private static final double[] POWERS = new double[23];
+		static {
+			POWERS[0] = 1;
+			for (int i = 1; i < POWERS.length; i++)
+				POWERS[i] = POWERS[i - 1] * 10;
+		}
+
+		final FileChannel channel;
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		/**
+		 * the characters of the last number, for the numbers that can't be parsed
+		 * exactly by the fast way
+		 */
+		private byte[] token = new byte[64];
+		private boolean eof = false;
+
+		/**
+		 * Input constructor
+		 *
+		 * @param path  the path of the file
+		 * @param order the byte order of the binary values
+		 * @throws IOException if the file can't be opened
+		 */
+		Input(Path path, ByteOrder order) throws IOException {
+			channel = FileChannel.open(path, StandardOpenOption.READ);
+			buffer.order(order).limit(0);
+		}
+
+		/**
+		 * makes sure that there are at least 'n' bytes in the buffer, if the file
+		 * doesn't end before
+		 *
+		 * @param n the number of bytes
+		 * @return true if there are 'n' bytes in the buffer
+		 * @throws IOException if the file can't be read
+		 */
+		boolean fill(int n) throws IOException {
+			while (buffer.remaining() < n && !eof) {
+				buffer.compact();
+				eof = channel.read(buffer) < 0;
+				buffer.flip();
+			}
+			return buffer.remaining() >= n;
+		}
+
+		/**
+		 * @return the next byte without reading it, or -1 at the end of the file
+		 * @throws IOException if the file can't be read
+		 */
+		int peek() throws IOException {
+			return buffer.hasRemaining() || fill(1) ? buffer.get(buffer.position()) & 0xff : -1;
+		}
+
+		/**
+		 * @return the next byte, or -1 at the end of the file
+		 * @throws IOException if the file can't be read
+		 */
+		int read() throws IOException {
+			return buffer.hasRemaining() || fill(1) ? buffer.get() & 0xff : -1;
+		}
+
+		/**
+		 * skips 'n' bytes
+		 *
+		 * @param n the number of bytes
+		 * @throws IOException if the file ends
+		 */
+		void skip(long n) throws IOException {
+			int inBuffer = (int) Math.min(n, buffer.remaining());
+			buffer.position(buffer.position() + inBuffer);
+			n -= inBuffer;
+			if (n == 0)
+				return;
+			long position = channel.position() + n;
+			if (position > channel.size())
+				throw new IOException("Unexpected end of file");
+			channel.position(position);
+		}
+
+		/**
+		 * skips the spaces and the tabs
+		 *
+		 * @return the next byte after them, or -1 at the end of the file
+		 * @throws IOException if the file can't be read
+		 */
+		int skipSpaces() throws IOException {
+			int c = peek();
+			while (c == ' ' || c == '\t') {
+				buffer.get();
+				c = peek();
+			}
+			return c;
+		}
+
+		/**
+		 * skips to the start of the next line
+		 *
+		 * @throws IOException if the file can't be read
+		 */
+		void skipLine() throws IOException {
+			for (int c = read(); c != -1 && c != '\n'; c = read())
+				;
+		}
+
+		/**
+		 * reads a line of text
+		 *
+		 * @return the line without the line break, or null at the end of the file
+		 * @throws IOException if the file can't be read
+		 */
+		String readLine() throws IOException {
+			int length = 0;
+			int c = read();
+			if (c == -1)
+				return null;
+			for (; c != -1 && c != '\n'; c = read()) {
+				if (length == token.length)
+					token = Arrays.copyOf(token, 2 * length);
+				token[length++] = (byte) c;
+			}
+			if (length > 0 && token[length - 1] == '\r')
+				length--;
+			return new String(token, 0, length, StandardCharsets.US_ASCII);
+		}
+
+		/**
+		 * reads a decimal integer after the spaces
+		 *
+		 * @param line the line number for the error message
+		 * @return the integer
+		 * @throws IOException if there is no integer
+		 */
+		int readInt(int line) throws IOException {
+			int c = skipSpaces();
+			boolean negative = c == '-';
+			if (c == '-' || c == '+') {
+				buffer.get();
+				c = peek();
+			}
+			if (c < '0' || c > '9')
+				throw new IOException("Line " + line + ": a number was expected");
+			long value = 0;
+			for (; c >= '0' && c <= '9'; c = peek()) {
+				value = value * 10 + (c - '0');
+				if (value > Integer.MAX_VALUE)
+					throw new IOException("Line " + line + ": the number is too big");
+				buffer.get();
+			}
+			return (int) (negative ? -value : value);
+		}
+
+		/**
+		 * reads a decimal number after the spaces. The digits are collected to a long
+		 * and scaled by an exact power of 10, which is exactly rounded when they fit
+		 * in 53 bits and the power is up to 22, the other numbers are parsed by
+		 * {@link Double#parseDouble(String)}
+		 *
+		 * @param line the line number for the error message
+		 * @return the number
+		 * @throws IOException if there is no number
+		 */
+		double readDouble(int line) throws IOException {
+			int length = 0;
+			int c = skipSpaces();
+			// collect the token
+			while (c != -1 && c > ' ' && c != '#') {
+				if (length == token.length)
+					token = Arrays.copyOf(token, 2 * length);
+				token[length++] = (byte) c;
+				buffer.get();
+				c = peek();
+			}
+			if (length == 0)
+				throw new IOException("Line " + line + ": a number was expected");
+
+			int i = 0;
+			boolean negative = token[0] == '-';
+			if (token[0] == '-' || token[0] == '+')
+				i++;
+			long mantissa = 0;
+			int digits = 0, exponent = 0;
+			boolean any = false;
+			for (; i < length && token[i] >= '0' && token[i] <= '9'; i++, any = true)
+				if (digits < 18) {
+					mantissa = mantissa * 10 + (token[i] - '0');
+					if (mantissa != 0)
+						digits++;
+				} else
+					exponent++;
+			if (i < length && token[i] == '.')
+				for (i++; i < length && token[i] >= '0' && token[i] <= '9'; i++, any = true)
+					if (digits < 18) {
+						mantissa = mantissa * 10 + (token[i] - '0');
+						if (mantissa != 0)
+							digits++;
+						exponent--;
+					}
+			if (any && i < length && (token[i] == 'e' || token[i] == 'E')) {
+				int j = i + 1;
+				boolean negativeExp = j < length && token[j] == '-';
+				if (j < length && (token[j] == '-' || token[j] == '+'))
+					j++;
+				int e = 0;
+				boolean anyExp = false;
+				for (; j < length && token[j] >= '0' && token[j] <= '9' && e < 10000; j++, anyExp = true)
+					e = e * 10 + (token[j] - '0');
+				if (anyExp) {
+					exponent += negativeExp ? -e : e;
+					i = j;
+				}
+			}
+			if (any && i == length && mantissa < 1L << 53 && Math.abs(exponent) < POWERS.length) {
+				double value = exponent < 0 ? mantissa / POWERS[-exponent] : mantissa * POWERS[exponent];
+				return negative ? -value : value;
+			}
+			try {
+				return Double.parseDouble(new String(token, 0, length, StandardCharsets.US_ASCII));
+			} catch (NumberFormatException e) {
+				throw new IOException("Line " + line + ": a number was expected", e);
+			}
+		}
+
+		/**
+		 * reads a binary value
+		 *
+		 * @param type the type of the value
+		 * @return the value
+		 * @throws IOException if the file ends
+		 */
+		double readValue(Type type) throws IOException {
+			if (!fill(type.size))
+				throw new IOException("Unexpected end of file");
+			switch (type) {
+			case CHAR:
+				return buffer.get();
+			case UCHAR:
+				return buffer.get() & 0xff;
+			case SHORT:
+				return buffer.getShort();
+			case USHORT:
+				return buffer.getShort() & 0xffff;
+			case INT:
+				return buffer.getInt();
+			case UINT:
+				return buffer.getInt() & 0xffffffffL;
+			case FLOAT:
+				return buffer.getFloat();
+			default:
+				return buffer.getDouble();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+}
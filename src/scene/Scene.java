@@ -3,6 +3,8 @@
  */
 package scene;
 
+import java.io.Serializable;
+import java.nio.file.Path;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -14,7 +16,8 @@ import primitives.Color;
 /**
  * represent scene of geometries
  */
-public class Scene {
+public class Scene implements Serializable {
+	private static final long serialVersionUID = 1L;
 
 	/**
 	 * name of the scene
@@ -36,6 +39,11 @@ public class Scene {
 	 * list of the light source at the scene
 	 */
 	public List<LightSource> lights = new LinkedList<LightSource>();
+	/**
+	 * the directory of the compiled hierarchies of the scenes, or null to build
+	 * the hierarchy each time (see {@link Geometries#buildCached(Path)})
+	 */
+	public transient Path bvhCache = null;
 	
 	/**
 	 * scene constructor
@@ -72,4 +80,17 @@ public class Scene {
 		this.lights = lights;
 		return this;
 	}
+
+	/**
+	 * sets the directory of the compiled hierarchies, the hierarchy of the scene
+	 * is loaded from it when the scene was built before. A loaded hierarchy can't
+	 * be refitted, so a scene with a cache can't be animated by
+	 * {@link renderer.RayTracerBase#updateScene()}
+	 * @param directory the directory of the compiled hierarchies
+	 * @return this scene
+	 */
+	public Scene setBVHCache(Path directory) {
+		this.bvhCache = directory;
+		return this;
+	}
 }
@@ -0,0 +1,275 @@
+package unittests;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import geometries.*;
+import geometries.Intersectable.GeoPoint;
+import primitives.*;
+
+/**
+ * tests the class {@link geometries.FlatBVH}
+ */
+public class FlatBVHTest {
+
+	/**
+	 * builds a scene of many small random spheres and triangles and a plane
+	 *
+	 * @param random the random generator
+	 * @return the scene geometries after building the hierarchy
+	 */
+	static Geometries randomScene(Random random) {
+		return randomScene(random, 0);
+	}
+
+	/**
+	 * builds a scene of many small random spheres and triangles and a plane, the
+	 * spheres are semi-transparent
+	 *
+	 * @param random the random generator
+	 * @param kT     the transparency level of the spheres
+	 * @return the scene geometries after building the hierarchy
+	 */
+	static Geometries randomScene(Random random, double kT) {
+		Geometries geometries = new Geometries();
+		for (int i = 0; i < 300; i++) {
+			double x = random.nextDouble() * 100 - 50, y = random.nextDouble() * 100 - 50,
+					z = random.nextDouble() * 100 - 50;
+			geometries.add(new Sphere(new Point3D(x, y, z), 1 + random.nextDouble() * 2)
+					.setMaterial(new Material().setkT(kT)));
+			geometries.add(new Triangle(new Point3D(x, y, z), new Point3D(x + 3, y, z + 1),
+					new Point3D(x, y + 3, z - 1)));
+		}
+		geometries.add(new Plane(new Point3D(0, -60, 0), new Vector(0, 1, 0)));
+		geometries.initConstructHeirarchy();
+		return geometries;
+	}
+
+	/**
+	 * Test method for
+	 * {@link geometries.Geometries#findIntersections(primitives.Ray)} after
+	 * {@link geometries.Geometries#compile()}
+	 */
+	@Test
+	public void testFindIntersections() {
+		Random random = new Random(7);
+		Geometries geometries = randomScene(random);
+
+		Ray[] rays = new Ray[200];
+		for (int i = 0; i < rays.length; i++)
+			rays[i] = new Ray(new Point3D(random.nextDouble() * 20 - 10, random.nextDouble() * 20 - 10, 200),
+					new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -1));
+		List<List<Point3D>> expected = new ArrayList<>(rays.length);
+		for (Ray ray : rays)
+			expected.add(geometries.findIntersections(ray));
+
+		FlatBVH bvh = geometries.compile();
+		assertTrue("the compiled hierarchy lost primitives", bvh.getPrimitivesCount() == 601);
+
+		// ============ Equivalence Partitions Tests ==============
+		// TC01: the compiled hierarchy finds the same intersections as the tree
+		Comparator<Point3D> byCoordinates = Comparator.comparingDouble(Point3D::getX)
+				.thenComparingDouble(Point3D::getY).thenComparingDouble(Point3D::getZ);
+		for (int i = 0; i < rays.length; i++) {
+			List<Point3D> result = geometries.findIntersections(rays[i]);
+			if (expected.get(i) == null) {
+				assertNull("TC01: wrong intersections", result);
+				continue;
+			}
+			assertNotNull("TC01: missing intersections", result);
+			expected.get(i).sort(byCoordinates);
+			result.sort(byCoordinates);
+			assertEquals("TC01: wrong intersections", expected.get(i), result);
+		}
+
+		// =============== Boundary Values Tests ==================
+		// TC02: an empty Geometries
+		Geometries empty = new Geometries();
+		empty.compile();
+		assertNull("TC02: empty Geometries", empty.findIntersections(rays[0]));
+	}
+
+	/**
+	 * Test method for
+	 * {@link geometries.Intersectable#findClosestIntersectionMain(primitives.Ray, double)}
+	 */
+	@Test
+	public void testFindClosestIntersection() {
+		Random random = new Random(11);
+		Geometries geometries = randomScene(random);
+		geometries.compile();
+
+		// ============ Equivalence Partitions Tests ==============
+		// TC01: the closest point is the closest one of all the intersections
+		for (int i = 0; i < 200; i++) {
+			Ray ray = new Ray(new Point3D(random.nextDouble() * 20 - 10, random.nextDouble() * 20 - 10, 200),
+					new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -1));
+			List<Point3D> all = geometries.findIntersections(ray);
+			GeoPoint closest = geometries.findClosestIntersectionMain(ray, Double.POSITIVE_INFINITY);
+			if (all == null) {
+				assertNull("TC01: an intersection was found for a missing ray", closest);
+				continue;
+			}
+			assertEquals("TC01: wrong closest point", ray.findClosestPoint(all), closest.point);
+
+			// =============== Boundary Values Tests ==================
+			// TC02: there is no intersection closer than the closest one
+			double distance = ray.getOrigin().distance(closest.point) - 1e-6;
+			assertNull("TC02: an intersection beyond the max distance",
+					geometries.findClosestIntersectionMain(ray, distance));
+		}
+
+		// TC03: a wide tree whose first child is the nearest one, so it is traversed
+		// while all it's siblings are still waiting
+		Geometries near = new Geometries();
+		for (int i = 0; i < 8; i++)
+			near.add(new Geometries(new Sphere(new Point3D(0, 0, 50 - 3 * i), 1)));
+		Geometries wide = new Geometries(near);
+		for (int i = 0; i < 8; i++)
+			wide.add(new Geometries(new Sphere(new Point3D(0, 0, -3 * i), 1)));
+		wide.compile();
+		Ray ray = new Ray(new Point3D(0, 0, 100), new Vector(0, 0, -1));
+		assertEquals("TC03: wrong closest point", new Point3D(0, 0, 51),
+				wide.findClosestIntersectionMain(ray, Double.POSITIVE_INFINITY).point);
+	}
+
+	/**
+	 * Test method for
+	 * {@link geometries.Intersectable#findTransmittanceMain(primitives.Ray, double, double)}
+	 */
+	@Test
+	public void testFindTransmittance() {
+		Random random = new Random(13);
+		Geometries geometries = randomScene(random, 0.8);
+		Ray[] rays = new Ray[200];
+		for (int i = 0; i < rays.length; i++)
+			rays[i] = new Ray(new Point3D(random.nextDouble() * 20 - 10, random.nextDouble() * 20 - 10, 200),
+					new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -1));
+		geometries.compile();
+
+		// ============ Equivalence Partitions Tests ==============
+		// TC01: the transmittance is the product of the kT of all the intersections
+		int partial = 0;
+		for (Ray ray : rays) {
+			List<GeoPoint> all = geometries.findGeoIntersectionsMain(ray, 250);
+			double expected = 1;
+			if (all != null)
+				for (GeoPoint gp : all)
+					expected *= gp.geometry.getMaterial().kT;
+			double kT = geometries.findTransmittanceMain(ray, 250, 1e-3);
+			assertEquals("TC01: wrong transmittance", expected < 1e-3 ? 0 : expected, kT, 1e-9);
+			if (kT > 0 && kT < 1)
+				partial++;
+		}
+		assertTrue("TC01: no ray passed through a semi-transparent sphere", partial > 0);
+
+		// =============== Boundary Values Tests ==================
+		// TC02: the intersections are counted only up to the max distance
+		assertEquals("TC02: an intersection beyond the max distance", 1,
+				geometries.findTransmittanceMain(rays[0], 1, 1e-3), 0);
+	}
+
+	/**
+	 * Test method for {@link geometries.Geometries#buildCached(java.nio.file.Path)}
+	 * 
+	 * @throws IOException if the temporary directory can't be used
+	 */
+	@Test
+	public void testBuildCached() throws IOException {
+		Path directory = Files.createTempDirectory("bvh");
+		Random random = new Random(17);
+		Ray[] rays = new Ray[200];
+		for (int i = 0; i < rays.length; i++)
+			rays[i] = new Ray(new Point3D(random.nextDouble() * 20 - 10, random.nextDouble() * 20 - 10, 200),
+					new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -1));
+		try {
+			// ============ Equivalence Partitions Tests ==============
+			// TC01: the built hierarchy is saved
+			Geometries built = cacheScene(3);
+			FlatBVH bvh = built.buildCached(directory);
+			File[] files = directory.toFile().listFiles();
+			assertEquals("TC01: the hierarchy was not saved", 1, files.length);
+			File file = files[0];
+			long size = file.length();
+
+			// TC02: the same scene is loaded, and finds the same intersections
+			assertTrue(file.setLastModified(1000000000000L));
+			Geometries loaded = cacheScene(3);
+			FlatBVH loadedBvh = loaded.buildCached(directory);
+			assertEquals("TC02: the hierarchy was saved again", 1000000000000L, file.lastModified());
+			assertEquals("TC02: wrong number of nodes", bvh.getNodesCount(), loadedBvh.getNodesCount());
+			assertEquals("TC02: wrong number of primitives", bvh.getPrimitivesCount(),
+					loadedBvh.getPrimitivesCount());
+			for (Ray ray : rays) {
+				GeoPoint expected = built.findClosestIntersectionMain(ray, Double.POSITIVE_INFINITY);
+				GeoPoint result = loaded.findClosestIntersectionMain(ray, Double.POSITIVE_INFINITY);
+				if (expected == null) {
+					assertNull("TC02: wrong intersection", result);
+					continue;
+				}
+				assertNotNull("TC02: missing intersection", result);
+				assertEquals("TC02: wrong intersection", expected.point, result.point);
+				assertEquals("TC02: wrong number of intersections", built.findIntersections(ray).size(),
+						loaded.findIntersections(ray).size());
+			}
+
+			// TC03: a tree that was already built or compiled keeps it's hierarchy, and
+			// is not saved
+			assertSame("TC03: a compiled tree was compiled again", bvh, built.buildCached(directory));
+			Geometries tree = cacheScene(5);
+			tree.initConstructHeirarchy();
+			int nodes = tree.buildCached(directory).getNodesCount();
+			tree.add();
+			assertEquals("TC03: a built tree was built again", nodes, tree.buildCached(directory).getNodesCount());
+			assertEquals("TC03: a built tree was saved", 1, directory.toFile().listFiles().length);
+
+			// TC04: a scene that was changed is built and saved to another file
+			cacheScene(4).buildCached(directory);
+			assertEquals("TC04: the changed scene was not saved", 2, directory.toFile().listFiles().length);
+
+			// =============== Boundary Values Tests ==================
+			// TC11: a damaged file is built and saved again
+			byte[] bytes = Files.readAllBytes(file.toPath());
+			Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length / 2));
+			Geometries damaged = cacheScene(3);
+			assertEquals("TC11: wrong number of nodes", bvh.getNodesCount(),
+					damaged.buildCached(directory).getNodesCount());
+			assertEquals("TC11: the hierarchy was not saved again", size, file.length());
+		} finally {
+			for (File f : directory.toFile().listFiles())
+				f.delete();
+			directory.toFile().delete();
+		}
+	}
+
+	/**
+	 * builds a scene of random spheres and triangles, without building it's
+	 * hierarchy
+	 *
+	 * @param seed the seed of the random generator
+	 * @return the scene geometries
+	 */
+	private static Geometries cacheScene(long seed) {
+		Random random = new Random(seed);
+		Geometries geometries = new Geometries();
+		for (int i = 0; i < 300; i++) {
+			double x = random.nextDouble() * 100 - 50, y = random.nextDouble() * 100 - 50,
+					z = random.nextDouble() * 100 - 50;
+			geometries.add(new Sphere(new Point3D(x, y, z), 1 + random.nextDouble() * 2));
+			geometries.add(new Triangle(new Point3D(x, y, z), new Point3D(x + 3, y, z + 1),
+					new Point3D(x, y + 3, z - 1)));
+		}
+		return geometries;
+	}
+}
@@ -5,14 +5,18 @@ import static org.junit.Assert.*;
 import org.junit.Test;
 
 import java.util.List;
+import java.util.Random;
 
 import geometries.Geometries;
+import geometries.Instance;
+import geometries.Intersectable.GeoPoint;
 import geometries.Plane;
 import geometries.Sphere;
 import geometries.Triangle;
 import geometries.Tube;
 import primitives.Point3D;
 import primitives.Ray;
+import primitives.Transform;
 import primitives.Vector;
 
 /**
@@ -58,4 +62,181 @@ public class GeometriesTest {
 		assertEquals("TC05: some of the components are intersect", gmtrs.findIntersections(r5).size(),3);
 	}
 
+	/**
+	 * test for {@link Geometries#setSplitBySAH(boolean)} and
+	 * {@link Geometries#getSAHCost()}
+	 */
+	@Test
+	public void testSplitBySAH() {
+		Random random = new Random(3);
+		Geometries byVolume = new Geometries(), bySAH = new Geometries().setSplitBySAH(true);
+		for (int i = 0; i < 2000; i++) {
+			double x = random.nextGaussian() * 30, y = random.nextGaussian() * 30, z = random.nextGaussian() * 30;
+			Triangle triangle = new Triangle(new Point3D(x, y, z), new Point3D(x + 2, y, z + 1),
+					new Point3D(x, y + 2, z - 1));
+			byVolume.add(triangle);
+			bySAH.add(triangle);
+		}
+		byVolume.initConstructHeirarchy();
+		bySAH.initConstructHeirarchy();
+
+		// TC01: the SAH hierarchy is expected to be cheaper than the default one
+		assertTrue("TC01: the SAH hierarchy is more expensive", bySAH.getSAHCost() < byVolume.getSAHCost());
+
+		// TC02: both of the hierarchies find the same intersections
+		for (int i = 0; i < 100; i++) {
+			Ray ray = new Ray(new Point3D(0, 0, -200), new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, 1));
+			List<Point3D> expected = byVolume.findIntersections(ray), result = bySAH.findIntersections(ray);
+			assertEquals("TC02: wrong number of intersections", expected == null ? 0 : expected.size(),
+					result == null ? 0 : result.size());
+		}
+	}
+
+	/**
+	 * test for {@link Geometries#initConstructHeirarchy()} of a hierarchy that is
+	 * built in parallel
+	 */
+	@Test
+	public void testParallelBuild() {
+		Random random = new Random(9);
+		Geometries flat = new Geometries(), byVolume = new Geometries(), bySAH = new Geometries().setSplitBySAH(true);
+		for (int i = 0; i < 20000; i++) {
+			double x = random.nextGaussian() * 50, y = random.nextGaussian() * 50, z = random.nextGaussian() * 50;
+			Triangle triangle = new Triangle(new Point3D(x, y, z), new Point3D(x + 2, y, z + 1),
+					new Point3D(x, y + 2, z - 1));
+			flat.add(triangle);
+			byVolume.add(triangle);
+			bySAH.add(triangle);
+		}
+		byVolume.add(new Plane(new Point3D(0, 0, -300), new Vector(0, 0, 1)));
+		bySAH.add(new Plane(new Point3D(0, 0, -300), new Vector(0, 0, 1)));
+		flat.add(new Plane(new Point3D(0, 0, -300), new Vector(0, 0, 1)));
+		byVolume.initConstructHeirarchy();
+		bySAH.initConstructHeirarchy();
+
+		// TC01: the hierarchies find the same intersections as the flat list
+		for (int i = 0; i < 200; i++) {
+			Ray ray = new Ray(new Point3D(0, 0, 200), new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -1));
+			List<Point3D> expected = flat.findIntersections(ray);
+			int n = expected == null ? 0 : expected.size();
+			List<Point3D> result = byVolume.findIntersections(ray);
+			assertEquals("TC01: wrong number of intersections", n, result == null ? 0 : result.size());
+			result = bySAH.findIntersections(ray);
+			assertEquals("TC01: wrong number of intersections of SAH", n, result == null ? 0 : result.size());
+		}
+	}
+
+	/**
+	 * test for {@link Geometries#setSplitByMorton(boolean)} and
+	 * {@link Geometries#setRestructureTreelets(boolean)}
+	 */
+	@Test
+	public void testSplitByMorton() {
+		for (int size : new int[] { 500, 20000 }) {
+			Random random = new Random(size);
+			Geometries flat = new Geometries(), linear = new Geometries().setSplitByMorton(true),
+					restructured = new Geometries().setSplitByMorton(true).setRestructureTreelets(true);
+			for (int i = 0; i < size; i++) {
+				double x = random.nextGaussian() * 50, y = random.nextGaussian() * 50, z = random.nextGaussian() * 50;
+				Triangle triangle = new Triangle(new Point3D(x, y, z), new Point3D(x + 2, y, z + 1),
+						new Point3D(x, y + 2, z - 1));
+				flat.add(triangle);
+				linear.add(triangle);
+				restructured.add(triangle);
+			}
+			// the same centroids
+			for (int i = 0; i < 10; i++) {
+				Sphere sphere = new Sphere(new Point3D(1, 2, 3), 1 + i);
+				flat.add(sphere);
+				linear.add(sphere);
+				restructured.add(sphere);
+			}
+			linear.initConstructHeirarchy();
+			restructured.initConstructHeirarchy();
+
+			// ============ Equivalence Partitions Tests ==============
+			// TC01: the linear hierarchies find the same intersections as the flat list
+			for (int i = 0; i < 200; i++) {
+				Ray ray = new Ray(new Point3D(0, 0, 200),
+						new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -1));
+				List<Point3D> expected = flat.findIntersections(ray);
+				int n = expected == null ? 0 : expected.size();
+				List<Point3D> result = linear.findIntersections(ray);
+				assertEquals("TC01: wrong number of intersections", n, result == null ? 0 : result.size());
+				result = restructured.findIntersections(ray);
+				assertEquals("TC01: wrong number of intersections of treelets", n, result == null ? 0 : result.size());
+			}
+			// TC02: the restructured treelets are cheaper
+			assertTrue("TC02: the restructured hierarchy is more expensive",
+					restructured.getSAHCost() < linear.getSAHCost());
+		}
+	}
+
+	/**
+	 * test for {@link Geometries#refit()}
+	 */
+	@Test
+	public void testRefit() {
+		Random random = new Random(11);
+		Sphere sphere = new Sphere(new Point3D(0, 0, 0), 1);
+		Instance[] instances = new Instance[500];
+		Point3D[] places = new Point3D[instances.length];
+		Geometries scene = new Geometries().setSplitBySAH(true);
+		for (int i = 0; i < instances.length; i++) {
+			places[i] = new Point3D(random.nextDouble() * 100 - 50, random.nextDouble() * 100 - 50,
+					random.nextDouble() * 100 - 50);
+			instances[i] = new Instance(sphere, Transform.translation(new Vector(places[i])));
+			scene.add(instances[i]);
+		}
+		scene.initConstructHeirarchy();
+		scene.compile();
+
+		// ============ Equivalence Partitions Tests ==============
+		// TC01: small movements only refit the boundaries
+		for (int i = 0; i < instances.length; i++) {
+			places[i] = places[i].add(new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, 0.7));
+			instances[i].setTransform(Transform.translation(new Vector(places[i])));
+		}
+		assertEquals("TC01: a subtree was built again", 0, scene.refit());
+		assertSameIntersections("TC01: ", scene, places, sphere, random);
+
+		// TC02: the subtrees that were scattered are built again
+		for (int i = 0; i < instances.length; i++) {
+			places[i] = new Point3D(random.nextDouble() * 100 - 50, random.nextDouble() * 100 - 50,
+					random.nextDouble() * 100 - 50);
+			instances[i].setTransform(Transform.translation(new Vector(places[i])));
+		}
+		assertTrue("TC02: no subtree was built again", scene.refit() > 0);
+		assertSameIntersections("TC02: ", scene, places, sphere, random);
+	}
+
+	/**
+	 * checks that a refitted hierarchy finds the same closest intersections as a
+	 * new hierarchy of the same places
+	 * 
+	 * @param tc     the name of the test case
+	 * @param scene  the refitted hierarchy
+	 * @param places the places of the instances
+	 * @param sphere the object of the instances
+	 * @param random the random generator of the rays
+	 */
+	private static void assertSameIntersections(String tc, Geometries scene, Point3D[] places, Sphere sphere,
+			Random random) {
+		Geometries expected = new Geometries();
+		for (Point3D p : places)
+			expected.add(new Instance(sphere, Transform.translation(new Vector(p))));
+		expected.initConstructHeirarchy();
+		for (int i = 0; i < 300; i++) {
+			Ray ray = new Ray(new Point3D(random.nextDouble() * 100 - 50, random.nextDouble() * 100 - 50, -200),
+					new Vector(random.nextDouble() * 0.2 - 0.1, random.nextDouble() * 0.2 - 0.1, 1));
+			GeoPoint e = expected.findClosestIntersectionMain(ray, Double.POSITIVE_INFINITY);
+			GeoPoint r = scene.findClosestIntersectionMain(ray, Double.POSITIVE_INFINITY);
+			if (e == null)
+				assertNull(tc + "an intersection that doesn't exist", r);
+			else {
+				assertNotNull(tc + "a missed intersection", r);
+				assertEquals(tc + "wrong intersection", 0, e.point.distance(r.point), 1e-9);
+			}
+		}
+	}
 }
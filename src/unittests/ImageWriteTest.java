@@ -2,10 +2,22 @@ package unittests;
 
 import static org.junit.Assert.*;
 
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
 import org.junit.Test;
 
 import primitives.Color;
 import renderer.ImageWriter;
+import renderer.MappedFrameBuffer;
+import renderer.ImageWriter.ToneMapping;
 
 /**
  * 
@@ -53,4 +65,181 @@ public class ImageWriteTest {
 			}
 		}
 	}
+
+	/**
+	 * Test method for the tone mapping of
+	 * {@link renderer.ImageWriter#toImage()}
+	 */
+	@Test
+	public void toneMappingTest() {
+		ImageWriter imgWriter = new ImageWriter("tone mapping", 2, 1);
+		imgWriter.writePixel(0, 0, new Color(510, 127.5, 0));
+		imgWriter.writePixel(1, 0, new Color(1000, 1000, 1000));
+		// ============ Equivalence Partitions Tests ==============
+		// TC01: the components above 255 are cut
+		BufferedImage image = imgWriter.toImage();
+		assertEquals("Wrong clamped color", 0xFF7F00, image.getRGB(0, 0) & 0xFFFFFF);
+		// TC02: Reinhard keeps the bright parts below white
+		image = imgWriter.setToneMapping(ToneMapping.REINHARD).toImage();
+		assertEquals("Wrong Reinhard color", 0xAA5500, image.getRGB(0, 0) & 0xFFFFFF);
+		assertNotEquals("Reinhard must not reach white", 0xFFFFFF, image.getRGB(1, 0) & 0xFFFFFF);
+		// TC03: the exposure scales the radiance before the mapping
+		image = imgWriter.setToneMapping(ToneMapping.CLAMP).setExposure(0.5).toImage();
+		assertEquals("Wrong exposed color", 0xFF3F00, image.getRGB(0, 0) & 0xFFFFFF);
+	}
+
+	/**
+	 * Test method for {@link renderer.ImageWriter#writeToPfm()} and
+	 * {@link renderer.ImageWriter#writeToExr()}
+	 * 
+	 * @throws IOException if the files can't be read
+	 */
+	@Test
+	public void radianceFilesTest() throws IOException {
+		ImageWriter imgWriter = new ImageWriter("radiance test", 3, 2);
+		imgWriter.writePixel(0, 1, new Color(510, 255, 0));
+		Path images = Path.of(System.getProperty("user.dir"), "images");
+		// ============ Equivalence Partitions Tests ==============
+		// TC01: the PFM file has the raw radiance, from the bottom row up
+		imgWriter.writeToPfm();
+		byte[] pfm = Files.readAllBytes(images.resolve("radiance test.pfm"));
+		String header = "PF\n3 2\n-1.0\n";
+		assertEquals("Wrong PFM size", header.length() + 3 * 2 * 12, pfm.length);
+		assertEquals("Wrong PFM header", header, new String(pfm, 0, header.length()));
+		ByteBuffer data = ByteBuffer.wrap(pfm, header.length(), 12).order(ByteOrder.LITTLE_ENDIAN);
+		assertEquals("Wrong PFM red", 2, data.getFloat(), 0);
+		assertEquals("Wrong PFM green", 1, data.getFloat(), 0);
+
+		// TC02: the OpenEXR file has the magic number and all the lines
+		imgWriter.writeToExr();
+		ByteBuffer exr = ByteBuffer.wrap(Files.readAllBytes(images.resolve("radiance test.exr")))
+				.order(ByteOrder.LITTLE_ENDIAN);
+		assertEquals("Wrong EXR magic number", 20000630, exr.getInt(0));
+		long lines = exr.getLong(exr.limit() - 2 * (8 + 36) - 2 * 8);
+		assertEquals("Wrong offset of the first line", exr.limit() - 2 * (8 + 36), lines);
+		// the red of the first pixel of the second line, after the blue and the green
+		assertEquals("Wrong EXR red", 2, exr.getFloat(exr.limit() - 12), 0);
+	}
+
+	/**
+	 * Test method for {@link renderer.ImageWriter#writeToImage()} by the parallel
+	 * {@link renderer.PngEncoder}
+	 * 
+	 * @throws IOException if the files can't be read
+	 */
+	@Test
+	public void pngEncoderTest() throws IOException {
+		// many strips of rows, every strip is compressed by itself
+		ImageWriter imgWriter = new ImageWriter("png encoder", 300, 1000);
+		Random random = new Random(1);
+		for (int y = 0; y < 1000; y++)
+			for (int x = 0; x < 300; x++)
+				imgWriter.writePixel(x, y, random.nextInt(4) == 0 ? new Color(random.nextInt(256), 0, 300)
+						: new Color(x % 256, y % 256, 100));
+		Path images = Path.of(System.getProperty("user.dir"), "images");
+		// ============ Equivalence Partitions Tests ==============
+		// TC01: the whole image at the end
+		imgWriter.writeToImage();
+		assertSameImage("Wrong encoded image", imgWriter.toImage(),
+				ImageIO.read(images.resolve("png encoder.png").toFile()));
+
+		// TC02: the rows are streamed while they are written
+		ImageWriter streamed = new ImageWriter("png stream", 300, 1000).setStreaming(true);
+		streamed.startStream();
+		for (int y = 0; y < 1000; y++) {
+			for (int x = 0; x < 300; x++)
+				streamed.writePixel(x, y, new Color(x % 256, y % 256, (x + y) % 256));
+			if (y % 100 == 99)
+				streamed.rowsReady(y + 1);
+		}
+		streamed.writeToImage();
+		assertSameImage("Wrong streamed image", streamed.toImage(),
+				ImageIO.read(images.resolve("png stream.png").toFile()));
+
+		// =============== Boundary Values Tests ==================
+		// TC11: a stream that is started again replaces the first one
+		ImageWriter restarted = new ImageWriter("png restarted", 300, 100).setStreaming(true);
+		restarted.startStream();
+		restarted.rowsReady(50);
+		restarted.startStream();
+		for (int y = 0; y < 100; y++)
+			for (int x = 0; x < 300; x++)
+				restarted.writePixel(x, y, new Color(x % 256, y % 256, 7));
+		restarted.writeToImage();
+		assertSameImage("Wrong restarted stream", restarted.toImage(),
+				ImageIO.read(images.resolve("png restarted.png").toFile()));
+		// TC10: a single pixel
+		ImageWriter pixel = new ImageWriter("png pixel", 1, 1);
+		pixel.writePixel(0, 0, new Color(10, 20, 30));
+		pixel.writeToImage();
+		assertSameImage("Wrong single pixel", pixel.toImage(), ImageIO.read(images.resolve("png pixel.png").toFile()));
+	}
+
+	/**
+	 * Test method for {@link renderer.MappedFrameBuffer}
+	 * 
+	 * @throws IOException if the file can't be created
+	 */
+	@Test
+	public void mappedFrameBufferTest() throws IOException {
+		Path images = Path.of(System.getProperty("user.dir"), "images");
+		Path file = images.resolve("mapped test.fb");
+		ImageWriter expected = new ImageWriter("mapped expected", 7, 5);
+		// ============ Equivalence Partitions Tests ==============
+		// TC01: the pixels are kept in tiles, also in the partial tiles at the edges
+		try (MappedFrameBuffer frameBuffer = MappedFrameBuffer.create(file, 7, 5, 3)) {
+			for (int y = 0; y < 5; y++)
+				for (int x = 0; x < 7; x++) {
+					Color color = new Color(10 * x, 10 * y, 300);
+					frameBuffer.setPixel(x, y, color);
+					expected.writePixel(x, y, color);
+				}
+			frameBuffer.addPixel(6, 4, new Color(1, 2, 3));
+			expected.getFrameBuffer().addPixel(6, 4, new Color(1, 2, 3));
+			assertArrayEquals("Wrong mapped pixel", new float[] { 61, 42, 303 },
+					frameBuffer.getPixel(6, 4, new float[3]), 0);
+		}
+
+		// TC02: the pixels are in the file after it is closed, and it is written as
+		// an image
+		try (MappedFrameBuffer frameBuffer = MappedFrameBuffer.open(file)) {
+			assertEquals("Wrong width", 7, frameBuffer.getNx());
+			assertEquals("Wrong tile", 3, frameBuffer.getTile());
+			ImageWriter imgWriter = new ImageWriter("mapped image", frameBuffer);
+			imgWriter.writeToImage();
+			assertSameImage("Wrong mapped image", expected.toImage(),
+					ImageIO.read(images.resolve("mapped image.png").toFile()));
+		}
+
+		// TC03: a file that is not a frame buffer
+		try {
+			MappedFrameBuffer.open(images.resolve("mapped image.png")).close();
+			fail("Opening a file that is not a frame buffer must fail");
+		} catch (IOException e) {
+		}
+
+		// =============== Boundary Values Tests ==================
+		// TC10: a tile that is larger than the image
+		try (MappedFrameBuffer frameBuffer = MappedFrameBuffer.create(file, 2, 1)) {
+			frameBuffer.setPixel(1, 0, new Color(1, 2, 3));
+			assertArrayEquals("Wrong pixel of a single tile", new float[] { 1, 2, 3 },
+					frameBuffer.getPixel(1, 0, new float[3]), 0);
+		}
+	}
+
+	/**
+	 * checks that two images have the same pixels
+	 * 
+	 * @param message  the message of the failure
+	 * @param expected the expected image
+	 * @param actual   the actual image
+	 */
+	private static void assertSameImage(String message, BufferedImage expected, BufferedImage actual) {
+		assertNotNull(message, actual);
+		assertEquals(message, expected.getWidth(), actual.getWidth());
+		assertEquals(message, expected.getHeight(), actual.getHeight());
+		for (int y = 0; y < expected.getHeight(); y++)
+			for (int x = 0; x < expected.getWidth(); x++)
+				assertEquals(message, expected.getRGB(x, y), actual.getRGB(x, y));
+	}
 }
@@ -0,0 +1,111 @@
+package unittests;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import geometries.*;
+import geometries.Intersectable.GeoPoint;
+import primitives.*;
+
+/**
+ * tests the classes {@link geometries.Instance} and {@link primitives.Transform}
+ */
+public class InstanceTest {
+
+	/**
+	 * Test method for {@link primitives.Transform}
+	 */
+	@Test
+	public void testTransform() {
+		Transform t = Transform.scaling(2).then(Transform.rotation(Vector.Z, 90))
+				.then(Transform.translation(new Vector(1, 2, 3)));
+
+		// ============ Equivalence Partitions Tests ==============
+		// TC01: the transforms are applied in order: scale, rotate and move
+		assertEquals("TC01: wrong transformed point", new Point3D(1, 4, 3), t.apply(new Point3D(1, 0, 0)));
+		// TC02: a vector is not moved
+		assertEquals("TC02: wrong transformed vector", new Vector(0, 2, 0), t.apply(new Vector(1, 0, 0)));
+		// TC03: the inverse returns the point
+		Point3D p = new Point3D(-3, 5, 7);
+		assertEquals("TC03: wrong inverse", p, t.inverse().apply(t.apply(p)));
+		// TC04: the normal stays orthogonal to the surface under a non-uniform scale
+		Transform s = Transform.scaling(1, 4, 1);
+		Vector tangent = s.apply(new Vector(1, -1, 0));
+		Vector normal = s.applyToNormal(new Vector(1, 1, 0));
+		assertEquals("TC04: the normal is not orthogonal", 0, tangent.dotProduct(normal), 1e-10);
+		assertEquals("TC04: the normal is not normalized", 1, normal.length(), 1e-10);
+
+		// =============== Boundary Values Tests ==================
+		// TC11: a transform that can't be inverted
+		try {
+			Transform.scaling(1, 0, 1);
+			fail("TC11: a transform that can't be inverted was created");
+		} catch (IllegalArgumentException e) {
+			// the expected exception
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link geometries.Instance#findIntersections(primitives.Ray)}
+	 */
+	@Test
+	public void testFindIntersections() {
+		Random random = new Random(5);
+		Transform[] transforms = { Transform.translation(new Vector(100, 0, 0)),
+				Transform.scaling(0.5, 2, 1.5).then(Transform.rotation(new Vector(1, 1, 0), 30))
+						.then(Transform.translation(new Vector(-100, 10, 0))) };
+		// the shared object and the copies of it's triangles in each place
+		Geometries object = new Geometries();
+		Geometries copies = new Geometries();
+		for (int i = 0; i < 100; i++) {
+			Point3D p1 = new Point3D(random.nextDouble() * 40 - 20, random.nextDouble() * 40 - 20,
+					random.nextDouble() * 40 - 20);
+			Point3D p2 = p1.add(new Vector(8, 0, 2)), p3 = p1.add(new Vector(0, 8, -2));
+			object.add(new Triangle(p1, p2, p3));
+			for (Transform t : transforms)
+				copies.add(new Triangle(t.apply(p1), t.apply(p2), t.apply(p3)));
+		}
+		Geometries scene = new Geometries();
+		for (Transform t : transforms)
+			scene.add(new Instance(object, t));
+		scene.initConstructHeirarchy();
+		copies.initConstructHeirarchy();
+
+		// ============ Equivalence Partitions Tests ==============
+		// TC01: the instances hit like the copies, with the same normals
+		int hits = 0;
+		for (int i = 0; i < 400; i++) {
+			// a ray through the box of one of the instances
+			Point3D target = transforms[i % 2].apply(new Point3D(random.nextDouble() * 40 - 20,
+					random.nextDouble() * 40 - 20, random.nextDouble() * 40 - 20));
+			Point3D origin = new Point3D(random.nextDouble() * 300 - 150, random.nextDouble() * 60 - 30, 100);
+			Ray ray = new Ray(origin, target.subtract(origin));
+			GeoPoint expected = copies.findClosestIntersectionMain(ray, Double.POSITIVE_INFINITY);
+			GeoPoint result = scene.findClosestIntersectionMain(ray, Double.POSITIVE_INFINITY);
+			if (expected == null) {
+				assertNull("TC01: an intersection that the copies don't have", result);
+				continue;
+			}
+			hits++;
+			assertNotNull("TC01: a missed intersection", result);
+			assertEquals("TC01: wrong intersection", 0, expected.point.distance(result.point), 1e-7);
+			assertEquals("TC01: wrong normal", 1, expected.getNormal().dotProduct(result.getNormal()), 1e-9);
+			assertEquals("TC01: wrong number of intersections",
+					copies.findGeoIntersectionsMain(ray, Double.POSITIVE_INFINITY).size(),
+					scene.findGeoIntersectionsMain(ray, Double.POSITIVE_INFINITY).size());
+
+			// =============== Boundary Values Tests ==================
+			// TC11: the intersections are limited by the distance in the space of the scene
+			double d = ray.getOrigin().distance(expected.point);
+			assertNull("TC11: an intersection beyond the max distance",
+					scene.findClosestIntersectionMain(ray, d - 1e-3));
+			assertNotNull("TC11: an intersection before the max distance",
+					scene.findClosestIntersectionMain(ray, d + 1e-3));
+		}
+		assertTrue("the rays missed all the triangles", hits > 50);
+	}
+}
@@ -0,0 +1,146 @@
+package unittests;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Test;
+
+import geometries.TriangleMesh;
+import primitives.*;
+import scene.MeshLoader;
+
+/**
+ * tests the class {@link scene.MeshLoader}
+ */
+public class MeshLoaderTest {
+
+	/**
+	 * the ray that goes down through the unit square (0,0,0)-(1,1,0) at (0.25,
+	 * 0.75)
+	 */
+	private final Ray ray = new Ray(new Point3D(0.25, 0.75, 1), new Vector(0, 0, -1));
+
+	/**
+	 * Test method for {@link scene.MeshLoader#loadObj(java.nio.file.Path)}
+	 *
+	 * @throws IOException if the temporary file can't be written
+	 */
+	@Test
+	public void testLoadObj() throws IOException {
+		// ============ Equivalence Partitions Tests ==============
+		// TC01: a square as a quad with texture and normal indices, comments and
+		// windows line breaks
+		TriangleMesh mesh = MeshLoader.load(write("square.obj", "# a square\r\nmtllib none.mtl\r\n"
+				+ "v 0 0 0\r\nv 1.0 0 0\r\n  v 1 1e0 0\r\nv 0 1 -0.0 1\r\nvt 0 0\r\nvn 0 0 1\r\n\r\n"
+				+ "f 1/1/1 2/1/1 3//1 4 # the face\r\n"));
+		assertEquals("TC01: wrong number of vertices", 4, mesh.getVerticesCount());
+		assertEquals("TC01: wrong number of faces", 2, mesh.getFacesCount());
+		List<Point3D> result = mesh.findIntersections(ray);
+		assertEquals("TC01: wrong intersection", List.of(new Point3D(0.25, 0.75, 0)), result);
+
+		// TC02: negative indices and a file without a line break at the end
+		mesh = MeshLoader.load(write("relative.obj", "v 0 0 0\nv 1 0 0\nv 1 1 0\nf -3 -2 -1\nv 0 1 0\nf 1 3 -1"));
+		assertEquals("TC02: wrong number of faces", 2, mesh.getFacesCount());
+		assertEquals("TC02: wrong intersection", List.of(new Point3D(0.25, 0.75, 0)), mesh.findIntersections(ray));
+
+		// =============== Boundary Values Tests ==================
+		// TC03: a face with 2 vertices
+		try {
+			MeshLoader.load(write("line.obj", "v 0 0 0\nv 1 0 0\nf 1 2\n"));
+			fail("TC03: loaded a face with 2 vertices");
+		} catch (IOException e) {}
+		// TC04: a vertex without a value
+		try {
+			MeshLoader.load(write("short.obj", "v 0 0\nv 1 0 0\nv 1 1 0\nf 1 2 3\n"));
+			fail("TC04: loaded a vertex with 2 values");
+		} catch (IOException e) {}
+	}
+
+	/**
+	 * Test method for {@link scene.MeshLoader#loadPly(java.nio.file.Path)}
+	 *
+	 * @throws IOException if the temporary file can't be written
+	 */
+	@Test
+	public void testLoadPly() throws IOException {
+		// ============ Equivalence Partitions Tests ==============
+		// TC01: a little endian square as a quad, with a color for each vertex
+		TriangleMesh mesh = MeshLoader.load(writePly("square.ply", ByteOrder.LITTLE_ENDIAN));
+		assertEquals("TC01: wrong number of vertices", 4, mesh.getVerticesCount());
+		assertEquals("TC01: wrong number of faces", 2, mesh.getFacesCount());
+		assertEquals("TC01: wrong intersection", List.of(new Point3D(0.25, 0.75, 0)), mesh.findIntersections(ray));
+
+		// TC02: the same square in big endian
+		mesh = MeshLoader.load(writePly("big.ply", ByteOrder.BIG_ENDIAN));
+		assertEquals("TC02: wrong number of faces", 2, mesh.getFacesCount());
+		assertEquals("TC02: wrong intersection", List.of(new Point3D(0.25, 0.75, 0)), mesh.findIntersections(ray));
+
+		// =============== Boundary Values Tests ==================
+		// TC03: an ascii PLY file
+		try {
+			MeshLoader.load(write("ascii.ply", "ply\nformat ascii 1.0\nelement vertex 0\nend_header\n"));
+			fail("TC03: loaded an ascii PLY file");
+		} catch (IOException e) {}
+	}
+
+	/**
+	 * writes a temporary file
+	 *
+	 * @param name    the name of the file
+	 * @param content the content of the file
+	 * @return the path of the file
+	 * @throws IOException if the file can't be written
+	 */
+	private static Path write(String name, String content) throws IOException {
+		return write(name, content.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	/**
+	 * writes a temporary file
+	 *
+	 * @param name    the name of the file
+	 * @param content the content of the file
+	 * @return the path of the file
+	 * @throws IOException if the file can't be written
+	 */
+	private static Path write(String name, byte[] content) throws IOException {
+		Path dir = Files.createTempDirectory("mesh");
+		Path path = dir.resolve(name);
+		Files.write(path, content);
+		path.toFile().deleteOnExit();
+		dir.toFile().deleteOnExit();
+		return path;
+	}
+
+	/**
+	 * writes a binary PLY file of the unit square as one quad
+	 *
+	 * @param name  the name of the file
+	 * @param order the byte order of the values
+	 * @return the path of the file
+	 * @throws IOException if the file can't be written
+	 */
+	private static Path writePly(String name, ByteOrder order) throws IOException {
+		String header = "ply\nformat " + (order == ByteOrder.BIG_ENDIAN ? "binary_big_endian" : "binary_little_endian")
+				+ " 1.0\ncomment a square\nelement vertex 4\nproperty float x\nproperty float y\n"
+				+ "property float z\nproperty uchar red\nelement face 1\nproperty list uchar int vertex_indices\n"
+				+ "end_header\n";
+		byte[] head = header.getBytes(StandardCharsets.US_ASCII);
+		ByteBuffer buffer = ByteBuffer.allocate(head.length + 4 * 13 + 1 + 4 * 4).order(order);
+		buffer.put(head);
+		float[][] square = { { 0, 0, 0 }, { 1, 0, 0 }, { 1, 1, 0 }, { 0, 1, 0 } };
+		for (float[] v : square) {
+			buffer.putFloat(v[0]).putFloat(v[1]).putFloat(v[2]);
+			buffer.put((byte) 200);
+		}
+		buffer.put((byte) 4).putInt(0).putInt(1).putInt(2).putInt(3);
+		return write(name, buffer.array());
+	}
+}
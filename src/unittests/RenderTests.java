@@ -1,5 +1,22 @@
 package unittests;
 
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.MissingResourceException;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
 import org.junit.Test;
 
 import elements.*;
@@ -99,4 +116,427 @@ public class RenderTests {
 		render.printGrid(100, new Color(java.awt.Color.WHITE));
 		render.writeToImage();
 	}
+
+	/**
+	 * a white image
+	 */
+	private static final Function<Ray, Color> FLAT = ray -> new Color(255, 255, 255);
+	/**
+	 * white on the right half of the view plane and black on the left half
+	 */
+	private static final Function<Ray, Color> EDGE = ray -> ray.getDir().getX() > 0 ? new Color(255, 255, 255)
+			: Color.BLACK;
+	/**
+	 * random gray levels everywhere
+	 */
+	private static final Function<Ray, Color> NOISE = ray -> {
+		double gray = ThreadLocalRandom.current().nextDouble(255);
+		return new Color(gray, gray, gray);
+	};
+
+	/**
+	 * a tracer that counts the rays and finds the rays that are traced twice
+	 */
+	private static class CountingTracer extends RayTracerBase {
+		private static final long serialVersionUID = 1L;
+		final AtomicInteger rays = new AtomicInteger();
+		final Set<String> directions = Collections.synchronizedSet(new HashSet<>());
+		int twice = 0;
+		private final Function<Ray, Color> image;
+
+		CountingTracer(Function<Ray, Color> image) {
+			super(new Scene("Counting scene"));
+			this.image = image;
+		}
+
+		@Override
+		public Color traceRay(Ray ray) {
+			rays.incrementAndGet();
+			if (!directions.add(ray.getDir().toString()))
+				++twice;
+			return image.apply(ray);
+		}
+
+		@Override
+		public RayTracerBase setBVH() {
+			return this;
+		}
+	}
+
+	/**
+	 * Test for the adaptive super sampling by a quad tree
+	 * {@link renderer.Render#setAdaptiveDepth(int)}
+	 */
+	@Test
+	public void adaptiveSamplingTest() {
+		// ============ Equivalence Partitions Tests ==============
+		// TC01: a flat image traces only the corners and the centers of the pixels
+		CountingTracer tracer = new CountingTracer(FLAT);
+		new Render().setImageWriter(new ImageWriter("adaptive flat", 8, 8)).setCamera(camera).setRayTracer(tracer)
+				.setAdaptiveDepth(2).renderImage();
+		assertEquals("Wrong number of rays in a flat image", 81 + 64, tracer.rays.get());
+
+		// TC02: an edge divides only the pixels near it, and no ray is traced twice
+		tracer = new CountingTracer(EDGE);
+		new Render().setImageWriter(new ImageWriter("adaptive edge", 8, 8)).setCamera(camera).setRayTracer(tracer)
+				.setAdaptiveDepth(2).renderImage();
+		assertEquals("A ray is traced twice", 0, tracer.twice);
+		// the 81 corners and the centers of the 56 flat pixels, in each pixel on the
+		// right of the edge the left quadrants are divided again: 14 more points in
+		// each row and 2 on the bottom edge
+		assertEquals("Wrong number of rays around an edge", 81 + 56 + 8 * 14 + 2, tracer.rays.get());
+
+		// TC03: the tiles of the threads share the corners inside them
+		tracer = new CountingTracer(FLAT);
+		new Render().setImageWriter(new ImageWriter("adaptive tiles", 8, 8)).setCamera(camera).setRayTracer(tracer)
+				.setAdaptiveDepth(2).setMultithreading(2).setTileSize(4).renderImage();
+		assertEquals("Wrong number of rays in the tiles", 4 * (25 + 16), tracer.rays.get());
+
+		// =============== Boundary Values Tests ==================
+		// TC11: a negative depth
+		try {
+			new Render().setAdaptiveDepth(-1);
+			fail("A negative depth must throw");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	/**
+	 * Test for the progressive sampling {@link renderer.Render#setProgressive(double, int)}
+	 * and {@link renderer.Render#setRayBudget(long)}
+	 */
+	@Test
+	public void progressiveSamplingTest() {
+		// ============ Equivalence Partitions Tests ==============
+		// TC01: a flat image converges after the first round of 4 samples
+		CountingTracer tracer = new CountingTracer(FLAT);
+		new Render().setImageWriter(new ImageWriter("progressive flat", 8, 8)).setCamera(camera)
+				.setRayTracer(tracer).setProgressive(1, 64).renderImage();
+		assertEquals("Wrong number of rays in a flat image", 64 * 4, tracer.rays.get());
+		assertEquals("A ray is traced twice", 0, tracer.twice);
+
+		// TC02: a noisy image takes the maximal number of samples
+		tracer = new CountingTracer(NOISE);
+		new Render().setImageWriter(new ImageWriter("progressive noise", 8, 8)).setCamera(camera)
+				.setRayTracer(tracer).setProgressive(1, 18).setMultithreading(2).setTileSize(4).renderImage();
+		assertEquals("Wrong number of rays in a noisy image", 64 * 18, tracer.rays.get());
+
+		// TC03: the budget stops the noisy image
+		tracer = new CountingTracer(NOISE);
+		new Render().setImageWriter(new ImageWriter("progressive budget", 8, 8)).setCamera(camera)
+				.setRayTracer(tracer).setProgressive(1, 64).setRayBudget(1001).renderImage();
+		assertEquals("The budget is not kept", 1001, tracer.rays.get());
+
+		// TC04: only the pixels of the edge (in the middle of the 7 columns) take
+		// more samples
+		tracer = new CountingTracer(EDGE);
+		new Render().setImageWriter(new ImageWriter("progressive edge", 7, 8)).setCamera(camera)
+				.setRayTracer(tracer).setProgressive(1, 64).renderImage();
+		assertEquals("Wrong number of rays around an edge", 48 * 4 + 8 * 64, tracer.rays.get());
+
+		// =============== Boundary Values Tests ==================
+		// TC11: a budget below one sample for each pixel
+		tracer = new CountingTracer(NOISE);
+		new Render().setImageWriter(new ImageWriter("progressive small budget", 8, 8)).setCamera(camera)
+				.setRayTracer(tracer).setProgressive(1, 64).setRayBudget(10).renderImage();
+		assertEquals("Every pixel must take one sample", 64, tracer.rays.get());
+		// TC13: with tolerance 0 even a flat image takes the maximal number of samples
+		tracer = new CountingTracer(FLAT);
+		new Render().setImageWriter(new ImageWriter("progressive zero tolerance", 8, 8)).setCamera(camera)
+				.setRayTracer(tracer).setProgressive(0, 8).renderImage();
+		assertEquals("Tolerance 0 must refine to the maximal number of samples", 64 * 8, tracer.rays.get());
+		// TC12: a negative tolerance
+		try {
+			new Render().setProgressive(-1, 64);
+			fail("A negative tolerance must throw");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	/**
+	 * Test for the progressive rendering in the background {@link renderer.Render#start()}
+	 * 
+	 * @throws InterruptedException if the test is interrupted
+	 */
+	@Test
+	public void renderJobTest() throws InterruptedException {
+		// ============ Equivalence Partitions Tests ==============
+		// TC01: the preview, the pixels and the refinement of a flat image
+		CountingTracer tracer = new CountingTracer(FLAT);
+		RenderJob job = new Render().setImageWriter(new ImageWriter("job flat", 8, 8)).setCamera(camera)
+				.setRayTracer(tracer).setProgressive(1, 64).start();
+		job.await();
+		assertTrue("The job is not done", job.isDone());
+		assertEquals("Wrong number of passes", 3, job.getPasses());
+		assertEquals("Wrong number of rays in a flat image", 64 * 4, tracer.rays.get());
+
+		// TC02: a cancelled job keeps the image of the finished passes
+		tracer = new CountingTracer(NOISE);
+		job = new Render().setImageWriter(new ImageWriter("job cancel", 64, 64)).setCamera(camera)
+				.setRayTracer(tracer).setMultithreading(2).setProgressive(0, 100000).start();
+		while (job.getPasses() < 2)
+			Thread.sleep(1);
+		assertNotNull("No snapshot", job.snapshot("job snapshot"));
+		job.cancel().await();
+		int rays = tracer.rays.get();
+		Thread.sleep(10);
+		assertEquals("The job goes on after it is cancelled", rays, tracer.rays.get());
+		assertTrue("The job didn't stop", rays < 64 * 64 * 100000);
+
+		// TC03: a job stops at it's deadline
+		tracer = new CountingTracer(NOISE);
+		job = new Render().setImageWriter(new ImageWriter("job deadline", 64, 64)).setCamera(camera)
+				.setRayTracer(tracer).setProgressive(0, 100000).start().setDeadline(Instant.now().plusMillis(50));
+		job.await();
+		assertTrue("The job didn't stop at the deadline", tracer.rays.get() < 64 * 64 * 100000);
+
+		// =============== Boundary Values Tests ==================
+		// TC11: a deadline beyond the range of nanoseconds
+		job = new Render().setImageWriter(new ImageWriter("job far deadline", 8, 8)).setCamera(camera)
+				.setRayTracer(new CountingTracer(NOISE)).setProgressive(0, 100000).start().setDeadline(Instant.MAX);
+		assertFalse("The job stopped at a far deadline", job.isDone());
+		// TC12: waiting is interrupted before the job is finished
+		Thread.currentThread().interrupt();
+		try {
+			job.await();
+			fail("An interrupted wait must throw");
+		} catch (IllegalStateException e) {
+			assertTrue("The interrupt flag is lost", Thread.interrupted());
+		}
+		job.cancel().await();
+		// TC13: an error in the rendering thread
+		job = new Render().setImageWriter(new ImageWriter("job error", 8, 8)).setCamera(camera)
+				.setRayTracer(new CountingTracer(ray -> {
+					throw new Error("Crash");
+				})).setProgressive(1, 64).start();
+		try {
+			job.await();
+			fail("A failed job must throw");
+		} catch (IllegalStateException e) {
+		}
+	}
+
+	/**
+	 * Test for the checkpoints {@link renderer.Render#setCheckpoint(Path, Duration)}
+	 * and {@link renderer.Render#resumeImage()}
+	 * 
+	 * @throws IOException if the old checkpoint can't be deleted
+	 */
+	@Test
+	public void checkpointTest() throws IOException {
+		Path file = Path.of(System.getProperty("user.dir"), "images", "checkpoint test.ckp");
+		Files.deleteIfExists(file);
+		// ============ Equivalence Partitions Tests ==============
+		// TC01: the rendering crashes after 2 of the 4 tiles, the checkpoint is saved
+		// after every tile
+		AtomicInteger traced = new AtomicInteger();
+		CountingTracer tracer = new CountingTracer(ray -> {
+			if (traced.incrementAndGet() > 2 * 16)
+				throw new IllegalStateException("Crash");
+			return new Color(255, 255, 255);
+		});
+		try {
+			new Render().setImageWriter(new ImageWriter("checkpoint crash", 8, 8)).setCamera(camera)
+					.setRayTracer(tracer).setTileSize(4).setCheckpoint(file, Duration.ofNanos(1)).renderImage();
+			fail("The rendering must crash");
+		} catch (IllegalStateException e) {
+		}
+		assertTrue("No checkpoint", Files.exists(file));
+
+		// TC02: the resumed rendering renders only the unfinished tiles and restores
+		// the pixels of the finished ones
+		tracer = new CountingTracer(FLAT);
+		ImageWriter imageWriter = new ImageWriter("checkpoint resume", 8, 8);
+		Render render = new Render().setImageWriter(imageWriter).setCamera(camera).setRayTracer(tracer)
+				.setTileSize(4).setMultithreading(2).setCheckpoint(file, Duration.ofHours(1));
+		render.resumeImage();
+		assertEquals("Wrong number of rays after the resume", 2 * 16, tracer.rays.get());
+		float[] rgb = new float[3];
+		for (int y = 0; y < 8; y++)
+			for (int x = 0; x < 8; x++)
+				assertEquals("Wrong pixel after the resume", 255, imageWriter.getFrameBuffer().getPixel(x, y, rgb)[0],
+						0);
+
+		// TC03: a finished rendering leaves a checkpoint of all the tiles
+		tracer = new CountingTracer(FLAT);
+		render.setRayTracer(tracer).resumeImage();
+		assertEquals("A finished rendering is rendered again", 0, tracer.rays.get());
+
+		// TC04: an interrupted rendering returns after it's running tiles, with the
+		// interrupt flag, and keeps the last checkpoint
+		Files.delete(file);
+		Thread thread = Thread.currentThread();
+		AtomicInteger rays = new AtomicInteger();
+		tracer = new CountingTracer(ray -> {
+			int count = rays.incrementAndGet();
+			if (count == 20)
+				thread.interrupt();
+			// the rest of the rays are slow, so the interrupt is noticed before the end
+			for (long end = System.nanoTime() + (count >= 20 ? 1000000 : 0); System.nanoTime() < end;)
+				;
+			return new Color(255, 255, 255);
+		});
+		new Render().setImageWriter(new ImageWriter("checkpoint interrupt", 16, 16)).setCamera(camera)
+				.setRayTracer(tracer).setTileSize(4).setMultithreading(1).setCheckpoint(file, Duration.ofHours(1))
+				.renderImage();
+		assertTrue("The interrupt flag is lost", Thread.interrupted());
+		int interrupted = tracer.rays.get();
+		assertTrue("The interrupted rendering was finished", interrupted < 16 * 16);
+		assertEquals("A running tile was not finished", 0, interrupted % 16);
+		try {
+			Thread.sleep(50);
+		} catch (InterruptedException e) {
+			fail("The test was interrupted");
+		}
+		assertEquals("The rendering goes on after it was interrupted", interrupted, tracer.rays.get());
+		assertFalse("The interrupted rendering was finished in the checkpoint", Files.exists(file));
+
+		// TC05: the checkpoints that are saved by many threads after every tile don't
+		// overlap and leave no temporary files
+		Render threads = new Render().setImageWriter(new ImageWriter("checkpoint threads", 32, 32)).setCamera(camera)
+				.setRayTracer(new CountingTracer(FLAT)).setTileSize(4).setMultithreading(4)
+				.setCheckpoint(file, Duration.ofNanos(1));
+		threads.renderImage();
+		try (var files = Files.list(file.getParent())) {
+			assertEquals("A temporary checkpoint is left", 0,
+					files.filter(f -> f.getFileName().toString().endsWith(".tmp")).count());
+		}
+		tracer = new CountingTracer(FLAT);
+		threads.setRayTracer(tracer).resumeImage();
+		assertEquals("The checkpoint of the threads is not finished", 0, tracer.rays.get());
+		Files.delete(file);
+
+		// =============== Boundary Values Tests ==================
+		// TC10: without a checkpoint file the whole image is rendered
+		tracer = new CountingTracer(FLAT);
+		render.setRayTracer(tracer).resumeImage();
+		assertEquals("Wrong number of rays without a checkpoint", 64, tracer.rays.get());
+		// TC11: a checkpoint of another image
+		try {
+			new Render().setImageWriter(new ImageWriter("checkpoint other", 9, 8)).setCamera(camera)
+					.setRayTracer(tracer).setTileSize(4).setCheckpoint(file, Duration.ofHours(1)).resumeImage();
+			fail("A checkpoint of another image must throw");
+		} catch (IllegalArgumentException e) {
+		}
+		// TC12: resume without a checkpoint
+		try {
+			new Render().setImageWriter(imageWriter).setCamera(camera).setRayTracer(tracer).resumeImage();
+			fail("Resume without a checkpoint must throw");
+		} catch (MissingResourceException e) {
+		}
+	}
+
+	/**
+	 * a serializable tracer of a gradient by the direction of the ray, that can
+	 * fail once in a process
+	 */
+	private static class GradientTracer extends RayTracerBase {
+		private static final long serialVersionUID = 1L;
+		static final AtomicBoolean FAIL = new AtomicBoolean();
+
+		GradientTracer() {
+			super(new Scene("Gradient scene"));
+		}
+
+		@Override
+		public Color traceRay(Ray ray) {
+			if (FAIL.getAndSet(false))
+				throw new IllegalStateException("Crash");
+			Vector dir = ray.getDir();
+			return new Color(255 * (1 + dir.getX()), 255 * (1 + dir.getY()), 100);
+		}
+
+		@Override
+		public RayTracerBase setBVH() {
+			return this;
+		}
+	}
+
+	/**
+	 * starts a worker in a thread of this process
+	 * 
+	 * @param port the port of the coordinator
+	 */
+	private static void startWorker(int port) {
+		new Thread(() -> {
+			try {
+				new RenderWorker("localhost", port, 2).run();
+			} catch (IOException | IllegalStateException e) {
+				// the worker that crashes
+			}
+		}).start();
+	}
+
+	/**
+	 * checks that two images have the same pixels
+	 * 
+	 * @param message  the message of the failure
+	 * @param expected the expected image
+	 * @param actual   the actual image
+	 */
+	private static void assertSamePixels(String message, ImageWriter expected, ImageWriter actual) {
+		float[] e = new float[3], a = new float[3];
+		for (int y = 0; y < expected.getNy(); y++)
+			for (int x = 0; x < expected.getNx(); x++)
+				assertArrayEquals(message, expected.getFrameBuffer().getPixel(x, y, e),
+						actual.getFrameBuffer().getPixel(x, y, a), 0);
+	}
+
+	/**
+	 * Test for the distributed rendering by {@link renderer.RenderCoordinator} and
+	 * {@link renderer.RenderWorker}
+	 * 
+	 * @throws IOException          if the coordinator can't listen
+	 * @throws InterruptedException if the test is interrupted
+	 */
+	@Test
+	public void distributedRenderTest() throws IOException, InterruptedException {
+		ImageWriter expected = new ImageWriter("distributed expected", 30, 20);
+		new Render().setImageWriter(expected).setCamera(camera).setRayTracer(new GradientTracer()).setTileSize(8)
+				.renderImage();
+		// ============ Equivalence Partitions Tests ==============
+		// TC01: two workers render the image like a single process
+		ImageWriter imageWriter = new ImageWriter("distributed", 30, 20);
+		RenderCoordinator coordinator = new RenderCoordinator(new Render().setImageWriter(imageWriter)
+				.setCamera(camera).setRayTracer(new GradientTracer()).setTileSize(8), 0);
+		startWorker(coordinator.getPort());
+		startWorker(coordinator.getPort());
+		coordinator.renderImage();
+		assertSamePixels("Wrong pixels of the workers", expected, imageWriter);
+
+		// TC02: the tiles of a worker that crashes are rendered by the other
+		GradientTracer.FAIL.set(true);
+		imageWriter = new ImageWriter("distributed crash", 30, 20);
+		coordinator = new RenderCoordinator(new Render().setImageWriter(imageWriter).setCamera(camera)
+				.setRayTracer(new GradientTracer()).setTileSize(8), 0);
+		startWorker(coordinator.getPort());
+		startWorker(coordinator.getPort());
+		coordinator.renderImage();
+		assertFalse("No worker crashed", GradientTracer.FAIL.get());
+		assertSamePixels("Wrong pixels after a crash", expected, imageWriter);
+
+		// TC03: workers in other processes
+		imageWriter = new ImageWriter("distributed processes", 30, 20);
+		coordinator = new RenderCoordinator(new Render().setImageWriter(imageWriter).setCamera(camera)
+				.setRayTracer(new GradientTracer()).setTileSize(8), 0);
+		Process[] workers = new Process[2];
+		for (int k = 0; k < workers.length; k++)
+			workers[k] = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(), "-cp",
+					System.getProperty("java.class.path"), RenderWorker.class.getName(), "localhost",
+					String.valueOf(coordinator.getPort()), "1").inheritIO().start();
+		coordinator.renderImage();
+		for (Process worker : workers) {
+			assertTrue("A worker didn't stop", worker.waitFor(10, TimeUnit.SECONDS));
+			assertEquals("A worker failed", 0, worker.exitValue());
+		}
+		assertSamePixels("Wrong pixels of the processes", expected, imageWriter);
+
+		// =============== Boundary Values Tests ==================
+		// TC10: a tile timeout that is not positive
+		try {
+			coordinator.setTileTimeout(Duration.ZERO);
+			fail("A zero timeout must throw");
+		} catch (IllegalArgumentException e) {
+		}
+	}
 }
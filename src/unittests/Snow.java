@@ -30,12 +30,53 @@ import renderer.Render;
 import scene.Scene;
 
 public class Snow {
-	private Scene scene = new Scene("Snow").setBackground(new Color(70, 120, 200));
-
 	@Test
 	public void test() {
-		Camera camera = new Camera(new Point3D(100, 30, 100), new Point3D(0, 7, 0)).setViewPlaneSize(3200, 1800)
-				.setDistance(10000);
+		Camera camera = snowCamera();
+		// the hierarchy of the scene is built once for all the frames
+		BasicRayTracer rayTracer = new BasicRayTracer(snowScene());
+		int k = 0;
+		double t = 0, s = 1;
+		for (double i = 0, j = 0; t < 1500; k++) {
+			if(i < 30) {
+				 i+= 0.1; j-= 0.1;
+			}
+			else {
+				s += 0.30;
+				t = s*s;
+			}
+
+			ImageWriter imageWriter = new ImageWriter("Snow" + k, 1024, 576);
+			//camera.setPositionAndTarget(new Point3D(350, 700, 350), new Point3D(0, 0, 0));
+			camera.setPositionAndTarget(new Point3D(380 + j + t, 20 + 2*i + t*0.5, 320 + i + t), new Point3D(0, 0, 0));
+	
+			Render render = new Render() //
+					.setImageWriter(imageWriter) //
+					.setCamera(camera) //
+					.setRayTracer(rayTracer).setMultithreading(3).setDebugPrint();
+
+			render.renderImage();
+			render.writeToImage();
+		}
+	}
+
+	/**
+	 * Produce the camera of the first frame of the snow scene
+	 * 
+	 * @return the camera
+	 */
+	public static Camera snowCamera() {
+		return new Camera(new Point3D(100, 30, 100), new Point3D(0, 7, 0)).setViewPlaneSize(3200, 1800)
+				.setDistance(10000).setPositionAndTarget(new Point3D(380, 20, 320), new Point3D(0, 0, 0));
+	}
+
+	/**
+	 * Produce the snow scene: planets, a snowman, snowflakes and trees
+	 * 
+	 * @return the scene
+	 */
+	public static Scene snowScene() {
+		Scene scene = new Scene("Snow").setBackground(new Color(70, 120, 200));
 		Color snowColor = new Color(100, 100, 100);
 
 		Geometry planet1 = new Sphere(new Point3D(100, -990, 100), 1000).setEmission(snowColor)
@@ -66,46 +107,22 @@ public class Snow {
 		List<Intersectable> trees1 = produceRandomTreesOnSphere(200,100, (Sphere) planet3, 5, 20, 0.7f,2);
 		List<Intersectable> trees2 = produceRandomTreesOnSphere(200,100, (Sphere) planet2, 5, 20, 0.7f,3);
 		List<Intersectable> smallTrees = produceRandomSmallTreesOnSphere(150, (Sphere) planet4, 5, 20, 0.2f);
-		int k = 0;
-		double t = 0, s = 1;
-		for (double i = 0, j = 0; t < 1500; k++) {
-			snow.forEach(g -> g = new Sphere(((Sphere) g).getCenter().add(new Vector(0, -0.4, 0)), 0.2));
-			if(i < 30) {
-				 i+= 0.1; j-= 0.1;
-			}
-			else {
-				s += 0.30;
-				t = s*s;
-			}
-			scene.geometries.add(snow);
-			scene.geometries.add(planet1, planet2, planet3, planet4);
-			scene.geometries.add(snowMan);
-			scene.geometries.add(tree1);
-			scene.geometries.add(tree2);
-			scene.geometries.add(tree3);
-			scene.geometries.add(trees1);
-			scene.geometries.add(trees2);
-			scene.geometries.add(smallTrees);
-			scene.lights = List.of(new DirectionalLight(new Color(400, 400, 400), new Vector(1, -1, -3)),
-					new DirectionalLight(new Color(200, 200, 200), new Vector(0, -1, 0)));
-			scene.setAmbientLight(new AmbientLight(new Color(100, 100, 255), 0.1));
-
-			ImageWriter imageWriter = new ImageWriter("Snow" + k, 1024, 576);
-			//camera.setPositionAndTarget(new Point3D(350, 700, 350), new Point3D(0, 0, 0));
-			camera.setPositionAndTarget(new Point3D(380 + j + t, 20 + 2*i + t*0.5, 320 + i + t), new Point3D(0, 0, 0));
-	
-			Render render = new Render() //
-					.setImageWriter(imageWriter) //
-					.setCamera(camera) //
-					.setRayTracer(new BasicRayTracer(scene)).setMultithreading(3).setDebugPrint();
-
-			render.renderImage();
-			render.writeToImage();
-			scene.geometries = new Geometries();
-		}
+		scene.geometries.add(snow);
+		scene.geometries.add(planet1, planet2, planet3, planet4);
+		scene.geometries.add(snowMan);
+		scene.geometries.add(tree1);
+		scene.geometries.add(tree2);
+		scene.geometries.add(tree3);
+		scene.geometries.add(trees1);
+		scene.geometries.add(trees2);
+		scene.geometries.add(smallTrees);
+		scene.lights = List.of(new DirectionalLight(new Color(400, 400, 400), new Vector(1, -1, -3)),
+				new DirectionalLight(new Color(200, 200, 200), new Vector(0, -1, 0)));
+		scene.setAmbientLight(new AmbientLight(new Color(100, 100, 255), 0.1));
+		return scene;
 	}
 
-	private List<Intersectable> produceSonw(int num, Boundary bound) {
+	private static List<Intersectable> produceSonw(int num, Boundary bound) {
 		List<Intersectable> snow = new LinkedList<Intersectable>();
 		for (int i = 0; i < num; i++) {
 			double x = ThreadLocalRandom.current().nextDouble(bound.minX, bound.maxX);
@@ -117,7 +134,7 @@ public class Snow {
 		return snow;
 	}
 
-	private Geometries produceTree(int num, Point3D p, double radius, double height) {
+	private static Geometries produceTree(int num, Point3D p, double radius, double height) {
 		double delta = radius * 0.1;
 		double pX = p.getX(), pY = p.getY() + radius, pZ = p.getZ();
 		double maxX = pX + radius, minX = pX - radius;
@@ -147,7 +164,7 @@ public class Snow {
 		return tree;
 	}
 
-	private List<Intersectable> produceRandomSmallTreesOnSphere(int num, Sphere sphere, double radius, double height, float range) {
+	private static List<Intersectable> produceRandomSmallTreesOnSphere(int num, Sphere sphere, double radius, double height, float range) {
 		List<Intersectable> trees = new LinkedList<>();
 		double sRadius = sphere.getRadius(), delta = sRadius * range;
 		double sqrRadius = sRadius * sRadius;
@@ -205,7 +222,7 @@ public class Snow {
 	 * @param quarter 1: +x,+z. 2: -x,+z. 3: +x,-z. 4: -x,-z. else: all
 	 * @return
 	 */
-	private List<Intersectable> produceRandomTreesOnSphere(int numOfTrees,int numOfLeaves, Sphere sphere, double radius, double height, float SpeardRange,int quarter) {
+	private static List<Intersectable> produceRandomTreesOnSphere(int numOfTrees,int numOfLeaves, Sphere sphere, double radius, double height, float SpeardRange,int quarter) {
 		List<Intersectable> trees = new LinkedList<>();
 		double sRadius = sphere.getRadius(), delta = sRadius * SpeardRange;
 		double sqrRadius = sRadius * sRadius;
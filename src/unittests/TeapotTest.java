@@ -14,9 +14,7 @@ import scene.Scene;
  * @author Dan
  */
 public class TeapotTest {
-	private final Camera camera = new Camera(new Point3D(0, 0, -1000), new Vector(0, 0, 1), new Vector(0, 1, 0)) //
-			.setDistance(1000).setViewPlaneSize(200, 200);
-	private final Scene scene = new Scene("Test scene");
+	private final Camera camera = teapotCamera();
 
 	private static final Color color = new Color(200, 0, 0);
 	private static final Material mat = new Material().setKd(0.5).setKs(0.5).setShininess(60);
@@ -559,6 +557,34 @@ public class TeapotTest {
 	 */
 	@Test
 	public void teapot1() {
+		ImageWriter imageWriter = new ImageWriter("teapot", 800, 800);
+		Render render = new Render() //
+				.setCamera(camera) //
+				.setImageWriter(imageWriter) //
+				.setRayTracer(new BasicRayTracer(teapotScene())) //
+				.setMultithreading(3).setDebugPrint();
+		render.renderImage();
+		render.printGrid(50, new Color(java.awt.Color.YELLOW));
+		render.writeToImage();
+	}
+
+	/**
+	 * Produce the camera that looks at the teapot
+	 * 
+	 * @return the camera
+	 */
+	public static Camera teapotCamera() {
+		return new Camera(new Point3D(0, 0, -1000), new Vector(0, 0, 1), new Vector(0, 1, 0)) //
+				.setDistance(1000).setViewPlaneSize(200, 200);
+	}
+
+	/**
+	 * Produce the scene of the teapot model
+	 * 
+	 * @return the scene
+	 */
+	public static Scene teapotScene() {
+		Scene scene = new Scene("Test scene");
 		scene.geometries.add( //
 				new Triangle(pnts[7], pnts[6], pnts[1]).setEmission(color).setMaterial(mat), //
 				new Triangle(pnts[1], pnts[2], pnts[7]).setEmission(color).setMaterial(mat), //
@@ -1555,16 +1581,7 @@ public class TeapotTest {
 		);
 		scene.lights.add(new PointLight(new Color(500, 500, 500), new Point3D(100, 0, -100)) //
 				.setKq(0.000001));
-
-		ImageWriter imageWriter = new ImageWriter("teapot", 800, 800);
-		Render render = new Render() //
-				.setCamera(camera) //
-				.setImageWriter(imageWriter) //
-				.setRayTracer(new BasicRayTracer(scene)) //
-				.setMultithreading(3).setDebugPrint();
-		render.renderImage();
-		render.printGrid(50, new Color(java.awt.Color.YELLOW));
-		render.writeToImage();
+		return scene;
 	}
 
 }
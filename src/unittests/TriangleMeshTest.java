@@ -0,0 +1,154 @@
+package unittests;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import geometries.*;
+import geometries.Intersectable.GeoPoint;
+import primitives.*;
+
+/**
+ * tests the class {@link geometries.TriangleMesh}
+ */
+public class TriangleMeshTest {
+
+	/**
+	 * the vertices of a bumpy n X n grid in the XZ plane, 3 values for each vertex
+	 *
+	 * @param random the random generator
+	 * @param n      the number of vertices along each side
+	 * @return the vertices of the grid
+	 */
+	private static double[] gridVertices(Random random, int n) {
+		double[] vertices = new double[3 * n * n];
+		for (int i = 0; i < n; i++)
+			for (int j = 0; j < n; j++) {
+				int v = 3 * (i * n + j);
+				vertices[v] = j * 2 - n;
+				vertices[v + 1] = random.nextDouble() * 3;
+				vertices[v + 2] = i * 2 - n;
+			}
+		return vertices;
+	}
+
+	/**
+	 * the faces of an n X n grid, 2 faces for each square
+	 *
+	 * @param n the number of vertices along each side
+	 * @return the index buffer of the faces
+	 */
+	private static int[] gridIndices(int n) {
+		int[] indices = new int[6 * (n - 1) * (n - 1)];
+		int k = 0;
+		for (int i = 0; i < n - 1; i++)
+			for (int j = 0; j < n - 1; j++) {
+				int a = i * n + j, b = a + 1, c = a + n, d = c + 1;
+				indices[k++] = a;
+				indices[k++] = b;
+				indices[k++] = d;
+				indices[k++] = a;
+				indices[k++] = d;
+				indices[k++] = c;
+			}
+		return indices;
+	}
+
+	/**
+	 * Test method for
+	 * {@link geometries.Intersectable#findClosestIntersectionMain(primitives.Ray, double)}
+	 * and {@link geometries.Intersectable#findIntersections(primitives.Ray)}
+	 */
+	@Test
+	public void testFindIntersections() {
+		Random random = new Random(3);
+		int n = 30;
+		double[] vertices = gridVertices(random, n);
+		int[] indices = gridIndices(n);
+		TriangleMesh mesh = new TriangleMesh(vertices, indices);
+		Geometries triangles = new Geometries();
+		for (int f = 0; f < indices.length; f += 3)
+			triangles.add(new Triangle(point(vertices, indices[f]), point(vertices, indices[f + 1]),
+					point(vertices, indices[f + 2])));
+		triangles.initConstructHeirarchy();
+		assertEquals("wrong number of faces", indices.length / 3, mesh.getFacesCount());
+
+		// ============ Equivalence Partitions Tests ==============
+		GeoPoint hit = null;
+		for (int i = 0; i < 300; i++) {
+			Ray ray = new Ray(new Point3D(random.nextDouble() * 40 - 20, 30, random.nextDouble() * 40 - 20),
+					new Vector(random.nextDouble() - 0.5, -1, random.nextDouble() - 0.5));
+			// TC01: the same closest point and normal as the separate triangles
+			GeoPoint expected = triangles.findClosestIntersectionMain(ray, Double.POSITIVE_INFINITY);
+			GeoPoint result = mesh.findClosestIntersectionMain(ray, Double.POSITIVE_INFINITY);
+			if (expected == null) {
+				assertNull("TC01: an intersection was found for a missing ray", result);
+				continue;
+			}
+			assertNotNull("TC01: missing intersection", result);
+			hit = result;
+			assertEquals("TC01: wrong closest point", 0, expected.point.distance(result.point), 1e-9);
+			assertEquals("TC01: wrong normal", expected.getNormal(), result.getNormal());
+			assertSame("TC01: the face doesn't have the material of the mesh", mesh.getMaterial(),
+					result.geometry.getMaterial());
+			assertEquals("TC01: wrong normal of the mesh at the point", expected.getNormal(),
+					mesh.getNormal(result.point));
+
+			// TC02: the same number of intersections as the separate triangles
+			List<Point3D> all = triangles.findIntersections(ray);
+			assertEquals("TC02: wrong number of intersections", all.size(), mesh.findIntersections(ray).size());
+		}
+
+		// =============== Boundary Values Tests ==================
+		// TC03: the ray misses the mesh
+		Ray ray = new Ray(new Point3D(0, 30, 0), new Vector(0, 1, 0));
+		assertNull("TC03: intersection with a missing ray", mesh.findIntersections(ray));
+		// TC04: an empty mesh
+		assertNull("TC04: intersection with an empty mesh",
+				new TriangleMesh(new double[0], new int[0]).findIntersections(ray));
+		// TC05: a point that is not on the mesh has no normal
+		try {
+			mesh.getNormal(new Point3D(0, 30, 0));
+			fail("TC05: a normal was found for a point that is not on the mesh");
+		} catch (IllegalArgumentException e) {
+			// the expected exception
+		}
+		// TC06: the material that is set on a face is the material of the mesh
+		Material material = new Material();
+		hit.geometry.setMaterial(material);
+		assertSame("TC06: the material was not set on the mesh", material, mesh.getMaterial());
+	}
+
+	/**
+	 * Test method for {@link geometries.TriangleMesh#TriangleMesh(double[], int[])}
+	 */
+	@Test
+	public void testConstructor() {
+		// =============== Boundary Values Tests ==================
+		// TC01: an index that is not of a vertex
+		try {
+			new TriangleMesh(new double[] { 0, 0, 0, 1, 0, 0, 0, 1, 0 }, new int[] { 0, 1, 3 });
+			fail("TC01: constructed a mesh with an index that is not of a vertex");
+		} catch (IllegalArgumentException e) {}
+
+		// TC02: the index buffer is not of whole faces
+		try {
+			new TriangleMesh(new double[] { 0, 0, 0, 1, 0, 0, 0, 1, 0 }, new int[] { 0, 1 });
+			fail("TC02: constructed a mesh that is not of whole faces");
+		} catch (IllegalArgumentException e) {}
+	}
+
+	/**
+	 * creates the point of a vertex
+	 *
+	 * @param vertices the values of the vertices
+	 * @param v        the index of the vertex
+	 * @return the point of the vertex
+	 */
+	private static Point3D point(double[] vertices, int v) {
+		return new Point3D(vertices[3 * v], vertices[3 * v + 1], vertices[3 * v + 2]);
+	}
+}
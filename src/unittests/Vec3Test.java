@@ -0,0 +1,79 @@
+package unittests;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import primitives.*;
+
+/**
+ * test class for {@link Vec3}
+ */
+public class Vec3Test {
+
+	/**
+	 * Test method for {@link primitives.Vec3#cross(primitives.Vec3)} and
+	 * {@link primitives.Vec3#triple(primitives.Vec3, primitives.Vec3)}.
+	 */
+	@Test
+	public void testCross() {
+		Vector v1 = new Vector(1, 2, 3);
+		Vector v2 = new Vector(-2, 0.5, 4);
+		Vector v3 = new Vector(0.3, -1, 2);
+
+		// ============ Equivalence Partitions Tests ==============
+		// TC01: the same cross product as Vector
+		assertEquals("TC01: wrong cross product", v1.crossProduct(v2), new Vec3(v1).cross(new Vec3(v2)).toVector());
+
+		// TC02: the triple product is the dot product of the cross product
+		assertEquals("TC02: wrong triple product", v1.dotProduct(v2.crossProduct(v3)),
+				new Vec3(v1).triple(new Vec3(v2), new Vec3(v3)), 1e-10);
+
+		// =============== Boundary Values Tests ==================
+		// TC03: the cross product of parallel vectors is the zero vector (allowed)
+		assertTrue("TC03: cross product of parallel vectors", new Vec3(v1).cross(new Vec3(2, 4, 6)).isZero());
+	}
+
+	/**
+	 * Test method for {@link primitives.Vec3#subtract(primitives.Point3D)} and
+	 * {@link primitives.Vec3#addScaled(double, primitives.Vec3)}.
+	 */
+	@Test
+	public void testSubtractAdd() {
+		Point3D p1 = new Point3D(1, 2, 3);
+		Point3D p2 = new Point3D(4, -1, 0.5);
+
+		// ============ Equivalence Partitions Tests ==============
+		// TC01: the same as Point3D.subtract
+		assertEquals("TC01: wrong subtract", p1.subtract(p2), new Vec3(p1).subtract(p2).toVector());
+
+		// TC02: the same as Point3D.add(Vector.scale)
+		Vector v = new Vector(0.5, 1, -2);
+		assertEquals("TC02: wrong addScaled", p1.add(v.scale(3)), new Vec3(p1).addScaled(3, new Vec3(v)).toPoint3D());
+
+		// =============== Boundary Values Tests ==================
+		// TC03: subtracting a point from itself is the zero vector
+		assertTrue("TC03: subtract the same point", new Vec3(p1).subtract(p1).isZero());
+	}
+
+	/**
+	 * Test method for the static helpers on double arrays
+	 */
+	@Test
+	public void testArrays() {
+		double[] a = { 9, 1, 2, 3, 4, 5, 6 };
+
+		// ============ Equivalence Partitions Tests ==============
+		// TC01: dot product at offsets
+		assertEquals("TC01: wrong dot product", 32, Vec3.dot(a, 1, a, 4), 0);
+
+		// TC02: subtract and cross product into an array
+		double[] to = new double[6];
+		Vec3.subtract(a, 4, a, 1, to, 0);
+		assertArrayEquals("TC02: wrong subtract", new double[] { 3, 3, 3 }, new double[] { to[0], to[1], to[2] }, 0);
+		Vec3.cross(a, 1, a, 4, to, 3);
+		assertEquals("TC02: wrong cross product", new Vector(1, 2, 3).crossProduct(new Vector(4, 5, 6)),
+				new Vector(to[3], to[4], to[5]));
+		assertEquals("TC02: wrong length", Math.sqrt(14), Vec3.length(a, 1), 1e-12);
+	}
+}
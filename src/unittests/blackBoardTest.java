@@ -4,6 +4,9 @@
 package unittests;
 
 import static org.junit.Assert.*;
+
+import java.util.List;
+
 import primitives.Color;
 import primitives.Point3D;
 import primitives.Vector;
@@ -34,4 +37,62 @@ public class blackBoardTest {
 		imageWriter.writeToImage();
 	}
 
+	/**
+	 * the 3d points of a board of 2X2 on the xy plane around the origin
+	 * 
+	 * @param bb       the board
+	 * @param scramble the key of the scrambling
+	 * @return the points
+	 */
+	private static List<Point3D> points(BlackBoard bb, int scramble) {
+		return bb.setWidth(2).setHeight(2).generate3dPoints(new Vector(0, 1, 0), new Vector(1, 0, 0),
+				new Point3D(0, 0, 0), scramble);
+	}
+
+	/**
+	 * Test method for the low-discrepancy boards
+	 * {@link renderer.BlackBoard#squareHalton(int, double)},
+	 * {@link renderer.BlackBoard#squareSobol(int, double)},
+	 * {@link renderer.BlackBoard#squareR2(int, double)},
+	 * {@link renderer.BlackBoard#squareOwen(int, double)}.
+	 */
+	@Test
+	public void testLowDiscrepancy() {
+		BlackBoard[] boards = { BlackBoard.squareHalton(64, 1), BlackBoard.squareSobol(64, 1),
+				BlackBoard.squareR2(64, 1), BlackBoard.squareOwen(64, 1) };
+		// ============ Equivalence Partitions Tests ==============
+		// TC01: all the points are in the square and the same key gives the same points
+		for (BlackBoard bb : boards) {
+			assertEquals("Wrong number of points", 64, bb.getN());
+			List<Point3D> points = points(bb, 7);
+			assertEquals("Wrong number of points", 64, points.size());
+			for (Point3D p : points)
+				assertTrue("Point out of the board",
+						Math.abs(p.getX()) <= 1 && Math.abs(p.getY()) <= 1 && p.getZ() == 0);
+			assertEquals("The same key must give the same points", points, points(bb, 7));
+			// TC02: another key gives other points
+			assertNotEquals("Another key must scramble the points", points, points(bb, 8));
+		}
+
+		// TC03: Owen scrambling keeps every power of 2 points stratified
+		for (int key = 0; key < 10; key++) {
+			boolean[] cells = new boolean[16];
+			for (Point3D p : points(BlackBoard.squareOwen(16, 1), key)) {
+				int cell = (int) ((p.getX() + 1) * 2) + 4 * (int) ((p.getY() + 1) * 2);
+				assertFalse("Two points in the same cell", cells[cell]);
+				cells[cell] = true;
+			}
+		}
+
+		// =============== Boundary Values Tests ==================
+		// TC11: a single point
+		assertEquals("Wrong number of points", 1, points(BlackBoard.squareSobol(1, 1), 0).size());
+		// TC12: no points
+		try {
+			BlackBoard.squareHalton(0, 1);
+			fail("A board without points must throw");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
 }
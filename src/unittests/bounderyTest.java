@@ -50,12 +50,59 @@ public class bounderyTest {
 				+ "and goes outside from the boundary (no intersections)", b.isIntersect(r,Double.POSITIVE_INFINITY));
 	}
 
+	@Test
+	public void isIntersectParallelTest() {
+		Boundary b = new Boundary(5, -5, 5, -5, 5, -5);
+		// TC01: ray parallel to two axes goes through the boundary
+		Ray r = new Ray(new Point3D(1, 2, 20), new Vector(0, 0, -1));
+		assertTrue("TC01: parallel ray intersect the boundary", b.isIntersect(r, Double.POSITIVE_INFINITY));
+
+		// TC02: ray parallel to two axes passes beside the boundary
+		r = new Ray(new Point3D(6, 2, 20), new Vector(0, 0, -1));
+		assertFalse("TC02: parallel ray dosen't intersect the boundary", b.isIntersect(r, Double.POSITIVE_INFINITY));
+
+		// TC03: the boundary is farther than the max distance
+		r = new Ray(new Point3D(1, 2, 20), new Vector(0, 0, -1));
+		assertFalse("TC03: boundary beyond the max distance", b.isIntersect(r, 10));
+
+		// TC04: ray parallel to two axes that starts on a side of the boundary
+		r = new Ray(new Point3D(5, 2, 20), new Vector(0, 0, -1));
+		assertTrue("TC04: parallel ray on the side of the boundary", b.isIntersect(r, Double.POSITIVE_INFINITY));
+
+		// TC05: an empty boundary (of an empty Geometries) is the whole space
+		b = new Geometries().getBoundary();
+		assertTrue("TC05: empty boundary", b.isIntersect(r, Double.POSITIVE_INFINITY));
+	}
+
 	@Test
 	public void generatesBoundary() {
-		Scene scene = new Scene("Boundary test");
+		ImageWriter imageWriter = new ImageWriter("Boundary test", 1024, 576);
+		Render render = new Render() //
+				.setImageWriter(imageWriter) //
+				.setCamera(boundaryCamera()) //
+				.setRayTracer(new BasicRayTracer(boundaryScene())).setMultithreading(3).setDebugPrint();
 
-		Camera camera = new Camera(new Point3D(40, 20, -120), new Point3D(0, 2, 0)).setViewPlaneSize(3200, 1800)
+		render.renderImage();
+		render.writeToImage();
+	}
+
+	/**
+	 * Produce the camera of the boundary scene
+	 * 
+	 * @return the camera
+	 */
+	public static Camera boundaryCamera() {
+		return new Camera(new Point3D(40, 20, -120), new Point3D(0, 2, 0)).setViewPlaneSize(3200, 1800)
 				.setDistance(10000); //
+	}
+
+	/**
+	 * Produce a scene of a few geometries with transparent cubes of their boundaries
+	 * 
+	 * @return the scene
+	 */
+	public static Scene boundaryScene() {
+		Scene scene = new Scene("Boundary test");
 
 		scene.setAmbientLight(new AmbientLight(new Color(255, 255, 255), 0.1));
 
@@ -86,14 +133,7 @@ public class bounderyTest {
 //                ,new SpotLight(new Color(30,3,200), new Point3D(10, -30, 30), new Vector(-1,-3,-3))
 //            	.setKB(40).setKl(0.0001).setKq(0.00005))
 		);
-		ImageWriter imageWriter = new ImageWriter("Boundary test", 1024, 576);
-		Render render = new Render() //
-				.setImageWriter(imageWriter) //
-				.setCamera(camera) //
-				.setRayTracer(new BasicRayTracer(scene)).setMultithreading(3).setDebugPrint();
-
-		render.renderImage();
-		render.writeToImage();
+		return scene;
 	}
 
 	/**
@@ -102,7 +142,7 @@ public class bounderyTest {
 	 * @param geomets the geometries
 	 * @return instance of geometries with the "geometries" and their cubes
 	 */
-	private Geometries cubesByBoundary(Geometry... geomets) {
+	private static Geometries cubesByBoundary(Geometry... geomets) {
 		Geometries geometries = new Geometries(geomets);
 		for (Geometry g : geomets) {
 			double maxX = g.getBoundary().maxX, minX = g.getBoundary().minX;